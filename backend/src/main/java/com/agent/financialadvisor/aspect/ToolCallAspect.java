@@ -1,20 +1,26 @@
 package com.agent.financialadvisor.aspect;
 
+import com.agent.financialadvisor.service.ToolResultEncoder;
 import com.agent.financialadvisor.service.WebSocketService;
 import dev.langchain4j.agent.tool.Tool;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -38,6 +44,12 @@ public class ToolCallAspect {
 
     private final WebSocketService webSocketService;
 
+    /** Display name, method name and parameter names of a @Tool method, resolved once per method. */
+    private record ToolMetadata(String methodName, String displayName, String[] parameterNames) {}
+
+    // Reflection and camelCase formatting used to run on every tool call; they are per-method constants.
+    private final Map<Method, ToolMetadata> metadataCache = new ConcurrentHashMap<>();
+
     // Thread-local storage for session ID (set by OrchestratorService)
     // Using InheritableThreadLocal to propagate to child threads (CompletableFuture)
     private static final InheritableThreadLocal<String> sessionIdHolder = new InheritableThreadLocal<>();
@@ -46,6 +58,11 @@ public class ToolCallAspect {
     // orchestrator before each execution and on session clear.
     private static final Map<String, List<String>> sessionToolResults = new ConcurrentHashMap<>();
 
+    // Per-session "already captured" markers (e.g. the compact-encoding schema legend), reset together
+    // with the raw results: every sub-agent conversation gets the legend, but the evaluator prompt
+    // built from this capture carries it once per tool.
+    private static final Map<String, Set<String>> sessionFirstUseMarkers = new ConcurrentHashMap<>();
+
     @Autowired
     public ToolCallAspect(WebSocketService webSocketService) {
         this.webSocketService = webSocketService;
@@ -72,17 +89,27 @@ public class ToolCallAspect {
     /** Drop any captured raw tool results for this session (used on session clear / before runs). */
     public static void clearToolResults(String sessionId) {
         sessionToolResults.remove(sessionId);
+        sessionFirstUseMarkers.remove(sessionId);
+    }
+
+    /** True the first time {@code marker} is seen for this session since the last clear. */
+    public static boolean markFirstUse(String sessionId, String marker) {
+        return sessionFirstUseMarkers
+                .computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet())
+                .add(marker);
     }
 
-    private static void recordToolResult(String sessionId, String toolMethod, Object result) {
-        if (sessionId == null || result == null) {
+    private static void recordToolResult(String sessionId, String toolMethod, String raw) {
+        if (sessionId == null || raw == null) {
             return;
         }
         List<String> results = sessionToolResults.computeIfAbsent(sessionId, k -> new CopyOnWriteArrayList<>());
         if (results.size() >= MAX_RAW_RESULTS_PER_SESSION) {
             return;
         }
-        String raw = result.toString();
+        if (ToolResultEncoder.hasSchema(raw) && !markFirstUse(sessionId, "schema:" + toolMethod)) {
+            raw = ToolResultEncoder.withoutSchema(raw);
+        }
         if (raw.length() > MAX_RAW_RESULT_LENGTH) {
             raw = raw.substring(0, MAX_RAW_RESULT_LENGTH - 3) + "...";
         }
@@ -99,29 +126,38 @@ public class ToolCallAspect {
             return joinPoint.proceed();
         }
 
-        String toolName = getToolName(joinPoint, tool);
-        Map<String, Object> parameters = extractParameters(joinPoint);
-        
-        String paramsStr = formatParameters(parameters);
-        log.info("🔧 [AGENT] Tool call: {} with params: {} for sessionId={}", 
-                toolName, paramsStr, sessionId);
+        ToolMetadata metadata = metadataFor(joinPoint);
+        String toolName = metadata.displayName();
+        Map<String, Object> parameters = extractParameters(metadata, joinPoint.getArgs());
+
+        if (log.isInfoEnabled()) {
+            log.info("🔧 [AGENT] Tool call: {} with params: {} for sessionId={}",
+                    toolName, formatParameters(parameters), sessionId);
+        }
         
         long startTime = System.currentTimeMillis();
-        
-        // Send tool call notification
-        webSocketService.sendToolCall(sessionId, toolName, parameters);
-        
-        // Send to unified agent activity stream
-        Map<String, Object> toolCallEvent = new HashMap<>();
-        toolCallEvent.put("type", "tool_call");
-        toolCallEvent.put("toolName", toolName);
-        toolCallEvent.put("parameters", parameters);
-        toolCallEvent.put("content", "Calling " + formatToolCall(toolName, parameters));
-        webSocketService.sendAgentActivity(sessionId, toolCallEvent);
-        
-        // Send human-friendly thinking update
-        String humanFriendly = formatToolCall(toolName, parameters);
-        webSocketService.sendReasoning(sessionId, "🔧 Calling tool: " + humanFriendly);
+
+        // Events are only built for topics somebody is subscribed to (the UI listens to
+        // agent-activity while the thinking panel is open; the other topics are optional).
+        if (webSocketService.hasSubscribers("tool-call", sessionId)) {
+            webSocketService.sendToolCall(sessionId, toolName, parameters);
+        }
+        boolean activityListeners = webSocketService.hasSubscribers("agent-activity", sessionId);
+        boolean reasoningListeners = webSocketService.hasSubscribers("reasoning", sessionId);
+        if (activityListeners || reasoningListeners) {
+            String humanFriendly = formatToolCall(toolName, parameters);
+            if (activityListeners) {
+                Map<String, Object> toolCallEvent = new HashMap<>();
+                toolCallEvent.put("type", "tool_call");
+                toolCallEvent.put("toolName", toolName);
+                toolCallEvent.put("parameters", parameters);
+                toolCallEvent.put("content", "Calling " + humanFriendly);
+                webSocketService.sendAgentActivity(sessionId, toolCallEvent);
+            }
+            if (reasoningListeners) {
+                webSocketService.sendReasoning(sessionId, "🔧 Calling tool: " + humanFriendly);
+            }
+        }
         
         try {
             // Execute the tool
@@ -130,24 +166,32 @@ public class ToolCallAspect {
             long duration = System.currentTimeMillis() - startTime;
 
             // Capture the untruncated raw result for grounding verification downstream.
-            recordToolResult(sessionId, joinPoint.getSignature().getName(), result);
+            String raw = result != null ? result.toString() : null;
+            recordToolResult(sessionId, metadata.methodName(), raw);
 
-            // Format result for logging
-            String resultStr = formatResult(result);
             log.info("✅ [AGENT] Tool response: {} returned in {}ms for sessionId={}", toolName, duration, sessionId);
-            log.info("📥 [AGENT] Response data: {}", resultStr);
-            
-            // Send tool result notification
-            webSocketService.sendToolResult(sessionId, toolName, resultStr, duration);
-            
-            // Send to unified agent activity stream
-            Map<String, Object> toolResultEvent = new HashMap<>();
-            toolResultEvent.put("type", "tool_result");
-            toolResultEvent.put("toolName", toolName);
-            toolResultEvent.put("result", resultStr);
-            toolResultEvent.put("duration", duration);
-            toolResultEvent.put("content", toolName + " completed in " + duration + "ms");
-            webSocketService.sendAgentActivity(sessionId, toolResultEvent);
+            if (log.isDebugEnabled()) {
+                log.debug("📥 [AGENT] Response data: {}", formatResult(raw));
+            }
+
+            // The display copy of the result is only formatted when someone will receive it.
+            boolean resultListeners = webSocketService.hasSubscribers("tool-result", sessionId);
+            boolean activityResultListeners = webSocketService.hasSubscribers("agent-activity", sessionId);
+            if (resultListeners || activityResultListeners) {
+                String resultStr = formatResult(raw);
+                if (resultListeners) {
+                    webSocketService.sendToolResult(sessionId, toolName, resultStr, duration);
+                }
+                if (activityResultListeners) {
+                    Map<String, Object> toolResultEvent = new HashMap<>();
+                    toolResultEvent.put("type", "tool_result");
+                    toolResultEvent.put("toolName", toolName);
+                    toolResultEvent.put("result", resultStr);
+                    toolResultEvent.put("duration", duration);
+                    toolResultEvent.put("content", toolName + " completed in " + duration + "ms");
+                    webSocketService.sendAgentActivity(sessionId, toolResultEvent);
+                }
+            }
             
             return result;
         } catch (Exception e) {
@@ -155,20 +199,39 @@ public class ToolCallAspect {
             log.error("❌ Tool call failed: {} (duration: {}ms) for sessionId={}", toolName, duration, sessionId, e);
             
             // Send error notification
-            webSocketService.sendReasoning(sessionId, 
-                "❌ Tool call failed: " + toolName + " - " + e.getMessage());
+            if (webSocketService.hasSubscribers("reasoning", sessionId)) {
+                webSocketService.sendReasoning(sessionId,
+                    "❌ Tool call failed: " + toolName + " - " + e.getMessage());
+            }
             
             throw e;
         }
     }
 
-    private String getToolName(ProceedingJoinPoint joinPoint, Tool tool) {
-        // Use tool description if available, otherwise use method name
-        String methodName = joinPoint.getSignature().getName();
-        return formatMethodName(methodName);
+    private ToolMetadata metadataFor(ProceedingJoinPoint joinPoint) {
+        Signature signature = joinPoint.getSignature();
+        if (signature instanceof MethodSignature methodSignature) {
+            return metadataCache.computeIfAbsent(methodSignature.getMethod(), ToolCallAspect::resolveMetadata);
+        }
+        // Not expected for @annotation pointcuts; resolve without caching.
+        String methodName = signature.getName();
+        String[] names = new String[joinPoint.getArgs().length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "param" + i;
+        }
+        return new ToolMetadata(methodName, formatMethodName(methodName), names);
+    }
+
+    private static ToolMetadata resolveMetadata(Method method) {
+        Parameter[] parameters = method.getParameters();
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            names[i] = parameters[i].getName();
+        }
+        return new ToolMetadata(method.getName(), formatMethodName(method.getName()), names);
     }
 
-    private String formatMethodName(String methodName) {
+    private static String formatMethodName(String methodName) {
         // Convert camelCase to human-readable
         return methodName
             .replaceAll("([a-z])([A-Z])", "$1 $2")
@@ -177,10 +240,9 @@ public class ToolCallAspect {
             .replaceAll("^.", String.valueOf(methodName.charAt(0)).toUpperCase());
     }
 
-    private Map<String, Object> extractParameters(ProceedingJoinPoint joinPoint) {
+    private Map<String, Object> extractParameters(ToolMetadata metadata, Object[] args) {
+        String[] paramNames = metadata.parameterNames();
         Map<String, Object> params = new HashMap<>();
-        String[] paramNames = getParameterNames(joinPoint);
-        Object[] args = joinPoint.getArgs();
         
         for (int i = 0; i < args.length && i < paramNames.length; i++) {
             Object value = args[i];
@@ -198,28 +260,6 @@ public class ToolCallAspect {
         return params;
     }
 
-    private String[] getParameterNames(ProceedingJoinPoint joinPoint) {
-        // Try to get parameter names from method signature
-        try {
-            java.lang.reflect.Method method = ((org.aspectj.lang.reflect.MethodSignature) 
-                joinPoint.getSignature()).getMethod();
-            java.lang.reflect.Parameter[] parameters = method.getParameters();
-            String[] names = new String[parameters.length];
-            for (int i = 0; i < parameters.length; i++) {
-                names[i] = parameters[i].getName();
-            }
-            return names;
-        } catch (Exception e) {
-            // Fallback to generic names
-            Object[] args = joinPoint.getArgs();
-            String[] names = new String[args.length];
-            for (int i = 0; i < args.length; i++) {
-                names[i] = "param" + i;
-            }
-            return names;
-        }
-    }
-
     private String formatToolCall(String toolName, Map<String, Object> parameters) {
         StringBuilder sb = new StringBuilder();
         sb.append(toolName);
@@ -244,9 +284,8 @@ public class ToolCallAspect {
         return sb.toString();
     }
 
-    private String formatResult(Object result) {
-        if (result == null) return "null";
-        String str = result.toString();
+    private String formatResult(String str) {
+        if (str == null) return "null";
         if (str.length() > 500) {
             return str.substring(0, 497) + "...";
         }
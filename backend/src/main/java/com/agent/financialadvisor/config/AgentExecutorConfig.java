@@ -0,0 +1,30 @@
+package com.agent.financialadvisor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Size of the executor running plan steps and sub-agents in parallel (OrchestratorService). The
+ * connection pool is derived from the same number (DataSourceConfig / {@link DataSourcePoolConfig}),
+ * so both read it from here.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "agent.executor")
+public class AgentExecutorConfig {
+
+    /** Agent executor threads. 0 = derived: max(4, available processors). */
+    private int threads = 0;
+
+    /** The thread count to use: {@link #threads} if positive, otherwise max(4, available processors). */
+    public int resolveThreads() {
+        return threads > 0 ? threads : Math.max(4, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+}
@@ -0,0 +1,133 @@
+package com.agent.financialadvisor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HikariCP pool settings applied by {@link DataSourceConfig}. The DataSource is built by hand (to parse
+ * Railway's DATABASE_URL), so Spring Boot's {@code spring.datasource.hikari.*} binding never reaches it;
+ * these are the equivalent knobs.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "datasource.pool")
+public class DataSourcePoolConfig {
+
+    /** Hikari's own default pool size; a derived size never goes below it. */
+    static final int MIN_DERIVED_SIZE = 10;
+
+    /**
+     * Maximum connections. 0 = derived: agent executor threads + {@link #reserve}, at least
+     * {@value #MIN_DERIVED_SIZE}, so every agent task running a repository call can hold a connection
+     * at once without queueing behind the others.
+     */
+    private int maxSize = 0;
+    /**
+     * Connections on top of the agent threads for everything else that queries the database: HTTP
+     * request threads (an advisor analysis runs on its request thread, up to
+     * {@code rate-limit.global.max-concurrent} at once, and its lookups go through the pool), the
+     * background price refresher's batched writes and the market-data poller's symbol resync. Raise it
+     * toward max-concurrent if hikaricp.connections.pending shows request threads waiting.
+     */
+    private int reserve = 4;
+    /** Idle connections kept open. Negative = same as the max size (a fixed pool, as Hikari recommends). */
+    private int minIdle = -1;
+    /** How long a caller waits for a connection before failing, instead of Hikari's 30 s default. */
+    private long connectionTimeoutMillis = 5000;
+    /** Logs a stack trace for any connection held longer than this (0 = off). */
+    private long leakDetectionThresholdMillis = 20000;
+    private long maxLifetimeMillis = 1_800_000;
+
+    /** PostgreSQL only: server-side prepare a statement after this many executions (pgjdbc prepareThreshold). */
+    private int prepareThreshold = 3;
+    /** PostgreSQL only: prepared statements cached per connection (pgjdbc preparedStatementCacheQueries). */
+    private int statementCacheQueries = 256;
+    /** PostgreSQL only: per-connection statement cache size in MiB (pgjdbc preparedStatementCacheSizeMiB). */
+    private int statementCacheSizeMib = 5;
+    /** PostgreSQL only: rewrite batched INSERTs into multi-row statements (pgjdbc reWriteBatchedInserts). */
+    private boolean rewriteBatchedInserts = true;
+
+    /** The pool size to use for {@code agentThreads} agent executor threads. */
+    public int resolveMaxSize(int agentThreads) {
+        return maxSize > 0 ? maxSize : Math.max(MIN_DERIVED_SIZE, agentThreads + Math.max(0, reserve));
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getReserve() {
+        return reserve;
+    }
+
+    public void setReserve(int reserve) {
+        this.reserve = reserve;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public long getConnectionTimeoutMillis() {
+        return connectionTimeoutMillis;
+    }
+
+    public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+    }
+
+    public int getPrepareThreshold() {
+        return prepareThreshold;
+    }
+
+    public void setPrepareThreshold(int prepareThreshold) {
+        this.prepareThreshold = prepareThreshold;
+    }
+
+    public int getStatementCacheQueries() {
+        return statementCacheQueries;
+    }
+
+    public void setStatementCacheQueries(int statementCacheQueries) {
+        this.statementCacheQueries = statementCacheQueries;
+    }
+
+    public int getStatementCacheSizeMib() {
+        return statementCacheSizeMib;
+    }
+
+    public void setStatementCacheSizeMib(int statementCacheSizeMib) {
+        this.statementCacheSizeMib = statementCacheSizeMib;
+    }
+
+    public boolean isRewriteBatchedInserts() {
+        return rewriteBatchedInserts;
+    }
+
+    public void setRewriteBatchedInserts(boolean rewriteBatchedInserts) {
+        this.rewriteBatchedInserts = rewriteBatchedInserts;
+    }
+}
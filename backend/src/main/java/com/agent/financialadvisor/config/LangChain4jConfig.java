@@ -1,7 +1,10 @@
 package com.agent.financialadvisor.config;
 
+import com.agent.financialadvisor.service.llm.LlmCallScheduler;
+import com.agent.financialadvisor.service.llm.RoutingChatLanguageModel;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,13 +15,17 @@ import org.springframework.context.annotation.Primary;
  * LLM Configuration for OpenAI.
  *
  * The application talks to OpenAI's Chat Completions API through LangChain4j's OpenAI client.
- * Three model tiers, each independently override-able via environment variables:
+ * Four model tiers, each independently override-able via environment variables:
  *   - orchestrator (planner + evaluator)       — the quality-critical role (default gpt-4o)
  *   - agent (market / profile / web / fintwit)  — tool-calling sub-agents     (default gpt-4o)
+ *   - agent-light (plan steps routed cheap)     — same sub-agents, SIMPLE steps (default gpt-4o-mini)
  *   - security (input classification, no tools) — cheap + fast                (default gpt-4o-mini)
  *
  * Set OPENAI_API_KEY in the environment. Beans are @Lazy so a missing key doesn't crash startup;
  * the failure surfaces on the first LLM call instead.
+ *
+ * Every bean is wrapped by LlmCallScheduler, which enforces per-tier concurrency and token-per-minute
+ * budgets (llm.scheduler.*) and serves final-answer calls ahead of optional enrichment.
  */
 @Lazy
 @Configuration
@@ -50,6 +57,16 @@ public class LangChain4jConfig {
     @Value("${openai.agent.timeout-seconds:60}")
     private Integer agentTimeoutSeconds;
 
+    // Sub-agents on plan steps the ModelRouter routes to the cheap tier
+    @Value("${openai.agent-light.model:gpt-4o-mini}")
+    private String agentLightModel;
+
+    @Value("${openai.agent-light.temperature:0.0}")
+    private Double agentLightTemperature;
+
+    @Value("${openai.agent-light.timeout-seconds:60}")
+    private Integer agentLightTimeoutSeconds;
+
     // Security gate (cheap classification)
     @Value("${openai.security.model:gpt-4o-mini}")
     private String securityModel;
@@ -87,16 +104,32 @@ public class LangChain4jConfig {
      */
     @Bean
     @Primary
-    public ChatLanguageModel chatLanguageModel() {
-        return build(orchestratorModel, orchestratorTemperature, orchestratorTimeoutSeconds);
+    public ChatLanguageModel chatLanguageModel(LlmCallScheduler llmCallScheduler) {
+        return llmCallScheduler.wrap("orchestrator",
+                build(orchestratorModel, orchestratorTemperature, orchestratorTimeoutSeconds));
     }
 
     /**
      * Sub-agent model — used by MarketAnalysis, UserProfile, WebSearch, and Fintwit agents for tool calling.
+     * Plan steps the ModelRouter routes to the cheap tier are served by the agent-light model instead.
      */
     @Bean(name = "agentChatLanguageModel")
-    public ChatLanguageModel agentChatLanguageModel() {
-        return build(agentModel, agentTemperature, agentTimeoutSeconds);
+    public ChatLanguageModel agentChatLanguageModel(
+            LlmCallScheduler llmCallScheduler,
+            @Qualifier("lightAgentChatLanguageModel") ChatLanguageModel lightweightModel) {
+        return new RoutingChatLanguageModel(
+                llmCallScheduler.wrap("agent", build(agentModel, agentTemperature, agentTimeoutSeconds)),
+                lightweightModel);
+    }
+
+    /**
+     * Cheap sub-agent model for plan steps routed to the cheap tier. It has its own scheduler tier so
+     * routed steps never take the concurrency slots that input validation waits on.
+     */
+    @Bean(name = "lightAgentChatLanguageModel")
+    public ChatLanguageModel lightAgentChatLanguageModel(LlmCallScheduler llmCallScheduler) {
+        return llmCallScheduler.wrap("agent-light",
+                build(agentLightModel, agentLightTemperature, agentLightTimeoutSeconds));
     }
 
     /**
@@ -104,7 +137,7 @@ public class LangChain4jConfig {
      * (Bean name kept as "toolAgentChatLanguageModel" so existing @Qualifier injection points are unchanged.)
      */
     @Bean(name = "toolAgentChatLanguageModel")
-    public ChatLanguageModel toolAgentChatLanguageModel() {
-        return build(securityModel, securityTemperature, securityTimeoutSeconds);
+    public ChatLanguageModel toolAgentChatLanguageModel(LlmCallScheduler llmCallScheduler) {
+        return llmCallScheduler.wrap("security", build(securityModel, securityTemperature, securityTimeoutSeconds));
     }
 }
@@ -0,0 +1,74 @@
+package com.agent.financialadvisor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits for the LLM call scheduler (see LlmCallScheduler), one entry per model tier
+ * ("orchestrator", "agent", "agent-light", "security" — matching the beans in LangChain4jConfig).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "llm.scheduler")
+public class LlmSchedulerConfig {
+
+    /** How long a call may wait for a slot/budget before it is shed as a capacity error. */
+    private int queueTimeoutSeconds = 20;
+
+    private Map<String, TierConfig> tiers = new HashMap<>();
+
+    public int getQueueTimeoutSeconds() {
+        return queueTimeoutSeconds;
+    }
+
+    public void setQueueTimeoutSeconds(int queueTimeoutSeconds) {
+        this.queueTimeoutSeconds = queueTimeoutSeconds;
+    }
+
+    public Map<String, TierConfig> getTiers() {
+        return tiers;
+    }
+
+    public void setTiers(Map<String, TierConfig> tiers) {
+        this.tiers = tiers;
+    }
+
+    public TierConfig tier(String name) {
+        TierConfig config = tiers != null ? tiers.get(name) : null;
+        return config != null ? config : new TierConfig();
+    }
+
+    public static class TierConfig {
+        private int maxConcurrent = 8;
+        /** Token budget per minute (prompt + completion). 0 disables the budget. */
+        private int tokensPerMinute = 0;
+        /** Completion allowance added to the prompt estimate when admitting a call. */
+        private int completionTokensEstimate = 600;
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getTokensPerMinute() {
+            return tokensPerMinute;
+        }
+
+        public void setTokensPerMinute(int tokensPerMinute) {
+            this.tokensPerMinute = tokensPerMinute;
+        }
+
+        public int getCompletionTokensEstimate() {
+            return completionTokensEstimate;
+        }
+
+        public void setCompletionTokensEstimate(int completionTokensEstimate) {
+            this.completionTokensEstimate = completionTokensEstimate;
+        }
+    }
+}
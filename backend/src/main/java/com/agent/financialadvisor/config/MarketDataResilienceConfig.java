@@ -0,0 +1,174 @@
+package com.agent.financialadvisor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Circuit-breaker, hedged-request and Finnhub call-budget settings for the upstream market-data
+ * providers (see MarketDataService / ProviderCircuitBreaker).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "market-data.resilience")
+public class MarketDataResilienceConfig {
+
+    private BreakerConfig breaker = new BreakerConfig();
+    private HedgingConfig hedging = new HedgingConfig();
+    private FinnhubBudgetConfig finnhubBudget = new FinnhubBudgetConfig();
+
+    public BreakerConfig getBreaker() {
+        return breaker;
+    }
+
+    public void setBreaker(BreakerConfig breaker) {
+        this.breaker = breaker;
+    }
+
+    public HedgingConfig getHedging() {
+        return hedging;
+    }
+
+    public void setHedging(HedgingConfig hedging) {
+        this.hedging = hedging;
+    }
+
+    public FinnhubBudgetConfig getFinnhubBudget() {
+        return finnhubBudget;
+    }
+
+    public void setFinnhubBudget(FinnhubBudgetConfig finnhubBudget) {
+        this.finnhubBudget = finnhubBudget;
+    }
+
+    public static class BreakerConfig {
+        /** Consecutive provider failures (timeout, 5xx, 429) that open the breaker. */
+        private int failureThreshold = 5;
+        /** How long an open breaker skips the provider before letting a probe through. */
+        private int openSeconds = 30;
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public int getOpenSeconds() {
+            return openSeconds;
+        }
+
+        public void setOpenSeconds(int openSeconds) {
+            this.openSeconds = openSeconds;
+        }
+    }
+
+    public static class HedgingConfig {
+        private boolean enabled = false;
+        /** Fire the backup once the primary is slower than this percentile of its recent latencies. */
+        private double percentile = 0.95;
+        /** Samples needed before the percentile is trusted; until then {@link #initialDelayMillis} is used. */
+        private int minSamples = 20;
+        private long initialDelayMillis = 1000;
+        /** Never hedge earlier than this, however fast the primary usually is. */
+        private long minDelayMillis = 100;
+        /** Threads racing primary and backup fetches; each hedged quote can hold two of them. */
+        private int poolSize = 8;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public long getInitialDelayMillis() {
+            return initialDelayMillis;
+        }
+
+        public void setInitialDelayMillis(long initialDelayMillis) {
+            this.initialDelayMillis = initialDelayMillis;
+        }
+
+        public long getMinDelayMillis() {
+            return minDelayMillis;
+        }
+
+        public void setMinDelayMillis(long minDelayMillis) {
+            this.minDelayMillis = minDelayMillis;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+    }
+
+    public static class FinnhubBudgetConfig {
+        /** Finnhub free tier allows 60 calls/min per key. */
+        private int callsPerMinute = 60;
+        /**
+         * Background quote refreshes wait for the next token if it refills within this long; if it
+         * would take longer they use Yahoo immediately.
+         */
+        private long backgroundMaxWaitMillis = 3000;
+        /** Finnhub-only endpoints (symbol search, profile, news) have no fallback, so they wait briefly. */
+        private long noFallbackMaxWaitMillis = 500;
+        /**
+         * Fraction of calls-per-minute that background refreshes may spend; the rest is kept for
+         * interactive quotes. At least one call per minute is always allowed.
+         */
+        private double backgroundShare = 0.5;
+
+        public int getCallsPerMinute() {
+            return callsPerMinute;
+        }
+
+        public void setCallsPerMinute(int callsPerMinute) {
+            this.callsPerMinute = callsPerMinute;
+        }
+
+        public long getBackgroundMaxWaitMillis() {
+            return backgroundMaxWaitMillis;
+        }
+
+        public void setBackgroundMaxWaitMillis(long backgroundMaxWaitMillis) {
+            this.backgroundMaxWaitMillis = backgroundMaxWaitMillis;
+        }
+
+        public long getNoFallbackMaxWaitMillis() {
+            return noFallbackMaxWaitMillis;
+        }
+
+        public void setNoFallbackMaxWaitMillis(long noFallbackMaxWaitMillis) {
+            this.noFallbackMaxWaitMillis = noFallbackMaxWaitMillis;
+        }
+
+        public double getBackgroundShare() {
+            return backgroundShare;
+        }
+
+        public void setBackgroundShare(double backgroundShare) {
+            this.backgroundShare = backgroundShare;
+        }
+    }
+}
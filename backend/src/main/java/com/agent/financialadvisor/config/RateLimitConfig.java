@@ -6,7 +6,17 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @ConfigurationProperties(prefix = "rate-limit")
 public class RateLimitConfig {
+    /** Per authenticated user. */
     private EndpointConfig advisor = new EndpointConfig();
+    /** Shared by all users: caps total advisor throughput and concurrent analyses. */
+    private GlobalConfig global = new GlobalConfig();
+    /** Per authenticated user, in LLM tokens: what a request actually cost, not just that it happened. */
+    private TokenBudgetConfig tokens = new TokenBudgetConfig();
+    /**
+     * Upper bound on per-user buckets held in memory. Beyond it the least recently used buckets that are
+     * fully refilled and have no open permit are evicted; if there are none, new users are rejected.
+     */
+    private int maxTrackedUsers = 100_000;
 
     public EndpointConfig getAdvisor() {
         return advisor;
@@ -16,11 +26,44 @@ public class RateLimitConfig {
         this.advisor = advisor;
     }
 
+    public GlobalConfig getGlobal() {
+        return global;
+    }
+
+    public void setGlobal(GlobalConfig global) {
+        this.global = global;
+    }
+
+    public TokenBudgetConfig getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(TokenBudgetConfig tokens) {
+        this.tokens = tokens;
+    }
+
+    public int getMaxTrackedUsers() {
+        return maxTrackedUsers;
+    }
+
+    public void setMaxTrackedUsers(int maxTrackedUsers) {
+        this.maxTrackedUsers = maxTrackedUsers;
+    }
+
     public static class EndpointConfig {
         private int capacity = 20;
         private int refillTokens = 10;
         private int refillPeriodSeconds = 60;
 
+        /**
+         * Time for an empty bucket to refill completely. A bucket idle this long is indistinguishable
+         * from a new one, so dropping it loses nothing.
+         */
+        public long fullRefillSeconds() {
+            long periods = (capacity + Math.max(1, refillTokens) - 1) / Math.max(1, refillTokens);
+            return periods * refillPeriodSeconds;
+        }
+
         public int getCapacity() {
             return capacity;
         }
@@ -45,5 +88,41 @@ public class RateLimitConfig {
             this.refillPeriodSeconds = refillPeriodSeconds;
         }
     }
-}
 
+    public static class GlobalConfig extends EndpointConfig {
+        /** Analyses allowed to run at once across all users (0 = unlimited). */
+        private int maxConcurrent = 32;
+
+        public GlobalConfig() {
+            setCapacity(200);
+            setRefillTokens(100);
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+
+    public static class TokenBudgetConfig extends EndpointConfig {
+        /** Reserved on admission for a user with no history; later requests reserve their recent average. */
+        private int initialEstimate = 8000;
+
+        public TokenBudgetConfig() {
+            setCapacity(250_000);
+            setRefillTokens(250_000);
+            setRefillPeriodSeconds(3600);
+        }
+
+        public int getInitialEstimate() {
+            return initialEstimate;
+        }
+
+        public void setInitialEstimate(int initialEstimate) {
+            this.initialEstimate = initialEstimate;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.agent.financialadvisor.config;
 
 import com.agent.financialadvisor.service.CustomOAuth2UserService;
 import com.agent.financialadvisor.service.OAuth2AuthenticationSuccessHandler;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -52,6 +53,9 @@ public class SecurityConfig {
                 // (an authenticated path here 302-redirects to Google login and the deploy is marked FAILED).
                 .requestMatchers("/api/health", "/api/advisor/status").permitAll()
                 .requestMatchers("/ws/**").permitAll() // WebSocket can be protected later if needed
+                // Async re-dispatch of a streamed response (SSE /api/advisor/stream): the initial request was
+                // already authenticated, and the stateless JWT context is not carried into the re-dispatch.
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .anyRequest().authenticated()
             )
             .oauth2Login(oauth2 -> oauth2
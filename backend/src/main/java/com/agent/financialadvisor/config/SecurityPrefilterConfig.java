@@ -0,0 +1,132 @@
+package com.agent.financialadvisor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule set for the deterministic security prefilter in front of the SecurityAgent LLM check (see
+ * SecurityPrefilter). Phrases are matched case-insensitively with whitespace runs collapsed; setting
+ * a list in configuration replaces the defaults below.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "security.prefilter")
+public class SecurityPrefilterConfig {
+
+    /** Inputs containing any of these are rejected without an LLM call. */
+    private List<String> blockPhrases = new ArrayList<>(List.of(
+            // Prompt injection
+            "ignore previous instructions", "ignore all previous instructions", "ignore the above instructions",
+            "ignore your instructions", "disregard previous instructions", "disregard all previous instructions",
+            "forget your instructions", "forget all previous instructions", "override your instructions",
+            "system prompt", "reveal prompt", "reveal your instructions", "print your instructions",
+            "developer mode", "jailbreak", "do anything now",
+            // Shell / SQL
+            "rm -rf", "drop table", "delete from", "select * from", "union select", "insert into",
+            "xp_cmdshell", "/etc/passwd", "curl ", "wget ", "chmod ", "chown ", "bash -c", "sudo ",
+            "os.system", "subprocess.", "exec(", "eval(",
+            // Script / markup
+            "<script", "javascript:", "onerror=", "onerror =", "onload=", "onload =", "<iframe",
+            // Encoded payloads
+            "%3cscript", "&lt;script", "&#60;", "&#x3c;", "\\u003c", "\\x3c", "data:text/html", "base64,",
+            "atob(", "fromcharcode"));
+
+    /**
+     * Financial questions the allow-list fast path recognises. An input is only waved through when it
+     * fits the whole template: one of these, a subject (ticker or {@link #allowSubjects} entry) and
+     * nothing else but {@link #allowFillerWords}.
+     */
+    private List<String> allowPhrases = new ArrayList<>(List.of(
+            "price of", "stock price", "share price", "quote for", "value of", "should i buy", "should i sell",
+            "should i hold", "market cap", "dividend", "earnings", "p/e", "news on", "news about",
+            "analysis of", "performance of", "trading at"));
+
+    /**
+     * What an allow-listed question may be about besides a ticker symbol (an upper-case word of up to
+     * five letters, or $-prefixed, as typed): the user's own holdings and well-known company names.
+     */
+    private List<String> allowSubjects = new ArrayList<>(List.of(
+            "my portfolio", "my holdings", "my stocks", "apple", "microsoft", "alphabet", "google", "amazon",
+            "nvidia", "meta", "tesla", "netflix", "berkshire hathaway", "jpmorgan", "visa", "mastercard",
+            "walmart", "coca-cola", "disney", "intel", "amd", "exxon", "johnson & johnson"));
+
+    /** Words an allow-listed question may contain around its phrase and subject. */
+    private List<String> allowFillerWords = new ArrayList<>(List.of(
+            "what", "whats", "is", "are", "was", "the", "a", "an", "of", "for", "on", "in", "at", "and",
+            "me", "today", "now", "current", "currently", "latest", "right", "this", "week", "month",
+            "year", "how", "doing", "show", "give", "get", "please", "stock", "shares", "price", "quote"));
+
+    /**
+     * Words that send an otherwise allow-listed query to the LLM anyway (prefix match: "instruct"
+     * also covers "instructions").
+     */
+    private List<String> reviewPhrases = new ArrayList<>(List.of(
+            "ignore", "instruct", "prompt", "system", "pretend", "act as", "role", "override", "bypass",
+            "disregard", "forget", "rule", "developer", "admin", "password", "secret", "api key", "token",
+            "execute", "script", "command", "sql", "database", "file", "http", "www", "assistant",
+            "repeat after", "translate", "respond with", "you are", "from now on"));
+
+    /** Skip the LLM for allow-listed inputs. When false only the block list short-circuits. */
+    private boolean allowFastPath = true;
+
+    /** Longer inputs always get the LLM check, allow-listed or not. */
+    private int allowMaxLength = 160;
+
+    public List<String> getBlockPhrases() {
+        return blockPhrases;
+    }
+
+    public void setBlockPhrases(List<String> blockPhrases) {
+        this.blockPhrases = blockPhrases;
+    }
+
+    public List<String> getAllowPhrases() {
+        return allowPhrases;
+    }
+
+    public void setAllowPhrases(List<String> allowPhrases) {
+        this.allowPhrases = allowPhrases;
+    }
+
+    public List<String> getAllowSubjects() {
+        return allowSubjects;
+    }
+
+    public void setAllowSubjects(List<String> allowSubjects) {
+        this.allowSubjects = allowSubjects;
+    }
+
+    public List<String> getAllowFillerWords() {
+        return allowFillerWords;
+    }
+
+    public void setAllowFillerWords(List<String> allowFillerWords) {
+        this.allowFillerWords = allowFillerWords;
+    }
+
+    public List<String> getReviewPhrases() {
+        return reviewPhrases;
+    }
+
+    public void setReviewPhrases(List<String> reviewPhrases) {
+        this.reviewPhrases = reviewPhrases;
+    }
+
+    public boolean isAllowFastPath() {
+        return allowFastPath;
+    }
+
+    public void setAllowFastPath(boolean allowFastPath) {
+        this.allowFastPath = allowFastPath;
+    }
+
+    public int getAllowMaxLength() {
+        return allowMaxLength;
+    }
+
+    public void setAllowMaxLength(int allowMaxLength) {
+        this.allowMaxLength = allowMaxLength;
+    }
+}
@@ -0,0 +1,27 @@
+package com.agent.financialadvisor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-tool switch for the compact tool-result encoding (see ToolResultEncoder).
+ * Tools not listed keep today's verbose JSON, so the mode can be rolled out one tool at a time.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tool-encoding")
+public class ToolEncodingConfig {
+
+    /** @Tool method names (e.g. getStockPrice, getPortfolio) that return the compact encoding. */
+    private Set<String> compactTools = new HashSet<>();
+
+    public Set<String> getCompactTools() {
+        return compactTools;
+    }
+
+    public void setCompactTools(Set<String> compactTools) {
+        this.compactTools = compactTools;
+    }
+}
@@ -0,0 +1,117 @@
+package com.agent.financialadvisor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * STOMP broker used by WebSocketConfig.
+ *
+ * SIMPLE (default) keeps subscriptions in this JVM — fine for a single instance. RELAY forwards
+ * /topic and /queue traffic to an external STOMP broker (RabbitMQ with the STOMP plugin, ActiveMQ
+ * Artemis, ...), so an event published on one replica reaches a client connected to another.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket.broker")
+public class WebSocketBrokerConfig {
+
+    public enum Mode { SIMPLE, RELAY }
+
+    private Mode mode = Mode.SIMPLE;
+
+    private String relayHost = "localhost";
+    private int relayPort = 61613;
+    /** Credentials for the per-client connections the relay opens to the broker. */
+    private String clientLogin = "guest";
+    private String clientPasscode = "guest";
+    /** Credentials for the shared "system" connection used for server-originated messages. */
+    private String systemLogin = "guest";
+    private String systemPasscode = "guest";
+    /** STOMP host header (e.g. a RabbitMQ vhost). Blank = broker default. */
+    private String virtualHost = "";
+    private long systemHeartbeatSendIntervalMillis = 10_000;
+    private long systemHeartbeatReceiveIntervalMillis = 10_000;
+
+    public boolean isRelay() {
+        return mode == Mode.RELAY;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public String getRelayHost() {
+        return relayHost;
+    }
+
+    public void setRelayHost(String relayHost) {
+        this.relayHost = relayHost;
+    }
+
+    public int getRelayPort() {
+        return relayPort;
+    }
+
+    public void setRelayPort(int relayPort) {
+        this.relayPort = relayPort;
+    }
+
+    public String getClientLogin() {
+        return clientLogin;
+    }
+
+    public void setClientLogin(String clientLogin) {
+        this.clientLogin = clientLogin;
+    }
+
+    public String getClientPasscode() {
+        return clientPasscode;
+    }
+
+    public void setClientPasscode(String clientPasscode) {
+        this.clientPasscode = clientPasscode;
+    }
+
+    public String getSystemLogin() {
+        return systemLogin;
+    }
+
+    public void setSystemLogin(String systemLogin) {
+        this.systemLogin = systemLogin;
+    }
+
+    public String getSystemPasscode() {
+        return systemPasscode;
+    }
+
+    public void setSystemPasscode(String systemPasscode) {
+        this.systemPasscode = systemPasscode;
+    }
+
+    public String getVirtualHost() {
+        return virtualHost;
+    }
+
+    public void setVirtualHost(String virtualHost) {
+        this.virtualHost = virtualHost;
+    }
+
+    public long getSystemHeartbeatSendIntervalMillis() {
+        return systemHeartbeatSendIntervalMillis;
+    }
+
+    public void setSystemHeartbeatSendIntervalMillis(long systemHeartbeatSendIntervalMillis) {
+        this.systemHeartbeatSendIntervalMillis = systemHeartbeatSendIntervalMillis;
+    }
+
+    public long getSystemHeartbeatReceiveIntervalMillis() {
+        return systemHeartbeatReceiveIntervalMillis;
+    }
+
+    public void setSystemHeartbeatReceiveIntervalMillis(long systemHeartbeatReceiveIntervalMillis) {
+        this.systemHeartbeatReceiveIntervalMillis = systemHeartbeatReceiveIntervalMillis;
+    }
+}
@@ -1,7 +1,10 @@
 package com.agent.financialadvisor.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -10,9 +13,35 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    private final WebSocketBrokerConfig brokerConfig;
+
+    public WebSocketConfig(WebSocketBrokerConfig brokerConfig) {
+        this.brokerConfig = brokerConfig;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if (brokerConfig.isRelay()) {
+            // External broker: subscriptions live in the broker, so every replica can reach every client
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(brokerConfig.getRelayHost())
+                    .setRelayPort(brokerConfig.getRelayPort())
+                    .setClientLogin(brokerConfig.getClientLogin())
+                    .setClientPasscode(brokerConfig.getClientPasscode())
+                    .setSystemLogin(brokerConfig.getSystemLogin())
+                    .setSystemPasscode(brokerConfig.getSystemPasscode())
+                    .setSystemHeartbeatSendInterval(brokerConfig.getSystemHeartbeatSendIntervalMillis())
+                    .setSystemHeartbeatReceiveInterval(brokerConfig.getSystemHeartbeatReceiveIntervalMillis());
+            if (brokerConfig.getVirtualHost() != null && !brokerConfig.getVirtualHost().isBlank()) {
+                relay.setVirtualHost(brokerConfig.getVirtualHost());
+            }
+            log.info("🔌 WebSocket using STOMP broker relay at {}:{}",
+                    brokerConfig.getRelayHost(), brokerConfig.getRelayPort());
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -25,5 +54,3 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .withSockJS();
     }
 }
-
-
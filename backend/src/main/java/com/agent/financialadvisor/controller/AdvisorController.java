@@ -1,7 +1,9 @@
 package com.agent.financialadvisor.controller;
 
+import com.agent.financialadvisor.dto.TokenBudget;
 import com.agent.financialadvisor.exception.RateLimitExceededException;
 import com.agent.financialadvisor.service.RateLimitService;
+import com.agent.financialadvisor.service.llm.LlmTokenUsage;
 import com.agent.financialadvisor.service.orchestrator.OrchestratorService;
 import com.agent.financialadvisor.util.SecurityUtil;
 import org.slf4j.Logger;
@@ -53,23 +55,28 @@ public class AdvisorController {
                         .body(createErrorResponse("Query is required"));
             }
 
-            // Check rate limit before processing
-            rateLimitService.checkAdvisorRateLimit(sessionId);
-
             log.info("Received analysis request: userId={}, query={}", userId, query);
 
-            // Coordinate analysis through orchestrator
-            String response = orchestratorService.coordinateAnalysis(userId, query, sessionId);
+            // Check rate limits before processing; the permit holds a global concurrency slot until the
+            // analysis ends, then charges the user's token budget with the LLM tokens it actually used
+            LlmTokenUsage tokenUsage = new LlmTokenUsage();
+            String response;
+            try (RateLimitService.AdvisorPermit permit = rateLimitService.acquireAdvisorPermit(userId, tokenUsage)) {
+                // Coordinate analysis through orchestrator
+                response = LlmTokenUsage.within(tokenUsage,
+                        () -> orchestratorService.coordinateAnalysis(userId, query, sessionId));
+            }
 
             Map<String, Object> result = new HashMap<>();
             result.put("sessionId", sessionId);
             result.put("userId", userId);
             result.put("response", response);
             result.put("status", "success");
+            result.put("tokensUsed", tokenUsage.totalTokens());
 
             // Add rate limit headers to successful response
             HttpHeaders headers = new HttpHeaders();
-            headers.add("X-RateLimit-Remaining", String.valueOf(rateLimitService.getRemainingAdvisorTokens(sessionId)));
+            headers.add("X-RateLimit-Remaining", String.valueOf(rateLimitService.getRemainingAdvisorTokens(userId)));
 
             return ResponseEntity.ok().headers(headers).body(result);
         } catch (RateLimitExceededException e) {
@@ -79,7 +86,7 @@ public class AdvisorController {
             headers.add("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
             headers.add("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + e.getRetryAfterSeconds()));
             
-            log.warn("Rate limit exceeded for session: {}", request.getOrDefault("sessionId", "unknown"));
+            log.warn("Rate limit exceeded for user: {}", SecurityUtil.getCurrentUserEmail().orElse("unknown"));
             return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
                     .headers(headers)
                     .body(createErrorResponse(e.getMessage()));
@@ -90,6 +97,25 @@ public class AdvisorController {
         }
     }
 
+    /**
+     * Remaining LLM token budget for the authenticated user
+     * GET /api/advisor/budget
+     */
+    @GetMapping("/budget")
+    public ResponseEntity<?> getBudget() {
+        try {
+            String userId = SecurityUtil.getCurrentUserEmail()
+                    .orElseThrow(() -> new RuntimeException("User not authenticated"));
+
+            TokenBudget budget = rateLimitService.getTokenBudget(userId);
+            return ResponseEntity.ok(budget);
+        } catch (Exception e) {
+            log.error("Error getting token budget: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(createErrorResponse("Error getting token budget"));
+        }
+    }
+
     /**
      * Check agent status
      * GET /api/advisor/status
@@ -0,0 +1,87 @@
+package com.agent.financialadvisor.controller;
+
+import com.agent.financialadvisor.service.SseEventHub;
+import com.agent.financialadvisor.util.SecurityUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * Server-Sent Events stream of a session's advisor events — a lighter alternative to the SockJS/STOMP
+ * topics for clients that only listen. Same payloads as the WebSocket topics; the SSE event name is
+ * the topic (thinking, response, error, tool-call, tool-result, reasoning, agent-activity).
+ *
+ * GET /api/advisor/stream?sessionId=...
+ * Reconnects resume after the {@code Last-Event-ID} header (sent automatically by EventSource) or the
+ * {@code lastEventId} query parameter, within the hub's replay buffer.
+ */
+@RestController
+@RequestMapping("/api/advisor")
+// CORS handled by WebConfig - no need for @CrossOrigin here
+public class AdvisorStreamController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdvisorStreamController.class);
+
+    private final SseEventHub sseEventHub;
+    private final Duration keepAliveInterval;
+
+    public AdvisorStreamController(
+            SseEventHub sseEventHub,
+            @Value("${advisor.stream.keep-alive-seconds:15}") long keepAliveSeconds
+    ) {
+        this.sseEventHub = sseEventHub;
+        this.keepAliveInterval = Duration.ofSeconds(Math.max(1, keepAliveSeconds));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> stream(
+            @RequestParam String sessionId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam
+    ) {
+        String userId = SecurityUtil.getCurrentUserEmail()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not authenticated"));
+        Long lastEventId = parseEventId(lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+
+        Flux<ServerSentEvent<Object>> events;
+        try {
+            events = sseEventHub.subscribe(sessionId, userId, lastEventId)
+                    .map(event -> ServerSentEvent.builder(event.data())
+                            .id(Long.toString(event.id()))
+                            .event(event.type())
+                            .build());
+        } catch (SecurityException e) {
+            log.warn("🔒 SSE stream refused: session {} is not owned by {}", sessionId, userId);
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Session belongs to another user");
+        }
+        log.debug("🔌 SSE stream opened for session {} (resume after {})", sessionId, lastEventId);
+
+        // Comment-only keep-alives hold idle connections open through proxies
+        Flux<ServerSentEvent<Object>> keepAlive = Flux.interval(keepAliveInterval)
+                .map(tick -> ServerSentEvent.builder().comment("keep-alive").build());
+        return Flux.merge(events, keepAlive);
+    }
+
+    private static Long parseEventId(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid event id: " + value);
+        }
+    }
+}
@@ -4,9 +4,14 @@ import com.agent.financialadvisor.model.Portfolio;
 import com.agent.financialadvisor.model.StockHolding;
 import com.agent.financialadvisor.repository.PortfolioRepository;
 import com.agent.financialadvisor.service.MarketDataService;
+import com.agent.financialadvisor.service.PortfolioValuationService;
+import com.agent.financialadvisor.service.PortfolioValuationService.PortfolioValuation;
+import com.agent.financialadvisor.service.SymbolRegistry;
+import com.agent.financialadvisor.service.UserContextChangedEvent;
 import com.agent.financialadvisor.util.SecurityUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,42 +28,39 @@ public class PortfolioController {
     private static final Logger log = LoggerFactory.getLogger(PortfolioController.class);
     private final PortfolioRepository portfolioRepository;
     private final MarketDataService marketDataService;
+    private final PortfolioValuationService portfolioValuationService;
+    private final SymbolRegistry symbolRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PortfolioController(
             PortfolioRepository portfolioRepository,
-            MarketDataService marketDataService
+            MarketDataService marketDataService,
+            PortfolioValuationService portfolioValuationService,
+            SymbolRegistry symbolRegistry,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.portfolioRepository = portfolioRepository;
         this.marketDataService = marketDataService;
+        this.portfolioValuationService = portfolioValuationService;
+        this.symbolRegistry = symbolRegistry;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Get user portfolio for authenticated user
+     * Get user portfolio for authenticated user, valued at current prices
      * GET /api/portfolio
+     *
+     * Read-only: valued in memory from the positions and the quote cache (see PortfolioValuationService).
+     * A user without a portfolio gets an empty one; the row is created on the first added holding.
      */
     @GetMapping
-    public ResponseEntity<Portfolio> getPortfolio() {
+    public ResponseEntity<PortfolioValuation> getPortfolio() {
         try {
             String userId = SecurityUtil.getCurrentUserEmail()
                     .orElseThrow(() -> new RuntimeException("User not authenticated"));
-            
-            Optional<Portfolio> portfolioOpt = portfolioRepository.findByUserIdWithHoldings(userId);
-            if (portfolioOpt.isEmpty()) {
-                // Create empty portfolio if doesn't exist
-                Portfolio portfolio = new Portfolio();
-                portfolio.setUserId(userId);
-                portfolio = portfolioRepository.save(portfolio);
-                return ResponseEntity.ok(portfolio);
-            }
 
-            Portfolio portfolio = portfolioOpt.get();
-            // Update current prices, then recompute totals explicitly (the parent isn't auto-dirtied
-            // by child-only changes, so the @PreUpdate alone would leave the total stale).
-            updatePortfolioPrices(portfolio);
-            portfolio.recalculateTotals();
-            portfolio = portfolioRepository.save(portfolio);
-
-            return ResponseEntity.ok(portfolio);
+            return ResponseEntity.ok(portfolioValuationService.valuate(userId)
+                    .orElseGet(() -> PortfolioValuation.empty(userId)));
         } catch (Exception e) {
             log.error("Error getting portfolio: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -174,6 +176,10 @@ public class PortfolioController {
             // Save portfolio (cascade will save the holding)
             portfolio = portfolioRepository.save(portfolio);
             
+            portfolioValuationService.invalidate(userId);
+            symbolRegistry.register(userId, symbol);
+            eventPublisher.publishEvent(new UserContextChangedEvent(userId, "portfolio.add"));
+
             // Refresh the holding to get calculated values
             holding = portfolio.getHoldings().stream()
                     .filter(h -> h.getSymbol().equalsIgnoreCase(symbol))
@@ -212,14 +218,23 @@ public class PortfolioController {
             }
 
             Portfolio portfolio = portfolioOpt.get();
-            boolean removed = portfolio.getHoldings().removeIf(h -> h.getId().equals(holdingId));
+            Optional<StockHolding> removed = portfolio.getHoldings().stream()
+                    .filter(h -> h.getId().equals(holdingId))
+                    .findFirst();
 
-            if (!removed) {
+            if (removed.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
+            portfolio.getHoldings().remove(removed.get());
 
             portfolio.recalculateTotals();
             portfolio = portfolioRepository.save(portfolio);
+            portfolioValuationService.invalidate(userId);
+            String removedSymbol = removed.get().getSymbol();
+            if (portfolio.getHoldings().stream().noneMatch(h -> h.getSymbol().equalsIgnoreCase(removedSymbol))) {
+                symbolRegistry.unregister(userId, removedSymbol);
+            }
+            eventPublisher.publishEvent(new UserContextChangedEvent(userId, "portfolio.remove"));
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Holding removed successfully");
@@ -234,11 +249,14 @@ public class PortfolioController {
     }
 
     /**
-     * Update portfolio prices (refresh current prices for all holdings) for authenticated user
+     * Refresh prices for authenticated user and return the freshly valued portfolio
      * POST /api/portfolio/refresh
+     *
+     * Persisted prices are only written for holdings that moved past the persist threshold, and the
+     * portfolio is only saved when at least one did.
      */
     @PostMapping("/refresh")
-    public ResponseEntity<Portfolio> refreshPortfolio() {
+    public ResponseEntity<PortfolioValuation> refreshPortfolio() {
         try {
             String userId = SecurityUtil.getCurrentUserEmail()
                     .orElseThrow(() -> new RuntimeException("User not authenticated"));
@@ -249,35 +267,23 @@ public class PortfolioController {
             }
 
             Portfolio portfolio = portfolioOpt.get();
-            updatePortfolioPrices(portfolio);
-            portfolio.recalculateTotals();
-            portfolio = portfolioRepository.save(portfolio);
+            int changed = portfolioValuationService.refreshPersistedPrices(portfolio, MarketDataService.Priority.INTERACTIVE);
+            if (changed > 0) {
+                portfolioRepository.save(portfolio);
+            }
+            portfolioValuationService.invalidate(userId);
+            if (changed > 0) {
+                eventPublisher.publishEvent(new UserContextChangedEvent(userId, "portfolio.refresh"));
+            }
 
-            return ResponseEntity.ok(portfolio);
+            return ResponseEntity.ok(portfolioValuationService.valuate(userId)
+                    .orElseGet(() -> PortfolioValuation.empty(userId)));
         } catch (Exception e) {
             log.error("Error refreshing portfolio: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
-    /**
-     * Update current prices for all holdings in portfolio
-     */
-    private void updatePortfolioPrices(Portfolio portfolio) {
-        if (portfolio.getHoldings() != null) {
-            for (StockHolding holding : portfolio.getHoldings()) {
-                try {
-                    BigDecimal currentPrice = marketDataService.getStockPrice(holding.getSymbol());
-                    if (currentPrice != null) {
-                        holding.setCurrentPrice(currentPrice);
-                    }
-                } catch (Exception e) {
-                    log.warn("Could not update price for {}: {}", holding.getSymbol(), e.getMessage());
-                }
-            }
-        }
-    }
-
     private Map<String, Object> createErrorResponse(String message) {
         Map<String, Object> error = new HashMap<>();
         error.put("status", "error");
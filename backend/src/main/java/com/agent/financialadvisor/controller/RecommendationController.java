@@ -0,0 +1,74 @@
+package com.agent.financialadvisor.controller;
+
+import com.agent.financialadvisor.dto.RecommendationPage;
+import com.agent.financialadvisor.model.Recommendation;
+import com.agent.financialadvisor.service.RecommendationHistoryService;
+import com.agent.financialadvisor.util.SecurityUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/recommendations")
+// CORS handled by WebConfig - no need for @CrossOrigin here
+public class RecommendationController {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationController.class);
+    private final RecommendationHistoryService recommendationHistoryService;
+
+    public RecommendationController(RecommendationHistoryService recommendationHistoryService) {
+        this.recommendationHistoryService = recommendationHistoryService;
+    }
+
+    /**
+     * Recommendation history for the authenticated user, newest first, summary fields only
+     * GET /api/recommendations?limit=20&cursor=...
+     */
+    @GetMapping
+    public ResponseEntity<?> getHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            String userId = SecurityUtil.getCurrentUserEmail()
+                    .orElseThrow(() -> new RuntimeException("User not authenticated"));
+
+            RecommendationPage page = recommendationHistoryService.page(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Invalid cursor"));
+        } catch (Exception e) {
+            log.error("Error getting recommendation history: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * One recommendation with its full analysis text
+     * GET /api/recommendations/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Recommendation> getRecommendation(@PathVariable Long id) {
+        try {
+            String userId = SecurityUtil.getCurrentUserEmail()
+                    .orElseThrow(() -> new RuntimeException("User not authenticated"));
+
+            return recommendationHistoryService.detail(userId, id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error("Error getting recommendation {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("message", message);
+        return error;
+    }
+}
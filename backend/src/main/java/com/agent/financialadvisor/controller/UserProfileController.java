@@ -2,9 +2,11 @@ package com.agent.financialadvisor.controller;
 
 import com.agent.financialadvisor.model.UserProfile;
 import com.agent.financialadvisor.repository.UserProfileRepository;
+import com.agent.financialadvisor.service.UserContextChangedEvent;
 import com.agent.financialadvisor.util.SecurityUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,11 +22,14 @@ public class UserProfileController {
 
     private static final Logger log = LoggerFactory.getLogger(UserProfileController.class);
     private final UserProfileRepository userProfileRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UserProfileController(
-            UserProfileRepository userProfileRepository
+            UserProfileRepository userProfileRepository,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.userProfileRepository = userProfileRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -121,6 +126,7 @@ public class UserProfileController {
             }
 
             UserProfile saved = userProfileRepository.save(profile);
+            eventPublisher.publishEvent(new UserContextChangedEvent(userId, "profile.create"));
             log.info("Created user profile for userId={}", userId);
             
             return ResponseEntity.ok(saved);
@@ -204,6 +210,7 @@ public class UserProfileController {
             }
 
             UserProfile updated = userProfileRepository.save(profile);
+            eventPublisher.publishEvent(new UserContextChangedEvent(userId, "profile.update"));
             log.info("Updated user profile for userId={}", userId);
             
             return ResponseEntity.ok(updated);
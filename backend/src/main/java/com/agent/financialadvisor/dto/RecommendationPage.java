@@ -0,0 +1,9 @@
+package com.agent.financialadvisor.dto;
+
+import java.util.List;
+
+/**
+ * A page of recommendation history, newest first. {@code nextCursor} is an opaque keyset cursor for the
+ * following page (pass it back as {@code ?cursor=}), or null on the last page.
+ */
+public record RecommendationPage(List<RecommendationSummary> items, String nextCursor) {}
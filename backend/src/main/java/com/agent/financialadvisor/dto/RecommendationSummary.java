@@ -0,0 +1,15 @@
+package com.agent.financialadvisor.dto;
+
+import com.agent.financialadvisor.model.Recommendation;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the recommendation history list: the scalar columns only. The TEXT bodies (reasoning,
+ * analyses, patterns) are not selected; clients fetch them per recommendation via
+ * GET /api/recommendations/{id}.
+ */
+public record RecommendationSummary(Long id, String symbol, Recommendation.RecommendationAction action,
+                                    Double confidence, Recommendation.RiskLevel riskLevel, BigDecimal targetPrice,
+                                    Recommendation.InvestmentHorizon timeHorizon, LocalDateTime createdAt) {}
@@ -0,0 +1,14 @@
+package com.agent.financialadvisor.dto;
+
+/**
+ * A user's advisor limits. {@code remainingTokens} may be negative after a request that cost more than
+ * was reserved for it; new requests are admitted once it covers {@code nextRequestEstimate} again.
+ * The token budget refills continuously at {@code refillTokens} per {@code refillPeriodSeconds}.
+ */
+public record TokenBudget(long remainingTokens,
+                          long capacity,
+                          long refillTokens,
+                          long refillPeriodSeconds,
+                          long nextRequestEstimate,
+                          long secondsUntilAdmitted,
+                          int remainingRequests) {}
@@ -0,0 +1,18 @@
+package com.agent.financialadvisor.exception;
+
+/**
+ * Thrown when an LLM call could not get a concurrency slot or token budget in time. Shedding the
+ * call locally is treated exactly like a provider 429 by the orchestrator.
+ */
+public class LlmCapacityExceededException extends RuntimeException {
+    private final String tier;
+
+    public LlmCapacityExceededException(String message, String tier) {
+        super(message);
+        this.tier = tier;
+    }
+
+    public String getTier() {
+        return tier;
+    }
+}
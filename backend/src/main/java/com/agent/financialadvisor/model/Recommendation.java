@@ -6,7 +6,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "recommendations")
+@Table(name = "recommendations", indexes = {
+        // history newest-first (optionally filtered by action, keyset-paged on created_at + id) is read
+        // in index order, no sort
+        @Index(name = "idx_recommendations_user_created_id", columnList = "user_id, created_at DESC, id DESC"),
+        @Index(name = "idx_recommendations_user_symbol", columnList = "user_id, symbol")
+})
 public class Recommendation {
 
     @Id
@@ -6,7 +6,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "stock_holdings")
+@Table(name = "stock_holdings",
+        indexes = @Index(name = "idx_stock_holdings_portfolio_id", columnList = "portfolio_id"))
 public class StockHolding {
 
     @Id
@@ -8,14 +8,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "user_profiles")
+@Table(name = "user_profiles",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_profiles_user_id", columnNames = "user_id"))
 public class UserProfile {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(name = "user_id", nullable = false)
     private String userId; // Session-based or actual user ID
 
     @Enumerated(EnumType.STRING)
@@ -27,7 +28,8 @@ public class UserProfile {
     private InvestmentHorizon horizon = InvestmentHorizon.MEDIUM;
 
     @ElementCollection
-    @CollectionTable(name = "user_goals", joinColumns = @JoinColumn(name = "user_profile_id"))
+    @CollectionTable(name = "user_goals", joinColumns = @JoinColumn(name = "user_profile_id"),
+            indexes = @Index(name = "idx_user_goals_profile", columnList = "user_profile_id"))
     @Column(name = "goal")
     private List<String> goals = new ArrayList<>(); // RETIREMENT, GROWTH, INCOME
 
@@ -35,12 +37,14 @@ public class UserProfile {
     private BigDecimal budget;
 
     @ElementCollection
-    @CollectionTable(name = "preferred_sectors", joinColumns = @JoinColumn(name = "user_profile_id"))
+    @CollectionTable(name = "preferred_sectors", joinColumns = @JoinColumn(name = "user_profile_id"),
+            indexes = @Index(name = "idx_preferred_sectors_profile", columnList = "user_profile_id"))
     @Column(name = "sector")
     private List<String> preferredSectors = new ArrayList<>();
 
     @ElementCollection
-    @CollectionTable(name = "excluded_sectors", joinColumns = @JoinColumn(name = "user_profile_id"))
+    @CollectionTable(name = "excluded_sectors", joinColumns = @JoinColumn(name = "user_profile_id"),
+            indexes = @Index(name = "idx_excluded_sectors_profile", columnList = "user_profile_id"))
     @Column(name = "sector")
     private List<String> excludedSectors = new ArrayList<>();
 
@@ -1,9 +1,14 @@
 package com.agent.financialadvisor.repository;
 
+import com.agent.financialadvisor.dto.RecommendationSummary;
 import com.agent.financialadvisor.model.Recommendation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +19,34 @@ public interface RecommendationRepository extends JpaRepository<Recommendation,
     List<Recommendation> findByUserIdAndActionOrderByCreatedAtDesc(String userId, Recommendation.RecommendationAction action);
     List<Recommendation> findByUserIdAndSymbolIgnoreCase(String userId, String symbol);
     void deleteByUserIdAndSymbolIgnoreCase(String userId, String symbol);
-}
 
+    /** Single recommendation with its TEXT bodies, scoped to the owner. */
+    Optional<Recommendation> findByIdAndUserId(Long id, String userId);
+
+    /**
+     * First page of history, newest first, summary columns only (no TEXT bodies).
+     * Ordered by (created_at, id) so ties on created_at page deterministically.
+     */
+    @Query("SELECT new com.agent.financialadvisor.dto.RecommendationSummary(" +
+            "r.id, r.symbol, r.action, r.confidence, r.riskLevel, r.targetPrice, r.timeHorizon, r.createdAt) " +
+            "FROM Recommendation r WHERE r.userId = :userId " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RecommendationSummary> findSummaries(@Param("userId") String userId, Limit limit);
 
+    /**
+     * Next page after the row ({@code createdAt}, {@code id}): a keyset seek on
+     * idx_recommendations_user_created_id instead of an OFFSET that re-reads every earlier row.
+     * The {@code createdAt <= :createdAt} bound is what the index seeks on; the second condition
+     * only breaks ties on equal createdAt (an OR of the two alone is not sargable, and H2 then
+     * prefers the user_symbol index).
+     */
+    @Query("SELECT new com.agent.financialadvisor.dto.RecommendationSummary(" +
+            "r.id, r.symbol, r.action, r.confidence, r.riskLevel, r.targetPrice, r.timeHorizon, r.createdAt) " +
+            "FROM Recommendation r WHERE r.userId = :userId " +
+            "AND r.createdAt <= :createdAt AND (r.createdAt < :createdAt OR r.id < :id) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RecommendationSummary> findSummariesBefore(@Param("userId") String userId,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id,
+                                                    Limit limit);
+}
@@ -0,0 +1,80 @@
+package com.agent.financialadvisor.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, sorted set of the numbers found in a query's source data (tool results + profile
+ * context), built once per plan attempt by {@link GroundingService#buildIndex} and reused for every
+ * grounding check on that data: the evaluator's answer, the corrective rewrite and the fallback
+ * synthesis.
+ *
+ * Lookups binary-search a primitive {@code double[]} for the tolerance window around the value, so
+ * a check costs O(log n) instead of a linear scan over boxed Doubles.
+ */
+public final class GroundingIndex {
+
+    static final double RELATIVE_TOLERANCE = 0.005;  // 0.5%
+    static final double ABSOLUTE_TOLERANCE = 0.011;  // covers 2-dp rounding
+
+    public static final GroundingIndex EMPTY = new GroundingIndex(new double[0], 0);
+
+    private final double[] values;
+
+    /** Takes ownership of the first {@code size} entries of {@code values}. */
+    GroundingIndex(double[] values, int size) {
+        double[] sorted = values.length == size ? values : Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        this.values = sorted;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * True when some source number matches {@code value} within the absolute (0.011) or relative
+     * (0.5%) tolerance — the same rule GroundingService has always applied.
+     */
+    public boolean contains(double value) {
+        if (values.length == 0) {
+            return false;
+        }
+        // Every match lies in [low, high]; the relative bound is widest against the larger operand.
+        double magnitude = Math.abs(value);
+        // Widened by a hair so floating-point rounding never drops a boundary match; matches() decides.
+        double slack = Math.max(ABSOLUTE_TOLERANCE, magnitude * RELATIVE_TOLERANCE / (1 - RELATIVE_TOLERANCE)) * (1 + 1e-9);
+        double low = value - slack;
+        double high = value + slack;
+
+        for (int i = lowerBound(low); i < values.length && values[i] <= high; i++) {
+            if (matches(values[i], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean matches(double source, double value) {
+        double absDiff = Math.abs(source - value);
+        if (absDiff <= ABSOLUTE_TOLERANCE) {
+            return true;
+        }
+        double magnitude = Math.max(Math.abs(source), Math.abs(value));
+        return magnitude > 0 && absDiff / magnitude <= RELATIVE_TOLERANCE;
+    }
+
+    /** First index whose value is >= {@code key}. */
+    private int lowerBound(double key) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
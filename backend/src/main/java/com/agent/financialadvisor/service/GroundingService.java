@@ -5,12 +5,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * Deterministic numeric-grounding check: every figure in a user-facing response must be present
@@ -21,21 +21,23 @@ import java.util.regex.Pattern;
  * A response number counts as grounded when any number extracted from the sources matches it
  * within a small tolerance (handles 93.7 vs 93.70 style rounding). Small counting integers and
  * calendar years are whitelisted to avoid false positives on prose like "your 2 holdings".
+ *
+ * Source numbers are indexed once per query ({@link #buildIndex}) and the same {@link GroundingIndex}
+ * is reused for the evaluator answer, the corrective rewrite and the fallback synthesis. Figures are
+ * read with {@link NumberScanner} (one pass, no per-number substrings); ungrounded ones are reported
+ * with their offsets so the UI can highlight them.
  */
 @Service
 public class GroundingService {
 
     private static final Logger log = LoggerFactory.getLogger(GroundingService.class);
 
-    /** Matches 290.55 / 2,905.50 / 1405.5 / 93.70 etc. (currency/percent symbols handled around it). */
-    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d[\\d,]*(?:\\.\\d+)?");
-
-    private static final double RELATIVE_TOLERANCE = 0.005;  // 0.5%
-    private static final double ABSOLUTE_TOLERANCE = 0.011;  // covers 2-dp rounding
-
     /** Integers with |value| <= this are treated as counts/prose and never flagged. */
     private static final int SMALL_INT_WHITELIST = 12;
 
+    /** One ungrounded figure occurrence: the token as written and its [start, end) offsets in the response. */
+    public record UngroundedFigure(String token, int start, int end) {}
+
     /**
      * Returns the distinct numeric tokens in {@code response} that cannot be matched to any
      * number present in {@code sources}. Empty list = fully grounded.
@@ -44,29 +46,43 @@ public class GroundingService {
         if (response == null || response.isBlank()) {
             return List.of();
         }
-        List<Double> sourceNumbers = new ArrayList<>();
-        if (sources != null) {
-            for (String source : sources) {
-                sourceNumbers.addAll(extractNumbers(source));
-            }
-        }
+        return findUngroundedNumbers(response, buildIndex(sources));
+    }
 
-        Set<String> offenders = new LinkedHashSet<>();
-        Matcher m = NUMBER_PATTERN.matcher(response);
-        while (m.find()) {
-            String token = m.group();
-            Double value = parse(token);
-            if (value == null || isWhitelisted(token, value)) {
-                continue;
-            }
-            if (!isGrounded(value, sourceNumbers)) {
-                offenders.add(token);
+    /**
+     * Same check against a prebuilt index — use this when several responses are verified against
+     * the same source data.
+     */
+    public List<String> findUngroundedNumbers(String response, GroundingIndex index) {
+        return distinctTokens(findUngroundedFigures(response, index));
+    }
+
+    /**
+     * Every ungrounded figure occurrence in {@code response}, in order, with its position.
+     */
+    public List<UngroundedFigure> findUngroundedFigures(String response, GroundingIndex index) {
+        if (response == null || response.isBlank()) {
+            return List.of();
+        }
+        List<UngroundedFigure> figures = new ArrayList<>();
+        NumberScanner.scan(response, (start, end, value, flags) -> {
+            if (!isWhitelisted(value, flags) && !index.contains(value)) {
+                figures.add(new UngroundedFigure(response.substring(start, end), start, end));
             }
+        });
+        if (!figures.isEmpty()) {
+            log.warn("🚨 [GROUNDING] Ungrounded figures in response: {}", distinctTokens(figures));
         }
-        if (!offenders.isEmpty()) {
-            log.warn("🚨 [GROUNDING] Ungrounded figures in response: {}", offenders);
+        return figures;
+    }
+
+    /** Distinct tokens of {@code figures}, in order of first appearance. */
+    public static List<String> distinctTokens(List<UngroundedFigure> figures) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (UngroundedFigure figure : figures) {
+            tokens.add(figure.token());
         }
-        return new ArrayList<>(offenders);
+        return new ArrayList<>(tokens);
     }
 
     /** True when the response contains no figures missing from the sources. */
@@ -74,31 +90,28 @@ public class GroundingService {
         return findUngroundedNumbers(response, sources).isEmpty();
     }
 
-    private List<Double> extractNumbers(String text) {
-        List<Double> numbers = new ArrayList<>();
-        if (text == null || text.isBlank()) {
-            return numbers;
+    /** Index every number in {@code sources} for repeated tolerance lookups. */
+    public GroundingIndex buildIndex(Collection<String> sources) {
+        if (sources == null || sources.isEmpty()) {
+            return GroundingIndex.EMPTY;
         }
-        Matcher m = NUMBER_PATTERN.matcher(text);
-        while (m.find()) {
-            Double value = parse(m.group());
-            if (value != null) {
-                numbers.add(value);
-            }
+        ValueBuffer buffer = new ValueBuffer();
+        for (String source : sources) {
+            NumberScanner.scan(source, buffer);
         }
-        return numbers;
+        return new GroundingIndex(buffer.values, buffer.size);
     }
 
-    private Double parse(String token) {
-        try {
-            return Double.parseDouble(token.replace(",", ""));
-        } catch (NumberFormatException e) {
-            return null;
-        }
+    /**
+     * Stateful checker for a response that arrives in chunks: reports each ungrounded figure to
+     * {@code listener} as soon as it is complete, using the same rules as this service.
+     */
+    public StreamingGroundingChecker streamingChecker(GroundingIndex index, Consumer<UngroundedFigure> listener) {
+        return new StreamingGroundingChecker(index, listener);
     }
 
-    private boolean isWhitelisted(String token, double value) {
-        boolean isInteger = !token.contains(".");
+    static boolean isWhitelisted(double value, int flags) {
+        boolean isInteger = (flags & NumberScanner.DECIMAL) == 0;
         if (isInteger && Math.abs(value) <= SMALL_INT_WHITELIST) {
             return true; // counts in prose: "2 holdings", "3 steps"
         }
@@ -108,17 +121,17 @@ public class GroundingService {
         return false;
     }
 
-    private boolean isGrounded(double value, List<Double> sourceNumbers) {
-        for (double source : sourceNumbers) {
-            double absDiff = Math.abs(source - value);
-            if (absDiff <= ABSOLUTE_TOLERANCE) {
-                return true;
-            }
-            double magnitude = Math.max(Math.abs(source), Math.abs(value));
-            if (magnitude > 0 && absDiff / magnitude <= RELATIVE_TOLERANCE) {
-                return true;
+    /** Growable primitive buffer the scanner appends source figures to. */
+    private static final class ValueBuffer implements NumberScanner.Sink {
+        private double[] values = new double[256];
+        private int size;
+
+        @Override
+        public void number(int start, int end, double value, int flags) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
             }
+            values[size++] = value;
         }
-        return false;
     }
 }
@@ -1,6 +1,9 @@
 package com.agent.financialadvisor.service;
 
+import com.agent.financialadvisor.util.BoundedExpiringMap;
+import com.agent.financialadvisor.util.Hashes;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -13,10 +16,26 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
-
+import java.util.function.LongSupplier;
+
+/**
+ * Issues and verifies the HS256 JWTs used for API authentication.
+ *
+ * Verification goes through {@link #verify}: one signature check and claims parse into an immutable
+ * {@link JwtPrincipal}, with the signing key and parser built once. Verified principals are cached
+ * by a SHA-256 hash of the token until the token expires (bounded; raw tokens are not kept), so the
+ * filter pays for one signature check per token lifetime rather than several per request.
+ */
 @Service
 public class JwtService {
 
+    /** Identity carried by a verified token. */
+    public record JwtPrincipal(String email, Long userId, long expiresAtMillis) {}
+
+    /** Key, parser and verified-token cache for one secret; null cache when caching is disabled. */
+    private record SigningMaterial(String secret, SecretKey key, JwtParser parser,
+                                   BoundedExpiringMap<String, JwtPrincipal> verifiedTokens) {}
+
     /** The placeholder that used to be the committed default — must never be accepted as a real secret. */
     private static final String INSECURE_PLACEHOLDER =
             "your-256-bit-secret-key-change-this-in-production-minimum-32-characters";
@@ -27,6 +46,13 @@ public class JwtService {
     @Value("${jwt.expiration:86400000}")
     private Long expiration;
 
+    /** Verified tokens kept in the cache; 0 disables caching. */
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries = 10_000;
+
+    private volatile SigningMaterial signingMaterial;
+    LongSupplier clock = System::currentTimeMillis;
+
     /**
      * Fail fast at startup if the signing secret is missing, too weak, or the well-known placeholder.
      * This prevents the app from ever running with a forgeable, source-committed key (set JWT_SECRET on
@@ -50,9 +76,26 @@ public class JwtService {
         }
     }
 
+    /**
+     * Key, parser and token cache for the current secret, built once (rebuilt only if the secret is
+     * replaced, which also starts an empty cache).
+     */
+    private SigningMaterial signingMaterial() {
+        SigningMaterial current = signingMaterial;
+        if (current == null || current.secret() != secret) {
+            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            BoundedExpiringMap<String, JwtPrincipal> cache = cacheMaxEntries > 0
+                    ? new BoundedExpiringMap<>("JWT cache", cacheMaxEntries, JwtPrincipal::expiresAtMillis,
+                            () -> clock.getAsLong())
+                    : null;
+            current = new SigningMaterial(secret, key, Jwts.parser().verifyWith(key).build(), cache);
+            signingMaterial = current;
+        }
+        return current;
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingMaterial().key();
     }
 
     public String generateToken(String email, Long userId) {
@@ -71,23 +114,42 @@ public class JwtService {
                 .compact();
     }
 
+    /**
+     * Verifies {@code token} and returns its principal: from the cache if this token was verified
+     * before and has not expired, otherwise with one signature check and parse.
+     *
+     * @throws io.jsonwebtoken.JwtException if the signature is invalid or the token has expired
+     */
+    public JwtPrincipal verify(String token) {
+        SigningMaterial material = signingMaterial(); // first: a replaced secret drops cached tokens
+        BoundedExpiringMap<String, JwtPrincipal> verifiedTokens = material.verifiedTokens();
+        String key = verifiedTokens != null ? Hashes.sha256Hex(token) : null;
+        if (key != null) {
+            JwtPrincipal cached = verifiedTokens.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Claims claims = material.parser().parseSignedClaims(token).getPayload();
+        Date expiresAt = claims.getExpiration();
+        JwtPrincipal principal = new JwtPrincipal(claims.getSubject(), userIdOf(claims),
+                expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE);
+        if (key != null) {
+            verifiedTokens.put(key, principal);
+        }
+        return principal;
+    }
+
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).email();
     }
 
     public Long extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        Object userIdObj = claims.get("userId");
-        if (userIdObj instanceof Integer) {
-            return ((Integer) userIdObj).longValue();
-        } else if (userIdObj instanceof Long) {
-            return (Long) userIdObj;
-        }
-        return null;
+        return verify(token).userId();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return new Date(verify(token).expiresAtMillis());
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -96,20 +158,29 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return signingMaterial().parser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static Long userIdOf(Claims claims) {
+        Object userIdObj = claims.get("userId");
+        if (userIdObj instanceof Integer) {
+            return ((Integer) userIdObj).longValue();
+        } else if (userIdObj instanceof Long) {
+            return (Long) userIdObj;
+        }
+        return null;
     }
 
     public Boolean validateToken(String token, String email) {
-        final String tokenEmail = extractEmail(token);
-        return (tokenEmail.equals(email) && !isTokenExpired(token));
+        JwtPrincipal principal = verify(token);
+        return principal.email() != null && principal.email().equals(email)
+                && principal.expiresAtMillis() > clock.getAsLong();
     }
-}
 
+    int cachedTokenCount() {
+        BoundedExpiringMap<String, JwtPrincipal> verifiedTokens = signingMaterial().verifiedTokens();
+        return verifiedTokens != null ? verifiedTokens.size() : 0;
+    }
+}
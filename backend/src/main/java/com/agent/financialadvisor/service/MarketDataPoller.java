@@ -0,0 +1,179 @@
+package com.agent.financialadvisor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every held symbol's quote warm in one loop and fans changed prices out to the portfolios
+ * holding them.
+ *
+ * Each cycle quotes {@link SymbolRegistry#symbols()} once at BACKGROUND priority (filling the shared
+ * quote cache, so user and agent reads price from it instead of calling upstream), compares each price
+ * with the one seen last cycle, and pushes changes to the holders' cached valuations in memory
+ * ({@link PortfolioValuationService#applyPrice}). Upstream calls per cycle = distinct symbols,
+ * regardless of how many users hold them.
+ *
+ * The interval should be at least the quote-cache TTL, otherwise a cycle just re-reads the cache.
+ * It is a floor: each wait is stretched so that one cycle per wait stays within the Finnhub calls
+ * BACKGROUND refreshes may spend ({@link MarketDataService#backgroundCallsPerMinute()}), so with many
+ * symbols the poller slows down instead of spilling the rest of every cycle onto Yahoo.
+ */
+@Service
+public class MarketDataPoller {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataPoller.class);
+
+    private final SymbolRegistry symbolRegistry;
+    private final MarketDataService marketDataService;
+    private final PortfolioValuationService portfolioValuationService;
+    private final boolean enabled;
+    private final long intervalSeconds;
+    private final long resyncMillis;
+
+    /** Last price seen per symbol, for change detection. */
+    private final Map<String, BigDecimal> lastPrices = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Counter quoted;
+    private final Counter changed;
+    private final Counter propagated;
+    private final Timer cycleTimer;
+    private volatile long lastResyncMillis;
+    private volatile long delaySeconds;
+
+    public MarketDataPoller(
+            SymbolRegistry symbolRegistry,
+            MarketDataService marketDataService,
+            PortfolioValuationService portfolioValuationService,
+            MeterRegistry meterRegistry,
+            @Value("${market-data.poller.enabled:true}") boolean enabled,
+            @Value("${market-data.poller.interval-seconds:15}") long intervalSeconds,
+            @Value("${market-data.poller.resync-seconds:600}") long resyncSeconds
+    ) {
+        this.symbolRegistry = symbolRegistry;
+        this.marketDataService = marketDataService;
+        this.portfolioValuationService = portfolioValuationService;
+        this.enabled = enabled;
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.delaySeconds = this.intervalSeconds;
+        this.resyncMillis = Math.max(0, resyncSeconds) * 1000L;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "market-data-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.quoted = Counter.builder("market.data.poller.quotes").register(meterRegistry);
+        this.changed = Counter.builder("market.data.poller.changes").register(meterRegistry);
+        this.propagated = Counter.builder("market.data.poller.propagated").register(meterRegistry);
+        this.cycleTimer = Timer.builder("market.data.poller.cycle").register(meterRegistry);
+        Gauge.builder("market.data.poller.symbols", symbolRegistry, SymbolRegistry::size)
+                .description("Distinct symbols held across all portfolios").register(meterRegistry);
+        Gauge.builder("market.data.poller.delay.seconds", this, poller -> poller.delaySeconds)
+                .description("Current wait between cycles, after pacing to the Finnhub background share")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("📡 Market data poller disabled");
+            return;
+        }
+        scheduler.execute(this::runSafely);
+        log.info("📡 Market data poller every {}s or slower to fit {} Finnhub background calls/min",
+                intervalSeconds, marketDataService.backgroundCallsPerMinute());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            pollOnce();
+        } catch (Exception e) {
+            log.warn("⚠️ Market data poll failed: {}", e.getMessage(), e);
+        }
+        // Rescheduled after each cycle (a fixed delay that follows the symbol count): a slow cycle never
+        // overlaps the next one
+        long next = delaySeconds(symbolRegistry.size());
+        if (next != delaySeconds) {
+            log.info("📡 Market data poller now every {}s for {} symbols", next, symbolRegistry.size());
+        }
+        delaySeconds = next;
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::runSafely, next, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Wait before the next cycle: the configured interval, stretched so that {@code symbols} quotes per
+     * cycle stay within the Finnhub background calls per minute.
+     */
+    long delaySeconds(int symbols) {
+        int callsPerMinute = Math.max(1, marketDataService.backgroundCallsPerMinute());
+        long pacedSeconds = (long) Math.ceil(60.0 * symbols / callsPerMinute);
+        return Math.max(intervalSeconds, pacedSeconds);
+    }
+
+    /**
+     * One cycle: resync the registry if due, quote each held symbol once, and push changed prices to
+     * the holders' cached valuations.
+     *
+     * @return the number of symbols whose price changed
+     */
+    public int pollOnce() {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        if (lastResyncMillis == 0 || (resyncMillis > 0 && now - lastResyncMillis >= resyncMillis)) {
+            symbolRegistry.reload();
+            lastResyncMillis = now;
+        }
+        Set<String> symbols = symbolRegistry.symbols();
+        lastPrices.keySet().retainAll(symbols);
+        if (symbols.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, MarketDataService.Quote> quotes =
+                marketDataService.getQuotes(symbols, MarketDataService.Priority.BACKGROUND);
+        quoted.increment(quotes.size());
+        int changedSymbols = 0;
+        int updatedValuations = 0;
+        for (Map.Entry<String, MarketDataService.Quote> entry : quotes.entrySet()) {
+            BigDecimal price = PortfolioValuationService.livePrice(entry.getValue());
+            if (price == null) {
+                continue;
+            }
+            BigDecimal previous = lastPrices.put(entry.getKey(), price);
+            if (previous != null && previous.compareTo(price) == 0) {
+                continue;
+            }
+            changedSymbols++;
+            updatedValuations += portfolioValuationService.applyPrice(entry.getKey(), entry.getValue(),
+                    symbolRegistry.holders(entry.getKey()));
+        }
+        changed.increment(changedSymbols);
+        propagated.increment(updatedValuations);
+        cycleTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("📡 Polled {} symbols ({} quoted): {} changed, {} cached valuations updated",
+                symbols.size(), quotes.size(), changedSymbols, updatedValuations);
+        return changedSymbols;
+    }
+}
@@ -1,12 +1,20 @@
 package com.agent.financialadvisor.service;
 
+import com.agent.financialadvisor.config.MarketDataResilienceConfig;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.net.URI;
 import java.net.URLEncoder;
@@ -15,12 +23,21 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 @Service
@@ -35,10 +52,47 @@ public class MarketDataService {
     private final String yahooBaseUrl;
     private final Duration timeoutDuration;
     private final long quoteCacheTtlMillis;
+    private final MarketDataResilienceConfig.HedgingConfig hedging;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Per-provider circuit breakers: a provider that keeps timing out or rate-limiting is skipped
+     * for a while instead of adding a full timeout to every request before the fallback runs.
+     */
+    private final ProviderCircuitBreaker finnhubBreaker;
+    private final ProviderCircuitBreaker yahooBreaker;
+
+    /**
+     * Client-side pacing for the Finnhub free tier (60 calls/min). Spending the budget locally is
+     * far cheaper than a 429 round trip followed by the Yahoo fallback anyway.
+     */
+    private final Bucket finnhubBudget;
+    /**
+     * BACKGROUND calls also spend a token here, so refreshes can never take more than
+     * {@code background-share} of the budget and interactive callers always keep the rest.
+     */
+    private final Bucket finnhubBackgroundBudget;
+    private final int finnhubBackgroundCallsPerMinute;
+    private final MarketDataResilienceConfig.FinnhubBudgetConfig finnhubBudgetConfig;
+
+    /**
+     * Only used in hedged mode, where the primary and backup quote fetches race. Each hedged quote
+     * holds up to two threads, so the pool size (market-data.resilience.hedging.pool-size) bounds
+     * how many quotes can be in flight at once; further ones queue.
+     */
+    private final ExecutorService hedgeExecutor;
 
     /** A live quote with provenance, so callers can surface real freshness to the user. */
     public record Quote(BigDecimal price, String source, Instant quoteTime) {}
 
+    /**
+     * Who is asking for a quote. When the Finnhub budget is spent, an INTERACTIVE caller (a user is
+     * waiting) goes straight to Yahoo, while a BACKGROUND refresh waits for the next Finnhub token if
+     * it refills within the background max wait (and uses Yahoo right away if it does not). BACKGROUND
+     * calls are also capped at their own share of the budget, so they cannot crowd out interactive ones.
+     */
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
     private record CachedQuote(Quote quote, long cachedAtMillis) {}
 
     /** Very short-TTL cache: protects the Finnhub free tier (60/min) without serving stale prices. */
@@ -61,7 +115,9 @@ public class MarketDataService {
             @Value("${market-data.finnhub.base-url:https://finnhub.io/api/v1}") String finnhubBaseUrl,
             @Value("${market-data.finnhub.timeout-seconds:10}") int timeoutSeconds,
             @Value("${market-data.yahoo-finance.base-url:https://query1.finance.yahoo.com/v8/finance/chart}") String yahooBaseUrl,
-            @Value("${market-data.quote-cache-ttl-seconds:15}") int quoteCacheTtlSeconds
+            @Value("${market-data.quote-cache-ttl-seconds:15}") int quoteCacheTtlSeconds,
+            MarketDataResilienceConfig resilienceConfig,
+            MeterRegistry meterRegistry
     ) {
         this.webClient = webClientBuilder.build();
         this.objectMapper = objectMapper;
@@ -70,6 +126,48 @@ public class MarketDataService {
         this.yahooBaseUrl = yahooBaseUrl;
         this.timeoutDuration = Duration.ofSeconds(timeoutSeconds);
         this.quoteCacheTtlMillis = Math.max(0L, quoteCacheTtlSeconds) * 1000L;
+        this.hedging = resilienceConfig.getHedging();
+        AtomicInteger hedgeThreads = new AtomicInteger();
+        this.hedgeExecutor = Executors.newFixedThreadPool(Math.max(2, hedging.getPoolSize()), runnable -> {
+            Thread thread = new Thread(runnable, "market-data-hedge-" + hedgeThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.meterRegistry = meterRegistry;
+
+        this.finnhubBudgetConfig = resilienceConfig.getFinnhubBudget();
+        int callsPerMinute = Math.max(1, finnhubBudgetConfig.getCallsPerMinute());
+        this.finnhubBudget = Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(callsPerMinute)
+                        .refillGreedy(callsPerMinute, Duration.ofMinutes(1))
+                        .build())
+                .build();
+        Gauge.builder("market.data.finnhub.budget.available", finnhubBudget, Bucket::getAvailableTokens)
+                .register(meterRegistry);
+        double backgroundShare = Math.min(1.0, Math.max(0.0, finnhubBudgetConfig.getBackgroundShare()));
+        this.finnhubBackgroundCallsPerMinute = Math.max(1, (int) Math.floor(callsPerMinute * backgroundShare));
+        this.finnhubBackgroundBudget = Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(finnhubBackgroundCallsPerMinute)
+                        .refillGreedy(finnhubBackgroundCallsPerMinute, Duration.ofMinutes(1))
+                        .build())
+                .build();
+        Gauge.builder("market.data.finnhub.budget.background.available", finnhubBackgroundBudget,
+                        Bucket::getAvailableTokens)
+                .register(meterRegistry);
+
+        MarketDataResilienceConfig.BreakerConfig breaker = resilienceConfig.getBreaker();
+        this.finnhubBreaker = new ProviderCircuitBreaker("finnhub",
+                breaker.getFailureThreshold(), breaker.getOpenSeconds() * 1000L);
+        this.yahooBreaker = new ProviderCircuitBreaker("yahoo",
+                breaker.getFailureThreshold(), breaker.getOpenSeconds() * 1000L);
+        for (ProviderCircuitBreaker b : List.of(finnhubBreaker, yahooBreaker)) {
+            // 0 = closed, 1 = half-open, 2 = open
+            Gauge.builder("market.data.breaker.state", b, cb -> cb.getState().ordinal())
+                    .tag("provider", b.getProvider())
+                    .register(meterRegistry);
+        }
 
         if (finnhubApiKey == null || finnhubApiKey.trim().isEmpty()) {
             log.warn("⚠️ Finnhub API key is not configured. Set FINNHUB_API_KEY environment variable. " +
@@ -138,6 +236,14 @@ public class MarketDataService {
      * protect the free-tier rate limit without serving stale data.
      */
     public Quote getQuote(String symbol) {
+        return getQuote(symbol, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Same as {@link #getQuote(String)}, with the caller's priority deciding what happens when the
+     * local Finnhub budget is spent (see {@link Priority}).
+     */
+    public Quote getQuote(String symbol, Priority priority) {
         if (symbol == null || symbol.isBlank()) {
             return null;
         }
@@ -148,10 +254,7 @@ public class MarketDataService {
             return cached.quote();
         }
 
-        Quote quote = fetchFinnhubQuote(key);
-        if (quote == null) {
-            quote = fetchYahooQuote(key);
-        }
+        Quote quote = hedging.isEnabled() ? fetchQuoteHedged(key, priority) : fetchQuoteSerial(key, priority);
         if (quote != null) {
             quoteCache.put(key, new CachedQuote(quote, System.currentTimeMillis()));
         } else {
@@ -160,15 +263,101 @@ public class MarketDataService {
         return quote;
     }
 
-    private Quote fetchFinnhubQuote(String symbol) {
+    /**
+     * Quotes for many symbols at once, one lookup per distinct symbol (case-insensitive), keyed by the
+     * upper-cased symbol. Symbols with no quote from any provider are absent from the result.
+     *
+     * Neither provider offers a free multi-symbol quote call, so misses are still fetched one by one,
+     * but through the shared cache and the caller's priority: a BACKGROUND batch only spends its own
+     * share of the Finnhub budget and falls back to Yahoo beyond it, so it cannot starve interactive
+     * requests.
+     */
+    public Map<String, Quote> getQuotes(Collection<String> symbols, Priority priority) {
+        Map<String, Quote> quotes = new LinkedHashMap<>();
+        if (symbols == null) {
+            return quotes;
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            if (symbol != null && !symbol.isBlank()) {
+                distinct.add(symbol.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        for (String symbol : distinct) {
+            Quote quote = getQuote(symbol, priority);
+            if (quote != null) {
+                quotes.put(symbol, quote);
+            }
+        }
+        return quotes;
+    }
+
+    private Quote fetchQuoteSerial(String symbol, Priority priority) {
+        Quote quote = fetchFinnhubQuote(symbol, priority);
+        return quote != null ? quote : fetchYahooQuote(symbol);
+    }
+
+    /**
+     * Hedged quote: start Finnhub; if it hasn't answered within its usual latency percentile, also
+     * start Yahoo and take whichever returns a usable quote first. Trades a few extra Yahoo calls
+     * for a bounded tail latency.
+     */
+    private Quote fetchQuoteHedged(String symbol, Priority priority) {
+        CompletableFuture<Quote> primary = CompletableFuture.supplyAsync(() -> fetchFinnhubQuote(symbol, priority), hedgeExecutor);
+        try {
+            Quote quote = primary.get(hedgeDelayMillis(), TimeUnit.MILLISECONDS);
+            return quote != null ? quote : fetchYahooQuote(symbol);
+        } catch (TimeoutException e) {
+            // Primary is slower than usual: fire the backup below.
+        } catch (Exception e) {
+            return fetchYahooQuote(symbol);
+        }
+
+        meterRegistry.counter("market.data.hedge.fired").increment();
+        CompletableFuture<Quote> backup = CompletableFuture.supplyAsync(() -> fetchYahooQuote(symbol), hedgeExecutor);
+        Quote winner = firstNonNull(primary, backup);
+        if (winner != null) {
+            meterRegistry.counter("market.data.hedge.wins", "provider", winner.source()).increment();
+            log.debug("Hedged quote for {} won by {}", symbol, winner.source());
+        }
+        return winner;
+    }
+
+    private long hedgeDelayMillis() {
+        long percentile = finnhubBreaker.latencyPercentile(hedging.getPercentile(), hedging.getMinSamples());
+        long delay = percentile >= 0 ? percentile : hedging.getInitialDelayMillis();
+        return Math.max(hedging.getMinDelayMillis(), delay);
+    }
+
+    private Quote firstNonNull(CompletableFuture<Quote> primary, CompletableFuture<Quote> backup) {
+        CompletableFuture<Quote> first = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        for (CompletableFuture<Quote> candidate : List.of(primary, backup)) {
+            candidate.whenComplete((quote, error) -> {
+                if (quote != null) {
+                    first.complete(quote);
+                } else if (pending.decrementAndGet() == 0) {
+                    first.complete(null);
+                }
+            });
+        }
+        try {
+            return first.get(timeoutDuration.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Hedged quote fetch gave no result: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Quote fetchFinnhubQuote(String symbol, Priority priority) {
         if (finnhubApiKey == null || finnhubApiKey.trim().isEmpty()) {
             return null;
         }
         try {
             String url = String.format("%s/quote?symbol=%s&token=%s", finnhubBaseUrl, symbol, finnhubApiKey);
-            String response = webClient.get().uri(url).retrieve()
-                    .bodyToMono(String.class).timeout(timeoutDuration).block();
-            JsonNode json = objectMapper.readTree(response);
+            JsonNode json = priority == Priority.BACKGROUND
+                    ? finnhubGet(url, finnhubBudgetConfig.getBackgroundMaxWaitMillis(), true)
+                    : finnhubGet(url, 0, false);
             if (json.has("error")) {
                 log.warn("Finnhub API error for {}: {}", symbol, json.get("error").asText());
                 return null;
@@ -213,6 +402,10 @@ public class MarketDataService {
      * A browser-like User-Agent avoids Yahoo's bot rate limiting.
      */
     private JsonNode yahooChart(String symbol, String range, String interval) throws Exception {
+        if (!yahooBreaker.allowRequest()) {
+            log.debug("Skipping Yahoo chart for {}: circuit breaker open", symbol);
+            return MissingNode.getInstance();
+        }
         StringBuilder url = new StringBuilder(yahooBaseUrl).append("/")
                 .append(URLEncoder.encode(symbol, StandardCharsets.UTF_8));
         if (range != null && interval != null) {
@@ -221,16 +414,137 @@ public class MarketDataService {
         // Pass a fully-constructed URI so WebClient uses it verbatim. Passing the String overload
         // treats it as a URI template and re-encodes the '%' in already-encoded symbols like
         // "%5EGSPC" (^GSPC) into "%255EGSPC", which Yahoo 404s. Index symbols broke; tickers didn't.
-        String response = webClient.get()
-                .uri(URI.create(url.toString()))
-                .header("User-Agent", "Mozilla/5.0 (compatible; FinancialAdvisor/1.0)")
-                .retrieve()
-                .bodyToMono(String.class)
-                .timeout(timeoutDuration)
-                .block();
+        long start = System.currentTimeMillis();
+        String response;
+        try {
+            response = webClient.get()
+                    .uri(URI.create(url.toString()))
+                    .header("User-Agent", "Mozilla/5.0 (compatible; FinancialAdvisor/1.0)")
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .timeout(timeoutDuration)
+                    .block();
+        } catch (Exception e) {
+            recordOutcome(yahooBreaker, e, start);
+            throw e;
+        }
+        yahooBreaker.recordSuccess(System.currentTimeMillis() - start);
         return objectMapper.readTree(response);
     }
 
+    /**
+     * GET a Finnhub endpoint through the Finnhub circuit breaker and call budget. When the breaker
+     * rejects the call, or no budget token frees up within {@code maxWaitMillis}, the call is skipped
+     * and a MissingNode is returned, which every caller already treats as "no data" (and falls back).
+     * The breaker is asked first, so budget is only spent on calls that actually go out.
+     */
+    private JsonNode finnhubGet(String url, long maxWaitMillis) throws Exception {
+        return finnhubGet(url, maxWaitMillis, false);
+    }
+
+    private JsonNode finnhubGet(String url, long maxWaitMillis, boolean background) throws Exception {
+        if (!finnhubBreaker.allowRequest()) {
+            log.debug("Skipping Finnhub call: circuit breaker {}", finnhubBreaker.getState());
+            return MissingNode.getInstance();
+        }
+        if (!acquireFinnhubBudget(maxWaitMillis, background)) {
+            finnhubBreaker.releaseRequest();
+            log.debug("Skipping Finnhub call: local budget of {}/min spent", finnhubBudgetConfig.getCallsPerMinute());
+            return MissingNode.getInstance();
+        }
+        long start = System.currentTimeMillis();
+        String response;
+        try {
+            response = webClient.get()
+                    .uri(url)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .timeout(timeoutDuration)
+                    .block();
+        } catch (Exception e) {
+            recordOutcome(finnhubBreaker, e, start);
+            throw e;
+        }
+        finnhubBreaker.recordSuccess(System.currentTimeMillis() - start);
+        return objectMapper.readTree(response);
+    }
+
+    /**
+     * A BACKGROUND call first takes a token from its own share and only then from the shared budget,
+     * handing the share token back if the shared one does not come through. Both waits together stay
+     * within {@code maxWaitMillis}.
+     */
+    private boolean acquireFinnhubBudget(long maxWaitMillis, boolean background) {
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+        if (background && !consumeToken(finnhubBackgroundBudget, maxWaitMillis, "background")) {
+            return false;
+        }
+        long remainingMillis = Math.max(0L, deadline - System.currentTimeMillis());
+        if (consumeToken(finnhubBudget, remainingMillis, "shared")) {
+            return true;
+        }
+        if (background) {
+            finnhubBackgroundBudget.addTokens(1);
+        }
+        return false;
+    }
+
+    private boolean consumeToken(Bucket bucket, long maxWaitMillis, String budget) {
+        if (bucket.tryConsume(1)) {
+            meterRegistry.counter("market.data.finnhub.budget", "outcome", "granted", "budget", budget).increment();
+            return true;
+        }
+        if (maxWaitMillis > 0) {
+            try {
+                // Sleeps only if a token refills within maxWait; otherwise returns false at once,
+                // since waiting out maxWait could not produce a token anyway.
+                if (bucket.asBlocking().tryConsume(1, Duration.ofMillis(maxWaitMillis))) {
+                    meterRegistry.counter("market.data.finnhub.budget", "outcome", "waited", "budget", budget).increment();
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        meterRegistry.counter("market.data.finnhub.budget", "outcome", "skipped", "budget", budget).increment();
+        return false;
+    }
+
+    /**
+     * Finnhub calls per minute that BACKGROUND refreshes may spend. Pollers size their interval from
+     * this so a full cycle fits the share instead of spilling onto Yahoo.
+     */
+    public int backgroundCallsPerMinute() {
+        return finnhubBackgroundCallsPerMinute;
+    }
+
+    /**
+     * Only provider trouble counts against the breaker: timeouts, connection errors, 5xx and 429.
+     * Other 4xx (unknown symbol, premium-only endpoint) mean the provider is up and answering.
+     */
+    private static void recordOutcome(ProviderCircuitBreaker breaker, Exception e, long startMillis) {
+        if (e instanceof WebClientResponseException response
+                && response.getStatusCode().is4xxClientError()
+                && response.getStatusCode().value() != 429) {
+            breaker.recordSuccess(System.currentTimeMillis() - startMillis);
+        } else {
+            breaker.recordFailure(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /** Current breaker states, e.g. {finnhub=CLOSED, yahoo=OPEN}. */
+    public Map<String, String> getProviderStatus() {
+        Map<String, String> status = new LinkedHashMap<>();
+        status.put(finnhubBreaker.getProvider(), finnhubBreaker.getState().name());
+        status.put(yahooBreaker.getProvider(), yahooBreaker.getState().name());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdownHedgeExecutor() {
+        hedgeExecutor.shutdownNow();
+    }
+
     private void logFetchError(String what, String symbol, Exception e) {
         if (e.getMessage() != null && e.getMessage().contains("timeout")) {
             log.warn("Timeout fetching {} for {}: {}", what, symbol, e.getMessage());
@@ -249,14 +563,7 @@ public class MarketDataService {
             String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
             String url = String.format("%s/search?q=%s&token=%s", finnhubBaseUrl, encodedQuery, finnhubApiKey);
 
-            String response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(timeoutDuration)
-                    .block();
-
-            JsonNode json = objectMapper.readTree(response);
+            JsonNode json = finnhubGet(url, finnhubBudgetConfig.getNoFallbackMaxWaitMillis());
             if (json.has("error")) {
                 log.warn("Finnhub symbol search error for {}: {}", query, json.get("error").asText());
                 return null;
@@ -403,14 +710,7 @@ public class MarketDataService {
             String url = String.format("%s/stock/candle?symbol=%s&resolution=%s&from=%d&to=%d&token=%s",
                     finnhubBaseUrl, symbol.toUpperCase(), resolution, from, to, finnhubApiKey);
             
-            String response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(timeoutDuration)
-                    .block();
-            
-            JsonNode json = objectMapper.readTree(response);
+            JsonNode json = finnhubGet(url, 0);
             
             // Check for API errors
             if (json.has("error")) {
@@ -712,14 +1012,7 @@ public class MarketDataService {
             String url = String.format("%s/stock/profile2?symbol=%s&token=%s",
                     finnhubBaseUrl, symbol.toUpperCase(), finnhubApiKey);
             
-            String response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(timeoutDuration)
-                    .block();
-            
-            JsonNode json = objectMapper.readTree(response);
+            JsonNode json = finnhubGet(url, finnhubBudgetConfig.getNoFallbackMaxWaitMillis());
             
             // Check for API errors
             if (json.has("error")) {
@@ -773,15 +1066,7 @@ public class MarketDataService {
             String url = String.format("%s/company-news?symbol=%s&from=%s&to=%s&token=%s",
                     finnhubBaseUrl, symbol.toUpperCase(), fromDate.toString(), toDate.toString(), finnhubApiKey);
             
-            String response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(timeoutDuration)
-                    .block();
-            
-            // Parse and return summary
-            JsonNode json = objectMapper.readTree(response);
+            JsonNode json = finnhubGet(url, finnhubBudgetConfig.getNoFallbackMaxWaitMillis());
             
             // Check for API errors
             if (json.has("error")) {
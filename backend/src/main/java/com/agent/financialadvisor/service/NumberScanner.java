@@ -0,0 +1,147 @@
+package com.agent.financialadvisor.service;
+
+/**
+ * Single-pass scanner for the figures GroundingService checks. Recognises exactly what the old
+ * {@code \d[\d,]*(?:\.\d+)?} regex did (thousands separators, optional decimals) and parses each
+ * figure straight into a {@code double} while walking the text — no Matcher, no substring, no
+ * {@code replace(",", "")} per number.
+ *
+ * Values are exact: up to 15 significant digits and 22 decimals (every realistic price, percent or
+ * volume) are computed as {@code mantissa / 10^k}, which is correctly rounded and therefore equal to
+ * {@link Double#parseDouble}. Longer digit runs fall back to parseDouble.
+ *
+ * Each figure is reported with its [start, end) offsets so callers can point at it (UI highlighting)
+ * without re-scanning, plus flags for the surrounding currency / percent context.
+ */
+public final class NumberScanner {
+
+    /** The figure has a fractional part ("290.55" but not "290"). */
+    public static final int DECIMAL = 1;
+    /** Directly preceded by a currency symbol ($, €, £, ¥), optionally with one space. */
+    public static final int CURRENCY = 1 << 1;
+    /** Directly followed by '%', optionally with one space. */
+    public static final int PERCENT = 1 << 2;
+
+    @FunctionalInterface
+    public interface Sink {
+        void number(int start, int end, double value, int flags);
+    }
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 16;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberScanner() {
+    }
+
+    /** Reports every figure in {@code text} to {@code sink}, in order of appearance. */
+    public static void scan(CharSequence text, Sink sink) {
+        if (text == null) {
+            return;
+        }
+        scan(text, 0, text.length(), sink);
+    }
+
+    /**
+     * Scans {@code text[from, to)} only. {@code from} must not fall inside a figure; characters
+     * outside the range are still consulted for the currency / percent flags.
+     */
+    public static void scan(CharSequence text, int from, int to, Sink sink) {
+        int length = to;
+        int i = from;
+        while (i < length) {
+            if (!isDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            long mantissa = 0;
+            int significantDigits = 0;
+            int fractionDigits = 0;
+            boolean exact = true;
+            int flags = 0;
+
+            // Integer part: a digit followed by any run of digits and thousands separators.
+            while (i < length) {
+                char c = text.charAt(i);
+                if (isDigit(c)) {
+                    if (mantissa != 0 || c != '0') {
+                        if (++significantDigits > MAX_MANTISSA_DIGITS) {
+                            exact = false;
+                        }
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    i++;
+                } else if (c == ',') {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+
+            // Fraction: only when the '.' is followed by at least one digit ("12." stays "12").
+            if (i + 1 < length && text.charAt(i) == '.' && isDigit(text.charAt(i + 1))) {
+                flags |= DECIMAL;
+                i++;
+                while (i < length && isDigit(text.charAt(i))) {
+                    char c = text.charAt(i);
+                    if (mantissa != 0 || c != '0') {
+                        if (++significantDigits > MAX_MANTISSA_DIGITS) {
+                            exact = false;
+                        }
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    fractionDigits++;
+                    i++;
+                }
+            }
+            int end = i;
+
+            double value;
+            if (exact && mantissa < MAX_EXACT_MANTISSA && fractionDigits < POWERS_OF_TEN.length) {
+                value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+            } else {
+                value = parseSlow(text, start, end);
+            }
+
+            if (isCurrencySymbol(charBefore(text, start)) || (charBefore(text, start) == ' '
+                    && isCurrencySymbol(charBefore(text, start - 1)))) {
+                flags |= CURRENCY;
+            }
+            if (charAt(text, end) == '%' || (charAt(text, end) == ' ' && charAt(text, end + 1) == '%')) {
+                flags |= PERCENT;
+            }
+            sink.number(start, end, value, flags);
+        }
+    }
+
+    private static double parseSlow(CharSequence text, int start, int end) {
+        StringBuilder digits = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != ',') {
+                digits.append(c);
+            }
+        }
+        return Double.parseDouble(digits.toString());
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isCurrencySymbol(char c) {
+        return c == '$' || c == '€' || c == '£' || c == '¥';
+    }
+
+    private static char charBefore(CharSequence text, int index) {
+        return index > 0 ? text.charAt(index - 1) : 0;
+    }
+
+    private static char charAt(CharSequence text, int index) {
+        return index < text.length() ? text.charAt(index) : 0;
+    }
+}
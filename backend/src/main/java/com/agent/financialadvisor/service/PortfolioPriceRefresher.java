@@ -0,0 +1,222 @@
+package com.agent.financialadvisor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background refresh of the persisted holding prices and portfolio totals.
+ *
+ * Each cycle quotes the distinct symbol set across all portfolios once (via
+ * {@link MarketDataService#getQuotes}, at BACKGROUND priority so it only spends the background share
+ * of the Finnhub budget and leaves the rest to users), then writes the holdings whose price moved past the persist threshold and their
+ * portfolios' totals with batched JDBC updates, ordered by primary key so concurrent writers lock
+ * rows in the same order. Only the price comes from this process: value and gain/loss are computed
+ * in the UPDATE from the row's quantity and average price, and totals are a SQL aggregate over the
+ * holdings, so a buy or sell committed between the read and the write is never overwritten with
+ * figures derived from the old position. No entities are loaded: reads stay on {@link PortfolioValuationService},
+ * which values positions at live quotes anyway; this keeps the stored snapshot close for summaries.
+ *
+ * Throughput is reported as holdings written per second of the write phase (quote fetching is
+ * bounded by the provider budget, not by the database).
+ */
+@Service
+public class PortfolioPriceRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(PortfolioPriceRefresher.class);
+
+    private static final String SELECT_SYMBOLS = "SELECT DISTINCT symbol FROM stock_holdings";
+    private static final String SELECT_HOLDINGS =
+            "SELECT id, portfolio_id, symbol, current_price FROM stock_holdings";
+    private static final String UPDATE_HOLDING =
+            "UPDATE stock_holdings SET current_price = ?, value = ? * quantity, " +
+            "gain_loss = (? - average_price) * quantity, " +
+            "gain_loss_percent = CASE WHEN average_price > 0 " +
+            "THEN ROUND((? - average_price) / average_price, 4) * 100 END, " +
+            "last_updated = ? WHERE id = ?";
+    // Same rules as Portfolio.recalculateTotals: value at the current price (cost basis when there is
+    // none), gain only where there is a current price, percent of the cost basis.
+    private static final String EFFECTIVE_VALUE =
+            "CASE WHEN h.current_price > 0 THEN h.current_price ELSE h.average_price END * h.quantity";
+    private static final String GAIN =
+            "CASE WHEN h.current_price > 0 THEN (h.current_price - h.average_price) * h.quantity ELSE 0 END";
+    private static final String COST = "h.average_price * h.quantity";
+    private static final String UPDATE_PORTFOLIO =
+            "UPDATE portfolios p SET " +
+            "total_value = (SELECT ROUND(COALESCE(SUM(" + EFFECTIVE_VALUE + "), 0), 2) " +
+            "FROM stock_holdings h WHERE h.portfolio_id = p.id), " +
+            "total_gain_loss = (SELECT ROUND(COALESCE(SUM(" + GAIN + "), 0), 2) " +
+            "FROM stock_holdings h WHERE h.portfolio_id = p.id), " +
+            "total_gain_loss_percent = (SELECT CASE WHEN SUM(" + COST + ") > 0 " +
+            "THEN ROUND(SUM(" + GAIN + ") / SUM(" + COST + "), 4) * 100 ELSE 0 END " +
+            "FROM stock_holdings h WHERE h.portfolio_id = p.id), " +
+            "last_updated = ? WHERE p.id = ?";
+
+    /** Outcome of one refresh cycle. */
+    public record RefreshResult(int symbols, int quoted, int holdingsUpdated, int portfoliosUpdated,
+                                long quoteMillis, long writeMillis) {
+        public double holdingsPerSecond() {
+            return writeMillis > 0 ? holdingsUpdated * 1000.0 / writeMillis : holdingsUpdated;
+        }
+    }
+
+    private record HoldingRow(long id, long portfolioId, String symbol, BigDecimal currentPrice) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MarketDataService marketDataService;
+    private final PortfolioValuationService portfolioValuationService;
+    private final boolean enabled;
+    private final long intervalSeconds;
+    private final long initialDelaySeconds;
+    private final int batchSize;
+
+    private final ScheduledExecutorService scheduler;
+    private final Counter holdingsWritten;
+    private final Timer cycleTimer;
+    private final AtomicLong lastHoldingsPerSecond = new AtomicLong();
+
+    public PortfolioPriceRefresher(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MarketDataService marketDataService,
+            PortfolioValuationService portfolioValuationService,
+            MeterRegistry meterRegistry,
+            @Value("${portfolio.refresher.enabled:true}") boolean enabled,
+            @Value("${portfolio.refresher.interval-seconds:300}") long intervalSeconds,
+            @Value("${portfolio.refresher.initial-delay-seconds:60}") long initialDelaySeconds,
+            @Value("${portfolio.refresher.batch-size:100}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.marketDataService = marketDataService;
+        this.portfolioValuationService = portfolioValuationService;
+        this.enabled = enabled;
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.initialDelaySeconds = Math.max(0, initialDelaySeconds);
+        this.batchSize = Math.max(1, batchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "portfolio-price-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.holdingsWritten = Counter.builder("portfolio.refresh.holdings.updated").register(meterRegistry);
+        this.cycleTimer = Timer.builder("portfolio.refresh.duration").register(meterRegistry);
+        Gauge.builder("portfolio.refresh.holdings.per.second", lastHoldingsPerSecond, AtomicLong::get)
+                .description("Holdings written per second in the last refresh's write phase")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("💹 Background portfolio price refresh disabled");
+            return;
+        }
+        // Fixed delay on one thread: a slow cycle (provider budget) never overlaps the next one
+        scheduler.scheduleWithFixedDelay(this::runSafely, initialDelaySeconds, intervalSeconds, TimeUnit.SECONDS);
+        log.info("💹 Background portfolio price refresh every {}s (JDBC batch size {})", intervalSeconds, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            refreshOnce();
+        } catch (Exception e) {
+            log.warn("⚠️ Portfolio price refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /** One refresh cycle: quote each distinct symbol once, then write moved prices and totals in batches. */
+    public RefreshResult refreshOnce() {
+        long start = System.nanoTime();
+        List<String> symbols = jdbcTemplate.queryForList(SELECT_SYMBOLS, String.class);
+        if (symbols.isEmpty()) {
+            return new RefreshResult(0, 0, 0, 0, 0, 0);
+        }
+        Map<String, MarketDataService.Quote> quotes =
+                marketDataService.getQuotes(symbols, MarketDataService.Priority.BACKGROUND);
+        long quoted = System.nanoTime();
+
+        int[] written = transactionTemplate.execute(status -> writePrices(quotes));
+        long end = System.nanoTime();
+
+        RefreshResult result = new RefreshResult(symbols.size(), quotes.size(), written[0], written[1],
+                TimeUnit.NANOSECONDS.toMillis(quoted - start), TimeUnit.NANOSECONDS.toMillis(end - quoted));
+        holdingsWritten.increment(result.holdingsUpdated());
+        cycleTimer.record(end - start, TimeUnit.NANOSECONDS);
+        lastHoldingsPerSecond.set(Math.round(result.holdingsPerSecond()));
+        log.info("💹 Price refresh: {} symbols ({} quoted in {}ms), {} holdings / {} portfolios written in {}ms " +
+                        "({} holdings/s)", result.symbols(), result.quoted(), result.quoteMillis(),
+                result.holdingsUpdated(), result.portfoliosUpdated(), result.writeMillis(),
+                Math.round(result.holdingsPerSecond()));
+        return result;
+    }
+
+    /** @return {holdings updated, portfolios updated} */
+    private int[] writePrices(Map<String, MarketDataService.Quote> quotes) {
+        List<HoldingRow> movedHoldings = new ArrayList<>();
+        TreeSet<Long> movedPortfolios = new TreeSet<>();
+        jdbcTemplate.query(SELECT_HOLDINGS, rs -> {
+            String symbol = rs.getString("symbol");
+            BigDecimal price = PortfolioValuationService.livePrice(
+                    quotes.get(symbol != null ? symbol.toUpperCase(Locale.ROOT) : null));
+            BigDecimal stored = rs.getBigDecimal("current_price");
+            if (price != null && portfolioValuationService.movedBeyondThreshold(stored, price)) {
+                HoldingRow row = new HoldingRow(rs.getLong("id"), rs.getLong("portfolio_id"), symbol,
+                        price.setScale(2, RoundingMode.HALF_UP));
+                movedHoldings.add(row);
+                movedPortfolios.add(row.portfolioId());
+            }
+        });
+        if (movedHoldings.isEmpty()) {
+            return new int[]{0, 0};
+        }
+
+        movedHoldings.sort(Comparator.comparingLong(HoldingRow::id));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_HOLDING, movedHoldings, batchSize, (ps, row) -> {
+            ps.setBigDecimal(1, row.currentPrice());
+            ps.setBigDecimal(2, row.currentPrice());
+            ps.setBigDecimal(3, row.currentPrice());
+            ps.setBigDecimal(4, row.currentPrice());
+            ps.setTimestamp(5, now);
+            ps.setLong(6, row.id());
+        });
+        // After the holdings, so the aggregate sees this cycle's prices along with the latest positions
+        jdbcTemplate.batchUpdate(UPDATE_PORTFOLIO, movedPortfolios, batchSize, (ps, portfolioId) -> {
+            ps.setTimestamp(1, now);
+            ps.setLong(2, portfolioId);
+        });
+        return new int[]{movedHoldings.size(), movedPortfolios.size()};
+    }
+}
@@ -0,0 +1,322 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.model.Portfolio;
+import com.agent.financialadvisor.model.StockHolding;
+import com.agent.financialadvisor.repository.PortfolioRepository;
+import com.agent.financialadvisor.util.BoundedExpiringMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Live portfolio valuation, computed in memory from the persisted positions and the quote cache.
+ *
+ * Reads never write: {@link #valuate} loads positions, prices them through
+ * {@link MarketDataService#getQuote} and serves the result from a short-lived per-user cache.
+ * Previously every GET /api/portfolio and every getPortfolio tool call re-saved the portfolio, which
+ * made each read an UPDATE of every holding row.
+ *
+ * The persisted price fields are a snapshot for summaries and history, and are only written through
+ * {@link #refreshPersistedPrices}: by an explicit refresh or a background job, and only for holdings
+ * whose price moved by more than {@code portfolio.valuation.persist-threshold-percent}.
+ */
+@Service
+public class PortfolioValuationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PortfolioValuationService.class);
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    /** One holding priced at read time. Field names match the StockHolding JSON the UI already reads. */
+    public record HoldingValuation(Long id, Long portfolioId, String symbol, Integer quantity,
+                                   BigDecimal averagePrice, BigDecimal currentPrice, BigDecimal value,
+                                   BigDecimal gainLoss, BigDecimal gainLossPercent, LocalDateTime lastUpdated) {}
+
+    /**
+     * A portfolio priced at read time. Field names match the Portfolio JSON, plus the provenance of
+     * the prices used ({@code priceSource}, {@code pricesAsOf}; null when no live quote was available).
+     */
+    public record PortfolioValuation(Long id, String userId, List<HoldingValuation> holdings,
+                                     BigDecimal totalValue, BigDecimal totalGainLoss, BigDecimal totalGainLossPercent,
+                                     LocalDateTime lastUpdated, String priceSource, Instant pricesAsOf) {
+
+        /** A user without a portfolio row yet — served as-is, nothing is created on read. */
+        public static PortfolioValuation empty(String userId) {
+            return new PortfolioValuation(null, userId, List.of(), BigDecimal.ZERO, BigDecimal.ZERO,
+                    BigDecimal.ZERO, null, null, null);
+        }
+    }
+
+    private record CachedValuation(Optional<PortfolioValuation> valuation, long cachedAtMillis) {}
+
+    private final PortfolioRepository portfolioRepository;
+    private final MarketDataService marketDataService;
+    private final long ttlMillis;
+    private final BigDecimal persistThresholdPercent;
+    private final LongSupplier clock;
+
+    private final BoundedExpiringMap<String, CachedValuation> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter persistedPrices;
+
+    @Autowired
+    public PortfolioValuationService(
+            PortfolioRepository portfolioRepository,
+            MarketDataService marketDataService,
+            MeterRegistry meterRegistry,
+            @Value("${portfolio.valuation.cache-ttl-seconds:15}") long ttlSeconds,
+            @Value("${portfolio.valuation.cache-max-entries:10000}") int maxEntries,
+            @Value("${portfolio.valuation.persist-threshold-percent:0.5}") BigDecimal persistThresholdPercent
+    ) {
+        this(portfolioRepository, marketDataService, meterRegistry, ttlSeconds, maxEntries, persistThresholdPercent,
+                System::currentTimeMillis);
+    }
+
+    PortfolioValuationService(PortfolioRepository portfolioRepository, MarketDataService marketDataService,
+                              MeterRegistry meterRegistry, long ttlSeconds, int maxEntries,
+                              BigDecimal persistThresholdPercent, LongSupplier clock) {
+        this.portfolioRepository = portfolioRepository;
+        this.marketDataService = marketDataService;
+        this.ttlMillis = Math.max(0L, ttlSeconds) * 1000L;
+        this.persistThresholdPercent = persistThresholdPercent != null ? persistThresholdPercent.abs() : BigDecimal.ZERO;
+        this.clock = clock;
+        this.cache = new BoundedExpiringMap<>("Valuation cache", maxEntries,
+                cached -> cached.cachedAtMillis() + ttlMillis, clock);
+        this.hits = Counter.builder("portfolio.valuation.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("portfolio.valuation.cache").tag("result", "miss").register(meterRegistry);
+        this.persistedPrices = Counter.builder("portfolio.valuation.persisted.prices").register(meterRegistry);
+        Gauge.builder("portfolio.valuation.cache.size", cache, BoundedExpiringMap::size).register(meterRegistry);
+    }
+
+    /**
+     * The user's portfolio priced at live quotes, or empty if the user has no portfolio yet.
+     * Read-only: nothing is saved, and the loaded entity is never modified.
+     */
+    public Optional<PortfolioValuation> valuate(String userId) {
+        long now = clock.getAsLong();
+        CachedValuation cached = cache.get(userId);
+        if (cached != null) {
+            hits.increment();
+            return cached.valuation();
+        }
+        misses.increment();
+
+        Optional<PortfolioValuation> valuation = portfolioRepository.findByUserIdWithHoldings(userId)
+                .map(this::price);
+        if (ttlMillis > 0) {
+            cache.put(userId, new CachedValuation(valuation, now));
+        }
+        return valuation;
+    }
+
+    /**
+     * Pushes a new price for {@code symbol} into the cached valuations of {@code userIds} (the
+     * portfolios holding it), re-pricing in memory and restarting their TTL. Users without a cached
+     * valuation are skipped — their next read prices from the warm quote cache.
+     *
+     * @return the number of cached valuations updated
+     */
+    public int applyPrice(String symbol, MarketDataService.Quote quote, Collection<String> userIds) {
+        BigDecimal live = livePrice(quote);
+        if (symbol == null || live == null || userIds == null || ttlMillis == 0) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        int updated = 0;
+        for (String userId : userIds) {
+            boolean[] repriced = {false};
+            cache.computeIfPresent(userId, (id, cached) -> {
+                if (cached.valuation().isEmpty() || now - cached.cachedAtMillis() >= ttlMillis) {
+                    return cached; // expired entries are re-read in full, not revived one symbol at a time
+                }
+                PortfolioValuation current = cached.valuation().get();
+                List<HoldingValuation> holdings = new ArrayList<>(current.holdings().size());
+                boolean held = false;
+                for (HoldingValuation h : current.holdings()) {
+                    if (symbol.equalsIgnoreCase(h.symbol())) {
+                        h = holding(h.id(), h.portfolioId(), h.symbol(), h.quantity(), h.averagePrice(), live,
+                                h.lastUpdated());
+                        held = true;
+                    }
+                    holdings.add(h);
+                }
+                if (!held) {
+                    return cached;
+                }
+                repriced[0] = true;
+                return new CachedValuation(Optional.of(withTotals(current.id(), current.userId(), holdings,
+                        current.lastUpdated(), quote.source(), later(current.pricesAsOf(), quote.quoteTime()))), now);
+            });
+            if (repriced[0]) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /** Drops the user's cached valuation; call after any change to their positions. */
+    public void invalidate(String userId) {
+        if (userId != null) {
+            cache.remove(userId);
+        }
+    }
+
+    /**
+     * Writes fresh quotes into the holdings' persisted {@code currentPrice} — but only for holdings
+     * with no stored price yet, or whose price moved by more than the persist threshold — and
+     * recomputes the portfolio totals when anything changed. The caller saves the portfolio (and
+     * invalidates the valuation) when this returns a non-zero count.
+     *
+     * @return the number of holdings whose persisted price changed
+     */
+    public int refreshPersistedPrices(Portfolio portfolio, MarketDataService.Priority priority) {
+        if (portfolio == null || portfolio.getHoldings() == null) {
+            return 0;
+        }
+        int changed = 0;
+        for (StockHolding holding : portfolio.getHoldings()) {
+            try {
+                MarketDataService.Quote quote = marketDataService.getQuote(holding.getSymbol(), priority);
+                BigDecimal price = livePrice(quote);
+                if (price != null && movedBeyondThreshold(holding.getCurrentPrice(), price)) {
+                    holding.setCurrentPrice(price);
+                    changed++;
+                }
+            } catch (Exception e) {
+                log.warn("Could not refresh price for {}: {}", holding.getSymbol(), e.getMessage());
+            }
+        }
+        if (changed > 0) {
+            // Child-only changes don't dirty the parent: recompute explicitly so the totals persist too
+            portfolio.recalculateTotals();
+            persistedPrices.increment(changed);
+        }
+        return changed;
+    }
+
+    /** True if {@code next} should replace the persisted {@code previous} price. */
+    boolean movedBeyondThreshold(BigDecimal previous, BigDecimal next) {
+        if (previous == null || previous.signum() <= 0) {
+            return true;
+        }
+        BigDecimal movePercent = next.subtract(previous).abs()
+                .multiply(HUNDRED)
+                .divide(previous, 4, RoundingMode.HALF_UP);
+        return movePercent.compareTo(persistThresholdPercent) > 0;
+    }
+
+    int cachedValuationCount() {
+        return cache.size();
+    }
+
+    /**
+     * Prices the positions in memory, with the same rules as Portfolio.recalculateTotals and
+     * StockHolding's @PreUpdate: a holding without a live quote is valued at cost, and its gain/loss
+     * is left unset.
+     */
+    private PortfolioValuation price(Portfolio portfolio) {
+        List<StockHolding> positions = portfolio.getHoldings() != null ? portfolio.getHoldings() : List.of();
+        List<HoldingValuation> holdings = new ArrayList<>(positions.size());
+        String priceSource = null;
+        Instant pricesAsOf = null;
+
+        for (StockHolding h : positions) {
+            if (h == null || h.getQuantity() == null) {
+                continue;
+            }
+            MarketDataService.Quote quote = quoteFor(h.getSymbol());
+            BigDecimal live = livePrice(quote);
+            if (live != null) {
+                priceSource = quote.source();
+                pricesAsOf = later(pricesAsOf, quote.quoteTime());
+            } else if (h.getCurrentPrice() != null && h.getCurrentPrice().signum() > 0) {
+                live = h.getCurrentPrice(); // last persisted snapshot beats valuing at cost
+            }
+            holdings.add(holding(h.getId(), h.getPortfolioId(), h.getSymbol(), h.getQuantity(), h.getAveragePrice(),
+                    live, h.getLastUpdated()));
+        }
+        return withTotals(portfolio.getId(), portfolio.getUserId(), holdings, portfolio.getLastUpdated(),
+                priceSource, pricesAsOf);
+    }
+
+    private static HoldingValuation holding(Long id, Long portfolioId, String symbol, Integer quantity,
+                                            BigDecimal avg, BigDecimal live, LocalDateTime lastUpdated) {
+        BigDecimal qty = BigDecimal.valueOf(quantity);
+        BigDecimal value = null;
+        BigDecimal gainLoss = null;
+        BigDecimal gainLossPercent = null;
+        if (live != null) {
+            value = live.multiply(qty);
+            if (avg != null) {
+                BigDecimal priceDiff = live.subtract(avg);
+                gainLoss = priceDiff.multiply(qty);
+                if (avg.signum() > 0) {
+                    gainLossPercent = priceDiff.divide(avg, 4, RoundingMode.HALF_UP).multiply(HUNDRED);
+                }
+            }
+        } else if (avg != null) {
+            value = avg.multiply(qty);
+        }
+        return new HoldingValuation(id, portfolioId, symbol, quantity, avg, live, value, gainLoss, gainLossPercent,
+                lastUpdated);
+    }
+
+    private static PortfolioValuation withTotals(Long id, String userId, List<HoldingValuation> holdings,
+                                                 LocalDateTime lastUpdated, String priceSource, Instant pricesAsOf) {
+        BigDecimal totalValue = BigDecimal.ZERO;
+        BigDecimal totalGain = BigDecimal.ZERO;
+        BigDecimal totalCost = BigDecimal.ZERO;
+        for (HoldingValuation h : holdings) {
+            if (h.value() != null) {
+                totalValue = totalValue.add(h.value());
+            }
+            if (h.gainLoss() != null) {
+                totalGain = totalGain.add(h.gainLoss());
+            }
+            if (h.averagePrice() != null) {
+                totalCost = totalCost.add(h.averagePrice().multiply(BigDecimal.valueOf(h.quantity())));
+            }
+        }
+        BigDecimal totalGainPercent = totalCost.signum() > 0
+                ? totalGain.divide(totalCost, 4, RoundingMode.HALF_UP).multiply(HUNDRED)
+                : BigDecimal.ZERO;
+        return new PortfolioValuation(id, userId, List.copyOf(holdings), totalValue, totalGain, totalGainPercent,
+                lastUpdated, priceSource, pricesAsOf);
+    }
+
+    private static Instant later(Instant current, Instant candidate) {
+        return candidate != null && (current == null || candidate.isAfter(current)) ? candidate : current;
+    }
+
+    private MarketDataService.Quote quoteFor(String symbol) {
+        try {
+            return marketDataService.getQuote(symbol);
+        } catch (Exception e) {
+            log.warn("Could not price {}: {}", symbol, e.getMessage());
+            return null;
+        }
+    }
+
+    /** The quote's price at the persisted scale (2 dp), or null if there is no usable price. */
+    static BigDecimal livePrice(MarketDataService.Quote quote) {
+        if (quote == null || quote.price() == null || quote.price().signum() <= 0) {
+            return null;
+        }
+        return quote.price().setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,129 @@
+package com.agent.financialadvisor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for one upstream market-data provider (Finnhub, Yahoo).
+ *
+ * CLOSED: calls flow; {@code failureThreshold} consecutive failures open the breaker.
+ * OPEN: calls are skipped (callers go straight to the other provider) for {@code openMillis}.
+ * HALF_OPEN: one probe call is let through; success closes the breaker, failure re-opens it.
+ *
+ * "Failure" means the provider itself misbehaved (timeout, 5xx, 429) — an unknown symbol or a
+ * premium-only 403 is a healthy answer and must not open the breaker.
+ *
+ * Also keeps a small window of recent successful latencies so the hedged-request mode can fire the
+ * backup provider once the primary is slower than its usual p95.
+ */
+public class ProviderCircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderCircuitBreaker.class);
+    private static final int LATENCY_WINDOW = 128;
+
+    private final String provider;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private boolean probeInFlight;
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private int latencyNext;
+
+    public ProviderCircuitBreaker(String provider, int failureThreshold, long openMillis) {
+        this(provider, failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    ProviderCircuitBreaker(String provider, int failureThreshold, long openMillis, LongSupplier clock) {
+        this.provider = provider;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0, openMillis);
+        this.clock = clock;
+    }
+
+    /** True if a call may be made now. In HALF_OPEN only a single probe is admitted. */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAtMillis < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+            log.info("🔌 [BREAKER] {} half-open: letting one probe through", provider);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * Hands back an admission from {@link #allowRequest} that did not turn into a call (e.g. no call
+     * budget), so a HALF_OPEN probe slot is not held by a call that never went out.
+     */
+    public synchronized void releaseRequest() {
+        probeInFlight = false;
+    }
+
+    public synchronized void recordSuccess(long latencyMillis) {
+        if (state != State.CLOSED) {
+            log.info("✅ [BREAKER] {} closed again after successful probe", provider);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        latencies[latencyNext] = latencyMillis;
+        latencyNext = (latencyNext + 1) % LATENCY_WINDOW;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+    }
+
+    public synchronized void recordFailure(String reason) {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("🚨 [BREAKER] {} opened for {}s after {} consecutive failure(s): {}",
+                        provider, openMillis / 1000, consecutiveFailures, reason);
+            }
+            state = State.OPEN;
+            openedAtMillis = clock.getAsLong();
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAtMillis >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Latency percentile (0..1) over recent successful calls, or -1 until {@code minSamples} exist.
+     */
+    public synchronized long latencyPercentile(double percentile, int minSamples) {
+        if (latencyCount < Math.max(1, minSamples)) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * latencyCount) - 1;
+        return sorted[Math.max(0, Math.min(latencyCount - 1, index))];
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+}
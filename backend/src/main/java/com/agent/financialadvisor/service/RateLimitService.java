@@ -1,110 +1,415 @@
 package com.agent.financialadvisor.service;
 
 import com.agent.financialadvisor.config.RateLimitConfig;
+import com.agent.financialadvisor.dto.TokenBudget;
 import com.agent.financialadvisor.exception.RateLimitExceededException;
+import com.agent.financialadvisor.service.llm.LlmTokenUsage;
+import com.agent.financialadvisor.util.BoundedExpiringMap;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.EstimationProbe;
+import io.github.bucket4j.TimeMeter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 /**
  * Rate limiting service using Bucket4j (token bucket algorithm).
- * Implements per-session rate limiting to prevent abuse of the advisor API.
+ *
+ * Two tiers guard the advisor endpoint: a bucket per authenticated user, and a global tier (one
+ * shared throughput bucket plus a cap on concurrently running analyses) that bounds total LLM load
+ * no matter how many accounts are active. Buckets used to be keyed by the client-chosen sessionId,
+ * so a client could dodge the limit and grow the map without bound by sending fresh ids.
+ *
+ * Requests are also charged by cost: each user has an LLM token budget ({@code rate-limit.tokens}).
+ * Admission reserves an estimate (the user's recent average cost); when the permit closes, the
+ * tokens the request's planner, sub-agent, evaluator and security calls actually used (collected in
+ * {@link LlmTokenUsage}) replace the reservation. A request that cost more than reserved leaves the
+ * budget in debt, which blocks the next request until it has refilled.
+ *
+ * User buckets expire once idle for a full refill (at which point they are indistinguishable from
+ * a new bucket, so expiry never grants extra requests) and the map is capped at
+ * {@code rate-limit.max-tracked-users}, evicting the least recently used beyond that. Neither path
+ * drops a bucket with an open permit or one that has not fully refilled (requests or LLM tokens);
+ * if no bucket can be dropped, new users are turned away at the global tier instead.
  */
 @Service
 public class RateLimitService {
 
     private static final Logger log = LoggerFactory.getLogger(RateLimitService.class);
-    
+
+    private static final class TrackedBucket {
+        private final Bucket bucket;
+        /** Null when the token budget is disabled. */
+        private final Bucket tokenBucket;
+        private volatile long lastUsedNanos;
+        /** Tokens reserved on admission: a moving average of this user's settled requests. */
+        private volatile long estimatedTokens;
+        /** Admissions in progress or permits not yet closed; a bucket with any is never evicted. */
+        private final AtomicInteger openPermits = new AtomicInteger();
+
+        private TrackedBucket(Bucket bucket, Bucket tokenBucket, long estimatedTokens, long now) {
+            this.bucket = bucket;
+            this.tokenBucket = tokenBucket;
+            this.estimatedTokens = estimatedTokens;
+            this.lastUsedNanos = now;
+        }
+    }
+
+    /**
+     * Held while an analysis runs. Closing it frees the global concurrency slot and settles the token
+     * budget with the request's actual usage. Idempotent.
+     */
+    public static final class AdvisorPermit implements AutoCloseable {
+        private final Semaphore slots;
+        private final TrackedBucket user;
+        private final long reservedTokens;
+        private final LlmTokenUsage usage;
+        private final Counter tokensCharged;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private AdvisorPermit(Semaphore slots, TrackedBucket user, long reservedTokens, LlmTokenUsage usage,
+                              Counter tokensCharged) {
+            this.slots = slots;
+            this.user = user;
+            this.reservedTokens = reservedTokens;
+            this.usage = usage;
+            this.tokensCharged = tokensCharged;
+        }
+
+        @Override
+        public void close() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (slots != null) {
+                    slots.release();
+                }
+                settle();
+            } finally {
+                user.openPermits.decrementAndGet();
+            }
+        }
+
+        private void settle() {
+            Bucket tokenBucket = user.tokenBucket;
+            if (tokenBucket == null || usage == null) {
+                return;
+            }
+            // Calls still running (e.g. after an orchestrator timeout) are charged as they finish
+            long actual = usage.settle(late -> {
+                tokenBucket.consumeIgnoringRateLimits(late);
+                tokensCharged.increment(late);
+            });
+            long difference = actual - reservedTokens;
+            if (difference > 0) {
+                tokenBucket.consumeIgnoringRateLimits(difference);
+            } else if (difference < 0) {
+                tokenBucket.addTokens(-difference);
+            }
+            tokensCharged.increment(actual);
+            user.estimatedTokens = Math.max(1, (user.estimatedTokens * 3 + actual) / 4);
+            log.debug("Settled advisor request: reserved {} tokens, used {} in {} LLM calls",
+                    reservedTokens, actual, usage.callCount());
+        }
+    }
+
     private final RateLimitConfig config;
-    
-    // Per-session buckets for advisor endpoint
-    private final Map<String, Bucket> advisorBuckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final TimeMeter timeMeter;
+    private final long idleExpiryNanos;
+
+    // Per-user buckets for advisor endpoint
+    private final BoundedExpiringMap<String, TrackedBucket> advisorBuckets;
+    private final Bucket globalBucket;
+    /** Null when the concurrency cap is disabled. */
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService sweeper;
 
-    public RateLimitService(RateLimitConfig config) {
+    private final Counter userRejections;
+    private final Counter globalRejections;
+    private final Counter concurrencyRejections;
+    private final Counter tokenRejections;
+    private final Counter tokensCharged;
+
+    @Autowired
+    public RateLimitService(RateLimitConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::nanoTime);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, 60, 60, TimeUnit.SECONDS);
+    }
+
+    RateLimitService(RateLimitConfig config, MeterRegistry meterRegistry, LongSupplier nanoClock) {
         this.config = config;
+        this.nanoClock = nanoClock;
+        this.timeMeter = new TimeMeter() {
+            @Override
+            public long currentTimeNanos() {
+                return nanoClock.getAsLong();
+            }
+
+            @Override
+            public boolean isWallClockBased() {
+                return false;
+            }
+        };
+        long idleExpirySeconds = config.getAdvisor().fullRefillSeconds();
+        if (config.getTokens().getCapacity() > 0) {
+            idleExpirySeconds = Math.max(idleExpirySeconds, config.getTokens().fullRefillSeconds());
+        }
+        this.idleExpiryNanos = TimeUnit.SECONDS.toNanos(Math.max(1, idleExpirySeconds));
+        this.advisorBuckets = new BoundedExpiringMap<>("Rate limit bucket map", config.getMaxTrackedUsers(),
+                tracked -> tracked.lastUsedNanos + idleExpiryNanos, this::evictable, nanoClock);
+        this.globalBucket = createBucket(config.getGlobal());
+        int maxConcurrent = config.getGlobal().getMaxConcurrent();
+        this.inFlight = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.userRejections = Counter.builder("rate.limit.rejected").tag("tier", "user").register(meterRegistry);
+        this.globalRejections = Counter.builder("rate.limit.rejected").tag("tier", "global").register(meterRegistry);
+        this.concurrencyRejections = Counter.builder("rate.limit.rejected").tag("tier", "concurrency")
+                .register(meterRegistry);
+        this.tokenRejections = Counter.builder("rate.limit.rejected").tag("tier", "tokens").register(meterRegistry);
+        this.tokensCharged = Counter.builder("rate.limit.tokens.charged")
+                .description("LLM tokens charged to user budgets").register(meterRegistry);
+        Gauge.builder("rate.limit.tracked.users", advisorBuckets, BoundedExpiringMap::size)
+                .description("Per-user advisor buckets held in memory").register(meterRegistry);
     }
 
     /**
-     * Check if a request is allowed for the advisor endpoint.
-     * Throws RateLimitExceededException if limit is exceeded.
+     * Admit an advisor request for the user: one token from their request bucket, their estimated LLM
+     * cost from their token budget, one token from the global bucket and a concurrency slot, all or
+     * nothing. Run the analysis with {@code usage} bound ({@link LlmTokenUsage#within}) and close the
+     * returned permit when it finishes, to settle the budget with what it really cost.
+     * Throws RateLimitExceededException if any tier is exhausted.
      */
-    public void checkAdvisorRateLimit(String sessionId) {
-        Bucket bucket = advisorBuckets.computeIfAbsent(sessionId, this::createAdvisorBucket);
-        
-        if (!bucket.tryConsume(1)) {
-            long retryAfter = calculateRetryAfter(bucket);
-            int remaining = (int) bucket.getAvailableTokens();
-            
-            log.warn("Rate limit exceeded for session: {} (advisor endpoint). Retry after: {} seconds", 
-                    sessionId, retryAfter);
-            
+    public AdvisorPermit acquireAdvisorPermit(String userId, LlmTokenUsage usage) {
+        TrackedBucket tracked = trackedBucket(userId);
+        if (tracked == null) {
+            // Every tracked user is mid-request or not yet refilled: dropping one would reset their
+            // allowance (or forgive token debt), so turn this one away
+            globalRejections.increment();
+            log.warn("Rate limit bucket map full ({} users) with none evictable (user: {})",
+                    config.getMaxTrackedUsers(), userId);
+            throw new RateLimitExceededException("The advisor is busy. Please try again shortly.", 1,
+                    config.getAdvisor().getCapacity());
+        }
+        boolean admitted = false;
+        try {
+            AdvisorPermit permit = admit(userId, tracked, usage);
+            admitted = true;
+            return permit;
+        } finally {
+            if (!admitted) {
+                tracked.openPermits.decrementAndGet();
+            }
+        }
+    }
+
+    private AdvisorPermit admit(String userId, TrackedBucket tracked, LlmTokenUsage usage) {
+        Bucket userBucket = tracked.bucket;
+        ConsumptionProbe userProbe = userBucket.tryConsumeAndReturnRemaining(1);
+        if (!userProbe.isConsumed()) {
+            userRejections.increment();
+            long retryAfter = calculateRetryAfter(userProbe);
+            log.warn("Rate limit exceeded for user: {} (advisor endpoint). Retry after: {} seconds", userId, retryAfter);
             throw new RateLimitExceededException(
                     "Rate limit exceeded. Please wait before sending another message.",
                     retryAfter,
-                    remaining
+                    (int) userProbe.getRemainingTokens()
             );
         }
-        
-        log.debug("Rate limit check passed for session: {} (advisor endpoint). Remaining tokens: {}", 
-                sessionId, bucket.getAvailableTokens());
+
+        long reserved = 0;
+        if (tracked.tokenBucket != null) {
+            reserved = Math.min(tracked.estimatedTokens, config.getTokens().getCapacity());
+            ConsumptionProbe tokenProbe = tracked.tokenBucket.tryConsumeAndReturnRemaining(reserved);
+            if (!tokenProbe.isConsumed()) {
+                userBucket.addTokens(1);
+                tokenRejections.increment();
+                long retryAfter = calculateRetryAfter(tokenProbe);
+                log.warn("LLM token budget exhausted for user: {} ({} left, {} needed). Retry after: {} seconds",
+                        userId, tokenProbe.getRemainingTokens(), reserved, retryAfter);
+                throw new RateLimitExceededException(
+                        "You have used your analysis budget for now. Please wait before sending another message.",
+                        retryAfter,
+                        (int) userBucket.getAvailableTokens()
+                );
+            }
+        }
+
+        ConsumptionProbe globalProbe = globalBucket.tryConsumeAndReturnRemaining(1);
+        if (!globalProbe.isConsumed()) {
+            refund(tracked, reserved);
+            globalRejections.increment();
+            long retryAfter = calculateRetryAfter(globalProbe);
+            log.warn("Global advisor rate limit exceeded (user: {}). Retry after: {} seconds", userId, retryAfter);
+            throw new RateLimitExceededException(
+                    "The advisor is busy. Please try again shortly.",
+                    retryAfter,
+                    (int) userBucket.getAvailableTokens()
+            );
+        }
+
+        if (inFlight != null && !inFlight.tryAcquire()) {
+            refund(tracked, reserved);
+            globalBucket.addTokens(1);
+            concurrencyRejections.increment();
+            log.warn("Advisor concurrency limit ({}) reached (user: {})", config.getGlobal().getMaxConcurrent(), userId);
+            throw new RateLimitExceededException(
+                    "The advisor is busy. Please try again shortly.",
+                    1,
+                    (int) userBucket.getAvailableTokens()
+            );
+        }
+
+        log.debug("Rate limit check passed for user: {} (advisor endpoint). Remaining tokens: {}, reserved {} LLM tokens",
+                userId, userProbe.getRemainingTokens(), reserved);
+        return new AdvisorPermit(inFlight, tracked, reserved, usage, tokensCharged);
+    }
+
+    private static void refund(TrackedBucket tracked, long reservedTokens) {
+        tracked.bucket.addTokens(1);
+        if (tracked.tokenBucket != null && reservedTokens > 0) {
+            tracked.tokenBucket.addTokens(reservedTokens);
+        }
+    }
+
+    /**
+     * Get remaining tokens for a user (for response headers and monitoring).
+     */
+    public int getRemainingAdvisorTokens(String userId) {
+        TrackedBucket tracked = advisorBuckets.get(userId);
+        if (tracked == null) {
+            return config.getAdvisor().getCapacity();
+        }
+        return (int) tracked.bucket.getAvailableTokens();
+    }
+
+    /**
+     * The user's LLM token budget, the estimate the next request will reserve and how long until it fits.
+     */
+    public TokenBudget getTokenBudget(String userId) {
+        RateLimitConfig.TokenBudgetConfig tokens = config.getTokens();
+        TrackedBucket tracked = advisorBuckets.get(userId);
+        if (tracked == null || tracked.tokenBucket == null) {
+            return new TokenBudget(tokens.getCapacity(), tokens.getCapacity(), tokens.getRefillTokens(),
+                    tokens.getRefillPeriodSeconds(), Math.min(tokens.getInitialEstimate(), tokens.getCapacity()), 0,
+                    getRemainingAdvisorTokens(userId));
+        }
+        long estimate = Math.min(tracked.estimatedTokens, tokens.getCapacity());
+        EstimationProbe probe = tracked.tokenBucket.estimateAbilityToConsume(estimate);
+        long waitSeconds = probe.canBeConsumed() ? 0 : toSeconds(probe.getNanosToWaitForRefill());
+        return new TokenBudget(tracked.tokenBucket.getAvailableTokens(), tokens.getCapacity(), tokens.getRefillTokens(),
+                tokens.getRefillPeriodSeconds(), estimate, waitSeconds, (int) tracked.bucket.getAvailableTokens());
+    }
+
+    int trackedUserCount() {
+        return advisorBuckets.size();
+    }
+
+    /**
+     * The user's bucket, created if needed and pinned against eviction until the caller unpins it
+     * (rejection) or the permit closes; null if the map is full and nothing can be evicted.
+     */
+    private TrackedBucket trackedBucket(String userId) {
+        long now = nanoClock.getAsLong();
+        return advisorBuckets.compute(userId, (id, existing) -> {
+            TrackedBucket tracked = existing != null
+                    ? existing
+                    : new TrackedBucket(createBucket(config.getAdvisor()), createTokenBucket(config.getTokens()),
+                            Math.max(1, config.getTokens().getInitialEstimate()), now);
+            // Inside compute, so an eviction (which removes under the same key lock) can't race the pin
+            tracked.openPermits.incrementAndGet();
+            tracked.lastUsedNanos = now;
+            return tracked;
+        });
     }
 
     /**
-     * Create a token bucket for advisor endpoint with configured limits.
+     * Create a token bucket with the given limits, on this service's clock.
      */
-    private Bucket createAdvisorBucket(String sessionId) {
-        RateLimitConfig.EndpointConfig advisorConfig = config.getAdvisor();
-        
+    private Bucket createBucket(RateLimitConfig.EndpointConfig endpointConfig) {
         // Use Bandwidth.builder() for the newer API (non-deprecated)
         Bandwidth limit = Bandwidth.builder()
-                .capacity(advisorConfig.getCapacity())
-                .refillIntervally(advisorConfig.getRefillTokens(), Duration.ofSeconds(advisorConfig.getRefillPeriodSeconds()))
+                .capacity(endpointConfig.getCapacity())
+                .refillIntervally(endpointConfig.getRefillTokens(), Duration.ofSeconds(endpointConfig.getRefillPeriodSeconds()))
                 .build();
-        
+
         return Bucket.builder()
                 .addLimit(limit)
+                .withCustomTimePrecision(timeMeter)
                 .build();
     }
 
     /**
-     * Calculate retry-after time in seconds.
-     * This estimates when the next token will be available.
+     * The LLM token budget refills continuously (greedy), like the scheduler's tokens-per-minute budgets,
+     * so a user in debt is readmitted as soon as the shortfall has refilled. Null if disabled.
      */
-    private long calculateRetryAfter(Bucket bucket) {
-        // Get the time until the next token refill
-        // Bucket4j doesn't directly expose this, so we estimate based on refill period
-        RateLimitConfig.EndpointConfig config = this.config.getAdvisor();
-        long refillPeriodSeconds = config.getRefillPeriodSeconds();
-        long tokensPerRefill = config.getRefillTokens();
-        
-        // Estimate: if we need tokens, wait at most one refill period
-        // In practice, this will be less, but this is a safe estimate
-        return Math.max(1, refillPeriodSeconds / tokensPerRefill);
+    private Bucket createTokenBucket(RateLimitConfig.TokenBudgetConfig tokens) {
+        if (tokens.getCapacity() <= 0) {
+            return null;
+        }
+        return Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(tokens.getCapacity())
+                        .refillGreedy(tokens.getRefillTokens(), Duration.ofSeconds(tokens.getRefillPeriodSeconds()))
+                        .build())
+                .withCustomTimePrecision(timeMeter)
+                .build();
     }
 
     /**
-     * Get remaining tokens for a session (for debugging/monitoring).
+     * Seconds until the rejected request could succeed, from Bucket4j's own estimate (rounded up).
      */
-    public int getRemainingAdvisorTokens(String sessionId) {
-        Bucket bucket = advisorBuckets.get(sessionId);
-        if (bucket == null) {
-            return config.getAdvisor().getCapacity();
+    private static long calculateRetryAfter(ConsumptionProbe probe) {
+        return Math.max(1, toSeconds(probe.getNanosToWaitForRefill()));
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /** Drops buckets idle for longer than a full refill (and no longer in debt or mid-request). */
+    void evictIdle() {
+        int evicted = advisorBuckets.evictExpired();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
         }
-        return (int) bucket.getAvailableTokens();
     }
 
     /**
-     * Clean up buckets for inactive sessions (called by session cleanup).
+     * Only a bucket indistinguishable from a new one may be dropped: no permit open (its settlement
+     * would land on an orphan), request bucket full and token budget fully refilled (dropping it
+     * would hand out a fresh allowance or forgive token debt).
      */
-    public void cleanupSession(String sessionId) {
-        advisorBuckets.remove(sessionId);
-        log.debug("Cleaned up rate limit buckets for session: {}", sessionId);
+    private boolean evictable(TrackedBucket tracked) {
+        return tracked.openPermits.get() == 0
+                && tracked.bucket.getAvailableTokens() >= config.getAdvisor().getCapacity()
+                && (tracked.tokenBucket == null
+                    || tracked.tokenBucket.getAvailableTokens() >= config.getTokens().getCapacity());
     }
-}
 
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.dto.RecommendationPage;
+import com.agent.financialadvisor.dto.RecommendationSummary;
+import com.agent.financialadvisor.model.Recommendation;
+import com.agent.financialadvisor.repository.RecommendationRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Paged recommendation history for the REST API.
+ *
+ * Lists select the summary columns only ({@link RecommendationSummary}), so an active user's history no
+ * longer drags every TEXT body (reasoning, analyses, patterns) through the wire to render a list; the
+ * full recommendation is loaded one at a time by {@link #detail}. Pages are keyset-paginated on
+ * (createdAt, id) descending: the cursor is the last row's key, and each page is an index seek no
+ * matter how deep the client scrolls.
+ */
+@Service
+public class RecommendationHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private record Cursor(LocalDateTime createdAt, long id) {}
+
+    private final RecommendationRepository recommendationRepository;
+
+    public RecommendationHistoryService(RecommendationRepository recommendationRepository) {
+        this.recommendationRepository = recommendationRepository;
+    }
+
+    /**
+     * One page of the user's history, newest first.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null/blank for the first page
+     * @param limit  page size, clamped to 1..{@value #MAX_PAGE_SIZE}
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public RecommendationPage page(String userId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells whether another page exists, without a COUNT query
+        Limit fetch = Limit.of(size + 1);
+        List<RecommendationSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = recommendationRepository.findSummaries(userId, fetch);
+        } else {
+            Cursor after = decode(cursor);
+            rows = recommendationRepository.findSummariesBefore(userId, after.createdAt(), after.id(), fetch);
+        }
+
+        if (rows.size() <= size) {
+            return new RecommendationPage(List.copyOf(rows), null);
+        }
+        List<RecommendationSummary> items = List.copyOf(rows.subList(0, size));
+        RecommendationSummary last = items.get(size - 1);
+        return new RecommendationPage(items, encode(last.createdAt(), last.id()));
+    }
+
+    /** The full recommendation, TEXT bodies included, if it belongs to the user. */
+    public Optional<Recommendation> detail(String userId, Long id) {
+        return recommendationRepository.findByIdAndUserId(id, userId);
+    }
+
+    static String encode(LocalDateTime createdAt, long id) {
+        String key = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf('|');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(key.substring(0, separator)),
+                    Long.parseLong(key.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
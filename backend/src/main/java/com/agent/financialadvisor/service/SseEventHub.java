@@ -0,0 +1,157 @@
+package com.agent.financialadvisor.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-session event streams for the Server-Sent Events endpoint (GET /api/advisor/stream), the
+ * one-way alternative to the SockJS/STOMP topics. WebSocketService publishes every event here as well
+ * (same payloads, event name = topic name: thinking, response, error, tool-call, tool-result,
+ * reasoning, agent-activity) once a client has opened a stream for the session.
+ *
+ * Each event gets a per-session sequence id. The last {@code replaySize} events are kept, so a client
+ * that reconnects with {@code Last-Event-ID} receives what it missed and then the live stream; a new
+ * connection without an id starts at the live edge.
+ *
+ * A stream is created by the first subscriber, claimed by that user (other users are refused), and
+ * kept for {@code resumeWindowSeconds} after its last subscriber leaves so a reconnect can resume.
+ */
+@Service
+public class SseEventHub {
+
+    public record StreamEvent(long id, String type, Object data) {}
+
+    private static final Logger log = LoggerFactory.getLogger(SseEventHub.class);
+
+    private final Map<String, SessionStream> streams = new ConcurrentHashMap<>();
+    private final int replaySize;
+    private final long resumeWindowMillis;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService sweeper;
+
+    @Autowired
+    public SseEventHub(
+            @Value("${advisor.stream.replay-size:256}") int replaySize,
+            @Value("${advisor.stream.resume-window-seconds:300}") long resumeWindowSeconds,
+            MeterRegistry meterRegistry) {
+        this(replaySize, resumeWindowSeconds, meterRegistry, System::currentTimeMillis);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, 60, 60, TimeUnit.SECONDS);
+    }
+
+    SseEventHub(int replaySize, long resumeWindowSeconds, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.replaySize = Math.max(1, replaySize);
+        this.resumeWindowMillis = Math.max(0, resumeWindowSeconds) * 1000L;
+        this.clock = clock;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-stream-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("advisor.stream.sessions", streams, Map::size)
+                .description("Sessions with an open or resumable SSE stream").register(meterRegistry);
+        Gauge.builder("advisor.stream.subscribers", this, SseEventHub::subscriberCount)
+                .description("Connected SSE clients").register(meterRegistry);
+    }
+
+    /**
+     * Events for {@code sessionId}: those after {@code lastEventId} still in the replay buffer, then
+     * live events. Null {@code lastEventId} starts at the live edge.
+     *
+     * @throws SecurityException if the session's stream belongs to another user
+     */
+    public Flux<StreamEvent> subscribe(String sessionId, String userId, Long lastEventId) {
+        SessionStream stream = streams.computeIfAbsent(sessionId, id -> new SessionStream(userId, replaySize));
+        if (!stream.ownerId.equals(userId)) {
+            throw new SecurityException("Stream for session " + sessionId + " belongs to another user");
+        }
+        long after = lastEventId != null ? lastEventId : stream.lastId();
+        return stream.sink.asFlux()
+                .filter(event -> event.id() > after)
+                .doOnSubscribe(subscription -> stream.subscribers.incrementAndGet())
+                .doFinally(signal -> {
+                    stream.subscribers.decrementAndGet();
+                    stream.lastActiveMillis = clock.getAsLong();
+                });
+    }
+
+    /** True while the session has an open stream or one a client may still resume. */
+    public boolean isActive(String sessionId) {
+        return streams.containsKey(sessionId);
+    }
+
+    /** Appends an event to the session's stream; a no-op until someone has opened one. */
+    public void publish(String sessionId, String type, Object data) {
+        SessionStream stream = streams.get(sessionId);
+        if (stream == null) {
+            return;
+        }
+        synchronized (stream) {
+            // Serialized per session: ids stay ordered and the sink sees no concurrent emission
+            StreamEvent event = new StreamEvent(stream.nextId++, type, data);
+            Sinks.EmitResult result = stream.sink.tryEmitNext(event);
+            if (result.isFailure()) {
+                log.debug("SSE event {} for session {} not emitted: {}", event.id(), sessionId, result);
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return streams.values().stream().mapToInt(stream -> stream.subscribers.get()).sum();
+    }
+
+    /** Drops streams that have had no subscriber for longer than the resume window. */
+    void evictIdle() {
+        long cutoff = clock.getAsLong() - resumeWindowMillis;
+        streams.entrySet().removeIf(entry -> {
+            SessionStream stream = entry.getValue();
+            if (stream.subscribers.get() > 0 || stream.lastActiveMillis > cutoff) {
+                return false;
+            }
+            stream.complete();
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        streams.values().forEach(SessionStream::complete);
+    }
+
+    private final class SessionStream {
+        private final String ownerId;
+        private final Sinks.Many<StreamEvent> sink;
+        private final AtomicInteger subscribers = new AtomicInteger();
+        private volatile long lastActiveMillis = clock.getAsLong();
+        private long nextId = 1;
+
+        private SessionStream(String ownerId, int replaySize) {
+            this.ownerId = ownerId;
+            this.sink = Sinks.many().replay().limit(replaySize);
+        }
+
+        private synchronized long lastId() {
+            return nextId - 1;
+        }
+
+        private synchronized void complete() {
+            sink.tryEmitComplete();
+        }
+    }
+}
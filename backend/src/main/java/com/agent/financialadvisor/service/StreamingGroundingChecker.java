@@ -0,0 +1,112 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.service.GroundingService.UngroundedFigure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Incremental grounding check for a response that is delivered in chunks (streamed LLM output,
+ * progressive UI delivery). Each chunk is scanned as it arrives and every ungrounded figure is
+ * reported to the listener the moment it is complete, so a rewrite can be decided before the
+ * response has finished.
+ *
+ * A figure touching the end of the received text may still grow ("2,90" + "5.50", "12." + "5"), so
+ * it is held back and rescanned with the next chunk; {@link #finish()} flushes it. Offsets are
+ * relative to the whole response, matching {@link GroundingService#findUngroundedFigures}, and the
+ * tolerance / whitelist rules are the same.
+ *
+ * Not thread-safe for concurrent {@link #accept} calls from different producers; chunks of one
+ * response are expected in order from a single stream.
+ */
+public class StreamingGroundingChecker {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingGroundingChecker.class);
+
+    private final GroundingIndex index;
+    private final Consumer<UngroundedFigure> listener;
+    private final StringBuilder text = new StringBuilder();
+    private final List<UngroundedFigure> figures = new ArrayList<>();
+
+    /** Offset scanning resumes from: the start of a held-back figure, or the end of the text. */
+    private int resumeAt;
+    private boolean finished;
+
+    StreamingGroundingChecker(GroundingIndex index, Consumer<UngroundedFigure> listener) {
+        this.index = index != null ? index : GroundingIndex.EMPTY;
+        this.listener = listener;
+    }
+
+    /** Feeds the next chunk of the response. */
+    public void accept(CharSequence chunk) {
+        if (finished) {
+            throw new IllegalStateException("Streaming grounding check already finished");
+        }
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        text.append(chunk);
+        scan(false);
+    }
+
+    /**
+     * Marks the end of the response, checks any held-back trailing figure and returns every
+     * ungrounded figure seen, in order.
+     */
+    public List<UngroundedFigure> finish() {
+        if (!finished) {
+            finished = true;
+            scan(true);
+            if (!figures.isEmpty()) {
+                log.warn("🚨 [GROUNDING] Ungrounded figures in streamed response: {}",
+                        GroundingService.distinctTokens(figures));
+            }
+        }
+        return List.copyOf(figures);
+    }
+
+    /** Ungrounded figures reported so far. */
+    public List<UngroundedFigure> ungroundedSoFar() {
+        return List.copyOf(figures);
+    }
+
+    public boolean isGroundedSoFar() {
+        return figures.isEmpty();
+    }
+
+    private void scan(boolean endOfStream) {
+        int length = text.length();
+        int[] heldBack = {-1};
+        NumberScanner.scan(text, resumeAt, length, (start, end, value, flags) -> {
+            if (heldBack[0] >= 0) {
+                return;
+            }
+            if (!endOfStream && !isComplete(end, length)) {
+                heldBack[0] = start;
+                return;
+            }
+            if (!GroundingService.isWhitelisted(value, flags) && !index.contains(value)) {
+                UngroundedFigure figure = new UngroundedFigure(text.substring(start, end), start, end);
+                figures.add(figure);
+                if (listener != null) {
+                    listener.accept(figure);
+                }
+            }
+        });
+        resumeAt = heldBack[0] >= 0 ? heldBack[0] : length;
+    }
+
+    /**
+     * A figure can only grow at the end of the received text: when it ends there, or when only a
+     * '.' follows it (the next chunk may bring its decimals).
+     */
+    private boolean isComplete(int end, int length) {
+        if (end >= length) {
+            return false;
+        }
+        return !(end == length - 1 && text.charAt(end) == '.');
+    }
+}
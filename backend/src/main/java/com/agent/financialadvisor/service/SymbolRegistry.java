@@ -0,0 +1,99 @@
+package com.agent.financialadvisor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every symbol held in any portfolio, with the users (one portfolio each) holding it. The refcount
+ * of a symbol is the number of portfolios holding it; a symbol leaves the registry when it drops to 0.
+ *
+ * The market-data poller quotes {@link #symbols()} once per cycle and pushes each changed price to
+ * {@link #holders} — upstream calls scale with distinct symbols, not users x holdings.
+ * Kept current by the portfolio write paths ({@link #register}/{@link #unregister}) and resynced
+ * from the database by {@link #reload} (at startup and periodically, to absorb any other writer).
+ */
+@Service
+public class SymbolRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolRegistry.class);
+
+    private static final String SELECT_HOLDERS =
+            "SELECT DISTINCT p.user_id, h.symbol FROM stock_holdings h JOIN portfolios p ON p.id = h.portfolio_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Set<String>> holdersBySymbol = new ConcurrentHashMap<>();
+
+    public SymbolRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Records that {@code userId}'s portfolio holds {@code symbol} (idempotent). */
+    public void register(String userId, String symbol) {
+        if (userId == null || symbol == null || symbol.isBlank()) {
+            return;
+        }
+        holdersBySymbol.computeIfAbsent(key(symbol), k -> ConcurrentHashMap.newKeySet()).add(userId);
+    }
+
+    /** Records that {@code userId}'s portfolio no longer holds {@code symbol}. */
+    public void unregister(String userId, String symbol) {
+        if (userId == null || symbol == null) {
+            return;
+        }
+        // compute() makes the remove-and-drop-if-empty atomic against a concurrent register()
+        holdersBySymbol.computeIfPresent(key(symbol), (k, holders) -> {
+            holders.remove(userId);
+            return holders.isEmpty() ? null : holders;
+        });
+    }
+
+    /** Distinct held symbols (upper-case). */
+    public Set<String> symbols() {
+        return Set.copyOf(holdersBySymbol.keySet());
+    }
+
+    /** Users whose portfolio holds {@code symbol}. */
+    public Set<String> holders(String symbol) {
+        Set<String> holders = symbol != null ? holdersBySymbol.get(key(symbol)) : null;
+        return holders != null ? Set.copyOf(holders) : Set.of();
+    }
+
+    /** Number of portfolios holding {@code symbol}. */
+    public int refCount(String symbol) {
+        Set<String> holders = symbol != null ? holdersBySymbol.get(key(symbol)) : null;
+        return holders != null ? holders.size() : 0;
+    }
+
+    public int size() {
+        return holdersBySymbol.size();
+    }
+
+    /** Rebuilds the registry from the holdings tables. */
+    public void reload() {
+        Map<String, Set<String>> loaded = new HashMap<>();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_HOLDERS);
+        for (Map<String, Object> row : rows) {
+            Object userId = row.get("user_id");
+            Object symbol = row.get("symbol");
+            if (userId != null && symbol != null) {
+                loaded.computeIfAbsent(key(symbol.toString()), k -> ConcurrentHashMap.newKeySet()).add(userId.toString());
+            }
+        }
+        holdersBySymbol.keySet().retainAll(loaded.keySet());
+        holdersBySymbol.putAll(loaded);
+        log.debug("📇 Symbol registry reloaded: {} symbols across {} holdings", loaded.size(), rows.size());
+    }
+
+    private static String key(String symbol) {
+        return symbol.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,182 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.config.ToolEncodingConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Encodes @Tool results for LLM consumption.
+ *
+ * Tool payloads are repeated into the sub-agent context, the raw tool capture, and the evaluator
+ * prompt, so every redundant byte is paid for three times. For tools switched on in
+ * {@link ToolEncodingConfig}, the compact form:
+ *   - strips explanatory note/methodology/message strings out of the payload,
+ *   - turns lists of objects (portfolio holdings) into {"cols": [...], "rows": [[...], ...]},
+ *   - attaches a "_schema" legend with the stripped notes only to the FIRST result of each tool in
+ *     an LLM conversation (see {@link #withinConversation}), so the explanation reaches each prompt
+ *     once, not per call.
+ *
+ * Keys are kept as they are: measured with the cl100k tokenizer, abbreviating them saves at most a
+ * token or two per key, less than the legend entry needed to explain the abbreviation.
+ * Values are never rewritten: numbers and timestamps stay verbatim so the evaluator can cite them
+ * and GroundingService can match them against the response.
+ */
+@Service
+public class ToolResultEncoder {
+
+    /** Free-text fields that explain the data rather than carry it. Moved into the schema legend. */
+    private static final Set<String> NOTE_KEYS = Set.of("note", "methodology", "message", "trendRule");
+
+    private static final String SCHEMA_PREFIX = "{\"_schema\":";
+
+    // Tools whose legend the current LLM conversation has already been sent (null = no conversation)
+    private static final ThreadLocal<Set<String>> conversationSchemas = new ThreadLocal<>();
+
+    private final ObjectMapper objectMapper;
+    private final ToolEncodingConfig config;
+
+    public ToolResultEncoder(ObjectMapper objectMapper, ToolEncodingConfig config) {
+        this.objectMapper = objectMapper;
+        this.config = config;
+    }
+
+    /**
+     * Run one LLM conversation (a sub-agent call and its tool loop, which LangChain4j runs on the
+     * calling thread): within it each tool's legend is attached to its first result only. Results
+     * encoded outside any conversation always carry their legend.
+     */
+    public static <T> T withinConversation(Supplier<T> conversation) {
+        Set<String> previous = conversationSchemas.get();
+        conversationSchemas.set(new HashSet<>());
+        try {
+            return conversation.get();
+        } finally {
+            if (previous == null) {
+                conversationSchemas.remove();
+            } else {
+                conversationSchemas.set(previous);
+            }
+        }
+    }
+
+    /** True when {@code toolName} is switched to the compact encoding. */
+    public boolean isCompact(String toolName) {
+        return config.getCompactTools() != null && config.getCompactTools().contains(toolName);
+    }
+
+    /**
+     * Encode a tool payload in whichever format is configured for the tool. The verbose format is
+     * exactly the plain Jackson serialization the tools have always returned.
+     */
+    public String encode(String toolName, Map<String, Object> payload) throws JsonProcessingException {
+        return isCompact(toolName) ? encodeCompact(toolName, payload) : objectMapper.writeValueAsString(payload);
+    }
+
+    /** Compact encoding, regardless of configuration (used directly by the token benchmark). */
+    public String encodeCompact(String toolName, Map<String, Object> payload) throws JsonProcessingException {
+        List<String> notes = new ArrayList<>();
+        Map<String, Object> body = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Object> entry : payload.entrySet()) {
+            Object value = entry.getValue();
+            if (NOTE_KEYS.contains(entry.getKey()) && value instanceof String note) {
+                notes.add(entry.getKey() + ": " + note);
+                continue;
+            }
+            if (value instanceof List<?> list && isListOfObjects(list)) {
+                value = toColumns(list);
+            }
+            body.put(entry.getKey(), value);
+        }
+
+        Set<String> sent = conversationSchemas.get();
+        if (notes.isEmpty() || (sent != null && !sent.add(toolName))) {
+            return objectMapper.writeValueAsString(body);
+        }
+
+        Map<String, Object> withSchema = new LinkedHashMap<>();
+        withSchema.put("_schema", Map.of("notes", notes));
+        withSchema.putAll(body);
+        return objectMapper.writeValueAsString(withSchema);
+    }
+
+    /** True if {@code encoded} is a compact result carrying its "_schema" legend. */
+    public static boolean hasSchema(String encoded) {
+        return encoded != null && encoded.startsWith(SCHEMA_PREFIX);
+    }
+
+    /**
+     * The same compact result without its legend, for prompts that already carry it (the legend is
+     * always the first field, so this skips one JSON value rather than re-parsing the payload).
+     */
+    public static String withoutSchema(String encoded) {
+        if (!hasSchema(encoded)) {
+            return encoded;
+        }
+        int depth = 0;
+        boolean inString = false;
+        for (int i = SCHEMA_PREFIX.length(); i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                String rest = encoded.substring(i + 1);
+                return "{" + (rest.startsWith(",") ? rest.substring(1) : rest);
+            }
+        }
+        return encoded;
+    }
+
+    private static boolean isListOfObjects(List<?> list) {
+        if (list.isEmpty()) {
+            return false;
+        }
+        for (Object item : list) {
+            if (!(item instanceof Map)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Rows of objects → one header of column names plus positional value rows. */
+    private static Map<String, Object> toColumns(List<?> rows) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (Object row : rows) {
+            for (Object key : ((Map<?, ?>) row).keySet()) {
+                columns.add(String.valueOf(key));
+            }
+        }
+        List<List<Object>> values = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Map<?, ?> map = (Map<?, ?>) row;
+            List<Object> line = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                line.add(map.get(column));
+            }
+            values.add(line);
+        }
+        Map<String, Object> table = new LinkedHashMap<>();
+        table.put("cols", new ArrayList<>(columns));
+        table.put("rows", values);
+        return table;
+    }
+}
@@ -0,0 +1,10 @@
+package com.agent.financialadvisor.service;
+
+/**
+ * Published after a write to a user's profile or portfolio, so caches of data derived from them
+ * (the pre-rendered profile context in {@link UserContextService}) are dropped.
+ *
+ * @param userId the user whose profile or positions changed
+ * @param source what changed it, for logs (e.g. "profile.update", "portfolio.add")
+ */
+public record UserContextChangedEvent(String userId, String source) {}
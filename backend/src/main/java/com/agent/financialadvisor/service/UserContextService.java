@@ -5,14 +5,25 @@ import com.agent.financialadvisor.model.StockHolding;
 import com.agent.financialadvisor.model.UserProfile;
 import com.agent.financialadvisor.repository.PortfolioRepository;
 import com.agent.financialadvisor.repository.UserProfileRepository;
+import com.agent.financialadvisor.util.BoundedExpiringMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -24,71 +35,144 @@ import java.util.stream.Collectors;
  * the planner skipped it. Loading the profile deterministically from the DB (one cheap read)
  * guarantees risk tolerance, goals, horizon, budget, sector preferences, and ESG settings are
  * always available to the agents that plan and write the final answer.
+ *
+ * The rendered block is cached per user, so the orchestrator's pre-plan step is a map lookup. Entries
+ * are dropped on {@link UserContextChangedEvent} (published by the profile and portfolio write paths)
+ * and otherwise expire after {@code user-context.cache-ttl-seconds}, which bounds staleness of the
+ * allocation percentages when stored prices are refreshed in the background.
  */
 @Service
 public class UserContextService {
 
     private static final Logger log = LoggerFactory.getLogger(UserContextService.class);
 
+    private record CachedContext(String text, long cachedAtMillis) {}
+
     private final UserProfileRepository userProfileRepository;
     private final PortfolioRepository portfolioRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final BoundedExpiringMap<String, CachedContext> cache;
+    /** Bumped on every invalidation; a build that raced with one is returned but not cached. */
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
 
+    @Autowired
     public UserContextService(UserProfileRepository userProfileRepository,
-                              PortfolioRepository portfolioRepository) {
+                              PortfolioRepository portfolioRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${user-context.cache-ttl-seconds:300}") long ttlSeconds,
+                              @Value("${user-context.cache-max-entries:10000}") int maxEntries) {
+        this(userProfileRepository, portfolioRepository, transactionManager, meterRegistry, ttlSeconds, maxEntries,
+                System::currentTimeMillis);
+    }
+
+    UserContextService(UserProfileRepository userProfileRepository, PortfolioRepository portfolioRepository,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       long ttlSeconds, int maxEntries, LongSupplier clock) {
         this.userProfileRepository = userProfileRepository;
         this.portfolioRepository = portfolioRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ttlMillis = Math.max(0L, ttlSeconds) * 1000L;
+        this.clock = clock;
+        this.cache = new BoundedExpiringMap<>("Profile context cache", maxEntries,
+                cached -> cached.cachedAtMillis() + ttlMillis, clock);
+        this.hits = Counter.builder("user.context.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("user.context.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("user.context.cache.size", cache, BoundedExpiringMap::size).register(meterRegistry);
     }
 
     /**
-     * Compact context block for prompt injection. Never throws — personalization must not be able
-     * to take down the main answer path.
+     * Compact context block for prompt injection, from the per-user cache when present. Never throws —
+     * personalization must not be able to take down the main answer path.
      */
-    @Transactional(readOnly = true)
     public String buildProfileContext(String userId) {
-        try {
-            StringBuilder sb = new StringBuilder("USER PROFILE CONTEXT (authoritative, from database):\n");
-
-            Optional<UserProfile> profileOpt = userProfileRepository.findByUserId(userId);
-            if (profileOpt.isEmpty()) {
-                sb.append("- No investment profile on file. For advice queries, note that recommendations are ")
-                  .append("generic and suggest completing the profile for personalized guidance.\n");
-            } else {
-                UserProfile p = profileOpt.get();
-                List<String> goals = p.getGoals() != null ? new ArrayList<>(p.getGoals()) : new ArrayList<>();
-                List<String> preferred = p.getPreferredSectors() != null ? new ArrayList<>(p.getPreferredSectors()) : new ArrayList<>();
-                List<String> excluded = p.getExcludedSectors() != null ? new ArrayList<>(p.getExcludedSectors()) : new ArrayList<>();
-                sb.append("- Risk tolerance: ").append(p.getRiskTolerance())
-                  .append("; Investment horizon: ").append(p.getHorizon())
-                  .append("; Goals: ").append(goals.isEmpty() ? "not set" : String.join(", ", goals)).append('\n');
-                sb.append("- Budget: ").append(p.getBudget() != null ? "$" + p.getBudget() : "not set")
-                  .append("; Ethical/ESG investing preference: ")
-                  .append(Boolean.TRUE.equals(p.getEthicalInvesting()) ? "YES" : "no").append('\n');
-                sb.append("- Preferred sectors: ").append(preferred.isEmpty() ? "none specified" : String.join(", ", preferred))
-                  .append("; Excluded sectors: ").append(excluded.isEmpty() ? "none" : String.join(", ", excluded)).append('\n');
-            }
-
-            Optional<Portfolio> portfolioOpt = portfolioRepository.findByUserIdWithHoldings(userId);
-            if (portfolioOpt.isPresent() && portfolioOpt.get().getHoldings() != null
-                    && !portfolioOpt.get().getHoldings().isEmpty()) {
-                Portfolio portfolio = portfolioOpt.get();
-                String holdings = portfolio.getHoldings().stream()
-                        .map(h -> h.getSymbol() + " x" + h.getQuantity())
-                        .collect(Collectors.joining(", "));
-                sb.append("- Current holdings: ").append(holdings)
-                  .append(" (use USER_PROFILE agent tools for live values)\n");
-            } else {
-                sb.append("- Current holdings: none\n");
-            }
+        long now = clock.getAsLong();
+        CachedContext cached = userId != null ? cache.get(userId) : null;
+        if (cached != null) {
+            hits.increment();
+            return cached.text();
+        }
+        misses.increment();
 
-            String allocation = buildAllocationSummary(userId);
-            if (!allocation.isEmpty()) {
-                sb.append("- ").append(allocation).append('\n');
-            }
-            return sb.toString();
+        long generation = invalidations.get();
+        String text;
+        try {
+            text = readOnlyTransaction.execute(status -> renderProfileContext(userId));
         } catch (Exception e) {
             log.warn("Could not build profile context for {}: {}", userId, e.getMessage());
             return "USER PROFILE CONTEXT: unavailable (lookup failed).\n";
         }
+        if (text != null && userId != null && ttlMillis > 0 && invalidations.get() == generation) {
+            cache.put(userId, new CachedContext(text, now));
+        }
+        return text;
+    }
+
+    /** Drops the user's cached context; the next query renders it from the database. */
+    public void invalidate(String userId) {
+        if (userId != null) {
+            invalidations.incrementAndGet();
+            cache.remove(userId);
+        }
+    }
+
+    @EventListener
+    public void onUserContextChanged(UserContextChangedEvent event) {
+        invalidate(event.userId());
+        log.debug("👤 Profile context invalidated for {} ({})", event.userId(), event.source());
+    }
+
+    public int cachedContextCount() {
+        return cache.size();
+    }
+
+    private String renderProfileContext(String userId) {
+        StringBuilder sb = new StringBuilder("USER PROFILE CONTEXT (authoritative, from database):\n");
+
+        Optional<UserProfile> profileOpt = userProfileRepository.findByUserId(userId);
+        if (profileOpt.isEmpty()) {
+            sb.append("- No investment profile on file. For advice queries, note that recommendations are ")
+              .append("generic and suggest completing the profile for personalized guidance.\n");
+        } else {
+            UserProfile p = profileOpt.get();
+            List<String> goals = p.getGoals() != null ? new ArrayList<>(p.getGoals()) : new ArrayList<>();
+            List<String> preferred = p.getPreferredSectors() != null ? new ArrayList<>(p.getPreferredSectors()) : new ArrayList<>();
+            List<String> excluded = p.getExcludedSectors() != null ? new ArrayList<>(p.getExcludedSectors()) : new ArrayList<>();
+            sb.append("- Risk tolerance: ").append(p.getRiskTolerance())
+              .append("; Investment horizon: ").append(p.getHorizon())
+              .append("; Goals: ").append(goals.isEmpty() ? "not set" : String.join(", ", goals)).append('\n');
+            sb.append("- Budget: ").append(p.getBudget() != null ? "$" + p.getBudget() : "not set")
+              .append("; Ethical/ESG investing preference: ")
+              .append(Boolean.TRUE.equals(p.getEthicalInvesting()) ? "YES" : "no").append('\n');
+            sb.append("- Preferred sectors: ").append(preferred.isEmpty() ? "none specified" : String.join(", ", preferred))
+              .append("; Excluded sectors: ").append(excluded.isEmpty() ? "none" : String.join(", ", excluded)).append('\n');
+        }
+
+        // Loaded once and shared with the allocation summary
+        Optional<Portfolio> portfolioOpt = portfolioRepository.findByUserIdWithHoldings(userId);
+        if (portfolioOpt.isPresent() && portfolioOpt.get().getHoldings() != null
+                && !portfolioOpt.get().getHoldings().isEmpty()) {
+            Portfolio portfolio = portfolioOpt.get();
+            String holdings = portfolio.getHoldings().stream()
+                    .map(h -> h.getSymbol() + " x" + h.getQuantity())
+                    .collect(Collectors.joining(", "));
+            sb.append("- Current holdings: ").append(holdings)
+              .append(" (use USER_PROFILE agent tools for live values)\n");
+        } else {
+            sb.append("- Current holdings: none\n");
+        }
+
+        String allocation = portfolioOpt.map(this::allocationSummary).orElse("");
+        if (!allocation.isEmpty()) {
+            sb.append("- ").append(allocation).append('\n');
+        }
+        return sb.toString();
     }
 
     /**
@@ -98,38 +182,38 @@ public class UserContextService {
     @Transactional(readOnly = true)
     public String buildAllocationSummary(String userId) {
         try {
-            Optional<Portfolio> portfolioOpt = portfolioRepository.findByUserIdWithHoldings(userId);
-            if (portfolioOpt.isEmpty() || portfolioOpt.get().getHoldings() == null
-                    || portfolioOpt.get().getHoldings().isEmpty()
-                    || portfolioOpt.get().getTotalValue() == null
-                    || portfolioOpt.get().getTotalValue().signum() <= 0) {
-                return "";
-            }
-            Portfolio portfolio = portfolioOpt.get();
-            StringBuilder sb = new StringBuilder("Portfolio allocation: ");
-            double maxPct = 0;
-            String maxSymbol = "";
-            List<String> parts = new ArrayList<>();
-            for (StockHolding h : portfolio.getHoldings()) {
-                if (h.getValue() == null) {
-                    continue;
-                }
-                double pct = h.getValue().doubleValue() / portfolio.getTotalValue().doubleValue() * 100.0;
-                parts.add(String.format("%s %.1f%%", h.getSymbol(), pct));
-                if (pct > maxPct) {
-                    maxPct = pct;
-                    maxSymbol = h.getSymbol();
-                }
-            }
-            sb.append(String.join(", ", parts));
-            if (maxPct > 30.0) {
-                sb.append(String.format(". Concentration note: %s is %.1f%% of the portfolio (above the 30%% diversification guideline).",
-                        maxSymbol, maxPct));
-            }
-            return sb.toString();
+            return portfolioRepository.findByUserIdWithHoldings(userId).map(this::allocationSummary).orElse("");
         } catch (Exception e) {
             log.warn("Could not build allocation summary for {}: {}", userId, e.getMessage());
             return "";
         }
     }
+
+    private String allocationSummary(Portfolio portfolio) {
+        if (portfolio.getHoldings() == null || portfolio.getHoldings().isEmpty()
+                || portfolio.getTotalValue() == null || portfolio.getTotalValue().signum() <= 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("Portfolio allocation: ");
+        double maxPct = 0;
+        String maxSymbol = "";
+        List<String> parts = new ArrayList<>();
+        for (StockHolding h : portfolio.getHoldings()) {
+            if (h.getValue() == null) {
+                continue;
+            }
+            double pct = h.getValue().doubleValue() / portfolio.getTotalValue().doubleValue() * 100.0;
+            parts.add(String.format("%s %.1f%%", h.getSymbol(), pct));
+            if (pct > maxPct) {
+                maxPct = pct;
+                maxSymbol = h.getSymbol();
+            }
+        }
+        sb.append(String.join(", ", parts));
+        if (maxPct > 30.0) {
+            sb.append(String.format(". Concentration note: %s is %.1f%% of the portfolio (above the 30%% diversification guideline).",
+                    maxSymbol, maxPct));
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,320 @@
+package com.agent.financialadvisor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous outbound queue for WebSocket events, one per chat session. WebSocketService hands
+ * events over here instead of calling {@code convertAndSend} on the agent thread; a small dispatcher
+ * pool drains each session's queue after a short coalescing window, so the 4–5 events produced by
+ * one tool call leave as one frame per destination instead of one frame each.
+ *
+ * Frames: a destination with a single event in the window gets that event as before; several
+ * batchable events become {@code {"type": "batch", "count": n, "events": [...]}}. Non-batchable
+ * events (thinking, response, error — the topics the chat UI reads one message at a time) are sent
+ * on their own, in queue order, after everything queued before them.
+ *
+ * Backpressure (a session's queue at capacity, e.g. a slow client or a burst of reasoning):
+ * - LOW (reasoning) updates are merged into the newest queued update for the same destination, or
+ *   dropped if there is none.
+ * - NORMAL events evict the oldest queued LOW event, else the oldest NORMAL one.
+ * - CRITICAL events (final response, error) are never dropped and flush the queue immediately.
+ *
+ * Producers never block: enqueueing is a short synchronized section on the session's queue.
+ * Metrics: websocket.outbound.queue.depth, websocket.outbound.dropped{priority},
+ * websocket.outbound.merged, websocket.outbound.batch.size.
+ */
+@Component
+public class WebSocketEventPipeline {
+
+    public enum Priority { LOW, NORMAL, CRITICAL }
+
+    private record OutboundEvent(String destination, Object payload, Priority priority, boolean batchable) {}
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketEventPipeline.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long batchWindowMillis;
+    private final int queueCapacity;
+    private final ScheduledExecutorService dispatcher;
+
+    private final Map<String, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedEvents = new AtomicInteger();
+    private final Counter droppedLow;
+    private final Counter droppedNormal;
+    private final Counter merged;
+    private final DistributionSummary batchSize;
+
+    @Autowired
+    public WebSocketEventPipeline(
+            SimpMessagingTemplate messagingTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${websocket.outbound.batch-window-ms:50}") long batchWindowMillis,
+            @Value("${websocket.outbound.queue-capacity:200}") int queueCapacity,
+            @Value("${websocket.outbound.dispatcher-threads:2}") int dispatcherThreads) {
+        this(messagingTemplate, meterRegistry, batchWindowMillis, queueCapacity,
+                Executors.newScheduledThreadPool(Math.max(1, dispatcherThreads), dispatcherThreadFactory()));
+    }
+
+    WebSocketEventPipeline(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+                           long batchWindowMillis, int queueCapacity, ScheduledExecutorService dispatcher) {
+        this.messagingTemplate = messagingTemplate;
+        this.batchWindowMillis = Math.max(0, batchWindowMillis);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.dispatcher = dispatcher;
+
+        Gauge.builder("websocket.outbound.queue.depth", queuedEvents, AtomicInteger::get)
+                .description("Events queued for WebSocket delivery across all sessions").register(meterRegistry);
+        this.droppedLow = Counter.builder("websocket.outbound.dropped").tag("priority", "low")
+                .description("Outbound events dropped under backpressure").register(meterRegistry);
+        this.droppedNormal = Counter.builder("websocket.outbound.dropped").tag("priority", "normal")
+                .description("Outbound events dropped under backpressure").register(meterRegistry);
+        this.merged = Counter.builder("websocket.outbound.merged")
+                .description("Reasoning updates merged into a queued update under backpressure")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("websocket.outbound.batch.size")
+                .description("Events per outbound WebSocket frame").register(meterRegistry);
+    }
+
+    private static ThreadFactory dispatcherThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "ws-dispatch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Queues {@code payload} for {@code destination} on the session's outbound queue and returns
+     * immediately. {@code batchable} events may be combined with others for the same destination.
+     */
+    public void enqueue(String sessionId, String destination, Object payload, Priority priority, boolean batchable) {
+        OutboundEvent event = new OutboundEvent(destination, payload, priority, batchable);
+        while (true) {
+            SessionQueue queue = queues.computeIfAbsent(sessionId, SessionQueue::new);
+            boolean flushNow = priority == Priority.CRITICAL || batchWindowMillis == 0;
+            boolean scheduleDrain;
+            synchronized (queue) {
+                if (queue.closed) {
+                    continue; // lost a race with cleanup; use the replacement queue
+                }
+                offer(queue, event);
+                scheduleDrain = flushNow ? !queue.immediateScheduled : !queue.drainScheduled;
+                if (scheduleDrain) {
+                    queue.drainScheduled = true;
+                    queue.immediateScheduled |= flushNow;
+                }
+            }
+            if (scheduleDrain) {
+                scheduleDrain(queue, flushNow ? 0 : batchWindowMillis);
+            }
+            return;
+        }
+    }
+
+    /** Events currently queued across all sessions. */
+    public int queueDepth() {
+        return queuedEvents.get();
+    }
+
+    /** Drains {@code sessionId}'s queue on the calling thread (tests, shutdown). */
+    void flush(String sessionId) {
+        SessionQueue queue = queues.get(sessionId);
+        if (queue != null) {
+            drain(queue);
+        }
+    }
+
+    private void scheduleDrain(SessionQueue queue, long delayMillis) {
+        try {
+            dispatcher.schedule(() -> drain(queue), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Dispatcher shut down (application stopping): deliver on the caller rather than lose it
+            log.debug("WebSocket dispatcher unavailable, flushing session {} inline", queue.sessionId);
+            drain(queue);
+        }
+    }
+
+    /** Applies backpressure, then appends. Caller holds the queue's monitor. */
+    private void offer(SessionQueue queue, OutboundEvent event) {
+        ArrayDeque<OutboundEvent> events = queue.events;
+        if (events.size() >= queueCapacity) {
+            switch (event.priority()) {
+                case LOW -> {
+                    if (!mergeIntoLatest(events, event)) {
+                        droppedLow.increment();
+                    }
+                    return;
+                }
+                case NORMAL -> {
+                    if (!removeOldest(events, Priority.LOW) && !removeOldest(events, Priority.NORMAL)) {
+                        droppedNormal.increment();
+                        return;
+                    }
+                }
+                default -> removeOldest(events, Priority.LOW); // CRITICAL: may exceed capacity
+            }
+        }
+        events.addLast(event);
+        queuedEvents.incrementAndGet();
+    }
+
+    private boolean mergeIntoLatest(ArrayDeque<OutboundEvent> events, OutboundEvent update) {
+        Iterator<OutboundEvent> newestFirst = events.descendingIterator();
+        while (newestFirst.hasNext()) {
+            OutboundEvent queued = newestFirst.next();
+            if (queued.priority() == Priority.LOW && queued.destination().equals(update.destination())
+                    && queued.payload() instanceof Map<?, ?> queuedPayload
+                    && update.payload() instanceof Map<?, ?> updatePayload) {
+                Map<String, Object> combined = new HashMap<>();
+                queuedPayload.forEach((k, v) -> combined.put(String.valueOf(k), v));
+                updatePayload.forEach((k, v) -> combined.put(String.valueOf(k), v));
+                combined.put("content", queuedPayload.get("content") + "\n" + updatePayload.get("content"));
+                replace(events, queued, new OutboundEvent(queued.destination(), combined, Priority.LOW, queued.batchable()));
+                merged.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void replace(ArrayDeque<OutboundEvent> events, OutboundEvent old, OutboundEvent replacement) {
+        List<OutboundEvent> copy = new ArrayList<>(events);
+        copy.set(copy.indexOf(old), replacement);
+        events.clear();
+        events.addAll(copy);
+    }
+
+    private boolean removeOldest(ArrayDeque<OutboundEvent> events, Priority priority) {
+        Iterator<OutboundEvent> it = events.iterator();
+        while (it.hasNext()) {
+            if (it.next().priority() == priority) {
+                it.remove();
+                queuedEvents.decrementAndGet();
+                (priority == Priority.LOW ? droppedLow : droppedNormal).increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends everything queued for the session. The send lock keeps drains of one session (a delayed
+     * drain and an immediate one triggered by a CRITICAL event) from interleaving, so frames leave in
+     * queue order.
+     */
+    private void drain(SessionQueue queue) {
+        synchronized (queue.sendLock) {
+            List<OutboundEvent> batch;
+            synchronized (queue) {
+                batch = new ArrayList<>(queue.events);
+                queue.events.clear();
+                queue.drainScheduled = false;
+                queue.immediateScheduled = false;
+                queuedEvents.addAndGet(-batch.size());
+                if (batch.isEmpty()) {
+                    queue.closed = true;
+                    queues.remove(queue.sessionId, queue);
+                    return;
+                }
+            }
+            send(batch);
+            synchronized (queue) {
+                if (queue.events.isEmpty() && !queue.drainScheduled) {
+                    queue.closed = true;
+                    queues.remove(queue.sessionId, queue);
+                }
+            }
+        }
+    }
+
+    /** Coalesces runs of batchable events per destination; a non-batchable event closes the run. */
+    private void send(List<OutboundEvent> events) {
+        Map<String, List<Object>> pending = new LinkedHashMap<>();
+        for (OutboundEvent event : events) {
+            if (event.batchable()) {
+                pending.computeIfAbsent(event.destination(), k -> new ArrayList<>()).add(event.payload());
+                continue;
+            }
+            sendPending(pending);
+            sendFrame(event.destination(), event.payload(), 1);
+        }
+        sendPending(pending);
+    }
+
+    private void sendPending(Map<String, List<Object>> pending) {
+        for (Map.Entry<String, List<Object>> entry : pending.entrySet()) {
+            List<Object> payloads = entry.getValue();
+            if (payloads.size() == 1) {
+                sendFrame(entry.getKey(), payloads.get(0), 1);
+            } else {
+                Map<String, Object> frame = new HashMap<>();
+                frame.put("type", "batch");
+                frame.put("count", payloads.size());
+                frame.put("events", payloads);
+                sendFrame(entry.getKey(), frame, payloads.size());
+            }
+        }
+        pending.clear();
+    }
+
+    private void sendFrame(String destination, Object payload, int events) {
+        try {
+            messagingTemplate.convertAndSend(destination, payload);
+            batchSize.record(events);
+        } catch (Exception e) {
+            log.error("❌ [WebSocket] Error sending {} event(s) to {}", events, destination, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        queues.values().forEach(this::drain);
+        try {
+            if (!dispatcher.awaitTermination(2, TimeUnit.SECONDS)) {
+                dispatcher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class SessionQueue {
+        private final String sessionId;
+        private final ArrayDeque<OutboundEvent> events = new ArrayDeque<>();
+        private final Object sendLock = new Object();
+        private boolean drainScheduled;
+        private boolean immediateScheduled;
+        private boolean closed;
+
+        private SessionQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+    }
+}
@@ -1,27 +1,114 @@
 package com.agent.financialadvisor.service;
 
+import com.agent.financialadvisor.config.WebSocketBrokerConfig;
+import com.agent.financialadvisor.service.WebSocketEventPipeline.Priority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes chat and agent-activity events to the session's STOMP topics. Sends are handed to the
+ * per-session WebSocketEventPipeline, so agent threads never wait on the broker; activity, tool and
+ * reasoning events may arrive coalesced as {@code {"type": "batch", "events": [...]}} frames.
+ * Sessions with an SSE stream open also get each event through SseEventHub.
+ */
 @Service
 public class WebSocketService {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketService.class);
-    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketEventPipeline pipeline;
+
+    // Live STOMP subscriptions: count per destination, and destination per (connection, subscription id)
+    // so unsubscribe/disconnect can decrement. Lets producers skip building events nobody receives
+    // (the UI only subscribes to some topics, and agent-activity only while the panel is open).
+    private final Map<String, Integer> subscriberCounts = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> connectionSubscriptions = new ConcurrentHashMap<>();
+
+    // With a broker relay, clients on other replicas subscribe through their own node, so local
+    // subscription events are not the whole picture and every event must be published.
+    private final boolean subscriptionsVisibleLocally;
+
+    // SSE clients (GET /api/advisor/stream) receive the same events, named after the topic
+    private final SseEventHub sseEventHub;
+
+    public WebSocketService(WebSocketEventPipeline pipeline, WebSocketBrokerConfig brokerConfig,
+                            SseEventHub sseEventHub) {
+        this.pipeline = pipeline;
+        this.sseEventHub = sseEventHub;
+        this.subscriptionsVisibleLocally = !brokerConfig.isRelay();
+    }
+
+    /**
+     * True if at least one client is subscribed to {@code /topic/<topic>/<sessionId>} or has an SSE
+     * stream open for the session. Always true in broker-relay mode, where subscribers may be
+     * connected to another replica.
+     */
+    public boolean hasSubscribers(String topic, String sessionId) {
+        return !subscriptionsVisibleLocally || sseEventHub.isActive(sessionId) || subscriberCounts.containsKey("/topic/" + topic + "/" + sessionId);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        registerSubscription(accessor.getSessionId(), accessor.getSubscriptionId(), accessor.getDestination());
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        removeSubscription(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = connectionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    public void registerSubscription(String connectionId, String subscriptionId, String destination) {
+        if (connectionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+        String previous = connectionSubscriptions
+                .computeIfAbsent(connectionId, k -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        subscriberCounts.merge(destination, 1, Integer::sum);
+    }
+
+    public void removeSubscription(String connectionId, String subscriptionId) {
+        if (connectionId == null || subscriptionId == null) {
+            return;
+        }
+        Map<String, String> subscriptions = connectionSubscriptions.get(connectionId);
+        String destination = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (destination != null) {
+            decrement(destination);
+        }
+    }
 
-    public WebSocketService(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    private void decrement(String destination) {
+        subscriberCounts.computeIfPresent(destination, (k, count) -> count > 1 ? count - 1 : null);
     }
 
     public void sendThinking(String sessionId, String thinking) {
         try {
-            messagingTemplate.convertAndSend("/topic/thinking/" + sessionId,
-                    new ThinkingMessage("thinking", thinking));
-            log.debug("Sent thinking to session {}", sessionId);
+            ThinkingMessage message = new ThinkingMessage("thinking", thinking);
+            pipeline.enqueue(sessionId, "/topic/thinking/" + sessionId, message, Priority.NORMAL, false);
+            sseEventHub.publish(sessionId, "thinking", message);
+            log.debug("Queued thinking to session {}", sessionId);
         } catch (Exception e) {
             log.error("Error sending thinking via WebSocket", e);
         }
@@ -29,9 +116,10 @@ public class WebSocketService {
 
     public void sendFinalResponse(String sessionId, String response) {
         try {
-            messagingTemplate.convertAndSend("/topic/response/" + sessionId,
-                    new ThinkingMessage("response", response));
-            log.debug("Sent final response to session {}", sessionId);
+            ThinkingMessage message = new ThinkingMessage("response", response);
+            pipeline.enqueue(sessionId, "/topic/response/" + sessionId, message, Priority.CRITICAL, false);
+            sseEventHub.publish(sessionId, "response", message);
+            log.debug("Queued final response to session {}", sessionId);
         } catch (Exception e) {
             log.error("Error sending final response via WebSocket", e);
         }
@@ -39,9 +127,10 @@ public class WebSocketService {
 
     public void sendError(String sessionId, String error) {
         try {
-            messagingTemplate.convertAndSend("/topic/error/" + sessionId,
-                    new ThinkingMessage("error", error));
-            log.debug("Sent error to session {}: {}", sessionId, error);
+            ThinkingMessage message = new ThinkingMessage("error", error);
+            pipeline.enqueue(sessionId, "/topic/error/" + sessionId, message, Priority.CRITICAL, false);
+            sseEventHub.publish(sessionId, "error", message);
+            log.debug("Queued error to session {}: {}", sessionId, error);
         } catch (Exception e) {
             log.error("Error sending error via WebSocket", e);
         }
@@ -56,8 +145,9 @@ public class WebSocketService {
             toolCall.put("timestamp", System.currentTimeMillis());
             
             String topic = "/topic/tool-call/" + sessionId;
-            messagingTemplate.convertAndSend(topic, toolCall);
-            log.info("🔧 [WebSocket] Sent tool call to topic={}, toolName={}, params={}", topic, toolName, parameters);
+            pipeline.enqueue(sessionId, topic, toolCall, Priority.NORMAL, true);
+            sseEventHub.publish(sessionId, "tool-call", toolCall);
+            log.info("🔧 [WebSocket] Queued tool call to topic={}, toolName={}, params={}", topic, toolName, parameters);
         } catch (Exception e) {
             log.error("❌ [WebSocket] Error sending tool call via WebSocket for sessionId={}", sessionId, e);
         }
@@ -73,8 +163,9 @@ public class WebSocketService {
             toolResult.put("timestamp", System.currentTimeMillis());
             
             String topic = "/topic/tool-result/" + sessionId;
-            messagingTemplate.convertAndSend(topic, toolResult);
-            log.info("✅ [WebSocket] Sent tool result to topic={}, toolName={}, duration={}ms", topic, toolName, duration);
+            pipeline.enqueue(sessionId, topic, toolResult, Priority.NORMAL, true);
+            sseEventHub.publish(sessionId, "tool-result", toolResult);
+            log.info("✅ [WebSocket] Queued tool result to topic={}, toolName={}, duration={}ms", topic, toolName, duration);
         } catch (Exception e) {
             log.error("❌ [WebSocket] Error sending tool result via WebSocket for sessionId={}", sessionId, e);
         }
@@ -88,8 +179,9 @@ public class WebSocketService {
             reasoningMsg.put("timestamp", System.currentTimeMillis());
             
             String topic = "/topic/reasoning/" + sessionId;
-            messagingTemplate.convertAndSend(topic, reasoningMsg);
-            log.info("📢 [WebSocket] Sent reasoning to topic={}, content={}", topic, reasoning);
+            pipeline.enqueue(sessionId, topic, reasoningMsg, Priority.LOW, true);
+            sseEventHub.publish(sessionId, "reasoning", reasoningMsg);
+            log.info("📢 [WebSocket] Queued reasoning to topic={}, content={}", topic, reasoning);
         } catch (Exception e) {
             log.error("❌ [WebSocket] Error sending reasoning via WebSocket for sessionId={}", sessionId, e);
         }
@@ -103,8 +195,9 @@ public class WebSocketService {
         try {
             event.put("timestamp", System.currentTimeMillis());
             String topic = "/topic/agent-activity/" + sessionId;
-            messagingTemplate.convertAndSend(topic, event);
-            log.debug("📢 [WebSocket] Sent agent activity to topic={}, type={}", topic, event.get("type"));
+            pipeline.enqueue(sessionId, topic, event, Priority.NORMAL, true);
+            sseEventHub.publish(sessionId, "agent-activity", event);
+            log.debug("📢 [WebSocket] Queued agent activity to topic={}, type={}", topic, event.get("type"));
         } catch (Exception e) {
             log.error("❌ [WebSocket] Error sending agent activity for sessionId={}", sessionId, e);
         }
@@ -1,6 +1,7 @@
 package com.agent.financialadvisor.service.agents;
 
 import com.agent.financialadvisor.service.MarketDataService;
+import com.agent.financialadvisor.service.ToolResultEncoder;
 import com.agent.financialadvisor.service.WebSocketService;
 import com.agent.financialadvisor.aspect.ToolCallAspect;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -27,6 +28,7 @@ public class MarketAnalysisAgent {
     private final MarketDataService marketDataService;
     private final ObjectMapper objectMapper;
     private final WebSocketService webSocketService;
+    private final ToolResultEncoder toolResultEncoder;
     private final ChatLanguageModel chatLanguageModel;
     private final Map<String, MarketAnalysisAgentService> agentCache = new ConcurrentHashMap<>();
 
@@ -35,11 +37,13 @@ public class MarketAnalysisAgent {
             MarketDataService marketDataService, 
             ObjectMapper objectMapper,
             WebSocketService webSocketService,
+            ToolResultEncoder toolResultEncoder,
             @Qualifier("agentChatLanguageModel") ChatLanguageModel chatLanguageModel
     ) {
         this.marketDataService = marketDataService;
         this.objectMapper = objectMapper;
         this.webSocketService = webSocketService;
+        this.toolResultEncoder = toolResultEncoder;
         this.chatLanguageModel = chatLanguageModel;
         log.info("✅ MarketAnalysisAgent initialized with its own LLM instance");
     }
@@ -95,7 +99,7 @@ public class MarketAnalysisAgent {
             if (overview.isEmpty()) {
                 return "{\"error\": \"Market index data is temporarily unavailable. Please try again shortly.\"}";
             }
-            return objectMapper.writeValueAsString(overview);
+            return toolResultEncoder.encode("getMarketOverview", overview);
         } catch (Exception e) {
             log.error("Error getting market overview: {}", e.getMessage(), e);
             return String.format("{\"error\": \"Error fetching market overview: %s\"}", e.getMessage());
@@ -134,7 +138,20 @@ public class MarketAnalysisAgent {
             String source = quote.source();
             String fetchedAt = java.time.Instant.now().toString();
             String result;
-            if (requestedInput.equalsIgnoreCase(resolvedSymbol)) {
+            if (toolResultEncoder.isCompact("getStockPrice")) {
+                Map<String, Object> payload = new java.util.LinkedHashMap<>();
+                if (!requestedInput.equalsIgnoreCase(resolvedSymbol)) {
+                    payload.put("requested", requestedInput);
+                }
+                payload.put("symbol", resolvedSymbol);
+                payload.put("price", price);
+                payload.put("currency", "USD");
+                payload.put("quoteTime", quoteTime);
+                payload.put("source", source);
+                payload.put("fetchedAt", fetchedAt);
+                payload.put("note", "quoteTime is the provider's last price time; free tier may be delayed ~15 min during market hours.");
+                result = toolResultEncoder.encodeCompact("getStockPrice", payload);
+            } else if (requestedInput.equalsIgnoreCase(resolvedSymbol)) {
                 result = String.format(
                     "{\"symbol\": \"%s\", \"price\": %s, \"currency\": \"USD\", \"quoteTime\": \"%s\", \"source\": \"%s\", \"fetchedAt\": \"%s\", " +
                     "\"note\": \"Live data. quoteTime is when the price was last set by the provider; free tier may be delayed ~15 min during market hours.\"}",
@@ -194,8 +211,7 @@ public class MarketAnalysisAgent {
             }
             
             // Convert to JSON string for LLM consumption
-            String json = objectMapper.writeValueAsString(data);
-            return json;
+            return toolResultEncoder.encode("getStockPriceData", data);
         } catch (Exception e) {
             log.error("Error getting stock price data for {}: {}", symbol, e.getMessage(), e);
             return String.format("{\"symbol\": \"%s\", \"timeframe\": \"%s\", \"error\": \"Error fetching price data: %s\"}", symbol, timeframe, e.getMessage());
@@ -271,7 +287,7 @@ public class MarketAnalysisAgent {
             if (symbol != null && !symbol.trim().equalsIgnoreCase(resolvedSymbol)) {
                 payload.put("requested", symbol.trim());
             }
-            return objectMapper.writeValueAsString(payload);
+            return toolResultEncoder.encode("analyzeTrends", payload);
         } catch (Exception e) {
             log.error("Error analyzing trends for {}: {}", symbol, e.getMessage(), e);
             return String.format("{\"symbol\": \"%s\", \"timeframe\": \"%s\", \"error\": \"Error analyzing trends: %s\"}", symbol, timeframe, e.getMessage());
@@ -311,7 +327,7 @@ public class MarketAnalysisAgent {
             if (symbol != null && !symbol.trim().equalsIgnoreCase(resolvedSymbol)) {
                 payload.put("requested", symbol.trim());
             }
-            return objectMapper.writeValueAsString(payload);
+            return toolResultEncoder.encode("getTechnicalIndicators", payload);
         } catch (Exception e) {
             log.error("Error getting technical indicators for {}: {}", symbol, e.getMessage(), e);
             return String.format("{\"symbol\": \"%s\", \"error\": \"Error calculating technical indicators: %s\"}", symbol, e.getMessage());
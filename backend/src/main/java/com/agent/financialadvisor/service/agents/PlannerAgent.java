@@ -68,7 +68,7 @@ public class PlannerAgent {
             "  \"queryType\": \"GREETING | STOCK_PRICE | PORTFOLIO | ANALYSIS | NEWS | SENTIMENT | GENERAL\",\n" +
             "  \"directResponse\": \"Only for GREETING type - a friendly response. null for all other types.\",\n" +
             "  \"steps\": [\n" +
-            "    {\"agent\": \"AGENT_NAME\", \"task\": \"Specific task description for the agent\"}\n" +
+            "    {\"agent\": \"AGENT_NAME\", \"task\": \"Specific task description for the agent\", \"complexity\": \"SIMPLE | COMPLEX\"}\n" +
             "  ]\n" +
             "}\n\n" +
             "### PLANNING RULES:\n" +
@@ -96,23 +96,26 @@ public class PlannerAgent {
             "GOOD task: 'Get current stock price for Apple'\n" +
             "11. Use the exact company name or ticker the user mentioned. Do NOT resolve tickers yourself.\n" +
             "12. Use conversation context (if provided) to resolve ambiguous references like 'it', 'that stock', 'compare them'.\n" +
-            "13. If retry feedback is provided, adjust the plan to address the feedback.\n\n" +
+            "13. If retry feedback is provided, adjust the plan to address the feedback.\n" +
+            "14. Mark a step \"complexity\": \"SIMPLE\" only when it is a single direct lookup needing one tool call " +
+            "(e.g. the current price of one stock, fetching the user's portfolio). Use \"COMPLEX\" for anything that " +
+            "combines several tools, compares, or interprets data.\n\n" +
             "### EXAMPLES:\n" +
             "Query: \"Apple stock price\" → " +
-            "{\"queryType\":\"STOCK_PRICE\",\"directResponse\":null,\"steps\":[{\"agent\":\"MARKET_ANALYSIS\",\"task\":\"Get current stock price for Apple\"}]}\n\n" +
+            "{\"queryType\":\"STOCK_PRICE\",\"directResponse\":null,\"steps\":[{\"agent\":\"MARKET_ANALYSIS\",\"task\":\"Get current stock price for Apple\",\"complexity\":\"SIMPLE\"}]}\n\n" +
             "Query: \"Hello!\" → " +
             "{\"queryType\":\"GREETING\",\"directResponse\":\"Hello! I'm your AI financial advisor. I can help with stock prices, portfolio management, market analysis, and investment strategies. What would you like to know?\",\"steps\":[]}\n\n" +
             "Query: \"Will the markets recover?\" / \"How is the market doing?\" → " +
             "{\"queryType\":\"ANALYSIS\",\"directResponse\":null,\"steps\":[" +
-            "{\"agent\":\"MARKET_ANALYSIS\",\"task\":\"Get a broad market overview with major index levels and recent changes\"}," +
-            "{\"agent\":\"WEB_SEARCH\",\"task\":\"Search for the latest market outlook and what is driving the recent move\"}]}\n\n" +
+            "{\"agent\":\"MARKET_ANALYSIS\",\"task\":\"Get a broad market overview with major index levels and recent changes\",\"complexity\":\"SIMPLE\"}," +
+            "{\"agent\":\"WEB_SEARCH\",\"task\":\"Search for the latest market outlook and what is driving the recent move\",\"complexity\":\"COMPLEX\"}]}\n\n" +
             "Query: \"Analyze Tesla with news and sentiment\" → " +
             "{\"queryType\":\"ANALYSIS\",\"directResponse\":null,\"steps\":[" +
-            "{\"agent\":\"MARKET_ANALYSIS\",\"task\":\"Get stock price and technical indicators for Tesla\"}," +
-            "{\"agent\":\"WEB_SEARCH\",\"task\":\"Search for recent Tesla news and analysis\"}," +
-            "{\"agent\":\"FINTWIT\",\"task\":\"Get social sentiment for Tesla\"}]}\n\n" +
+            "{\"agent\":\"MARKET_ANALYSIS\",\"task\":\"Get stock price and technical indicators for Tesla\",\"complexity\":\"COMPLEX\"}," +
+            "{\"agent\":\"WEB_SEARCH\",\"task\":\"Search for recent Tesla news and analysis\",\"complexity\":\"COMPLEX\"}," +
+            "{\"agent\":\"FINTWIT\",\"task\":\"Get social sentiment for Tesla\",\"complexity\":\"COMPLEX\"}]}\n\n" +
             "Query: \"How is my portfolio doing?\" → " +
-            "{\"queryType\":\"PORTFOLIO\",\"directResponse\":null,\"steps\":[{\"agent\":\"USER_PROFILE\",\"task\":\"Get user portfolio with current values and gain/loss\"}]}"
+            "{\"queryType\":\"PORTFOLIO\",\"directResponse\":null,\"steps\":[{\"agent\":\"USER_PROFILE\",\"task\":\"Get user portfolio with current values and gain/loss\",\"complexity\":\"SIMPLE\"}]}"
         )
         String plan(@UserMessage String enrichedQuery);
     }
@@ -1,5 +1,7 @@
 package com.agent.financialadvisor.service.agents;
 
+import com.agent.financialadvisor.service.security.SecurityPrefilter;
+import com.agent.financialadvisor.service.security.SecurityVerdictCache;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.service.AiServices;
 import dev.langchain4j.service.SystemMessage;
@@ -17,7 +19,6 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.regex.Pattern;
 
 /**
  * Security Agent - Validates user inputs for security threats
@@ -27,15 +28,10 @@ import java.util.regex.Pattern;
 public class SecurityAgent {
 
     private static final Logger log = LoggerFactory.getLogger(SecurityAgent.class);
-    private static final Pattern[] BLOCK_PATTERNS = new Pattern[] {
-            Pattern.compile("(?i)ignore\\s+(all\\s+)?previous\\s+instructions"),
-            Pattern.compile("(?i)(system\\s+prompt|reveal\\s+prompt)"),
-            Pattern.compile("(?i)\\b(rm\\s+-rf|DROP\\s+TABLE|DELETE\\s+FROM|SELECT\\s+\\*\\s+FROM)\\b"),
-            Pattern.compile("(?i)\\b(curl\\s+|wget\\s+|chmod\\s+|chown\\s+|bash\\s+-c)\\b"),
-            Pattern.compile("(?i)<script|javascript:|onerror\\s*=|onload\\s*=")
-    };
 
     private final SecurityValidator securityValidator;
+    private final SecurityPrefilter securityPrefilter;
+    private final SecurityVerdictCache verdictCache;
     private final int securityTimeoutSeconds;
     private final ExecutorService securityExecutor = Executors.newFixedThreadPool(2);
 
@@ -44,12 +40,16 @@ public class SecurityAgent {
             // Cheap/fast model: security validation is pure classification (no tool calls), so it runs
             // on the lightweight tier (default gpt-4o-mini) to cut cost and latency per query.
             @Qualifier("toolAgentChatLanguageModel") ChatLanguageModel chatLanguageModel,
-            @Value("${agent.timeout.security-seconds:5}") int securityTimeoutSeconds
+            @Value("${agent.timeout.security-seconds:5}") int securityTimeoutSeconds,
+            SecurityPrefilter securityPrefilter,
+            SecurityVerdictCache verdictCache
     ) {
         this.securityValidator = AiServices.builder(SecurityValidator.class)
                 .chatLanguageModel(chatLanguageModel)
                 .build();
         this.securityTimeoutSeconds = securityTimeoutSeconds;
+        this.securityPrefilter = securityPrefilter;
+        this.verdictCache = verdictCache;
         log.info("✅ SecurityAgent initialized with its own LLM instance");
     }
 
@@ -63,10 +63,22 @@ public class SecurityAgent {
             return new SecurityValidationResult(false, "Input is empty");
         }
 
-        for (Pattern pattern : BLOCK_PATTERNS) {
-            if (pattern.matcher(userInput).find()) {
-                return new SecurityValidationResult(false, "Blocked by deterministic security pattern");
-            }
+        // Deterministic layer first: known-bad phrases are rejected and clearly benign financial
+        // queries accepted without paying for the LLM round trip.
+        SecurityPrefilter.Decision prefilter = securityPrefilter.classify(userInput);
+        if (prefilter.verdict() == SecurityPrefilter.Verdict.BLOCK) {
+            return new SecurityValidationResult(false, "Blocked by deterministic security pattern");
+        }
+        if (prefilter.verdict() == SecurityPrefilter.Verdict.ALLOW) {
+            return new SecurityValidationResult(true, "Allow-listed financial query");
+        }
+
+        // Same (case/whitespace/digit-folded) input seen recently: reuse the LLM's verdict.
+        String cacheKey = SecurityVerdictCache.keyFor(userInput);
+        SecurityVerdictCache.Verdict cached = verdictCache.get(cacheKey);
+        if (cached != null) {
+            log.debug("🔒 Security verdict cache hit: safe={}", cached.safe());
+            return new SecurityValidationResult(cached.safe(), cached.reason());
         }
 
         CompletableFuture<SecurityValidationResult> future = null;
@@ -80,6 +92,7 @@ public class SecurityAgent {
 
             SecurityValidationResult result = future.get(securityTimeoutSeconds, TimeUnit.SECONDS);
             log.debug("🔒 Security validation result: safe={}, reason={}", result.isSafe(), result.getReason());
+            verdictCache.put(cacheKey, new SecurityVerdictCache.Verdict(result.isSafe(), result.getReason()));
             return result;
         } catch (TimeoutException e) {
             // Ensure timed-out checks do not keep consuming executor capacity.
@@ -5,7 +5,11 @@ import com.agent.financialadvisor.model.StockHolding;
 import com.agent.financialadvisor.model.UserProfile;
 import com.agent.financialadvisor.repository.PortfolioRepository;
 import com.agent.financialadvisor.repository.UserProfileRepository;
-import com.agent.financialadvisor.service.MarketDataService;
+import com.agent.financialadvisor.service.PortfolioValuationService;
+import com.agent.financialadvisor.service.PortfolioValuationService.HoldingValuation;
+import com.agent.financialadvisor.service.PortfolioValuationService.PortfolioValuation;
+import com.agent.financialadvisor.service.ToolResultEncoder;
+import com.agent.financialadvisor.service.UserContextChangedEvent;
 import com.agent.financialadvisor.service.WebSocketService;
 import com.agent.financialadvisor.aspect.ToolCallAspect;
 import dev.langchain4j.agent.tool.Tool;
@@ -18,11 +22,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -35,8 +40,10 @@ public class UserProfileAgent {
     private static final Logger log = LoggerFactory.getLogger(UserProfileAgent.class);
     private final UserProfileRepository userProfileRepository;
     private final PortfolioRepository portfolioRepository;
-    private final MarketDataService marketDataService;
+    private final PortfolioValuationService portfolioValuationService;
     private final WebSocketService webSocketService;
+    private final ToolResultEncoder toolResultEncoder;
+    private final ApplicationEventPublisher eventPublisher;
     private final ChatLanguageModel chatLanguageModel;
     private final Map<String, UserProfileAgentService> agentCache = new ConcurrentHashMap<>();
 
@@ -44,14 +51,18 @@ public class UserProfileAgent {
     public UserProfileAgent(
             UserProfileRepository userProfileRepository,
             PortfolioRepository portfolioRepository,
-            MarketDataService marketDataService,
+            PortfolioValuationService portfolioValuationService,
             WebSocketService webSocketService,
+            ToolResultEncoder toolResultEncoder,
+            ApplicationEventPublisher eventPublisher,
             @Qualifier("agentChatLanguageModel") ChatLanguageModel chatLanguageModel
     ) {
         this.userProfileRepository = userProfileRepository;
         this.portfolioRepository = portfolioRepository;
-        this.marketDataService = marketDataService;
+        this.portfolioValuationService = portfolioValuationService;
         this.webSocketService = webSocketService;
+        this.toolResultEncoder = toolResultEncoder;
+        this.eventPublisher = eventPublisher;
         this.chatLanguageModel = chatLanguageModel;
         log.info("✅ UserProfileAgent initialized with its own LLM instance");
     }
@@ -172,6 +183,7 @@ public class UserProfileAgent {
             
             profile.setRiskTolerance(tolerance);
             userProfileRepository.save(profile);
+            eventPublisher.publishEvent(new UserContextChangedEvent(userId, "agent.updateRiskTolerance"));
             
             return String.format(
                 "{\"userId\": \"%s\", \"riskTolerance\": \"%s\", \"message\": \"Risk tolerance updated successfully\"}",
@@ -207,9 +219,8 @@ public class UserProfileAgent {
     }
 
     @Tool("Get user's complete portfolio with all holdings, current values, and gain/loss. " +
-          "ALWAYS refreshes current stock prices for accurate values. " +
+          "ALWAYS uses current stock prices for accurate values. " +
           "Requires: userId (string). Returns portfolio with all holdings and summary.")
-    @Transactional(readOnly = true)
     public String getPortfolio(String userId) {
         log.info("🔵 getPortfolio CALLED with userId={}", userId);
         
@@ -218,67 +229,37 @@ public class UserProfileAgent {
         
         long startTime = System.currentTimeMillis();
         try {
-            Optional<Portfolio> portfolioOpt = portfolioRepository.findByUserIdWithHoldings(userId);
-            if (portfolioOpt.isEmpty()) {
+            // Valued in memory at live quotes (shared short-lived cache, no writes on read)
+            Optional<PortfolioValuation> valuationOpt = portfolioValuationService.valuate(userId);
+            if (valuationOpt.isEmpty()) {
                 return String.format(
                     "{\"userId\": \"%s\", \"exists\": false, \"message\": \"Portfolio not found. User has no holdings yet.\"}",
                     userId
                 );
             }
 
-            Portfolio portfolio = portfolioOpt.get();
-            
-            // Holdings are eagerly loaded via JOIN FETCH - safe to access in agent thread pool
-            List<StockHolding> holdings = portfolio.getHoldings() != null 
-                ? new ArrayList<>(portfolio.getHoldings()) 
-                : new ArrayList<>();
-            
-            // Refresh current prices for all holdings, capturing quote freshness for transparency.
-            String priceSource = null;
-            java.time.Instant pricesAsOf = null;
-            if (!holdings.isEmpty()) {
-                for (StockHolding holding : holdings) {
-                    try {
-                        MarketDataService.Quote quote = marketDataService.getQuote(holding.getSymbol());
-                        if (quote != null && quote.price() != null && quote.price().compareTo(BigDecimal.ZERO) > 0) {
-                            holding.setCurrentPrice(quote.price());
-                            // @PreUpdate will handle value, gainLoss, gainLossPercent calculations
-                            priceSource = quote.source();
-                            if (quote.quoteTime() != null && (pricesAsOf == null || quote.quoteTime().isAfter(pricesAsOf))) {
-                                pricesAsOf = quote.quoteTime();
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("Could not refresh price for {}: {}", holding.getSymbol(), e.getMessage());
-                    }
-                }
-                // Update portfolio with refreshed holdings, then recompute totals explicitly
-                // (child-only changes don't auto-dirty the parent, so the @PreUpdate alone would
-                // leave the total stale — this is the "$0 total beside live holdings" bug).
-                portfolio.setHoldings(holdings);
-                portfolio.recalculateTotals();
-                portfolio = portfolioRepository.save(portfolio);
-                // Refresh from DB to get calculated totals
-                portfolio = portfolioRepository.findByUserIdWithHoldings(userId).orElse(portfolio);
+            PortfolioValuation portfolio = valuationOpt.get();
+            List<HoldingValuation> holdings = portfolio.holdings();
+            String priceSource = portfolio.priceSource();
+            java.time.Instant pricesAsOf = portfolio.pricesAsOf();
+
+            if (toolResultEncoder.isCompact("getPortfolio")) {
+                return toolResultEncoder.encodeCompact("getPortfolio",
+                        compactPortfolioPayload(userId, portfolio, holdings, priceSource, pricesAsOf));
             }
-            
-            // Materialize again after save to ensure we have the latest data
-            holdings = portfolio.getHoldings() != null 
-                ? new ArrayList<>(portfolio.getHoldings()) 
-                : new ArrayList<>();
 
             // Build holdings JSON using materialized holdings
             String holdingsJson = holdings.stream()
                 .map(h -> String.format(
                     "{\"symbol\": \"%s\", \"quantity\": %d, \"averagePrice\": %s, \"currentPrice\": %s, " +
                     "\"value\": %s, \"gainLoss\": %s, \"gainLossPercent\": %s}",
-                    h.getSymbol(),
-                    h.getQuantity(),
-                    h.getAveragePrice() != null ? h.getAveragePrice().toString() : "null",
-                    h.getCurrentPrice() != null ? h.getCurrentPrice().toString() : "null",
-                    h.getValue() != null ? h.getValue().toString() : "null",
-                    h.getGainLoss() != null ? h.getGainLoss().toString() : "null",
-                    h.getGainLossPercent() != null ? h.getGainLossPercent().toString() : "null"
+                    h.symbol(),
+                    h.quantity(),
+                    h.averagePrice() != null ? h.averagePrice().toString() : "null",
+                    h.currentPrice() != null ? h.currentPrice().toString() : "null",
+                    h.value() != null ? h.value().toString() : "null",
+                    h.gainLoss() != null ? h.gainLoss().toString() : "null",
+                    h.gainLossPercent() != null ? h.gainLossPercent().toString() : "null"
                 ))
                 .collect(Collectors.joining(", ", "[", "]"));
 
@@ -288,11 +269,11 @@ public class UserProfileAgent {
                 "\"priceSource\": \"%s\", \"pricesAsOf\": \"%s\", " +
                 "\"message\": \"Portfolio retrieved with current prices\"}",
                 userId,
-                portfolio.getTotalValue() != null ? portfolio.getTotalValue().toString() : "0",
-                portfolio.getTotalGainLoss() != null ? portfolio.getTotalGainLoss().toString() : "0",
-                portfolio.getTotalGainLossPercent() != null ? portfolio.getTotalGainLossPercent().toString() : "0",
+                portfolio.totalValue().toString(),
+                portfolio.totalGainLoss().toString(),
+                portfolio.totalGainLossPercent().toString(),
                 holdingsJson,
-                portfolio.getHoldings() != null ? portfolio.getHoldings().size() : 0,
+                holdings.size(),
                 priceSource != null ? priceSource : "unknown",
                 pricesAsOf != null ? pricesAsOf.toString() : "unknown"
             );
@@ -321,6 +302,35 @@ public class UserProfileAgent {
         }
     }
 
+    /** Same fields as the verbose getPortfolio JSON, as a map for the compact encoder. */
+    private Map<String, Object> compactPortfolioPayload(String userId, PortfolioValuation portfolio,
+                                                        List<HoldingValuation> holdings,
+                                                        String priceSource, java.time.Instant pricesAsOf) {
+        List<Map<String, Object>> rows = new ArrayList<>(holdings.size());
+        for (HoldingValuation h : holdings) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("symbol", h.symbol());
+            row.put("quantity", h.quantity());
+            row.put("averagePrice", h.averagePrice());
+            row.put("currentPrice", h.currentPrice());
+            row.put("value", h.value());
+            row.put("gainLoss", h.gainLoss());
+            row.put("gainLossPercent", h.gainLossPercent());
+            rows.add(row);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", userId);
+        payload.put("totalValue", portfolio.totalValue());
+        payload.put("totalGainLoss", portfolio.totalGainLoss());
+        payload.put("totalGainLossPercent", portfolio.totalGainLossPercent());
+        payload.put("holdingsCount", holdings.size());
+        payload.put("priceSource", priceSource != null ? priceSource : "unknown");
+        payload.put("pricesAsOf", pricesAsOf != null ? pricesAsOf.toString() : "unknown");
+        payload.put("holdings", rows);
+        payload.put("message", "Portfolio retrieved with current prices");
+        return payload;
+    }
+
     @Tool("Get user's portfolio holdings list. Returns list of stocks the user owns. " +
           "Requires: userId (string). Returns holdings with symbols and quantities.")
     @Transactional(readOnly = true)
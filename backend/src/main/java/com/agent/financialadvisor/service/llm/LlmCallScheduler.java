@@ -0,0 +1,296 @@
+package com.agent.financialadvisor.service.llm;
+
+import com.agent.financialadvisor.config.LlmSchedulerConfig;
+import com.agent.financialadvisor.exception.LlmCapacityExceededException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Central admission control for every OpenAI call.
+ *
+ * Each model tier (orchestrator / agent / agent-light / security) gets a concurrency limit and an optional
+ * tokens-per-minute budget. Calls that cannot be admitted wait in a priority queue: evaluator and
+ * final-answer calls are served ahead of planning, which is served ahead of optional enrichment
+ * agents. A call that waits longer than llm.scheduler.queue-timeout-seconds is shed with
+ * {@link LlmCapacityExceededException}, which the orchestrator reports like a provider 429 — but
+ * we stop sending traffic before OpenAI starts rejecting it for everyone.
+ *
+ * Budgets are charged with an estimate on admission (prompt chars / 4 + a completion allowance)
+ * and settled with the real token usage from the response. The real usage is also added to the
+ * thread's {@link LlmTokenUsage}, which charges it to the requesting user's token budget.
+ *
+ * Priority is carried per thread: callers wrap work in {@link #withPriority}; unwrapped calls are
+ * {@link LlmPriority#STANDARD}.
+ */
+@Component
+public class LlmCallScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmCallScheduler.class);
+    private static final ThreadLocal<LlmPriority> priorityHolder = new ThreadLocal<>();
+
+    private final LlmSchedulerConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TierLimiter> limiters = new ConcurrentHashMap<>();
+
+    public LlmCallScheduler(LlmSchedulerConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Run {@code work} with every LLM call it makes queued at {@code priority}. */
+    public static <T> T withPriority(LlmPriority priority, Supplier<T> work) {
+        LlmPriority previous = priorityHolder.get();
+        priorityHolder.set(priority);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                priorityHolder.remove();
+            } else {
+                priorityHolder.set(previous);
+            }
+        }
+    }
+
+    public static LlmPriority currentPriority() {
+        LlmPriority priority = priorityHolder.get();
+        return priority != null ? priority : LlmPriority.STANDARD;
+    }
+
+    /** Decorate a tier's model so every generate() call goes through this scheduler. */
+    public ChatLanguageModel wrap(String tier, ChatLanguageModel delegate) {
+        limiter(tier);
+        return new ScheduledChatLanguageModel(this, tier, delegate);
+    }
+
+    /**
+     * Admit, run and settle one LLM call.
+     * @param promptTokensEstimate rough prompt size; the tier's completion allowance is added
+     */
+    public Response<AiMessage> execute(String tier, int promptTokensEstimate, Supplier<Response<AiMessage>> call) {
+        TierLimiter limiter = limiter(tier);
+        int estimate = promptTokensEstimate + limiter.completionTokensEstimate;
+        LlmPriority priority = currentPriority();
+
+        long waitNanos = limiter.acquire(priority, estimate);
+        Timer.builder("llm.scheduler.wait")
+                .tag("tier", tier)
+                .tag("priority", priority.name())
+                .register(meterRegistry)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos > TimeUnit.SECONDS.toNanos(1)) {
+            log.info("⏳ [LLM] {} call ({}) waited {} ms for capacity", tier, priority,
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        int actual = estimate;
+        try {
+            Response<AiMessage> response = call.get();
+            TokenUsage usage = response != null ? response.tokenUsage() : null;
+            if (usage != null && usage.totalTokenCount() != null) {
+                actual = usage.totalTokenCount();
+            }
+            // Charged to the user's request only when the call produced a response (a shed or failed call is free)
+            LlmTokenUsage requestUsage = LlmTokenUsage.current();
+            if (requestUsage != null) {
+                requestUsage.add(actual);
+            }
+            return response;
+        } finally {
+            limiter.release(estimate, actual);
+            limiter.tokensUsed.increment(actual);
+        }
+    }
+
+    public int queueDepth(String tier) {
+        TierLimiter limiter = limiters.get(tier);
+        return limiter != null ? limiter.queueDepth() : 0;
+    }
+
+    public int inFlight(String tier) {
+        TierLimiter limiter = limiters.get(tier);
+        return limiter != null ? limiter.inFlight() : 0;
+    }
+
+    private TierLimiter limiter(String tier) {
+        return limiters.computeIfAbsent(tier, name -> {
+            LlmSchedulerConfig.TierConfig tierConfig = config.tier(name);
+            TierLimiter limiter = new TierLimiter(name, tierConfig,
+                    Duration.ofSeconds(Math.max(1, config.getQueueTimeoutSeconds())));
+            Gauge.builder("llm.scheduler.queue.depth", limiter, TierLimiter::queueDepth)
+                    .tag("tier", name)
+                    .register(meterRegistry);
+            Gauge.builder("llm.scheduler.in.flight", limiter, TierLimiter::inFlight)
+                    .tag("tier", name)
+                    .register(meterRegistry);
+            limiter.rejected = Counter.builder("llm.scheduler.rejected").tag("tier", name).register(meterRegistry);
+            limiter.tokensUsed = Counter.builder("llm.tokens.used").tag("tier", name).register(meterRegistry);
+            log.info("✅ LLM scheduler tier '{}' : maxConcurrent={}, tokensPerMinute={}", name,
+                    tierConfig.getMaxConcurrent(),
+                    tierConfig.getTokensPerMinute() > 0 ? tierConfig.getTokensPerMinute() : "unlimited");
+            return limiter;
+        });
+    }
+
+    /**
+     * One tier's gate: a strict-priority FIFO queue in front of a concurrency limit and a token bucket.
+     * Only the head of the queue may take a slot, so a burst of enrichment calls can never overtake
+     * an evaluator call that arrived later.
+     */
+    private static final class TierLimiter {
+        private final String tier;
+        private final int maxConcurrent;
+        private final int completionTokensEstimate;
+        private final Bucket tokenBudget;
+        private final long budgetCapacity;
+        private final long queueTimeoutNanos;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final PriorityQueue<Ticket> waiting = new PriorityQueue<>();
+        private long sequence;
+        private int inFlight;
+
+        private Counter rejected;
+        private Counter tokensUsed;
+
+        private record Ticket(LlmPriority priority, long seq) implements Comparable<Ticket> {
+            @Override
+            public int compareTo(Ticket other) {
+                int byPriority = priority.compareTo(other.priority);
+                return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+            }
+        }
+
+        TierLimiter(String tier, LlmSchedulerConfig.TierConfig config, Duration queueTimeout) {
+            this.tier = tier;
+            this.maxConcurrent = Math.max(1, config.getMaxConcurrent());
+            this.completionTokensEstimate = Math.max(0, config.getCompletionTokensEstimate());
+            this.budgetCapacity = config.getTokensPerMinute();
+            this.tokenBudget = budgetCapacity > 0
+                    ? Bucket.builder()
+                        .addLimit(Bandwidth.builder()
+                                .capacity(budgetCapacity)
+                                .refillGreedy(budgetCapacity, Duration.ofMinutes(1))
+                                .build())
+                        .build()
+                    : null;
+            this.queueTimeoutNanos = queueTimeout.toNanos();
+        }
+
+        /** Blocks until admitted; returns the time spent waiting in nanoseconds. */
+        long acquire(LlmPriority priority, int estimatedTokens) {
+            long start = System.nanoTime();
+            long deadline = start + queueTimeoutNanos;
+            lock.lock();
+            Ticket ticket = new Ticket(priority, sequence++);
+            waiting.add(ticket);
+            boolean admitted = false;
+            try {
+                while (true) {
+                    long remaining = deadline - System.nanoTime();
+                    if (waiting.peek() == ticket && inFlight < maxConcurrent) {
+                        long budgetWait = tryConsumeBudget(estimatedTokens);
+                        if (budgetWait == 0) {
+                            waiting.poll();
+                            inFlight++;
+                            admitted = true;
+                            changed.signalAll();
+                            return System.nanoTime() - start;
+                        }
+                        remaining = Math.min(remaining, budgetWait);
+                        if (deadline - System.nanoTime() <= 0) {
+                            throw shed(priority, "token budget exhausted");
+                        }
+                    } else if (remaining <= 0) {
+                        throw shed(priority, "no free slot");
+                    }
+                    changed.awaitNanos(Math.max(remaining, 1));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LlmCapacityExceededException("Interrupted while waiting for LLM capacity", tier);
+            } finally {
+                if (!admitted) {
+                    waiting.remove(ticket);
+                    changed.signalAll();
+                }
+                lock.unlock();
+            }
+        }
+
+        void release(int estimatedTokens, int actualTokens) {
+            lock.lock();
+            try {
+                inFlight--;
+                if (tokenBudget != null) {
+                    long difference = (long) actualTokens - Math.min(estimatedTokens, budgetCapacity);
+                    if (difference > 0) {
+                        tokenBudget.consumeIgnoringRateLimits(difference);
+                    } else if (difference < 0) {
+                        tokenBudget.addTokens(-difference);
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** 0 when the estimate was charged, otherwise the nanos until enough budget refills. */
+        private long tryConsumeBudget(int estimatedTokens) {
+            if (tokenBudget == null) {
+                return 0;
+            }
+            ConsumptionProbe probe = tokenBudget.tryConsumeAndReturnRemaining(Math.min(estimatedTokens, budgetCapacity));
+            return probe.isConsumed() ? 0 : Math.max(1, probe.getNanosToWaitForRefill());
+        }
+
+        private LlmCapacityExceededException shed(LlmPriority priority, String why) {
+            rejected.increment();
+            log.warn("🚨 [LLM] Shedding {} call on tier '{}': {} after {}s in queue (depth={})",
+                    priority, tier, why, TimeUnit.NANOSECONDS.toSeconds(queueTimeoutNanos), waiting.size());
+            return new LlmCapacityExceededException(
+                    "Rate limit: LLM tier '" + tier + "' at capacity (" + why + ")", tier);
+        }
+
+        int queueDepth() {
+            lock.lock();
+            try {
+                return waiting.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.agent.financialadvisor.service.llm;
+
+/**
+ * Queue priority of an LLM call. Lower ordinal is served first.
+ */
+public enum LlmPriority {
+    /** Evaluator / grounding rewrite / fallback synthesis — the user is waiting on exactly this call. */
+    FINAL_ANSWER,
+    /** Planner, security gate and core data agents (market, profile). */
+    STANDARD,
+    /** Optional enrichment agents (web search, fintwit) — first to wait under load. */
+    ENRICHMENT
+}
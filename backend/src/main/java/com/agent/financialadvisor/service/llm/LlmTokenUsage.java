@@ -0,0 +1,77 @@
+package com.agent.financialadvisor.service.llm;
+
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Tokens spent by the LLM calls of one advisor request (planner, sub-agents, evaluator, security).
+ *
+ * {@link LlmCallScheduler} adds each call's real usage to the accumulator bound to the calling thread.
+ * Like priorities, the binding is per thread: the orchestrator re-binds it inside the tasks it hands to
+ * other threads. Once the request is settled, calls still finishing (e.g. after an orchestrator
+ * timeout) are passed straight to the consumer given to {@link #settle}, so they are charged too.
+ */
+public final class LlmTokenUsage {
+
+    private static final ThreadLocal<LlmTokenUsage> holder = new ThreadLocal<>();
+
+    private long tokens;
+    private int calls;
+    private LongConsumer lateCharges;
+
+    /** Run {@code work} with every LLM call it makes on this thread counted in {@code usage} (null = not counted). */
+    public static <T> T within(LlmTokenUsage usage, Supplier<T> work) {
+        LlmTokenUsage previous = holder.get();
+        if (usage == null) {
+            holder.remove();
+        } else {
+            holder.set(usage);
+        }
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                holder.remove();
+            } else {
+                holder.set(previous);
+            }
+        }
+    }
+
+    /** The accumulator bound to this thread, or null outside any advisor request. */
+    public static LlmTokenUsage current() {
+        return holder.get();
+    }
+
+    public synchronized void add(long callTokens) {
+        if (callTokens <= 0) {
+            return;
+        }
+        if (lateCharges != null) {
+            lateCharges.accept(callTokens);
+            return;
+        }
+        tokens += callTokens;
+        calls++;
+    }
+
+    /**
+     * Closes the request's tally: returns the tokens counted so far and routes any later calls to
+     * {@code lateCharges}. Settling twice returns 0.
+     */
+    public synchronized long settle(LongConsumer lateCharges) {
+        if (this.lateCharges != null) {
+            return 0;
+        }
+        this.lateCharges = lateCharges;
+        return tokens;
+    }
+
+    public synchronized long totalTokens() {
+        return tokens;
+    }
+
+    public synchronized int callCount() {
+        return calls;
+    }
+}
@@ -0,0 +1,119 @@
+package com.agent.financialadvisor.service.llm;
+
+import com.agent.financialadvisor.exception.LlmCapacityExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Picks the model for each plan step.
+ *
+ * Steps the planner marks "complexity": "SIMPLE" (single direct lookups such as "get the price of X")
+ * run on the cheap tier (the lightAgentChatLanguageModel bean, default gpt-4o-mini). If the cheap run
+ * throws, or its answer reports a tool error / looks unusable, the step is re-run once on the full
+ * agent model. Everything else runs on the full model, as before.
+ *
+ * The route is carried per thread (like LlmCallScheduler priorities) and read by
+ * {@link RoutingChatLanguageModel}, so the sub-agents and their cached AiServices don't change.
+ * Latency is recorded per agent and route as llm.route.latency.
+ */
+@Component
+public class ModelRouter {
+
+    public enum Route { CHEAP, FULL }
+
+    private static final Logger log = LoggerFactory.getLogger(ModelRouter.class);
+    private static final ThreadLocal<Route> routeHolder = new ThreadLocal<>();
+
+    /** Phrases in a sub-agent answer that mean the cheap model did not get the job done. */
+    private static final List<String> LOW_QUALITY_MARKERS = List.of(
+            "\"error\"", "error:", "unable to", "could not", "couldn't", "i don't have access",
+            "i do not have access", "not available", "failed to"
+    );
+    private static final int MIN_USEFUL_LENGTH = 20;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public ModelRouter(MeterRegistry meterRegistry,
+                       @Value("${llm.routing.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    public static Route currentRoute() {
+        Route route = routeHolder.get();
+        return route != null ? route : Route.FULL;
+    }
+
+    public Route chooseRoute(String complexity) {
+        return enabled && "SIMPLE".equalsIgnoreCase(complexity) ? Route.CHEAP : Route.FULL;
+    }
+
+    /**
+     * Run a plan step on {@code route}, escalating a failed or low-quality cheap run to the full model.
+     */
+    public String run(String agent, Route route, Supplier<String> step) {
+        if (route == Route.FULL) {
+            return timed(agent, "FULL", Route.FULL, step);
+        }
+
+        String result;
+        try {
+            result = timed(agent, "CHEAP", Route.CHEAP, step);
+        } catch (LlmCapacityExceededException e) {
+            // Out of capacity is not a quality problem; a second call would only add load.
+            throw e;
+        } catch (RuntimeException e) {
+            return escalate(agent, "exception: " + e.getMessage(), step);
+        }
+        if (isLowQuality(result)) {
+            return escalate(agent, "low-quality output", step);
+        }
+        return result;
+    }
+
+    static boolean isLowQuality(String result) {
+        if (result == null || result.trim().length() < MIN_USEFUL_LENGTH) {
+            return true;
+        }
+        String lower = result.toLowerCase();
+        for (String marker : LOW_QUALITY_MARKERS) {
+            if (lower.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String escalate(String agent, String reason, Supplier<String> step) {
+        log.info("⬆️ [ROUTER] Escalating {} step to full model ({})", agent, reason);
+        meterRegistry.counter("llm.route.escalations", "agent", agent).increment();
+        return timed(agent, "ESCALATED", Route.FULL, step);
+    }
+
+    private String timed(String agent, String routeTag, Route route, Supplier<String> step) {
+        Route previous = routeHolder.get();
+        routeHolder.set(route);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return step.get();
+        } finally {
+            sample.stop(Timer.builder("llm.route.latency")
+                    .tag("agent", agent)
+                    .tag("route", routeTag)
+                    .register(meterRegistry));
+            if (previous == null) {
+                routeHolder.remove();
+            } else {
+                routeHolder.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.agent.financialadvisor.service.llm;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * Sends each call to the full or the cheap model according to {@link ModelRouter#currentRoute()}.
+ */
+public class RoutingChatLanguageModel implements ChatLanguageModel {
+
+    private final ChatLanguageModel full;
+    private final ChatLanguageModel cheap;
+
+    public RoutingChatLanguageModel(ChatLanguageModel full, ChatLanguageModel cheap) {
+        this.full = full;
+        this.cheap = cheap;
+    }
+
+    private ChatLanguageModel current() {
+        return ModelRouter.currentRoute() == ModelRouter.Route.CHEAP ? cheap : full;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        return current().generate(messages);
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        return current().generate(messages, toolSpecifications);
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+        return current().generate(messages, toolSpecification);
+    }
+}
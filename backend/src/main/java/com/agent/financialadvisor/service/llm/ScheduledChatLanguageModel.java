@@ -0,0 +1,59 @@
+package com.agent.financialadvisor.service.llm;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * ChatLanguageModel decorator that routes every call through {@link LlmCallScheduler}.
+ * AiServices only ever calls the list-based generate() overloads, so those are the ones gated.
+ */
+class ScheduledChatLanguageModel implements ChatLanguageModel {
+
+    private final LlmCallScheduler scheduler;
+    private final String tier;
+    private final ChatLanguageModel delegate;
+
+    ScheduledChatLanguageModel(LlmCallScheduler scheduler, String tier, ChatLanguageModel delegate) {
+        this.scheduler = scheduler;
+        this.tier = tier;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        return scheduler.execute(tier, estimatePromptTokens(messages, null), () -> delegate.generate(messages));
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        return scheduler.execute(tier, estimatePromptTokens(messages, toolSpecifications),
+                () -> delegate.generate(messages, toolSpecifications));
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+        return scheduler.execute(tier, estimatePromptTokens(messages, List.of(toolSpecification)),
+                () -> delegate.generate(messages, toolSpecification));
+    }
+
+    /** ~4 characters per token; only used for admission, the real usage settles the budget. */
+    static int estimatePromptTokens(List<ChatMessage> messages, List<ToolSpecification> tools) {
+        long chars = 0;
+        if (messages != null) {
+            for (ChatMessage message : messages) {
+                chars += String.valueOf(message).length();
+            }
+        }
+        if (tools != null) {
+            for (ToolSpecification tool : tools) {
+                chars += String.valueOf(tool).length();
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, chars / 4);
+    }
+}
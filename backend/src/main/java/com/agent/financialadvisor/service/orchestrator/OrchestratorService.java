@@ -1,9 +1,17 @@
 package com.agent.financialadvisor.service.orchestrator;
 
+import com.agent.financialadvisor.config.AgentExecutorConfig;
+import com.agent.financialadvisor.exception.LlmCapacityExceededException;
+import com.agent.financialadvisor.service.GroundingIndex;
 import com.agent.financialadvisor.service.GroundingService;
+import com.agent.financialadvisor.service.ToolResultEncoder;
 import com.agent.financialadvisor.service.UserContextService;
 import com.agent.financialadvisor.service.WebSocketService;
 import com.agent.financialadvisor.service.agents.*;
+import com.agent.financialadvisor.service.llm.LlmCallScheduler;
+import com.agent.financialadvisor.service.llm.LlmPriority;
+import com.agent.financialadvisor.service.llm.LlmTokenUsage;
+import com.agent.financialadvisor.service.llm.ModelRouter;
 import com.agent.financialadvisor.aspect.ToolCallAspect;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,12 +26,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Orchestrator Service - Coordinates the Plan-Execute-Evaluate agentic loop.
@@ -61,8 +71,10 @@ public class OrchestratorService {
     private final UserContextService userContextService;
     private final GroundingService groundingService;
     private final ObjectMapper objectMapper;
+    private final ModelRouter modelRouter;
     private final int orchestratorTimeoutSeconds;
     private final int toolCallTimeoutSeconds;
+    private final boolean optimisticSecurity;
     private final ExecutorService agentExecutor;
 
     private final Map<String, String> sessionUserIdCache = new ConcurrentHashMap<>();
@@ -82,8 +94,11 @@ public class OrchestratorService {
             UserContextService userContextService,
             GroundingService groundingService,
             ObjectMapper objectMapper,
+            ModelRouter modelRouter,
             @Value("${agent.timeout.orchestrator-seconds:90}") int orchestratorTimeoutSeconds,
-            @Value("${agent.timeout.tool-call-seconds:10}") int toolCallTimeoutSeconds
+            @Value("${agent.timeout.tool-call-seconds:10}") int toolCallTimeoutSeconds,
+            @Value("${agent.security.optimistic:true}") boolean optimisticSecurity,
+            AgentExecutorConfig agentExecutorConfig
     ) {
         this.plannerAgent = plannerAgent;
         this.evaluatorAgent = evaluatorAgent;
@@ -96,11 +111,11 @@ public class OrchestratorService {
         this.userContextService = userContextService;
         this.groundingService = groundingService;
         this.objectMapper = objectMapper;
+        this.modelRouter = modelRouter;
         this.orchestratorTimeoutSeconds = orchestratorTimeoutSeconds;
         this.toolCallTimeoutSeconds = toolCallTimeoutSeconds;
-        this.agentExecutor = Executors.newFixedThreadPool(
-                Math.max(4, Runtime.getRuntime().availableProcessors())
-        );
+        this.optimisticSecurity = optimisticSecurity;
+        this.agentExecutor = Executors.newFixedThreadPool(agentExecutorConfig.resolveThreads());
 
         log.info("✅ Orchestrator initialized with Plan-Execute-Evaluate architecture: " +
                 "PlannerAgent, EvaluatorAgent, UserProfile, MarketAnalysis, WebSearch, Fintwit, Security");
@@ -116,20 +131,20 @@ public class OrchestratorService {
         sendAgentActivity(sessionId, "query_start", "Processing: " + truncate(userQuery, 100), Map.of("query", userQuery));
 
         try {
-            // Step 1: Security validation
-            SecurityAgent.SecurityValidationResult validation = securityAgent.validateInput(userQuery);
-            if (!validation.isSafe()) {
-                log.warn("🚫 Unsafe input detected: {}", validation.getReason());
-                sendAgentActivity(sessionId, "security", "Input rejected: " + validation.getReason(), Map.of("safe", false));
-                String errorMsg = "I apologize, but I cannot process that request. " +
-                        "Please rephrase your question to focus on financial advisory services. " +
-                        "I can help you with stock analysis, portfolio management, and investment strategies.";
-                webSocketService.sendError(sessionId, errorMsg);
-                return errorMsg;
+            // Step 1: Security validation. In optimistic mode it runs alongside planning instead of
+            // in front of it — nearly every query is safe, so this takes a full LLM round trip off the
+            // critical path. Plan steps (which may call tools that write) still wait for the verdict,
+            // and an unsafe verdict interrupts the planner and discards whatever it produced.
+            SecurityAgent.SecurityValidationResult validation = null;
+            if (!optimisticSecurity) {
+                validation = securityAgent.validateInput(userQuery);
+                if (!validation.isSafe()) {
+                    return rejectUnsafeInput(sessionId, validation);
+                }
             }
 
             // Step 2: Plan-Execute-Evaluate loop (with overall timeout)
-            return executePlanLoop(userId, userQuery, sessionId);
+            return executePlanLoop(userId, userQuery, sessionId, validation);
         } catch (Exception e) {
             log.error("Error in orchestration: {}", e.getMessage(), e);
             String errorMsg = "I apologize, but I encountered an error while processing your request. Please try again.";
@@ -138,21 +153,78 @@ public class OrchestratorService {
         }
     }
 
-    private String executePlanLoop(String userId, String userQuery, String sessionId) {
+    private String rejectUnsafeInput(String sessionId, SecurityAgent.SecurityValidationResult validation) {
+        log.warn("🚫 Unsafe input detected: {}", validation.getReason());
+        sendAgentActivity(sessionId, "security", "Input rejected: " + validation.getReason(), Map.of("safe", false));
+        String errorMsg = "I apologize, but I cannot process that request. " +
+                "Please rephrase your question to focus on financial advisory services. " +
+                "I can help you with stock analysis, portfolio management, and investment strategies.";
+        webSocketService.sendError(sessionId, errorMsg);
+        return errorMsg;
+    }
+
+    /**
+     * @param validation the security verdict if already known; null = optimistic mode, validate on
+     *                   this thread while the loop plans
+     */
+    private String executePlanLoop(String userId, String userQuery, String sessionId,
+                                   SecurityAgent.SecurityValidationResult validation) {
+        CompletableFuture<SecurityAgent.SecurityValidationResult> securityCheck = validation != null
+                ? CompletableFuture.completedFuture(validation)
+                : new CompletableFuture<>();
+
+        // The loop's thread, so an unsafe verdict can interrupt an in-flight planner call
+        // (CompletableFuture.cancel does not interrupt). Guarded so a pooled thread is never
+        // interrupted after it has moved on to other work.
+        AtomicReference<Thread> loopThread = new AtomicReference<>();
+        LlmTokenUsage tokenUsage = LlmTokenUsage.current();
         CompletableFuture<String> futureResponse = CompletableFuture.supplyAsync(() -> {
+            loopThread.set(Thread.currentThread());
             ToolCallAspect.setSessionId(sessionId);
             try {
-                return runPlanExecuteEvaluate(userId, userQuery, sessionId);
+                return LlmTokenUsage.within(tokenUsage,
+                        () -> runPlanExecuteEvaluate(userId, userQuery, sessionId, securityCheck));
             } finally {
                 ToolCallAspect.clearSessionId();
+                synchronized (loopThread) {
+                    loopThread.set(null);
+                    Thread.interrupted();
+                }
             }
         });
+        securityCheck.thenAccept(verdict -> {
+            if (!verdict.isSafe()) {
+                synchronized (loopThread) {
+                    Thread thread = loopThread.get();
+                    if (thread != null) {
+                        log.info("🛑 Unsafe verdict arrived during planning, cancelling plan loop for sessionId={}", sessionId);
+                        thread.interrupt();
+                    }
+                }
+                futureResponse.cancel(true);
+            }
+        });
+
+        if (!securityCheck.isDone()) {
+            // This thread would only block on the loop anyway, so the check costs no extra thread.
+            try {
+                securityCheck.complete(securityAgent.validateInput(userQuery));
+            } catch (RuntimeException e) {
+                securityCheck.completeExceptionally(e);
+            }
+        }
 
         try {
             log.info("⏳ Waiting for plan-execute-evaluate loop (timeout: {}s) for sessionId={}",
                     orchestratorTimeoutSeconds, sessionId);
             String response = futureResponse.get(orchestratorTimeoutSeconds, TimeUnit.SECONDS);
 
+            // Nothing produced before the verdict may reach the user if the input was unsafe.
+            SecurityAgent.SecurityValidationResult verdict = securityCheck.join();
+            if (!verdict.isSafe()) {
+                return rejectUnsafeInput(sessionId, verdict);
+            }
+
             if (response == null || response.trim().isEmpty()) {
                 response = "I apologize, but I didn't receive a valid response. Please try again.";
             }
@@ -172,6 +244,10 @@ public class OrchestratorService {
             webSocketService.sendError(sessionId, timeoutMsg);
             return timeoutMsg;
         } catch (Exception e) {
+            SecurityAgent.SecurityValidationResult verdict = completedVerdict(securityCheck);
+            if (verdict != null && !verdict.isSafe()) {
+                return rejectUnsafeInput(sessionId, verdict);
+            }
             log.error("❌ Error in plan-execute-evaluate loop: {}", e.getMessage(), e);
             String errorMsg = "I apologize, but I encountered an error while processing your request. Please try again.";
             webSocketService.sendError(sessionId, errorMsg);
@@ -179,12 +255,44 @@ public class OrchestratorService {
         }
     }
 
+    private static SecurityAgent.SecurityValidationResult completedVerdict(
+            CompletableFuture<SecurityAgent.SecurityValidationResult> securityCheck) {
+        if (!securityCheck.isDone() || securityCheck.isCompletedExceptionally()) {
+            return null;
+        }
+        return securityCheck.join();
+    }
+
+    /** Stops the loop (no further LLM calls) once the security check has rejected the input. */
+    private static void abortIfRejected(CompletableFuture<SecurityAgent.SecurityValidationResult> securityCheck) {
+        SecurityAgent.SecurityValidationResult verdict = completedVerdict(securityCheck);
+        if (verdict != null && !verdict.isSafe()) {
+            throw new CancellationException("Input rejected by security validation");
+        }
+    }
+
+    /**
+     * Blocks until the security check has cleared the input (bounded by the security timeout).
+     * Throws if it was rejected, so no plan step runs for an unsafe input.
+     */
+    private void awaitSecurityClearance(CompletableFuture<SecurityAgent.SecurityValidationResult> securityCheck,
+                                        String sessionId) {
+        if (!securityCheck.isDone()) {
+            log.info("⏳ [EXECUTE] Plan ready, waiting for security verdict for sessionId={}", sessionId);
+        }
+        if (!securityCheck.join().isSafe()) {
+            throw new CancellationException("Input rejected by security validation");
+        }
+    }
+
     /**
      * Core Plan-Execute-Evaluate loop with retry support.
      */
-    private String runPlanExecuteEvaluate(String userId, String userQuery, String sessionId) {
+    private String runPlanExecuteEvaluate(String userId, String userQuery, String sessionId,
+                                          CompletableFuture<SecurityAgent.SecurityValidationResult> securityCheck) {
         String lastFeedback = null;
         Map<String, String> lastResults = null;
+        GroundingIndex lastGroundingIndex = GroundingIndex.EMPTY;
 
         // Deterministic personalization: load the user's profile + holdings once per query and
         // inject it into BOTH the planner and the evaluator. Personalization must not depend on
@@ -192,6 +300,7 @@ public class OrchestratorService {
         String profileContext = userContextService.buildProfileContext(userId);
 
         for (int attempt = 0; attempt <= MAX_PLAN_RETRIES; attempt++) {
+            abortIfRejected(securityCheck);
             if (attempt > 0) {
                 log.info("🔄 Retry attempt {} for sessionId={}", attempt, sessionId);
                 webSocketService.sendReasoning(sessionId,
@@ -209,6 +318,7 @@ public class OrchestratorService {
             try {
                 planJson = plannerAgent.createPlan(plannerInput);
             } catch (Exception e) {
+                abortIfRejected(securityCheck);
                 log.error("❌ [PLAN] Planner failed on attempt {}: {}", attempt, e.getMessage(), e);
                 if (isRateLimited(e)) {
                     // Retrying immediately just burns more budget; tell the user the truth.
@@ -248,7 +358,7 @@ public class OrchestratorService {
             String plannedQueryType = plan.path("queryType").asText("");
             if (directResponse != null && !directResponse.isEmpty() && !"null".equals(directResponse)) {
                 boolean isGreeting = "GREETING".equalsIgnoreCase(plannedQueryType);
-                boolean carriesFigures = !groundingService.findUngroundedNumbers(directResponse, List.of()).isEmpty();
+                boolean carriesFigures = !groundingService.findUngroundedNumbers(directResponse, GroundingIndex.EMPTY).isEmpty();
                 if (isGreeting && !carriesFigures) {
                     log.info("📝 Direct response from planner: {}", directResponse);
                     sendAgentActivity(sessionId, "planner", "Direct response (greeting)", Map.of("response", directResponse));
@@ -269,6 +379,7 @@ public class OrchestratorService {
             }
 
             // --- EXECUTE ---
+            awaitSecurityClearance(securityCheck, sessionId);
             JsonNode stepsNode = plan.path("steps");
             if (!stepsNode.isArray() || stepsNode.isEmpty()) {
                 log.warn("⚠️ [EXECUTE] Plan has no execution steps on attempt {}", attempt);
@@ -306,6 +417,10 @@ public class OrchestratorService {
                 }
                 log.info("📥 [EXECUTE] {}: {}", entry.getKey(), preview);
             }
+            // Index the source figures once; the evaluator answer, corrective rewrite and fallback
+            // synthesis of this attempt are all checked against the same data.
+            GroundingIndex groundingIndex = groundingService.buildIndex(groundingSources(results, profileContext));
+            lastGroundingIndex = groundingIndex;
 
             // --- EVALUATE ---
             webSocketService.sendReasoning(sessionId, "🔍 Analyzing results...");
@@ -313,13 +428,14 @@ public class OrchestratorService {
             String evaluationInput = buildEvaluationInput(userQuery, planJson, results, profileContext);
             String evaluationJson;
             try {
-                evaluationJson = evaluatorAgent.evaluate(evaluationInput);
+                evaluationJson = LlmCallScheduler.withPriority(LlmPriority.FINAL_ANSWER,
+                        () -> evaluatorAgent.evaluate(evaluationInput));
             } catch (Exception e) {
                 log.error("❌ [EVALUATE] Evaluator failed: {}", e.getMessage(), e);
                 if (isRateLimited(e)) {
                     return CAPACITY_MESSAGE;
                 }
-                return synthesizeFallback(userQuery, results, profileContext, sessionId);
+                return synthesizeFallback(userQuery, results, groundingIndex, sessionId);
             }
 
             log.info("📥 [EVALUATE] Raw evaluator response (attempt {}): {}", attempt,
@@ -329,7 +445,7 @@ public class OrchestratorService {
             JsonNode evaluation = extractJson(evaluationJson);
             if (evaluation == null) {
                 log.warn("⚠️ [EVALUATE] Could not parse evaluation JSON, using fallback synthesis");
-                return synthesizeFallback(userQuery, results, profileContext, sessionId);
+                return synthesizeFallback(userQuery, results, groundingIndex, sessionId);
             }
 
             String verdict = evaluation.path("verdict").asText("PASS");
@@ -339,7 +455,7 @@ public class OrchestratorService {
                 String response = evaluation.path("response").asText("");
                 if (response.isEmpty()) {
                     log.warn("⚠️ [EVALUATE] PASS verdict but empty response, using fallback synthesis");
-                    return synthesizeFallback(userQuery, results, profileContext, sessionId);
+                    return synthesizeFallback(userQuery, results, groundingIndex, sessionId);
                 }
                 log.info("✅ [EVALUATE] PASSED - response length={}", response.length());
                 sendAgentActivity(sessionId, "evaluator", "PASS - Response synthesized", Map.of("verdict", "PASS", "response", truncate(response, 500)));
@@ -348,7 +464,7 @@ public class OrchestratorService {
                 // Verify every figure in the response exists in the tool data / profile context.
                 // One corrective rewrite is attempted; if figures remain unverifiable, the
                 // response ships with an explicit caution rather than silently trusting the LLM.
-                response = enforceGrounding(response, evaluationInput, results, profileContext, sessionId);
+                response = enforceGrounding(response, evaluationInput, groundingIndex, sessionId);
                 return response;
             }
 
@@ -361,7 +477,7 @@ public class OrchestratorService {
         log.warn("⚠️ All {} attempts exhausted for sessionId={}", MAX_PLAN_RETRIES + 1, sessionId);
         sendAgentActivity(sessionId, "evaluator", "Max retries reached - using best available response", Map.of("verdict", "FALLBACK"));
         if (lastResults != null && !lastResults.isEmpty()) {
-            return synthesizeFallback(userQuery, lastResults, profileContext, sessionId);
+            return synthesizeFallback(userQuery, lastResults, lastGroundingIndex, sessionId);
         }
         return "I apologize, but I wasn't able to fully answer your question after multiple attempts. " +
                "Please try rephrasing your question or asking something more specific.";
@@ -373,9 +489,9 @@ public class OrchestratorService {
      * ship the answer with an explicit verification caution (honest beats blocked) and log it.
      */
     private String enforceGrounding(String response, String evaluationInput,
-                                    Map<String, String> results, String profileContext, String sessionId) {
-        List<String> sources = groundingSources(results, profileContext);
-        List<String> ungrounded = groundingService.findUngroundedNumbers(response, sources);
+                                    GroundingIndex groundingIndex, String sessionId) {
+        List<GroundingService.UngroundedFigure> figures = groundingService.findUngroundedFigures(response, groundingIndex);
+        List<String> ungrounded = GroundingService.distinctTokens(figures);
         if (ungrounded.isEmpty()) {
             sendAgentActivity(sessionId, "grounding", "✅ Verified: all figures grounded in tool data",
                     Map.of("status", "verified"));
@@ -391,11 +507,12 @@ public class OrchestratorService {
                     "present in the execution results: " + ungrounded + ". Rewrite the response using ONLY figures " +
                     "that appear verbatim in the EXECUTION RESULTS or USER PROFILE CONTEXT. If a figure cannot be " +
                     "supported by the data, omit it or state that the information is unavailable.";
-            String correctedJson = evaluatorAgent.evaluate(correctiveInput);
+            String correctedJson = LlmCallScheduler.withPriority(LlmPriority.FINAL_ANSWER,
+                    () -> evaluatorAgent.evaluate(correctiveInput));
             JsonNode corrected = extractJson(correctedJson);
             String correctedResponse = corrected != null ? corrected.path("response").asText("") : "";
             if (!correctedResponse.isEmpty()
-                    && groundingService.findUngroundedNumbers(correctedResponse, sources).isEmpty()) {
+                    && groundingService.findUngroundedNumbers(correctedResponse, groundingIndex).isEmpty()) {
                 log.info("✅ [GROUNDING] Corrective rewrite is fully grounded");
                 sendAgentActivity(sessionId, "grounding", "✅ Verified after correction: all figures grounded",
                         Map.of("status", "verified-after-correction"));
@@ -407,11 +524,20 @@ public class OrchestratorService {
 
         log.warn("⚠️ [GROUNDING] Shipping response with verification caution; ungrounded figures: {}", ungrounded);
         sendAgentActivity(sessionId, "grounding", "⚠️ Some figures could not be auto-verified against tool data",
-                Map.of("status", "unverified", "ungrounded", ungrounded.toString()));
+                Map.of("status", "unverified", "ungrounded", ungrounded.toString(), "spans", spans(figures)));
         return response + "\n\n*Note: some figures in this answer could not be automatically verified against " +
                 "the underlying market data. Please double-check before acting on them.*";
     }
 
+    /** [start, end) offsets of each ungrounded figure in the shipped response, for UI highlighting. */
+    private static List<Map<String, Object>> spans(List<GroundingService.UngroundedFigure> figures) {
+        List<Map<String, Object>> spans = new ArrayList<>(figures.size());
+        for (GroundingService.UngroundedFigure figure : figures) {
+            spans.add(Map.of("token", figure.token(), "start", figure.start(), "end", figure.end()));
+        }
+        return spans;
+    }
+
     private boolean stepsNodeHasSteps(JsonNode plan) {
         JsonNode steps = plan.path("steps");
         return steps.isArray() && !steps.isEmpty();
@@ -421,6 +547,9 @@ public class OrchestratorService {
     private boolean isRateLimited(Throwable e) {
         Throwable t = e;
         while (t != null) {
+            if (t instanceof LlmCapacityExceededException) {
+                return true;
+            }
             String msg = t.getMessage();
             if (msg != null && (msg.contains("rate_limit_exceeded") || msg.contains("Rate limit")
                     || msg.contains("429") || msg.contains("Too Many Requests"))) {
@@ -445,7 +574,7 @@ public class OrchestratorService {
      * itself fails do we fall back to the legacy formatted dump of step results.
      */
     private String synthesizeFallback(String userQuery, Map<String, String> results,
-                                      String profileContext, String sessionId) {
+                                      GroundingIndex groundingIndex, String sessionId) {
         if (results == null || results.isEmpty()) {
             return "I apologize, but I wasn't able to retrieve the requested information. Please try again.";
         }
@@ -454,10 +583,10 @@ public class OrchestratorService {
             for (Map.Entry<String, String> entry : results.entrySet()) {
                 toolData.append(entry.getKey()).append(":\n").append(entry.getValue()).append("\n\n");
             }
-            String summary = evaluatorAgent.summarizeFallback(userQuery, toolData.toString());
+            String summary = LlmCallScheduler.withPriority(LlmPriority.FINAL_ANSWER,
+                    () -> evaluatorAgent.summarizeFallback(userQuery, toolData.toString()));
             if (summary != null && !summary.isBlank()) {
-                List<String> ungrounded = groundingService.findUngroundedNumbers(
-                        summary, groundingSources(results, profileContext));
+                List<String> ungrounded = groundingService.findUngroundedNumbers(summary, groundingIndex);
                 if (!ungrounded.isEmpty()) {
                     log.warn("⚠️ [GROUNDING] Fallback synthesis has ungrounded figures: {}", ungrounded);
                     summary += "\n\n*Note: some figures in this answer could not be automatically verified against " +
@@ -519,11 +648,14 @@ public class OrchestratorService {
 
         int stepCount = Math.min(stepsNode.size(), MAX_PLAN_STEPS);
         long stepTimeoutSeconds = Math.max(15, toolCallTimeoutSeconds * 3L);
+        // Sub-agent calls run on the agent executor; their tokens still count against this request
+        LlmTokenUsage tokenUsage = LlmTokenUsage.current();
 
         for (int i = 0; i < stepCount; i++) {
             JsonNode step = stepsNode.get(i);
             String agentName = step.path("agent").asText("");
             String task = step.path("task").asText("");
+            String complexity = step.path("complexity").asText("");
 
             if (agentName.isEmpty() || task.isEmpty()) {
                 results.put("Step " + (i + 1), "{\"error\":\"Invalid plan step: missing agent or task\"}");
@@ -541,7 +673,8 @@ public class OrchestratorService {
                 ToolCallAspect.setSessionId(sessionId);
                 try {
                     String key = "Step " + (stepIndex + 1) + " [" + agentNameFinal + "] - " + taskFinal;
-                    String result = executeAgentTask(agentNameFinal, taskFinal, userId, sessionId);
+                    String result = LlmTokenUsage.within(tokenUsage,
+                            () -> executeAgentTask(agentNameFinal, taskFinal, complexity, userId, sessionId));
                     return Map.entry(key, result);
                 } finally {
                     ToolCallAspect.clearSessionId();
@@ -582,14 +715,27 @@ public class OrchestratorService {
      * Execute a single agent task by routing to the appropriate sub-agent.
      * Agent name matching is flexible to handle LLM naming variations
      * (e.g., "MARKET_ANALYSIS", "MarketAnalysis", "Market Analysis" all work).
+     * Steps the planner marks SIMPLE start on the cheap model and escalate on errors (see ModelRouter).
      */
-    private String executeAgentTask(String agentName, String task, String userId, String sessionId) {
+    private String executeAgentTask(String agentName, String task, String complexity,
+                                    String userId, String sessionId) {
         String enrichedTask = enrichSubAgentQuery(task, userId);
         String normalized = agentName.toUpperCase().replaceAll("[\\s_\\-]+", "");
         log.info("🔄 [ORCHESTRATOR] Executing: agent={} (normalized={}), task={}", agentName, normalized, task);
 
+        // Web search and fintwit are optional enrichment: under LLM load they queue behind the
+        // evaluator and the core data agents.
+        LlmPriority priority = switch (normalized) {
+            case "WEBSEARCH", "WEB", "SEARCH", "FINTWIT", "FINTWITANALYSIS", "TWITTER", "SENTIMENT" ->
+                    LlmPriority.ENRICHMENT;
+            default -> LlmPriority.STANDARD;
+        };
+
         try {
-            String result = switch (normalized) {
+            ModelRouter.Route route = modelRouter.chooseRoute(complexity);
+            // Each (re)run is a fresh conversation with no memory, so tool legends are attached again
+            String result = modelRouter.run(normalized, route, () -> ToolResultEncoder.withinConversation(
+                    () -> LlmCallScheduler.withPriority(priority, () -> switch (normalized) {
                 case "MARKETANALYSIS", "MARKET" -> marketAnalysisAgent.processQuery(sessionId, enrichedTask);
                 case "USERPROFILE", "USER", "PROFILE" -> userProfileAgent.processQuery(sessionId, enrichedTask);
                 case "WEBSEARCH", "WEB", "SEARCH" -> webSearchAgent.processQuery(sessionId, enrichedTask);
@@ -600,7 +746,7 @@ public class OrchestratorService {
                             agentName, normalized);
                     yield "{\"error\":\"Unknown agent: " + agentName + ". Available: MARKET_ANALYSIS, USER_PROFILE, WEB_SEARCH, FINTWIT\"}";
                 }
-            };
+            })));
             if (result == null || result.trim().isEmpty()) {
                 log.warn("⚠️ Agent {} returned null/empty result for task: {}", agentName, task);
                 return "{\"error\":\"Agent " + agentName + " returned no data\"}";
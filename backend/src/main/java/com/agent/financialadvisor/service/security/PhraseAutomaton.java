@@ -0,0 +1,215 @@
+package com.agent.financialadvisor.service.security;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a fixed set of lowercase phrases: one left-to-right pass over the text
+ * finds every occurrence of every phrase, however many phrases there are (the regex list it replaces
+ * rescanned the input once per pattern).
+ *
+ * Phrases are matched against normalized text (see {@link #normalize}): lowercased, whitespace runs
+ * collapsed to one space, invisible format characters (zero-width spaces etc.) dropped — so
+ * "IG\u200BNORE   previous instructions" still hits "ignore previous instructions".
+ *
+ * A phrase edge that is a letter or digit must sit on a word boundary ("rm -rf" does not fire inside
+ * "form -rfc"); with {@code prefixMatch} the end boundary is not required ("instruct" hits
+ * "instructions").
+ */
+public final class PhraseAutomaton {
+
+    /** Receives each match; return false to stop scanning. */
+    @FunctionalInterface
+    public interface MatchHandler {
+        boolean onMatch(int phraseId, int start, int end);
+    }
+
+    // Goto function as per-node sorted edge arrays (binary-searched), plus failure links and the
+    // phrase ids that end at each node (own + inherited through failure links).
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    private final int[][] outputs;
+    private final int[] phraseLengths;
+    private final boolean[] prefixMatch;
+
+    /**
+     * @param phrases     phrases to find (normalized with {@link #normalize} before insertion)
+     * @param prefixMatch per phrase: skip the end word-boundary check
+     */
+    public PhraseAutomaton(List<String> phrases, boolean[] prefixMatch) {
+        if (prefixMatch.length != phrases.size()) {
+            throw new IllegalArgumentException("prefixMatch must have one entry per phrase");
+        }
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        this.phraseLengths = new int[phrases.size()];
+        this.prefixMatch = prefixMatch.clone();
+        for (int id = 0; id < phrases.size(); id++) {
+            char[] phrase = normalize(phrases.get(id)).chars;
+            phraseLengths[id] = phrase.length;
+            if (phrase.length == 0) {
+                continue;
+            }
+            int node = 0;
+            for (char c : phrase) {
+                Integer next = trie.get(node).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    trie.get(node).put(c, next);
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(id);
+        }
+
+        int nodes = trie.size();
+        this.edgeChars = new char[nodes][];
+        this.edgeTargets = new int[nodes][];
+        for (int n = 0; n < nodes; n++) {
+            TreeMap<Character, Integer> edges = trie.get(n);
+            edgeChars[n] = new char[edges.size()];
+            edgeTargets[n] = new int[edges.size()];
+            int e = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[n][e] = edge.getKey();
+                edgeTargets[n][e] = edge.getValue();
+                e++;
+            }
+        }
+
+        // Breadth-first failure links; outputs are merged along them so a node lists every phrase
+        // that ends at it, including shorter suffix phrases.
+        this.failure = new int[nodes];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            failure[target] = 0;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int e = 0; e < edgeChars[node].length; e++) {
+                char c = edgeChars[node][e];
+                int child = edgeTargets[node][e];
+                int f = failure[node];
+                while (f != 0 && next(f, c) < 0) {
+                    f = failure[f];
+                }
+                int fallback = next(f, c);
+                failure[child] = fallback >= 0 && fallback != child ? fallback : 0;
+                nodeOutputs.get(child).addAll(nodeOutputs.get(failure[child]));
+                queue.add(child);
+            }
+        }
+        this.outputs = new int[nodes][];
+        for (int n = 0; n < nodes; n++) {
+            outputs[n] = nodeOutputs.get(n).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Scans {@code text} (already normalized) and reports each word-boundary-respecting match.
+     * Offsets are into the normalized text.
+     */
+    public void scan(Normalized text, MatchHandler handler) {
+        char[] chars = text.chars;
+        int node = 0;
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            int next;
+            while ((next = next(node, c)) < 0 && node != 0) {
+                node = failure[node];
+            }
+            node = Math.max(next, 0);
+            for (int id : outputs[node]) {
+                int end = i + 1;
+                int start = end - phraseLengths[id];
+                if (onBoundaries(chars, start, end, prefixMatch[id]) && !handler.onMatch(id, start, end)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int next(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    private static boolean onBoundaries(char[] text, int start, int end, boolean prefixMatch) {
+        if (Character.isLetterOrDigit(text[start]) && start > 0 && Character.isLetterOrDigit(text[start - 1])) {
+            return false;
+        }
+        return prefixMatch || !Character.isLetterOrDigit(text[end - 1])
+                || end == text.length || !Character.isLetterOrDigit(text[end]);
+    }
+
+    /**
+     * Lowercases, collapses whitespace runs (including non-breaking spaces) to a single space and
+     * drops invisible format characters. Also notes whether anything outside plain prose punctuation
+     * appeared, which the allow-list fast path refuses to wave through.
+     */
+    public static Normalized normalize(String input) {
+        char[] out = new char[input.length()];
+        int size = 0;
+        boolean plain = true;
+        boolean lastWasSpace = true; // also trims leading whitespace
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.getType(c) == Character.FORMAT) {
+                continue;
+            }
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                if (!lastWasSpace) {
+                    out[size++] = ' ';
+                    lastWasSpace = true;
+                }
+                continue;
+            }
+            char lower = Character.toLowerCase(c);
+            plain &= Character.isLetterOrDigit(lower) || PLAIN_PUNCTUATION.indexOf(lower) >= 0;
+            out[size++] = lower;
+            lastWasSpace = false;
+        }
+        if (size > 0 && out[size - 1] == ' ') {
+            size--;
+        }
+        return new Normalized(Arrays.copyOf(out, size), plain);
+    }
+
+    private static final String PLAIN_PUNCTUATION = ".,?!'\u2019$%&()-/:+";
+
+    /** Normalized input text plus whether it only used letters, digits and plain punctuation. */
+    public static final class Normalized {
+        private final char[] chars;
+        private final boolean plainCharacters;
+
+        private Normalized(char[] chars, boolean plainCharacters) {
+            this.chars = chars;
+            this.plainCharacters = plainCharacters;
+        }
+
+        public int length() {
+            return chars.length;
+        }
+
+        public boolean hasOnlyPlainCharacters() {
+            return plainCharacters;
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.agent.financialadvisor.service.security;
+
+import com.agent.financialadvisor.config.SecurityPrefilterConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic first layer of input validation, run before the SecurityAgent LLM check.
+ *
+ * All block, allow and review phrases are compiled into one {@link PhraseAutomaton}, so an input is
+ * classified in a single pass regardless of rule count:
+ * - BLOCK: a block phrase (injection, shell/SQL, script, encoded payload) matched — reject, no LLM.
+ * - ALLOW: short plain-text input that is exactly a benign financial question — an allow phrase
+ *   ("price of"), a subject (a ticker as typed, "my portfolio", a known company) and otherwise only
+ *   filler words ("what is the ... today"), with no review word. Any other word left over ("hi, price
+ *   of AAPL and write me a keylogger") sends the input to the LLM.
+ * - UNDECIDED: everything else goes to the LLM as before.
+ *
+ * The share of inputs settled here (LLM calls avoided) is exported as
+ * {@code security.prefilter.llm.avoided.ratio}, next to per-outcome counters.
+ */
+@Component
+public class SecurityPrefilter {
+
+    public enum Verdict { BLOCK, ALLOW, UNDECIDED }
+
+    public record Decision(Verdict verdict, String matchedRule) {}
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityPrefilter.class);
+
+    private static final int BLOCK = 0;
+    private static final int ALLOW = 1;
+    private static final int REVIEW = 2;
+    private static final int SUBJECT = 3;
+
+    private final PhraseAutomaton automaton;
+    private final List<String> phrases = new ArrayList<>();
+    private final int[] kinds;
+    private final Set<String> fillerWords = new HashSet<>();
+    private final boolean allowFastPath;
+    private final int allowMaxLength;
+
+    private final AtomicLong decided = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final Counter blockedCounter;
+    private final Counter allowedCounter;
+    private final Counter llmCounter;
+
+    public SecurityPrefilter(SecurityPrefilterConfig config, MeterRegistry meterRegistry) {
+        List<Integer> kindList = new ArrayList<>();
+        addAll(config.getBlockPhrases(), BLOCK, kindList);
+        addAll(config.getAllowPhrases(), ALLOW, kindList);
+        addAll(config.getReviewPhrases(), REVIEW, kindList);
+        addAll(config.getAllowSubjects(), SUBJECT, kindList);
+        this.kinds = kindList.stream().mapToInt(Integer::intValue).toArray();
+
+        boolean[] prefixMatch = new boolean[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            prefixMatch[i] = kinds[i] == REVIEW;
+        }
+        this.automaton = new PhraseAutomaton(phrases, prefixMatch);
+        this.allowFastPath = config.isAllowFastPath();
+        this.allowMaxLength = config.getAllowMaxLength();
+        if (config.getAllowFillerWords() != null) {
+            config.getAllowFillerWords().forEach(word -> fillerWords.add(word.toLowerCase(Locale.ROOT)));
+        }
+
+        this.blockedCounter = Counter.builder("security.prefilter.decisions").tag("outcome", "blocked")
+                .description("Inputs rejected by the deterministic prefilter").register(meterRegistry);
+        this.allowedCounter = Counter.builder("security.prefilter.decisions").tag("outcome", "allowed")
+                .description("Inputs accepted by the allow-list fast path").register(meterRegistry);
+        this.llmCounter = Counter.builder("security.prefilter.decisions").tag("outcome", "llm")
+                .description("Inputs passed on to the LLM security check").register(meterRegistry);
+        Gauge.builder("security.prefilter.llm.avoided.ratio", this, SecurityPrefilter::llmAvoidedRatio)
+                .description("Share of security checks settled without an LLM call")
+                .register(meterRegistry);
+
+        log.info("✅ SecurityPrefilter compiled {} block / {} allow / {} review phrases (allow fast path {})",
+                config.getBlockPhrases().size(), config.getAllowPhrases().size(),
+                config.getReviewPhrases().size(), allowFastPath ? "on" : "off");
+    }
+
+    private void addAll(List<String> source, int kind, List<Integer> kindList) {
+        if (source == null) {
+            return;
+        }
+        for (String phrase : source) {
+            if (phrase != null && !phrase.isBlank()) {
+                phrases.add(phrase);
+                kindList.add(kind);
+            }
+        }
+    }
+
+    public Decision classify(String input) {
+        Decision decision = evaluate(input);
+        total.incrementAndGet();
+        switch (decision.verdict()) {
+            case BLOCK -> {
+                decided.incrementAndGet();
+                blockedCounter.increment();
+                log.warn("🚨 [SECURITY] Prefilter blocked input (rule '{}')", decision.matchedRule());
+            }
+            case ALLOW -> {
+                decided.incrementAndGet();
+                allowedCounter.increment();
+                log.debug("🔒 [SECURITY] Prefilter allow-listed input (rule '{}'), skipping LLM check",
+                        decision.matchedRule());
+            }
+            default -> llmCounter.increment();
+        }
+        return decision;
+    }
+
+    /** Share of classified inputs that needed no LLM call (0 before the first input). */
+    public double llmAvoidedRatio() {
+        long count = total.get();
+        return count == 0 ? 0.0 : (double) decided.get() / count;
+    }
+
+    private Decision evaluate(String input) {
+        if (input == null || input.isBlank()) {
+            return new Decision(Verdict.UNDECIDED, null);
+        }
+        PhraseAutomaton.Normalized text = PhraseAutomaton.normalize(input);
+        int[] firstAllow = {-1};
+        int[] firstBlock = {-1};
+        boolean[] review = {false};
+        boolean[] subject = {false};
+        // Characters taken by allow phrases and subjects; the rest must be filler or a ticker
+        boolean[] covered = new boolean[text.length()];
+        automaton.scan(text, (id, start, end) -> {
+            switch (kinds[id]) {
+                case BLOCK -> firstBlock[0] = id;
+                case ALLOW -> {
+                    if (firstAllow[0] < 0) {
+                        firstAllow[0] = id;
+                    }
+                    Arrays.fill(covered, start, end, true);
+                }
+                case SUBJECT -> {
+                    subject[0] = true;
+                    Arrays.fill(covered, start, end, true);
+                }
+                default -> review[0] = true;
+            }
+            return firstBlock[0] < 0; // a block match settles it
+        });
+
+        if (firstBlock[0] >= 0) {
+            return new Decision(Verdict.BLOCK, phrases.get(firstBlock[0]));
+        }
+        if (allowFastPath && firstAllow[0] >= 0 && !review[0]
+                && text.length() <= allowMaxLength && text.hasOnlyPlainCharacters()
+                && fitsAllowTemplate(input, text.toString(), covered, subject[0])) {
+            return new Decision(Verdict.ALLOW, phrases.get(firstAllow[0]));
+        }
+        return new Decision(Verdict.UNDECIDED, null);
+    }
+
+    /**
+     * True if every word outside the allow-phrase and subject spans is a filler word, a number or a
+     * ticker, and the input names a subject at all.
+     */
+    private boolean fitsAllowTemplate(String input, String text, boolean[] covered, boolean hasSubject) {
+        Set<String> tickers = tickers(input);
+        boolean subject = hasSubject;
+        int i = 0;
+        while (i < text.length()) {
+            if (covered[i] || !isWordChar(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && !covered[i] && isWordChar(text.charAt(i))) {
+                i++;
+            }
+            String word = trimWord(text.substring(start, i));
+            if (word.isEmpty() || fillerWords.contains(word) || isNumber(word)) {
+                continue;
+            }
+            if (!tickers.contains(word)) {
+                return false;
+            }
+            subject = true;
+        }
+        return subject;
+    }
+
+    /**
+     * Ticker symbols as the user typed them: "$" followed by up to five letters in any case, or one to
+     * five upper-case letters with an optional class suffix ("BRK.B"). Returned lower-cased and
+     * without the "$", to compare with words of the normalized text. "I" and "A" are words, not tickers.
+     */
+    private static Set<String> tickers(String input) {
+        Set<String> tickers = new HashSet<>();
+        int i = 0;
+        while (i < input.length()) {
+            if (!isWordChar(input.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < input.length() && isWordChar(input.charAt(i))) {
+                i++;
+            }
+            String token = input.substring(start, i);
+            while (token.endsWith(".")) {
+                token = token.substring(0, token.length() - 1);
+            }
+            boolean dollar = token.startsWith("$");
+            String symbol = dollar ? token.substring(1).toUpperCase(Locale.ROOT) : token;
+            if (isSymbol(symbol) && (dollar || !(symbol.equals("I") || symbol.equals("A")))) {
+                tickers.add(symbol.toLowerCase(Locale.ROOT));
+            }
+        }
+        return tickers;
+    }
+
+    private static boolean isSymbol(String token) {
+        int dot = token.indexOf('.');
+        String root = dot < 0 ? token : token.substring(0, dot);
+        String suffix = dot < 0 ? "" : token.substring(dot + 1);
+        return root.length() >= 1 && root.length() <= 5 && isUpperAscii(root)
+                && suffix.length() <= 2 && isUpperAscii(suffix) && (dot < 0 || !suffix.isEmpty());
+    }
+
+    private static boolean isUpperAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < 'A' || s.charAt(i) > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '$' || c == '.' || c == '\'' || c == '\u2019';
+    }
+
+    /** Drops sentence dots, a leading "$" and a possessive "'s" ("what's" is the filler "what"). */
+    private static String trimWord(String word) {
+        int start = 0;
+        int end = word.length();
+        while (start < end && (word.charAt(start) == '.' || word.charAt(start) == '$')) {
+            start++;
+        }
+        while (end > start && word.charAt(end - 1) == '.') {
+            end--;
+        }
+        String trimmed = word.substring(start, end);
+        if (trimmed.endsWith("'s") || trimmed.endsWith("\u2019s")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 2);
+        }
+        return trimmed;
+    }
+
+    private static boolean isNumber(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i)) && word.charAt(i) != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
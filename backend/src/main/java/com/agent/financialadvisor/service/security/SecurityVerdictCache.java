@@ -0,0 +1,121 @@
+package com.agent.financialadvisor.service.security;
+
+import com.agent.financialadvisor.util.BoundedExpiringMap;
+import com.agent.financialadvisor.util.Hashes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of LLM security verdicts, consulted by SecurityAgent.validateInput after the
+ * deterministic prefilter and before the LLM call. Greetings, common questions and retries after a
+ * timeout are otherwise classified by the LLM again every time.
+ *
+ * Keys are SHA-256 hashes of the input with case, whitespace runs and digit runs folded ("What is
+ * AAPL at 2pm?" and "what is  aapl at 15pm?" share a verdict), so raw user text is never held. Safe
+ * and unsafe verdicts have separate TTLs: an unsafe verdict is kept longer so a repeated attack is
+ * rejected without another LLM round trip.
+ *
+ * Only real LLM verdicts are cached — fail-open defaults after a timeout or error are not.
+ */
+@Component
+public class SecurityVerdictCache {
+
+    public record Verdict(boolean safe, String reason) {}
+
+    private record Entry(Verdict verdict, long expiresAtMillis) {}
+
+    private final BoundedExpiringMap<String, Entry> entries;
+    private final long safeTtlMillis;
+    private final long unsafeTtlMillis;
+    private final LongSupplier clock;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public SecurityVerdictCache(
+            @Value("${security.verdict-cache.safe-ttl-seconds:600}") long safeTtlSeconds,
+            @Value("${security.verdict-cache.unsafe-ttl-seconds:3600}") long unsafeTtlSeconds,
+            @Value("${security.verdict-cache.max-entries:10000}") int maxEntries,
+            MeterRegistry meterRegistry) {
+        this(safeTtlSeconds, unsafeTtlSeconds, maxEntries, meterRegistry, System::currentTimeMillis);
+    }
+
+    SecurityVerdictCache(long safeTtlSeconds, long unsafeTtlSeconds, int maxEntries,
+                         MeterRegistry meterRegistry, LongSupplier clock) {
+        this.safeTtlMillis = Math.max(0, safeTtlSeconds) * 1000L;
+        this.unsafeTtlMillis = Math.max(0, unsafeTtlSeconds) * 1000L;
+        this.clock = clock;
+        this.entries = new BoundedExpiringMap<>("Security verdict cache", maxEntries, Entry::expiresAtMillis, clock);
+        this.hits = Counter.builder("security.verdict.cache").tag("result", "hit")
+                .description("Security checks answered from the verdict cache").register(meterRegistry);
+        this.misses = Counter.builder("security.verdict.cache").tag("result", "miss")
+                .description("Security checks that needed the LLM").register(meterRegistry);
+        Gauge.builder("security.verdict.cache.size", entries, BoundedExpiringMap::size).register(meterRegistry);
+        Gauge.builder("security.verdict.cache.hit.ratio", this, SecurityVerdictCache::hitRatio)
+                .description("Share of LLM-bound security checks served from cache").register(meterRegistry);
+    }
+
+    /** Cache key for {@code input}: SHA-256 of the case/whitespace/digit-folded text. */
+    public static String keyFor(String input) {
+        StringBuilder folded = new StringBuilder(input.length());
+        boolean lastWasSpace = true;
+        boolean lastWasDigit = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                lastWasSpace = true;
+                lastWasDigit = false;
+                continue;
+            }
+            if (lastWasSpace && !folded.isEmpty()) {
+                folded.append(' ');
+            }
+            lastWasSpace = false;
+            if (Character.isDigit(c)) {
+                if (!lastWasDigit) {
+                    folded.append('#');
+                }
+                lastWasDigit = true;
+                continue;
+            }
+            lastWasDigit = false;
+            folded.append(Character.toLowerCase(c));
+        }
+        return Hashes.sha256Hex(folded.toString());
+    }
+
+    /** Cached verdict for {@code key}, or null on a miss / expired entry. */
+    public Verdict get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.increment();
+            return entry.verdict();
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, Verdict verdict) {
+        long ttl = verdict.safe() ? safeTtlMillis : unsafeTtlMillis;
+        if (ttl <= 0) {
+            return;
+        }
+        entries.put(key, new Entry(verdict, clock.getAsLong() + ttl));
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,179 @@
+package com.agent.financialadvisor.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Concurrent map with a per-entry expiry and a size cap, shared by the in-memory caches (verified
+ * JWTs, security verdicts, portfolio valuations, profile contexts) and the per-user rate-limit buckets.
+ *
+ * Expired entries are dropped lazily on read and in bulk when an insert finds the map full; if it is
+ * still full, the entries closest to expiry are dropped until it is back to 90% of capacity, which
+ * amortizes the sweep over many inserts. An optional {@code evictable} predicate protects entries that
+ * must not be dropped (e.g. a rate-limit bucket in debt): they are never expired or trimmed, and an
+ * insert that finds no room is refused instead.
+ */
+public class BoundedExpiringMap<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedExpiringMap.class);
+
+    private final String name;
+    private final int maxEntries;
+    private final ToLongFunction<? super V> expiresAt;
+    private final Predicate<? super V> evictable;
+    private final LongSupplier clock;
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param name      used in the eviction log line
+     * @param expiresAt the entry's expiry, on {@code clock}'s time base
+     */
+    public BoundedExpiringMap(String name, int maxEntries, ToLongFunction<? super V> expiresAt, LongSupplier clock) {
+        this(name, maxEntries, expiresAt, value -> true, clock);
+    }
+
+    public BoundedExpiringMap(String name, int maxEntries, ToLongFunction<? super V> expiresAt,
+                              Predicate<? super V> evictable, LongSupplier clock) {
+        this.name = name;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.expiresAt = expiresAt;
+        this.evictable = evictable;
+        this.clock = clock;
+    }
+
+    /** The live value for {@code key}, or null if absent or expired (an expired entry is dropped). */
+    public V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (!isStale(value, now)) {
+            return value;
+        }
+        entries.computeIfPresent(key, (k, current) -> isStale(current, now) ? null : current);
+        return null;
+    }
+
+    /**
+     * Inserts or replaces the value for {@code key}, evicting first if the map is full.
+     *
+     * @return false if the map is full of entries that may not be evicted and {@code key} was not stored
+     */
+    public boolean put(K key, V value) {
+        if (!makeRoomFor(key)) {
+            return false;
+        }
+        entries.put(key, value);
+        return true;
+    }
+
+    /**
+     * Atomically computes the value for {@code key}, like {@link ConcurrentHashMap#compute}; an expired
+     * entry is passed to {@code remapping} as null. Evicts first if {@code key} is new and the map is full.
+     *
+     * @return the new value, or null if it was removed or there was no room for a new key
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (!makeRoomFor(key)) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        return entries.compute(key, (k, current) ->
+                remapping.apply(k, current != null && !isStale(current, now) ? current : null));
+    }
+
+    /** Atomically recomputes a present entry, like {@link ConcurrentHashMap#computeIfPresent}. */
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return entries.computeIfPresent(key, remapping);
+    }
+
+    public V remove(K key) {
+        return entries.remove(key);
+    }
+
+    public boolean remove(K key, V value) {
+        return entries.remove(key, value);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Drops every expired, evictable entry. @return the number dropped */
+    public int evictExpired() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (K key : entries.keySet()) {
+            if (removeIf(key, value -> isStale(value, now))) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private boolean makeRoomFor(K key) {
+        if (entries.size() < maxEntries || entries.containsKey(key)) {
+            return true;
+        }
+        evict();
+        return entries.size() < maxEntries;
+    }
+
+    private synchronized void evict() {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        evictExpired();
+        int target = (int) (maxEntries * 0.9);
+        if (entries.size() <= target) {
+            return;
+        }
+        // Snapshot the expiries: they can move under concurrent updates and the sort needs stable keys
+        List<Map.Entry<K, Long>> byExpiry = new ArrayList<>(entries.size());
+        entries.forEach((key, value) -> {
+            if (evictable.test(value)) {
+                byExpiry.add(Map.entry(key, expiresAt.applyAsLong(value)));
+            }
+        });
+        byExpiry.sort(Map.Entry.comparingByValue());
+        int toRemove = entries.size() - target;
+        int evicted = 0;
+        for (int i = 0; i < byExpiry.size() && evicted < toRemove; i++) {
+            if (removeIf(byExpiry.get(i).getKey(), evictable)) {
+                evicted++;
+            }
+        }
+        log.debug("🧹 {} full ({} entries), evicted {}", name, maxEntries, evicted);
+    }
+
+    /** Removes {@code key} if its current value still matches, checked atomically with the removal. */
+    private boolean removeIf(K key, Predicate<? super V> condition) {
+        boolean[] removed = {false};
+        entries.computeIfPresent(key, (k, value) -> {
+            if (condition.test(value)) {
+                removed[0] = true;
+                return null;
+            }
+            return value;
+        });
+        return removed[0];
+    }
+
+    private boolean isStale(V value, long now) {
+        return expiresAt.applyAsLong(value) <= now && evictable.test(value);
+    }
+}
@@ -0,0 +1,92 @@
+-- Baseline: the schema previously produced by ddl-auto=update, written out by hand.
+-- Portable across PostgreSQL and H2 (H2 needs NON_KEYWORDS=VALUE for stock_holdings.value).
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+CREATE TABLE users (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email           VARCHAR(255) NOT NULL,
+    name            VARCHAR(255) NOT NULL,
+    google_id       VARCHAR(255),
+    picture_url     VARCHAR(255),
+    password_hash   VARCHAR(255),
+    auth_provider   VARCHAR(255),
+    created_at      TIMESTAMP(6) NOT NULL,
+    updated_at      TIMESTAMP(6),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_google_id UNIQUE (google_id)
+);
+
+CREATE TABLE user_profiles (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id             VARCHAR(255) NOT NULL,
+    risk_tolerance      VARCHAR(255) NOT NULL,
+    horizon             VARCHAR(255) NOT NULL,
+    budget              NUMERIC(19, 2),
+    ethical_investing   BOOLEAN,
+    created_at          TIMESTAMP(6) NOT NULL,
+    updated_at          TIMESTAMP(6),
+    CONSTRAINT uk_user_profiles_user_id UNIQUE (user_id)
+);
+
+CREATE TABLE user_goals (
+    user_profile_id BIGINT NOT NULL,
+    goal            VARCHAR(255),
+    CONSTRAINT fk_user_goals_profile FOREIGN KEY (user_profile_id) REFERENCES user_profiles (id)
+);
+
+CREATE TABLE preferred_sectors (
+    user_profile_id BIGINT NOT NULL,
+    sector          VARCHAR(255),
+    CONSTRAINT fk_preferred_sectors_profile FOREIGN KEY (user_profile_id) REFERENCES user_profiles (id)
+);
+
+CREATE TABLE excluded_sectors (
+    user_profile_id BIGINT NOT NULL,
+    sector          VARCHAR(255),
+    CONSTRAINT fk_excluded_sectors_profile FOREIGN KEY (user_profile_id) REFERENCES user_profiles (id)
+);
+
+CREATE TABLE portfolios (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                 VARCHAR(255) NOT NULL,
+    total_value             NUMERIC(19, 2),
+    total_gain_loss         NUMERIC(19, 2),
+    total_gain_loss_percent NUMERIC(19, 4),
+    last_updated            TIMESTAMP(6),
+    CONSTRAINT uk_portfolios_user_id UNIQUE (user_id)
+);
+
+CREATE TABLE stock_holdings (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    portfolio_id        BIGINT NOT NULL,
+    symbol              VARCHAR(10) NOT NULL,
+    quantity            INTEGER NOT NULL,
+    average_price       NUMERIC(19, 2) NOT NULL,
+    current_price       NUMERIC(19, 2),
+    value               NUMERIC(19, 2),
+    gain_loss           NUMERIC(19, 2),
+    gain_loss_percent   NUMERIC(19, 4),
+    last_updated        TIMESTAMP(6)
+);
+
+CREATE TABLE recommendations (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                 VARCHAR(255) NOT NULL,
+    symbol                  VARCHAR(10) NOT NULL,
+    action                  VARCHAR(255) NOT NULL,
+    confidence              DOUBLE PRECISION NOT NULL,
+    reasoning               TEXT,
+    risk_level              VARCHAR(255),
+    target_price            NUMERIC(19, 2),
+    time_horizon            VARCHAR(255),
+    market_analysis         TEXT,
+    risk_assessment         TEXT,
+    research_summary        TEXT,
+    stop_loss_price         NUMERIC(19, 2),
+    technical_patterns      TEXT,
+    averaging_down_advice   TEXT,
+    professional_analysis   TEXT,
+    entry_price             NUMERIC(19, 2),
+    exit_price              NUMERIC(19, 2),
+    created_at              TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,20 @@
+-- Indexes for every repository lookup that the unique constraints don't already cover.
+-- IF NOT EXISTS: databases baselined from ddl-auto=update may have picked some of these up by hand.
+--
+--   portfolios.user_id, user_profiles.user_id,
+--   users.email, users.google_id             -> unique constraints (V1)
+--   PortfolioRepository.findByUserIdWithHoldings (JOIN on holdings), the price refresher and the
+--   symbol registry                            -> idx_stock_holdings_portfolio_id
+--   RecommendationRepository.findByUserIdOrderByCreatedAtDesc,
+--   findByUserIdAndActionOrderByCreatedAtDesc  -> idx_recommendations_user_created (newest first)
+--   RecommendationRepository.findByUserIdAndSymbol(IgnoreCase),
+--   deleteByUserIdAndSymbolIgnoreCase          -> idx_recommendations_user_symbol (IgnoreCase seeks on
+--                                                 user_id and filters upper(symbol); symbols are stored upper-case)
+--   UserProfile element collections (loaded by profile id) -> the foreign key's index; PostgreSQL does not
+--                                                 create one, so db/vendor/postgresql adds idx_*_profile
+
+CREATE INDEX IF NOT EXISTS idx_stock_holdings_portfolio_id ON stock_holdings (portfolio_id);
+
+CREATE INDEX IF NOT EXISTS idx_recommendations_user_created ON recommendations (user_id, created_at DESC);
+
+CREATE INDEX IF NOT EXISTS idx_recommendations_user_symbol ON recommendations (user_id, symbol);
@@ -0,0 +1,8 @@
+-- Recommendation history pages are keyset-paginated on (created_at, id) descending
+-- (RecommendationRepository.findSummaries / findSummariesBefore). Adding id to the index makes the
+-- seek and the tie-break on equal created_at index-only; it still serves the existing
+-- findByUserIdOrderByCreatedAtDesc lookups, so it replaces idx_recommendations_user_created.
+
+CREATE INDEX IF NOT EXISTS idx_recommendations_user_created_id ON recommendations (user_id, created_at DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_recommendations_user_created;
@@ -0,0 +1,93 @@
+package com.agent.financialadvisor.aspect;
+
+import com.agent.financialadvisor.service.WebSocketService;
+import dev.langchain4j.agent.tool.Tool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ToolCallAspectTest {
+
+    private static final String SESSION = "session-aspect";
+
+    public static class QuoteTools {
+        @Tool("Get the price of a stock")
+        public String getStockPrice(String symbol) {
+            return "{\"symbol\":\"" + symbol + "\",\"price\":150.5}";
+        }
+
+        @Tool("Get a compact quote")
+        public String getCompactQuote(String symbol) {
+            return "{\"_schema\":{\"notes\":[\"note: delayed\"]},\"symbol\":\"" + symbol + "\"}";
+        }
+    }
+
+    private final WebSocketService webSocketService = mock(WebSocketService.class);
+
+    @AfterEach
+    void tearDown() {
+        ToolCallAspect.clearToolResults(SESSION);
+        ToolCallAspect.clearSessionId();
+    }
+
+    @Test
+    void withoutSubscribers_sendsNothingButStillCapturesRawResult() {
+        QuoteTools tools = proxied();
+        ToolCallAspect.setSessionId(SESSION);
+
+        assertThat(tools.getStockPrice("AAPL")).contains("150.5");
+
+        verify(webSocketService, never()).sendAgentActivity(anyString(), anyMap());
+        verify(webSocketService, never()).sendToolCall(anyString(), anyString(), anyMap());
+        verify(webSocketService, never()).sendToolResult(anyString(), anyString(), any(), anyLong());
+        verify(webSocketService, never()).sendReasoning(anyString(), anyString());
+        assertThat(ToolCallAspect.drainToolResults(SESSION))
+                .containsExactly("getStockPrice: {\"symbol\":\"AAPL\",\"price\":150.5}");
+    }
+
+    @Test
+    void capturesEachToolsSchemaLegendOncePerSession() {
+        QuoteTools tools = proxied();
+        ToolCallAspect.setSessionId(SESSION);
+
+        // Each sub-agent conversation gets the legend; the evaluator's capture keeps the first only
+        assertThat(tools.getCompactQuote("AAPL")).contains("_schema");
+        assertThat(tools.getCompactQuote("MSFT")).contains("_schema");
+
+        assertThat(ToolCallAspect.drainToolResults(SESSION)).containsExactly(
+                "getCompactQuote: {\"_schema\":{\"notes\":[\"note: delayed\"]},\"symbol\":\"AAPL\"}",
+                "getCompactQuote: {\"symbol\":\"MSFT\"}");
+    }
+
+    @Test
+    void agentActivitySubscriber_receivesCallAndResultEvents() {
+        when(webSocketService.hasSubscribers("agent-activity", SESSION)).thenReturn(true);
+        QuoteTools tools = proxied();
+        ToolCallAspect.setSessionId(SESSION);
+
+        tools.getStockPrice("MSFT");
+        tools.getStockPrice("NVDA");
+
+        verify(webSocketService, times(4)).sendAgentActivity(eq(SESSION), anyMap());
+        verify(webSocketService, never()).sendReasoning(anyString(), anyString());
+    }
+
+    private QuoteTools proxied() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new QuoteTools());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ToolCallAspect(webSocketService));
+        return factory.getProxy();
+    }
+}
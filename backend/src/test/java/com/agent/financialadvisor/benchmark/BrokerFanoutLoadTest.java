@@ -0,0 +1,107 @@
+package com.agent.financialadvisor.benchmark;
+
+import com.agent.financialadvisor.config.BrokerNode;
+import com.agent.financialadvisor.config.EmbeddedStompBroker;
+import com.agent.financialadvisor.config.WebSocketBrokerConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out throughput of the two broker modes in WebSocketConfig: simple (one JVM) and STOMP relay
+ * (embedded Artemis broker, two nodes; clients connect to both and every message is published on
+ * the first, so half the deliveries cross nodes).
+ *
+ * Two scenarios per mode:
+ * - per-session: each message goes to one session's topic (/topic/agent-activity/{session}), the
+ *   normal advisor traffic pattern;
+ * - broadcast: each message goes to one topic every session subscribes to (1:N fan-out).
+ *
+ * Reports delivered MESSAGE frames per second, publish to last delivery. Not a JMH benchmark:
+ * delivery is asynchronous with the relay, so this times whole runs instead.
+ *
+ * Run: {@code mvn -q test-compile exec:java -Dexec.mainClass=com.agent.financialadvisor.benchmark.BrokerFanoutLoadTest -Dexec.classpathScope=test -Dexec.args="100 5000"}
+ * (arguments: sessions, messages; defaults 100 and 5000)
+ */
+public class BrokerFanoutLoadTest {
+
+    private static final String PAYLOAD =
+            "{\"type\":\"tool_result\",\"toolName\":\"Get Stock Price\",\"content\":\"AAPL 290.55 USD\"}";
+    private static final long DELIVERY_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(120);
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        System.out.printf("%-8s %-12s %10s %12s %14s%n", "mode", "scenario", "sessions", "delivered", "msgs/sec");
+        run("simple", () -> List.of(BrokerNode.simple()), sessions, messages);
+
+        Path data = Files.createTempDirectory("stomp-broker");
+        try (EmbeddedStompBroker broker = EmbeddedStompBroker.start(data)) {
+            WebSocketBrokerConfig config = BrokerNode.relayConfig(broker);
+            run("relay", () -> List.of(BrokerNode.relay(config), BrokerNode.relay(config)), sessions, messages);
+        }
+    }
+
+    private static void run(String mode, Supplier<List<BrokerNode>> nodes, int sessions, int messages) {
+        report(mode, "per-session", sessions, perSession(nodes.get(), sessions, messages));
+        report(mode, "broadcast", sessions, broadcast(nodes.get(), sessions, Math.max(1, messages / sessions)));
+    }
+
+    /** Returns {delivered, elapsedNanos}. */
+    private static long[] perSession(List<BrokerNode> nodes, int sessions, int messages) {
+        try {
+            for (int s = 0; s < sessions; s++) {
+                BrokerNode node = nodes.get(s % nodes.size());
+                node.connect("client-" + s);
+                node.subscribe("client-" + s, "sub-0", "/topic/agent-activity/session-" + s);
+            }
+            BrokerNode publisher = nodes.get(0);
+            long start = System.nanoTime();
+            for (int m = 0; m < messages; m++) {
+                publisher.publish("/topic/agent-activity/session-" + (m % sessions), PAYLOAD);
+            }
+            return awaitDeliveries(nodes, messages, start);
+        } finally {
+            nodes.forEach(BrokerNode::close);
+        }
+    }
+
+    private static long[] broadcast(List<BrokerNode> nodes, int sessions, int messages) {
+        try {
+            for (int s = 0; s < sessions; s++) {
+                BrokerNode node = nodes.get(s % nodes.size());
+                node.connect("client-" + s);
+                node.subscribe("client-" + s, "sub-0", "/topic/market-status");
+            }
+            BrokerNode publisher = nodes.get(0);
+            long start = System.nanoTime();
+            for (int m = 0; m < messages; m++) {
+                publisher.publish("/topic/market-status", PAYLOAD);
+            }
+            return awaitDeliveries(nodes, (long) messages * sessions, start);
+        } finally {
+            nodes.forEach(BrokerNode::close);
+        }
+    }
+
+    private static long[] awaitDeliveries(List<BrokerNode> nodes, long expected, long start) {
+        long delivered = 0;
+        while (System.nanoTime() - start < DELIVERY_TIMEOUT_NANOS) {
+            delivered = nodes.stream().mapToLong(BrokerNode::delivered).sum();
+            if (delivered >= expected) {
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        return new long[] {delivered, System.nanoTime() - start};
+    }
+
+    private static void report(String mode, String scenario, int sessions, long[] result) {
+        double seconds = result[1] / 1e9;
+        System.out.printf("%-8s %-12s %10d %12d %14.0f%n", mode, scenario, sessions, result[0], result[0] / seconds);
+    }
+}
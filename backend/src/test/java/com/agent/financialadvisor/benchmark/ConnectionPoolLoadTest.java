@@ -0,0 +1,148 @@
+package com.agent.financialadvisor.benchmark;
+
+import com.agent.financialadvisor.config.DataSourceConfig;
+import com.agent.financialadvisor.config.DataSourcePoolConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection waits with an untuned pool (Hikari defaults: 10 connections, what the bare
+ * DataSourceBuilder produced) vs the pool DataSourceConfig builds (agent threads + reserve).
+ *
+ * Workers = agent threads + reserve, each repeatedly borrowing a connection, running the
+ * findByUserIdWithHoldings join on a seeded in-memory H2 database and holding the connection for a
+ * simulated network round trip, like agent tool calls against PostgreSQL. Reports throughput,
+ * connection-acquire p50/p99/max, the peak number of threads awaiting a connection and the pool's
+ * hikaricp.connections.timeout count.
+ * Not a JMH benchmark: the interesting number is time spent queueing for the pool, so this times whole runs.
+ *
+ * Run: {@code mvn -q test-compile exec:java -Dexec.mainClass=com.agent.financialadvisor.benchmark.ConnectionPoolLoadTest -Dexec.classpathScope=test -Dexec.args="16 2 200"}
+ * (arguments: agent threads, simulated round trip ms, queries per worker; defaults 16, 2 and 200)
+ */
+public class ConnectionPoolLoadTest {
+
+    private static final String JOIN =
+            "SELECT p.id, h.id, h.symbol FROM portfolios p LEFT JOIN stock_holdings h ON p.id = h.portfolio_id " +
+                    "WHERE p.user_id = ?";
+    private static final int USERS = 500;
+
+    public static void main(String[] args) throws Exception {
+        int agentThreads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        long roundTripMillis = args.length > 1 ? Long.parseLong(args[1]) : 2;
+        int queriesPerWorker = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        DataSourcePoolConfig tuning = new DataSourcePoolConfig();
+        int workers = tuning.resolveMaxSize(agentThreads);
+
+        System.out.printf("%-8s %6s %8s %12s %10s %10s %10s %9s %9s%n",
+                "pool", "max", "workers", "queries/sec", "acq p50", "acq p99", "acq max", "pending", "timeouts");
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        seed(url);
+
+        HikariDataSource untuned = new HikariDataSource();
+        untuned.setJdbcUrl(url);
+        untuned.setPoolName("untuned");
+        run("untuned", untuned, workers, roundTripMillis, queriesPerWorker);
+
+        HikariDataSource tuned = new HikariDataSource();
+        tuned.setJdbcUrl(url);
+        DataSourceConfig.configurePool(tuned, tuning, agentThreads);
+        run("tuned", tuned, workers, roundTripMillis, queriesPerWorker);
+    }
+
+    private static void seed(String url) throws Exception {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(url);
+            try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+                s.execute("CREATE TABLE portfolios (id BIGINT PRIMARY KEY, user_id VARCHAR(255) NOT NULL UNIQUE)");
+                s.execute("CREATE TABLE stock_holdings (id BIGINT PRIMARY KEY, portfolio_id BIGINT NOT NULL, " +
+                        "symbol VARCHAR(10) NOT NULL)");
+                s.execute("CREATE INDEX idx_stock_holdings_portfolio_id ON stock_holdings (portfolio_id)");
+                for (int u = 0; u < USERS; u++) {
+                    s.addBatch("INSERT INTO portfolios VALUES (" + u + ", 'user-" + u + "')");
+                    for (int h = 0; h < 8; h++) {
+                        s.addBatch("INSERT INTO stock_holdings VALUES (" + (u * 10 + h) + ", " + u + ", 'SYM" + h + "')");
+                    }
+                }
+                s.executeBatch();
+            }
+        }
+    }
+
+    private static void run(String name, HikariDataSource dataSource, int workers, long roundTripMillis,
+                            int queriesPerWorker) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        dataSource.setMetricRegistry(registry);
+        Timer acquire = Timer.builder("load.acquire").publishPercentiles(0.5, 0.99).register(registry);
+        AtomicInteger maxPending = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try (dataSource) {
+            dataSource.getConnection().close(); // start the pool before timing
+            for (int w = 0; w < workers; w++) {
+                int worker = w;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int q = 0; q < queriesPerWorker; q++) {
+                        long t0 = System.nanoTime();
+                        try (Connection c = dataSource.getConnection()) {
+                            acquire.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                            maxPending.accumulateAndGet(dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection(), Math::max);
+                            try (PreparedStatement ps = c.prepareStatement(JOIN)) {
+                                ps.setString(1, "user-" + ((worker * queriesPerWorker + q) % USERS));
+                                try (ResultSet rs = ps.executeQuery()) {
+                                    while (rs.next()) {
+                                        rs.getString(3);
+                                    }
+                                }
+                            }
+                            Thread.sleep(roundTripMillis);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long t0 = System.nanoTime();
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            long elapsed = System.nanoTime() - t0;
+
+            double perSecond = (double) workers * queriesPerWorker / (elapsed / 1e9);
+            double timeouts = registry.find("hikaricp.connections.timeout").counters().stream()
+                    .mapToDouble(c -> c.count()).sum();
+            System.out.printf("%-8s %6d %8d %12.0f %8.2fms %8.2fms %8.2fms %9d %9.0f%n",
+                    name, dataSource.getMaximumPoolSize(), workers, perSecond,
+                    percentile(acquire, 0.5), percentile(acquire, 0.99), acquire.max(TimeUnit.MILLISECONDS),
+                    maxPending.get(), timeouts);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static double percentile(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,193 @@
+package com.agent.financialadvisor.benchmark;
+
+import com.agent.financialadvisor.service.SseEventHub;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.BufferingStompDecoder;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.sockjs.frame.Jackson2SockJsMessageCodec;
+import reactor.core.Disposable;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side cost of delivering one advisor event to one listening client, STOMP vs SSE:
+ * - {@code stomp}: JSON conversion, simple-broker dispatch to the subscription, STOMP MESSAGE frame
+ *   encoding and SockJS framing — what the /ws path does per event.
+ * - {@code sse}: SseEventHub publish (sequence id + replay buffer), JSON conversion and SSE field
+ *   formatting — what GET /api/advisor/stream does per event.
+ *
+ * Before the JMH run, {@link #main} also prints the retained heap per idle connection for the
+ * per-session state each path keeps: broker session + the three topic subscriptions the UI opens +
+ * the per-session STOMP decoder buffer, vs one hub stream and its subscriber. Container-level socket
+ * buffers (one connection either way) and SockJS session objects are not included.
+ *
+ * Run: {@code mvn -q test-compile exec:java -Dexec.mainClass=com.agent.financialadvisor.benchmark.EventStreamBenchmark -Dexec.classpathScope=test}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventStreamBenchmark {
+
+    private static final String SESSION = "bench-session";
+    private static final String DESTINATION = "/topic/agent-activity/" + SESSION;
+    private static final List<String> PREFIXES = List.of("/topic", "/queue");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Object> event = new HashMap<>();
+
+    private SimpleBrokerMessageHandler broker;
+    private final StompEncoder stompEncoder = new StompEncoder();
+    private final Jackson2SockJsMessageCodec sockJsCodec = new Jackson2SockJsMessageCodec();
+    private String lastStompFrame;
+
+    private SseEventHub hub;
+    private Disposable sseSubscription;
+    private String lastSseFrame;
+
+    @Setup
+    public void setUp() {
+        event.put("type", "tool_result");
+        event.put("toolName", "Get Stock Price");
+        event.put("content", "AAPL 290.55 USD (+0.43%)");
+        event.put("timestamp", 1_718_000_000_000L);
+
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(message -> lastStompFrame = toSockJsFrame(message));
+        broker = new SimpleBrokerMessageHandler(
+                new ExecutorSubscribableChannel(), clientOutbound, new ExecutorSubscribableChannel(), PREFIXES);
+        broker.start();
+        subscribeStomp(broker, SESSION, "sub-0", DESTINATION);
+
+        hub = new SseEventHub(256, 300, new SimpleMeterRegistry());
+        sseSubscription = hub.subscribe(SESSION, "bench-user", null)
+                .subscribe(streamEvent -> lastSseFrame = toSseFrame(streamEvent));
+    }
+
+    @TearDown
+    public void tearDown() {
+        sseSubscription.dispose();
+        hub.shutdown();
+        broker.stop();
+    }
+
+    @Benchmark
+    public String stomp() throws Exception {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(DESTINATION);
+        broker.handleMessage(MessageBuilder.createMessage(
+                objectMapper.writeValueAsBytes(event), accessor.getMessageHeaders()));
+        return lastStompFrame;
+    }
+
+    @Benchmark
+    public String sse() {
+        hub.publish(SESSION, "agent-activity", event);
+        return lastSseFrame;
+    }
+
+    private String toSockJsFrame(Message<?> message) {
+        SimpMessageHeaderAccessor source = SimpMessageHeaderAccessor.wrap(message);
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination(source.getDestination());
+        accessor.setSubscriptionId(source.getSubscriptionId());
+        accessor.setSessionId(source.getSessionId());
+        byte[] frame = stompEncoder.encode(accessor.getMessageHeaders(), (byte[]) message.getPayload());
+        return sockJsCodec.encode(new String(frame, StandardCharsets.UTF_8));
+    }
+
+    private String toSseFrame(SseEventHub.StreamEvent streamEvent) {
+        try {
+            return "id:" + streamEvent.id() + "\nevent:" + streamEvent.type() + "\ndata:"
+                    + objectMapper.writeValueAsString(streamEvent.data()) + "\n\n";
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void subscribeStomp(SimpleBrokerMessageHandler broker, String sessionId,
+                                       String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    /** Retained heap per idle connection for each path's per-session state. */
+    static void printConnectionMemory(int connections) {
+        List<Object> retained = new ArrayList<>();
+
+        long before = usedHeap();
+        SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(),
+                new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(), PREFIXES);
+        broker.start();
+        for (int i = 0; i < connections; i++) {
+            String sessionId = "stomp-" + i;
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId(sessionId);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+            for (String topic : List.of("thinking", "response", "error")) {
+                subscribeStomp(broker, sessionId, "sub-" + topic, "/topic/" + topic + "/" + sessionId);
+            }
+            retained.add(new BufferingStompDecoder(new StompDecoder(), 64 * 1024));
+        }
+        long stomp = usedHeap() - before;
+
+        before = usedHeap();
+        SseEventHub hub = new SseEventHub(256, 300, new SimpleMeterRegistry());
+        for (int i = 0; i < connections; i++) {
+            retained.add(hub.subscribe("sse-" + i, "bench-user", null).subscribe());
+        }
+        long sse = usedHeap() - before;
+
+        System.out.printf("Per-connection server state over %d idle connections: STOMP ~%d bytes, SSE ~%d bytes%n",
+                connections, stomp / connections, sse / connections);
+        broker.stop();
+        hub.shutdown();
+        retained.clear();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(String[] args) throws Exception {
+        printConnectionMemory(10_000);
+        new Runner(new OptionsBuilder().include(EventStreamBenchmark.class.getSimpleName()).build()).run();
+    }
+}
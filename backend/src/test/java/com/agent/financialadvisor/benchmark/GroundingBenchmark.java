@@ -0,0 +1,148 @@
+package com.agent.financialadvisor.benchmark;
+
+import com.agent.financialadvisor.service.GroundingIndex;
+import com.agent.financialadvisor.service.GroundingService;
+import com.agent.financialadvisor.service.NumberScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Grounding check cost for a realistic query: ~30 raw tool dumps (quotes, candles, portfolio
+ * valuations, ~4 KB each) plus the profile context, verified against a ~40-figure answer three
+ * times (evaluator answer, corrective rewrite, fallback) as OrchestratorService does.
+ *
+ * {@code linearScan} is the previous implementation (boxed source list rebuilt per check, linear
+ * tolerance scan); {@code sharedIndex} builds one {@link GroundingIndex} and reuses it.
+ * {@code regexExtraction} / {@code scannerExtraction} isolate the cost of pulling figures out of the
+ * sources (Matcher + replace + parseDouble vs {@link NumberScanner}).
+ *
+ * Run: {@code mvn -q test-compile exec:java -Dexec.mainClass=com.agent.financialadvisor.benchmark.GroundingBenchmark -Dexec.classpathScope=test}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroundingBenchmark {
+
+    private static final Pattern NUMBER = Pattern.compile("\\d[\\d,]*(?:\\.\\d+)?");
+    private static final int CHECKS_PER_QUERY = 3;
+
+    private final GroundingService grounding = new GroundingService();
+    private List<String> sources;
+    private String response;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        sources = new ArrayList<>();
+        for (int dump = 0; dump < 30; dump++) {
+            StringBuilder sb = new StringBuilder("{\"symbol\":\"SYM" + dump + "\",\"candles\":[");
+            while (sb.length() < 4000) {
+                double close = 50 + random.nextDouble() * 450;
+                sb.append(String.format("{\"t\":%d,\"o\":%.2f,\"h\":%.2f,\"l\":%.2f,\"c\":%.2f,\"v\":%d},",
+                        1_700_000_000L + sb.length(), close * 0.99, close * 1.01, close * 0.98, close,
+                        random.nextInt(90_000_000)));
+            }
+            sources.add(sb.append("]}").toString());
+        }
+        sources.add("USER PROFILE: risk=MODERATE, horizon=LONG, holdings: AAPL 10 @ 150.00, MSFT 4 @ 310.25, "
+                + "total value $12,904.75, gain 23.40%");
+
+        StringBuilder answer = new StringBuilder("Here is your summary. ");
+        Matcher m = NUMBER.matcher(sources.get(0));
+        for (int i = 0; i < 40 && m.find(); i++) {
+            answer.append(i % 5 == 0 ? "An invented " + (1000 + i) + ".37 figure. " : "Value " + m.group() + ". ");
+        }
+        response = answer.toString();
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int flagged = 0;
+        for (int check = 0; check < CHECKS_PER_QUERY; check++) {
+            List<Double> sourceNumbers = new ArrayList<>();
+            for (String source : sources) {
+                Matcher m = NUMBER.matcher(source);
+                while (m.find()) {
+                    sourceNumbers.add(Double.parseDouble(m.group().replace(",", "")));
+                }
+            }
+            Matcher m = NUMBER.matcher(response);
+            while (m.find()) {
+                double value = Double.parseDouble(m.group().replace(",", ""));
+                if (!linearContains(sourceNumbers, value)) {
+                    flagged++;
+                }
+            }
+        }
+        return flagged;
+    }
+
+    @Benchmark
+    public int sharedIndex() {
+        GroundingIndex index = grounding.buildIndex(sources);
+        int flagged = 0;
+        for (int check = 0; check < CHECKS_PER_QUERY; check++) {
+            flagged += grounding.findUngroundedNumbers(response, index).size();
+        }
+        return flagged;
+    }
+
+    @Benchmark
+    public double regexExtraction() {
+        double sum = 0;
+        for (String source : sources) {
+            Matcher m = NUMBER.matcher(source);
+            while (m.find()) {
+                sum += Double.parseDouble(m.group().replace(",", ""));
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double scannerExtraction() {
+        double[] sum = new double[1];
+        for (String source : sources) {
+            NumberScanner.scan(source, (start, end, value, flags) -> sum[0] += value);
+        }
+        return sum[0];
+    }
+
+    private static boolean linearContains(List<Double> sourceNumbers, double value) {
+        for (double source : sourceNumbers) {
+            double absDiff = Math.abs(source - value);
+            if (absDiff <= 0.011) {
+                return true;
+            }
+            double magnitude = Math.max(Math.abs(source), Math.abs(value));
+            if (magnitude > 0 && absDiff / magnitude <= 0.005) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(GroundingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
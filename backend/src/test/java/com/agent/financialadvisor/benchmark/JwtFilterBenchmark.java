@@ -0,0 +1,111 @@
+package com.agent.financialadvisor.benchmark;
+
+import com.agent.financialadvisor.config.JwtAuthenticationFilter;
+import com.agent.financialadvisor.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per authenticated request of JwtAuthenticationFilter:
+ * - {@code legacyFourParses}: the previous behaviour — extractEmail, extractUserId, validateToken
+ *   (subject + expiration), each building a new key and parser and re-verifying the signature
+ *   (token handling only — no mock request, so it slightly flatters the old path);
+ * - {@code filterUncached}: the filter with one parse per request (cache disabled);
+ * - {@code filterCached}: the filter with the verified-token cache (steady state for a signed-in user).
+ *
+ * Run: {@code mvn -q test-compile exec:java -Dexec.mainClass=com.agent.financialadvisor.benchmark.JwtFilterBenchmark -Dexec.classpathScope=test}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-value-minimum-32-characters-long-abc";
+
+    private String token;
+    private JwtAuthenticationFilter cachedFilter;
+    private JwtAuthenticationFilter uncachedFilter;
+
+    @Setup
+    public void setUp() {
+        JwtService cached = jwtService(10_000);
+        cachedFilter = new JwtAuthenticationFilter(cached);
+        uncachedFilter = new JwtAuthenticationFilter(jwtService(0));
+        token = cached.generateToken("alice@example.com", 42L);
+    }
+
+    private static JwtService jwtService(int cacheMaxEntries) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secret", SECRET);
+        ReflectionTestUtils.setField(service, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", cacheMaxEntries);
+        return service;
+    }
+
+    @Benchmark
+    public Authentication filterCached() throws Exception {
+        return authenticate(cachedFilter);
+    }
+
+    @Benchmark
+    public Authentication filterUncached() throws Exception {
+        return authenticate(uncachedFilter);
+    }
+
+    @Benchmark
+    public Object legacyFourParses() {
+        String email = parse(token).getSubject();
+        Object userId = parse(token).get("userId");
+        boolean valid = parse(token).getSubject().equals(email) && !parse(token).getExpiration().before(new Date());
+        return valid ? userId : null;
+    }
+
+    private Authentication authenticate(JwtAuthenticationFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/portfolio");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static Claims parse(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JwtFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
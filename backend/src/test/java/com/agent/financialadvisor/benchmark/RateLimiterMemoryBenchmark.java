@@ -0,0 +1,108 @@
+package com.agent.financialadvisor.benchmark;
+
+import com.agent.financialadvisor.config.RateLimitConfig;
+import com.agent.financialadvisor.exception.RateLimitExceededException;
+import com.agent.financialadvisor.service.RateLimitService;
+import com.agent.financialadvisor.service.llm.LlmTokenUsage;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Retained heap after a flood of requests each carrying a fresh sessionId, for the old limiter (one
+ * bucket per sessionId, removed only by an explicit session cleanup that a flooding client never
+ * triggers) vs RateLimitService keyed by authenticated user.
+ *
+ * Three runs: the old per-session map; RateLimitService with every request from one account (what a
+ * session flood becomes once the key is the user); and RateLimitService with every request from a
+ * different account, the worst case, which the max-tracked-users bound caps. Also reports how many
+ * of the flood's requests each limiter admitted. Heap is measured with System.gc() before and after,
+ * so treat the numbers as approximate; run with a fixed heap (e.g. -Xmx2g) for repeatable results.
+ *
+ * Run: {@code mvn -q test-compile exec:java -Dexec.mainClass=com.agent.financialadvisor.benchmark.RateLimiterMemoryBenchmark -Dexec.classpathScope=test -Dexec.args="1000000"}
+ * (argument: distinct sessions in the flood; default 1,000,000)
+ */
+public class RateLimiterMemoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        RateLimitConfig config = new RateLimitConfig();
+
+        System.out.printf("%-22s %12s %12s %14s %12s%n", "limiter", "requests", "admitted", "tracked keys", "retained");
+
+        Map<String, Bucket> perSession = new ConcurrentHashMap<>();
+        long before = usedHeap();
+        int admitted = 0;
+        for (int i = 0; i < sessions; i++) {
+            Bucket bucket = perSession.computeIfAbsent(UUID.randomUUID().toString(), id -> sessionBucket(config));
+            if (bucket.tryConsume(1)) {
+                admitted++;
+            }
+        }
+        report("per-session (old)", sessions, admitted, String.valueOf(perSession.size()), usedHeap() - before);
+        perSession = null;
+
+        // Global throughput out of the way so the per-user tier is what is measured
+        config.getGlobal().setCapacity(Integer.MAX_VALUE);
+        config.getGlobal().setRefillTokens(Integer.MAX_VALUE);
+        config.getGlobal().setMaxConcurrent(0);
+
+        RateLimitService oneUser = new RateLimitService(config, new SimpleMeterRegistry());
+        before = usedHeap();
+        admitted = flood(oneUser, sessions, i -> "user@example.com");
+        report("per-user, one account", sessions, admitted, "1", usedHeap() - before);
+        oneUser.shutdown();
+        oneUser = null;
+
+        RateLimitService manyUsers = new RateLimitService(config, new SimpleMeterRegistry());
+        before = usedHeap();
+        admitted = flood(manyUsers, sessions, i -> "user-" + i + "@example.com");
+        long retained = usedHeap() - before;
+        report("per-user, all distinct", sessions, admitted, "<= " + config.getMaxTrackedUsers(), retained);
+        manyUsers.shutdown();
+    }
+
+    private static int flood(RateLimitService service, int requests, IntFunction<String> userOf) {
+        int admitted = 0;
+        for (int i = 0; i < requests; i++) {
+            try {
+                service.acquireAdvisorPermit(userOf.apply(i), new LlmTokenUsage()).close();
+                admitted++;
+            } catch (RateLimitExceededException e) {
+                // expected once the user's bucket is empty
+            }
+        }
+        return admitted;
+    }
+
+    /** The bucket the old RateLimitService created for every new sessionId. */
+    private static Bucket sessionBucket(RateLimitConfig config) {
+        RateLimitConfig.EndpointConfig advisor = config.getAdvisor();
+        return Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(advisor.getCapacity())
+                        .refillIntervally(advisor.getRefillTokens(), Duration.ofSeconds(advisor.getRefillPeriodSeconds()))
+                        .build())
+                .build();
+    }
+
+    private static void report(String name, int requests, int admitted, String trackedKeys, long retainedBytes) {
+        System.out.printf("%-22s %12d %12d %14s %10.1fMB%n",
+                name, requests, admitted, trackedKeys, retainedBytes / (1024.0 * 1024.0));
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
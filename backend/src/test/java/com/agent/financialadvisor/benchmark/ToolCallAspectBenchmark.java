@@ -0,0 +1,115 @@
+package com.agent.financialadvisor.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.agent.financialadvisor.aspect.ToolCallAspect;
+import com.agent.financialadvisor.config.WebSocketBrokerConfig;
+import com.agent.financialadvisor.service.SseEventHub;
+import com.agent.financialadvisor.service.WebSocketEventPipeline;
+import com.agent.financialadvisor.service.WebSocketService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import dev.langchain4j.agent.tool.Tool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of ToolCallAspect around a trivial @Tool method: {@code direct} is the bare
+ * method, {@code intercepted} goes through the aspect. {@code subscribers} toggles whether the
+ * session has an agent-activity subscriber (events built and converted) or none (events skipped).
+ * Messages go through the async outbound pipeline to a no-op channel, so this measures the cost on
+ * the calling (agent) thread, not the broker.
+ *
+ * Application logging is raised to WARN for the run so console output does not dominate.
+ *
+ * Run: {@code mvn -q test-compile exec:java -Dexec.mainClass=com.agent.financialadvisor.benchmark.ToolCallAspectBenchmark -Dexec.classpathScope=test}
+ */
+@State(Scope.Thread) // the aspect reads the session id from a thread-local
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolCallAspectBenchmark {
+
+    private static final String SESSION = "bench-session";
+    private static final String QUOTE =
+            "{\"symbol\":\"AAPL\",\"price\":290.55,\"change\":1.25,\"changePercent\":0.43,\"currency\":\"USD\","
+                    + "\"quoteTime\":\"2026-06-09T20:00:00Z\",\"source\":\"finnhub\"}";
+
+    public static class QuoteTools {
+        @Tool("Get the current price of a stock")
+        public String getStockPrice(String symbol) {
+            return QUOTE;
+        }
+    }
+
+    @Param({"false", "true"})
+    public boolean subscribers;
+
+    private QuoteTools direct;
+    private QuoteTools intercepted;
+    private WebSocketEventPipeline pipeline;
+    private SseEventHub sseEventHub;
+
+    @Setup
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.agent.financialadvisor")).setLevel(Level.WARN);
+        pipeline = new WebSocketEventPipeline(new SimpMessagingTemplate((message, timeout) -> true),
+                new SimpleMeterRegistry(), 50, 200, 1);
+        sseEventHub = new SseEventHub(256, 300, new SimpleMeterRegistry());
+        WebSocketService webSocketService = new WebSocketService(pipeline, new WebSocketBrokerConfig(), sseEventHub);
+        if (subscribers) {
+            webSocketService.registerSubscription("conn-1", "sub-0", "/topic/agent-activity/" + SESSION);
+        }
+        direct = new QuoteTools();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new QuoteTools());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ToolCallAspect(webSocketService));
+        intercepted = factory.getProxy();
+        ToolCallAspect.setSessionId(SESSION);
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void resetCapturedResults() {
+        // The raw-result capture is bounded per session; keep it from saturating mid-run.
+        ToolCallAspect.clearToolResults(SESSION);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pipeline.shutdown();
+        sseEventHub.shutdown();
+    }
+
+    @Benchmark
+    public String direct() {
+        return direct.getStockPrice("AAPL");
+    }
+
+    @Benchmark
+    public String intercepted() {
+        String result = intercepted.getStockPrice("AAPL");
+        ToolCallAspect.clearToolResults(SESSION);
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ToolCallAspectBenchmark.class.getSimpleName()).build()).run();
+    }
+}
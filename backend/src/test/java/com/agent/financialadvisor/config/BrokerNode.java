@@ -0,0 +1,151 @@
+package com.agent.financialadvisor.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.awaitility.Awaitility.await;
+
+/**
+ * The broker side of one application instance, without the web layer: the same message handler
+ * WebSocketConfig registers (simple broker or STOMP relay), fed client frames directly and with its
+ * client-outbound channel counting what would be written to each WebSocket session.
+ *
+ * Two relay nodes pointed at one {@link EmbeddedStompBroker} behave like two replicas behind a load
+ * balancer: a message published on one reaches subscribers connected to the other.
+ */
+public final class BrokerNode implements AutoCloseable {
+
+    private static final List<String> PREFIXES = List.of("/topic", "/queue");
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final AbstractBrokerMessageHandler broker;
+    private final boolean relay;
+    private final Set<String> connectedSessions = ConcurrentHashMap.newKeySet();
+    private final Set<String> receipts = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> deliveredBySession = new ConcurrentHashMap<>();
+    private final AtomicLong delivered = new AtomicLong();
+
+    private BrokerNode(Function<MessageChannel, AbstractBrokerMessageHandler> brokerFactory) {
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(this::onMessageToClient);
+        this.broker = brokerFactory.apply(clientOutbound);
+        this.relay = broker instanceof StompBrokerRelayMessageHandler;
+        broker.start();
+    }
+
+    /** In-JVM broker, as in the default {@code websocket.broker.mode=simple}. */
+    public static BrokerNode simple() {
+        return new BrokerNode(clientOutbound -> new SimpleBrokerMessageHandler(
+                new ExecutorSubscribableChannel(), clientOutbound, new ExecutorSubscribableChannel(), PREFIXES));
+    }
+
+    /** STOMP relay to the broker described by {@code config}, as in {@code websocket.broker.mode=relay}. */
+    public static BrokerNode relay(WebSocketBrokerConfig config) {
+        BrokerNode node = new BrokerNode(clientOutbound -> {
+            StompBrokerRelayMessageHandler handler = new StompBrokerRelayMessageHandler(
+                    new ExecutorSubscribableChannel(), clientOutbound, new ExecutorSubscribableChannel(), PREFIXES);
+            handler.setRelayHost(config.getRelayHost());
+            handler.setRelayPort(config.getRelayPort());
+            handler.setClientLogin(config.getClientLogin());
+            handler.setClientPasscode(config.getClientPasscode());
+            handler.setSystemLogin(config.getSystemLogin());
+            handler.setSystemPasscode(config.getSystemPasscode());
+            return handler;
+        });
+        await().atMost(CONNECT_TIMEOUT).until(node.broker::isBrokerAvailable);
+        return node;
+    }
+
+    public static WebSocketBrokerConfig relayConfig(EmbeddedStompBroker stompBroker) {
+        WebSocketBrokerConfig config = new WebSocketBrokerConfig();
+        config.setMode(WebSocketBrokerConfig.Mode.RELAY);
+        config.setRelayHost(stompBroker.host());
+        config.setRelayPort(stompBroker.port());
+        return config;
+    }
+
+    /** A browser session connecting over /ws (CONNECT frame); returns once the broker has answered. */
+    public void connect(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        accessor.setAcceptVersion("1.2");
+        accessor.setHeartbeat(0, 0);
+        send(accessor);
+        await().atMost(CONNECT_TIMEOUT).until(() -> connectedSessions.contains(sessionId));
+    }
+
+    /** SUBSCRIBE; with the relay, waits for the broker's receipt so later publishes are not missed. */
+    public void subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        String receipt = sessionId + "/" + subscriptionId;
+        if (relay) {
+            accessor.setReceipt(receipt);
+        }
+        send(accessor);
+        if (relay) {
+            await().atMost(CONNECT_TIMEOUT).until(() -> receipts.contains(receipt));
+        }
+    }
+
+    /** A server-originated message, as SimpMessagingTemplate sends it onto the broker channel. */
+    public void publish(String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        broker.handleMessage(MessageBuilder.createMessage(
+                payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+    }
+
+    /** MESSAGE frames written to client sessions on this node. */
+    public long delivered() {
+        return delivered.get();
+    }
+
+    public long deliveredTo(String sessionId) {
+        AtomicLong count = deliveredBySession.get(sessionId);
+        return count != null ? count.get() : 0;
+    }
+
+    @Override
+    public void close() {
+        broker.stop();
+    }
+
+    private void send(StompHeaderAccessor accessor) {
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private void onMessageToClient(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        StompCommand command = StompHeaderAccessor.wrap(message).getCommand();
+        if (type == SimpMessageType.MESSAGE) {
+            delivered.incrementAndGet();
+            deliveredBySession.computeIfAbsent(sessionId, k -> new AtomicLong()).incrementAndGet();
+        } else if (type == SimpMessageType.CONNECT_ACK || command == StompCommand.CONNECTED) {
+            connectedSessions.add(sessionId);
+        } else if (command == StompCommand.RECEIPT) {
+            receipts.add(StompHeaderAccessor.wrap(message).getReceiptId());
+        }
+    }
+}
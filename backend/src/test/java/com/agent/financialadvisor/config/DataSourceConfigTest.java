@@ -0,0 +1,53 @@
+package com.agent.financialadvisor.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pool settings applied by DataSourceConfig (no connections are opened).
+ */
+class DataSourceConfigTest {
+
+    private static HikariDataSource pool(String url, DataSourcePoolConfig config, int agentThreads) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        DataSourceConfig.configurePool(dataSource, config, agentThreads);
+        return dataSource;
+    }
+
+    @Test
+    void derivesPoolSizeFromAgentThreadsPlusReserve() {
+        try (HikariDataSource dataSource = pool("jdbc:h2:mem:pool", new DataSourcePoolConfig(), 16)) {
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(20);
+            assertThat(dataSource.getMinimumIdle()).isEqualTo(20);
+            assertThat(dataSource.getConnectionTimeout()).isEqualTo(5000);
+            assertThat(dataSource.getLeakDetectionThreshold()).isEqualTo(20000);
+            assertThat(dataSource.getDataSourceProperties()).isEmpty();
+        }
+    }
+
+    @Test
+    void derivedPoolSizeNeverDropsBelowHikarisDefault() {
+        try (HikariDataSource dataSource = pool("jdbc:h2:mem:small", new DataSourcePoolConfig(), 4)) {
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    void explicitSizeWinsAndPostgresGetsDriverTuning() {
+        DataSourcePoolConfig config = new DataSourcePoolConfig();
+        config.setMaxSize(12);
+        config.setMinIdle(4);
+
+        try (HikariDataSource dataSource = pool("jdbc:postgresql://db:5432/app", config, 16)) {
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(12);
+            assertThat(dataSource.getMinimumIdle()).isEqualTo(4);
+            assertThat(dataSource.getDataSourceProperties())
+                    .containsEntry("reWriteBatchedInserts", true)
+                    .containsEntry("preparedStatementCacheQueries", 256)
+                    .containsEntry("prepareThreshold", 3);
+        }
+    }
+}
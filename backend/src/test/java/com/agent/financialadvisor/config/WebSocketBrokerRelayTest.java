@@ -0,0 +1,74 @@
+package com.agent.financialadvisor.config;
+
+import com.agent.financialadvisor.service.SseEventHub;
+import com.agent.financialadvisor.service.WebSocketEventPipeline;
+import com.agent.financialadvisor.service.WebSocketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+class WebSocketBrokerRelayTest {
+
+    @TempDir
+    Path brokerData;
+
+    private EmbeddedStompBroker stompBroker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stompBroker = EmbeddedStompBroker.start(brokerData);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        stompBroker.close();
+    }
+
+    @Test
+    void relayDeliversEventsPublishedOnAnotherNode() {
+        WebSocketBrokerConfig config = BrokerNode.relayConfig(stompBroker);
+        try (BrokerNode nodeA = BrokerNode.relay(config); BrokerNode nodeB = BrokerNode.relay(config)) {
+            nodeB.connect("client-1");
+            nodeB.subscribe("client-1", "sub-0", "/topic/response/session-1");
+
+            nodeA.publish("/topic/response/session-1", "{\"type\":\"response\",\"content\":\"done\"}");
+
+            await().atMost(Duration.ofSeconds(10)).until(() -> nodeB.deliveredTo("client-1") == 1);
+            assertThat(nodeA.delivered()).isZero();
+        }
+    }
+
+    @Test
+    void simpleBrokerOnlyReachesItsOwnClients() {
+        try (BrokerNode nodeA = BrokerNode.simple(); BrokerNode nodeB = BrokerNode.simple()) {
+            nodeB.connect("client-1");
+            nodeB.subscribe("client-1", "sub-0", "/topic/response/session-1");
+
+            nodeA.publish("/topic/response/session-1", "{\"type\":\"response\",\"content\":\"done\"}");
+            nodeB.publish("/topic/response/session-1", "{\"type\":\"response\",\"content\":\"done\"}");
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> nodeB.deliveredTo("client-1") == 1);
+            assertThat(nodeA.delivered()).isZero();
+        }
+    }
+
+    @Test
+    void relayModeAssumesSubscribersOnOtherNodes() {
+        WebSocketBrokerConfig relay = BrokerNode.relayConfig(stompBroker);
+        WebSocketEventPipeline pipeline = mock(WebSocketEventPipeline.class);
+        SseEventHub sseEventHub = mock(SseEventHub.class);
+
+        assertThat(new WebSocketService(pipeline, relay, sseEventHub)
+                .hasSubscribers("agent-activity", "session-1")).isTrue();
+        assertThat(new WebSocketService(pipeline, new WebSocketBrokerConfig(), sseEventHub)
+                .hasSubscribers("agent-activity", "session-1")).isFalse();
+    }
+}
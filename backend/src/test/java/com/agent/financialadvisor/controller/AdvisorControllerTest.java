@@ -1,7 +1,10 @@
 package com.agent.financialadvisor.controller;
 
+import com.agent.financialadvisor.dto.TokenBudget;
+import com.agent.financialadvisor.exception.RateLimitExceededException;
 import com.agent.financialadvisor.service.JwtService;
 import com.agent.financialadvisor.service.RateLimitService;
+import com.agent.financialadvisor.service.llm.LlmTokenUsage;
 import com.agent.financialadvisor.service.orchestrator.OrchestratorService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
@@ -19,13 +22,16 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -89,7 +95,7 @@ class AdvisorControllerTest {
 
         verify(orchestratorService, times(1))
                 .coordinateAnalysis("test-user", "Should I buy AAPL?", "session-1");
-        verify(rateLimitService, times(1)).checkAdvisorRateLimit("session-1");
+        verify(rateLimitService, times(1)).acquireAdvisorPermit(eq("test-user"), any(LlmTokenUsage.class));
     }
 
     @Test
@@ -103,7 +109,39 @@ class AdvisorControllerTest {
                 .andExpect(status().isBadRequest());
 
         verify(orchestratorService, never()).coordinateAnalysis(anyString(), anyString(), anyString());
-        verify(rateLimitService, never()).checkAdvisorRateLimit(anyString());
+        verify(rateLimitService, never()).acquireAdvisorPermit(anyString(), any());
+    }
+
+    @Test
+    void testAnalyze_RateLimitedPerUserRegardlessOfSession() throws Exception {
+        when(rateLimitService.acquireAdvisorPermit(eq("test-user"), any()))
+                .thenThrow(new RateLimitExceededException("Rate limit exceeded.", 42, 0));
+
+        Map<String, String> request = new HashMap<>();
+        request.put("query", "Should I buy AAPL?");
+        request.put("sessionId", "fresh-session-" + System.nanoTime());
+
+        mockMvc.perform(post("/api/advisor/analyze")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "42"))
+                .andExpect(header().string("X-RateLimit-Remaining", "0"));
+
+        verify(orchestratorService, never()).coordinateAnalysis(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testGetBudget_ReturnsRemainingTokenBudget() throws Exception {
+        when(rateLimitService.getTokenBudget("test-user"))
+                .thenReturn(new TokenBudget(-1200, 250_000, 250_000, 3600, 9000, 165, 18));
+
+        mockMvc.perform(get("/api/advisor/budget"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.remainingTokens").value(-1200))
+                .andExpect(jsonPath("$.nextRequestEstimate").value(9000))
+                .andExpect(jsonPath("$.secondsUntilAdmitted").value(165))
+                .andExpect(jsonPath("$.remainingRequests").value(18));
     }
 
     @Test
@@ -5,6 +5,9 @@ import com.agent.financialadvisor.model.StockHolding;
 import com.agent.financialadvisor.repository.PortfolioRepository;
 import com.agent.financialadvisor.service.JwtService;
 import com.agent.financialadvisor.service.MarketDataService;
+import com.agent.financialadvisor.service.PortfolioValuationService;
+import com.agent.financialadvisor.service.PortfolioValuationService.PortfolioValuation;
+import com.agent.financialadvisor.service.SymbolRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,10 +24,13 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -51,6 +57,12 @@ class PortfolioControllerTest {
     @MockBean
     private MarketDataService marketDataService;
 
+    @MockBean
+    private PortfolioValuationService portfolioValuationService;
+
+    @MockBean
+    private SymbolRegistry symbolRegistry;
+
     @MockBean
     private JwtService jwtService;
 
@@ -79,26 +91,29 @@ class PortfolioControllerTest {
 
     @Test
     void testGetPortfolio_Success() throws Exception {
-        when(portfolioRepository.findByUserIdWithHoldings("test-user")).thenReturn(Optional.of(testPortfolio));
-        when(portfolioRepository.save(any(Portfolio.class))).thenReturn(testPortfolio);
+        PortfolioValuation valuation = new PortfolioValuation(1L, "test-user", List.of(),
+                new BigDecimal("1500.00"), BigDecimal.ZERO, BigDecimal.ZERO, null, "finnhub", null);
+        when(portfolioValuationService.valuate("test-user")).thenReturn(Optional.of(valuation));
 
         mockMvc.perform(get("/api/portfolio"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.userId").value("test-user"));
+                .andExpect(jsonPath("$.userId").value("test-user"))
+                .andExpect(jsonPath("$.totalValue").value(1500.00));
 
-        verify(portfolioRepository, times(1)).findByUserIdWithHoldings("test-user");
+        verify(portfolioValuationService, times(1)).valuate("test-user");
+        verify(portfolioRepository, never()).save(any(Portfolio.class));
     }
 
     @Test
-    void testGetPortfolio_CreatesNewIfNotExists() throws Exception {
-        when(portfolioRepository.findByUserIdWithHoldings("test-user")).thenReturn(Optional.empty());
-        when(portfolioRepository.save(any(Portfolio.class))).thenReturn(testPortfolio);
+    void testGetPortfolio_EmptyWithoutWriteIfNotExists() throws Exception {
+        when(portfolioValuationService.valuate("test-user")).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/portfolio"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value("test-user"))
+                .andExpect(jsonPath("$.holdings").isEmpty());
 
-        verify(portfolioRepository, times(1)).findByUserIdWithHoldings("test-user");
-        verify(portfolioRepository, times(1)).save(any(Portfolio.class));
+        verify(portfolioRepository, never()).save(any(Portfolio.class));
     }
 
     @Test
@@ -121,6 +136,8 @@ class PortfolioControllerTest {
         verify(portfolioRepository, times(1)).findByUserId("test-user");
         verify(portfolioRepository, times(1)).save(any(Portfolio.class));
         verify(marketDataService, times(1)).getStockPrice("AAPL");
+        verify(portfolioValuationService, times(1)).invalidate("test-user");
+        verify(symbolRegistry, times(1)).register("test-user", "AAPL");
     }
 
     @Test
@@ -139,18 +156,34 @@ class PortfolioControllerTest {
 
         verify(portfolioRepository, times(1)).findByUserId("test-user");
         verify(portfolioRepository, times(1)).save(any(Portfolio.class));
+        verify(symbolRegistry, times(1)).unregister("test-user", "AAPL");
     }
 
     @Test
     void testRefreshPortfolio_Success() throws Exception {
         when(portfolioRepository.findByUserIdWithHoldings("test-user")).thenReturn(Optional.of(testPortfolio));
         when(portfolioRepository.save(any(Portfolio.class))).thenReturn(testPortfolio);
+        when(portfolioValuationService.refreshPersistedPrices(eq(testPortfolio), any())).thenReturn(1);
+        when(portfolioValuationService.valuate("test-user")).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/api/portfolio/refresh"))
                 .andExpect(status().isOk());
 
         verify(portfolioRepository, times(1)).findByUserIdWithHoldings("test-user");
         verify(portfolioRepository, times(1)).save(any(Portfolio.class));
+        verify(portfolioValuationService, times(1)).invalidate("test-user");
+    }
+
+    @Test
+    void testRefreshPortfolio_SkipsSaveWhenNoPriceMovedPastThreshold() throws Exception {
+        when(portfolioRepository.findByUserIdWithHoldings("test-user")).thenReturn(Optional.of(testPortfolio));
+        when(portfolioValuationService.refreshPersistedPrices(eq(testPortfolio), any())).thenReturn(0);
+        when(portfolioValuationService.valuate("test-user")).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/portfolio/refresh"))
+                .andExpect(status().isOk());
+
+        verify(portfolioRepository, never()).save(any(Portfolio.class));
     }
 }
 
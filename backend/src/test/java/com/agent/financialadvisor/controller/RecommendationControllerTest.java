@@ -0,0 +1,100 @@
+package com.agent.financialadvisor.controller;
+
+import com.agent.financialadvisor.dto.RecommendationPage;
+import com.agent.financialadvisor.dto.RecommendationSummary;
+import com.agent.financialadvisor.model.Recommendation;
+import com.agent.financialadvisor.service.JwtService;
+import com.agent.financialadvisor.service.RecommendationHistoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = RecommendationController.class, excludeAutoConfiguration = {
+        org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration.class,
+        org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration.class,
+        org.springframework.boot.autoconfigure.security.oauth2.client.servlet.OAuth2ClientAutoConfiguration.class
+})
+@AutoConfigureMockMvc(addFilters = false)
+class RecommendationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RecommendationHistoryService recommendationHistoryService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken("test-user", "n/a", java.util.Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetHistory_ReturnsSummariesAndCursor() throws Exception {
+        RecommendationSummary summary = new RecommendationSummary(7L, "AAPL", Recommendation.RecommendationAction.BUY,
+                0.8, Recommendation.RiskLevel.MEDIUM, null, Recommendation.InvestmentHorizon.LONG,
+                LocalDateTime.of(2026, 3, 1, 12, 0));
+        when(recommendationHistoryService.page("test-user", null, 20))
+                .thenReturn(new RecommendationPage(List.of(summary), "next-page"));
+
+        mockMvc.perform(get("/api/recommendations"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].symbol").value("AAPL"))
+                .andExpect(jsonPath("$.items[0].reasoning").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("next-page"));
+    }
+
+    @Test
+    void testGetHistory_BadCursor() throws Exception {
+        when(recommendationHistoryService.page(eq("test-user"), eq("bogus"), anyInt()))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/recommendations").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    }
+
+    @Test
+    void testGetRecommendation_OnlyOwnersSeeDetails() throws Exception {
+        Recommendation recommendation = new Recommendation();
+        recommendation.setId(7L);
+        recommendation.setUserId("test-user");
+        recommendation.setSymbol("AAPL");
+        recommendation.setReasoning("Strong services growth");
+        when(recommendationHistoryService.detail("test-user", 7L)).thenReturn(Optional.of(recommendation));
+        when(recommendationHistoryService.detail("test-user", 8L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/recommendations/7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reasoning").value("Strong services growth"));
+        mockMvc.perform(get("/api/recommendations/8"))
+                .andExpect(status().isNotFound());
+    }
+}
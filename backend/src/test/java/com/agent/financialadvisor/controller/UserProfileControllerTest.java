@@ -3,6 +3,7 @@ package com.agent.financialadvisor.controller;
 import com.agent.financialadvisor.model.UserProfile;
 import com.agent.financialadvisor.repository.UserProfileRepository;
 import com.agent.financialadvisor.service.JwtService;
+import com.agent.financialadvisor.service.UserContextChangedEvent;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,12 +14,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -36,11 +40,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         org.springframework.boot.autoconfigure.security.oauth2.client.servlet.OAuth2ClientAutoConfiguration.class
 })
 @AutoConfigureMockMvc(addFilters = false)
+@RecordApplicationEvents
 class UserProfileControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ApplicationEvents events;
+
     @MockBean
     private UserProfileRepository userProfileRepository;
 
@@ -117,6 +125,8 @@ class UserProfileControllerTest {
 
         verify(userProfileRepository, times(1)).findByUserId("test-user");
         verify(userProfileRepository, times(1)).save(any(UserProfile.class));
+        assertThat(events.stream(UserContextChangedEvent.class))
+                .containsExactly(new UserContextChangedEvent("test-user", "profile.update"));
     }
 
     @Test
@@ -130,6 +140,7 @@ class UserProfileControllerTest {
 
         verify(userProfileRepository, times(1)).findByUserId("test-user");
         verify(userProfileRepository, never()).save(any());
+        assertThat(events.stream(UserContextChangedEvent.class)).isEmpty();
     }
 }
 
@@ -0,0 +1,147 @@
+package com.agent.financialadvisor.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Flyway migrations on H2, seeds a few thousand rows and checks via EXPLAIN that each
+ * repository lookup (in the SQL shape Hibernate generates for it) is served by an index, not a scan.
+ */
+class SchemaIndexUsageTest {
+
+    private static final int USERS = 200;
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "NVDA", "AMZN", "GOOGL", "TSLA", "META", "JPM"};
+
+    private static JdbcTemplate jdbc;
+    private static MigrateResult migration;
+
+    @BeforeAll
+    static void migrateAndSeed() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE", "sa", "");
+        migration = Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> profiles = new ArrayList<>();
+        List<Object[]> goals = new ArrayList<>();
+        List<Object[]> portfolios = new ArrayList<>();
+        List<Object[]> holdings = new ArrayList<>();
+        List<Object[]> recommendations = new ArrayList<>();
+        for (int u = 1; u <= USERS; u++) {
+            String userId = "user-" + u;
+            users.add(new Object[]{u, userId + "@example.com", "User " + u, "google-" + u, now});
+            profiles.add(new Object[]{u, userId, now});
+            goals.add(new Object[]{u, "GROWTH"});
+            portfolios.add(new Object[]{u, userId});
+            for (int h = 0; h < 5; h++) {
+                holdings.add(new Object[]{u * 10 + h, u, SYMBOLS[(u + h) % SYMBOLS.length]});
+            }
+            for (int r = 0; r < 20; r++) {
+                recommendations.add(new Object[]{u * 100 + r, userId, SYMBOLS[r % SYMBOLS.length],
+                        r % 3 == 0 ? "BUY" : "HOLD", Timestamp.valueOf(LocalDateTime.now().minusHours(r))});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO users (id, email, name, google_id, created_at) VALUES (?, ?, ?, ?, ?)", users);
+        jdbc.batchUpdate("INSERT INTO user_profiles (id, user_id, risk_tolerance, horizon, created_at) " +
+                "VALUES (?, ?, 'MODERATE', 'MEDIUM', ?)", profiles);
+        jdbc.batchUpdate("INSERT INTO user_goals (user_profile_id, goal) VALUES (?, ?)", goals);
+        jdbc.batchUpdate("INSERT INTO portfolios (id, user_id, total_value) VALUES (?, ?, 0)", portfolios);
+        jdbc.batchUpdate("INSERT INTO stock_holdings (id, portfolio_id, symbol, quantity, average_price) " +
+                "VALUES (?, ?, ?, 1, 100.00)", holdings);
+        jdbc.batchUpdate("INSERT INTO recommendations (id, user_id, symbol, action, confidence, created_at) " +
+                "VALUES (?, ?, ?, ?, 0.8, ?)", recommendations);
+        jdbc.execute("ANALYZE");
+    }
+
+    private static String explain(String sql) {
+        String plan = String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class));
+        return plan.toUpperCase(Locale.ROOT);
+    }
+
+    @Test
+    void migrationsApplyFromAnEmptyDatabase() {
+        assertThat(migration.success).isTrue();
+        assertThat(migration.migrationsExecuted).isEqualTo(3);
+    }
+
+    @Test
+    void elementCollectionsHaveOnlyTheForeignKeyIndex() {
+        for (String table : List.of("USER_GOALS", "PREFERRED_SECTORS", "EXCLUDED_SECTORS")) {
+            Integer indexes = jdbc.queryForObject("SELECT COUNT(DISTINCT INDEX_NAME) FROM INFORMATION_SCHEMA.INDEX_COLUMNS " +
+                    "WHERE TABLE_NAME = ? AND COLUMN_NAME = 'USER_PROFILE_ID'", Integer.class, table);
+            assertThat(indexes).as(table).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void portfolioWithHoldingsSeeksBothTables() {
+        // PortfolioRepository.findByUserIdWithHoldings
+        String plan = explain("SELECT p.id, h.id FROM portfolios p LEFT JOIN stock_holdings h " +
+                "ON p.id = h.portfolio_id WHERE p.user_id = 'user-7'");
+
+        assertThat(plan).contains("UK_PORTFOLIOS_USER_ID", "IDX_STOCK_HOLDINGS_PORTFOLIO_ID")
+                .doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    void recommendationHistorySeeksUserNewestFirst() {
+        // RecommendationRepository.findByUserIdOrderByCreatedAtDesc
+        String plan = explain("SELECT r.id FROM recommendations r WHERE r.user_id = 'user-7' " +
+                "ORDER BY r.created_at DESC");
+
+        assertThat(plan).contains("IDX_RECOMMENDATIONS_USER_CREATED_ID").doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    void recommendationHistoryPageSeeksPastTheCursor() {
+        // RecommendationRepository.findSummariesBefore
+        String plan = explain("SELECT r.id, r.symbol, r.created_at FROM recommendations r WHERE r.user_id = 'user-7' " +
+                "AND r.created_at <= TIMESTAMP '2030-01-01 00:00:00' " +
+                "AND (r.created_at < TIMESTAMP '2030-01-01 00:00:00' OR r.id < 710) " +
+                "ORDER BY r.created_at DESC, r.id DESC FETCH FIRST 21 ROWS ONLY");
+
+        // Both the user and the cursor bound are index conditions, not a filter over the user's rows
+        assertThat(plan.replaceAll("\\s+", " ")).contains("IDX_RECOMMENDATIONS_USER_CREATED_ID: USER_ID = 'USER-7' "
+                        + "AND CREATED_AT <= TIMESTAMP '2030-01-01 00:00:00'")
+                .doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    void recommendationBySymbolSeeksUserAndSymbol() {
+        // RecommendationRepository.findByUserIdAndSymbol
+        String plan = explain("SELECT r.id FROM recommendations r WHERE r.user_id = 'user-7' AND r.symbol = 'AAPL'");
+        // findByUserIdAndSymbolIgnoreCase: seeks on user_id, filters upper(symbol)
+        String ignoreCase = explain("SELECT r.id FROM recommendations r WHERE r.user_id = 'user-7' " +
+                "AND UPPER(r.symbol) = UPPER('aapl')");
+
+        assertThat(plan).contains("IDX_RECOMMENDATIONS_USER_SYMBOL").doesNotContain("TABLESCAN");
+        assertThat(ignoreCase).contains("IDX_RECOMMENDATIONS_").doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    void profileAndUserLookupsUseUniqueIndexes() {
+        assertThat(explain("SELECT id FROM user_profiles WHERE user_id = 'user-7'"))
+                .contains("UK_USER_PROFILES_USER_ID").doesNotContain("TABLESCAN");
+        // Served by the foreign key's own index on H2 (PostgreSQL gets idx_user_goals_profile)
+        assertThat(explain("SELECT goal FROM user_goals WHERE user_profile_id = 7")).doesNotContain("TABLESCAN");
+        assertThat(explain("SELECT id FROM users WHERE email = 'user-7@example.com'"))
+                .contains("UK_USERS_EMAIL").doesNotContain("TABLESCAN");
+        assertThat(explain("SELECT id FROM users WHERE google_id = 'google-7'"))
+                .contains("UK_USERS_GOOGLE_ID").doesNotContain("TABLESCAN");
+    }
+}
@@ -0,0 +1,38 @@
+package com.agent.financialadvisor.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots JPA the way production does (Flyway owns the schema, Hibernate only validates it) on an H2
+ * database built by the migrations, so an entity that drifts from V1+ fails here rather than at startup.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema-validation;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaValidationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Test
+    void entitiesValidateAgainstTheMigratedSchema() {
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(flyway.info().applied()).isNotEmpty();
+        assertThat(userProfileRepository.findByUserId("nobody")).isEmpty();
+    }
+}
@@ -0,0 +1,54 @@
+package com.agent.financialadvisor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GroundingIndexTest {
+
+    private final GroundingService grounding = new GroundingService();
+
+    @Test
+    void matchesWithinAbsoluteAndRelativeTolerance() {
+        GroundingIndex index = grounding.buildIndex(List.of("price 290.55, value 2,905.50, pct 0.42"));
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.contains(290.55)).isTrue();
+        assertThat(index.contains(290.56)).isTrue();      // absolute: 2-dp rounding
+        assertThat(index.contains(2920.0)).isTrue();      // relative: within 0.5%
+        assertThat(index.contains(2925.0)).isFalse();     // relative: just outside
+        assertThat(index.contains(0.43)).isTrue();
+        assertThat(index.contains(0.44)).isFalse();
+        assertThat(index.contains(312.40)).isFalse();
+    }
+
+    @Test
+    void emptyIndexMatchesNothing() {
+        assertThat(grounding.buildIndex(List.of()).contains(1.0)).isFalse();
+        assertThat(GroundingIndex.EMPTY.contains(0.0)).isFalse();
+    }
+
+    @Test
+    void agreesWithLinearScanOnRandomData() {
+        Random random = new Random(42);
+        double[] sources = new double[500];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = Math.round(random.nextDouble() * Math.pow(10, random.nextInt(6)) * 100) / 100.0;
+            text.append(sources[i]).append(' ');
+        }
+        GroundingIndex index = grounding.buildIndex(List.of(text.toString()));
+
+        for (int i = 0; i < 5_000; i++) {
+            double probe = Math.round(random.nextDouble() * Math.pow(10, random.nextInt(6)) * 100) / 100.0;
+            boolean linear = false;
+            for (double source : sources) {
+                linear |= GroundingIndex.matches(source, probe);
+            }
+            assertThat(index.contains(probe)).as("probe %s", probe).isEqualTo(linear);
+        }
+    }
+}
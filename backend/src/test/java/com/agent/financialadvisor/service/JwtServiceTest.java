@@ -6,6 +6,8 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -55,6 +57,43 @@ class JwtServiceTest {
         assertThrows(Exception.class, () -> jwtService.extractEmail(forged));
     }
 
+    @Test
+    void verify_cachesPrincipalUntilTokenExpiry() {
+        String token = jwtService.generateToken("alice@example.com", 42L);
+
+        JwtService.JwtPrincipal first = jwtService.verify(token);
+        assertEquals("alice@example.com", first.email());
+        assertEquals(42L, first.userId());
+        assertSame(first, jwtService.verify(token));
+        assertEquals(1, jwtService.cachedTokenCount());
+
+        // Past its expiry the cached principal is not served; the token is verified again
+        long expiresAt = first.expiresAtMillis();
+        jwtService.clock = () -> expiresAt + 1;
+        assertNotSame(first, jwtService.verify(token));
+    }
+
+    @Test
+    void verify_cacheIsBounded() {
+        ReflectionTestUtils.setField(jwtService, "cacheMaxEntries", 10);
+        for (long userId = 0; userId < 50; userId++) {
+            jwtService.verify(jwtService.generateToken("user" + userId + "@example.com", userId));
+        }
+        assertTrue(jwtService.cachedTokenCount() <= 10);
+    }
+
+    @Test
+    void verify_secretChangeDropsCachedTokens() {
+        String token = jwtService.generateToken("alice@example.com", 1L);
+        JwtService.JwtPrincipal cached = jwtService.verify(token);
+
+        ReflectionTestUtils.setField(jwtService, "secret", "a-rotated-secret-value-that-is-also-32-chars-long");
+        assertThrows(Exception.class, () -> jwtService.verify(token));
+
+        String reissued = jwtService.generateToken("alice@example.com", 1L);
+        assertNotSame(cached, jwtService.verify(reissued));
+    }
+
     @Test
     void validateSecret_rejects_blankShortAndPlaceholder() {
         JwtService svc = new JwtService();
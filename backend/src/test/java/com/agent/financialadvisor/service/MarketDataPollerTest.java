@@ -0,0 +1,93 @@
+package com.agent.financialadvisor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MarketDataPollerTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MarketDataService marketDataService = mock(MarketDataService.class);
+    private final PortfolioValuationService valuationService = mock(PortfolioValuationService.class);
+    private final SymbolRegistry registry = new SymbolRegistry(jdbcTemplate);
+    private final MarketDataPoller poller = new MarketDataPoller(registry, marketDataService, valuationService,
+            new SimpleMeterRegistry(), false, 15, 600);
+
+    private static MarketDataService.Quote quote(String price) {
+        return new MarketDataService.Quote(new BigDecimal(price), "finnhub", Instant.now());
+    }
+
+    @Test
+    void registryCountsPortfoliosPerSymbol() {
+        registry.register("alice", "aapl");
+        registry.register("bob", "AAPL");
+        registry.register("bob", "AAPL");
+        registry.register("bob", "MSFT");
+
+        assertThat(registry.refCount("AAPL")).isEqualTo(2);
+        assertThat(registry.symbols()).containsExactlyInAnyOrder("AAPL", "MSFT");
+
+        registry.unregister("bob", "MSFT");
+        registry.unregister("alice", "AAPL");
+
+        assertThat(registry.symbols()).containsExactly("AAPL");
+        assertThat(registry.holders("AAPL")).containsExactly("bob");
+    }
+
+    @Test
+    void quotesEachSymbolOnceAndPropagatesOnlyChanges() {
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(
+                Map.of("user_id", "alice", "symbol", "AAPL"),
+                Map.of("user_id", "bob", "symbol", "AAPL"),
+                Map.of("user_id", "bob", "symbol", "MSFT")));
+        when(marketDataService.getQuotes(anyCollection(), eq(MarketDataService.Priority.BACKGROUND)))
+                .thenReturn(Map.of("AAPL", quote("190.00"), "MSFT", quote("410.00")))
+                .thenReturn(Map.of("AAPL", quote("191.00"), "MSFT", quote("410.00")));
+
+        assertThat(poller.pollOnce()).isEqualTo(2);
+        assertThat(poller.pollOnce()).isEqualTo(1);
+
+        verify(marketDataService, times(2)).getQuotes(eq(Set.of("AAPL", "MSFT")), eq(MarketDataService.Priority.BACKGROUND));
+        verify(valuationService, times(2)).applyPrice(eq("AAPL"), any(), eq(Set.of("alice", "bob")));
+        verify(valuationService, times(1)).applyPrice(eq("MSFT"), any(), eq(Set.of("bob")));
+        // Loaded once at the first cycle; the next resync is minutes away
+        verify(jdbcTemplate, times(1)).queryForList(anyString());
+    }
+
+    @Test
+    void intervalStretchesSoACycleFitsTheBackgroundShare() {
+        when(marketDataService.backgroundCallsPerMinute()).thenReturn(30);
+
+        // 4 symbols every 15 s = 16 calls/min: the configured interval already fits
+        assertThat(poller.delaySeconds(4)).isEqualTo(15);
+        // 20 symbols need 40 s per cycle at 30 calls/min
+        assertThat(poller.delaySeconds(20)).isEqualTo(40);
+        assertThat(poller.delaySeconds(31)).isEqualTo(62);
+    }
+
+    @Test
+    void emptyRegistrySkipsQuoting() {
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of());
+
+        assertThat(poller.pollOnce()).isZero();
+
+        verify(marketDataService, never()).getQuotes(anyCollection(), any());
+    }
+}
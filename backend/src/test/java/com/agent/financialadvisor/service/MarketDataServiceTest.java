@@ -0,0 +1,191 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.config.MarketDataResilienceConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MarketDataService against stubbed Finnhub/Yahoo endpoints (no network): call budget and breaker.
+ */
+class MarketDataServiceTest {
+
+    private static final String FINNHUB_QUOTE = "{\"c\":150.5,\"t\":1700000000}";
+    private static final String YAHOO_CHART =
+            "{\"chart\":{\"result\":[{\"meta\":{\"regularMarketPrice\":149.9,\"regularMarketTime\":1700000000}}]}}";
+
+    private final AtomicInteger finnhubCalls = new AtomicInteger();
+    private final AtomicInteger yahooCalls = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private HttpStatus finnhubStatus = HttpStatus.OK;
+    private MarketDataService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdownHedgeExecutor();
+        }
+    }
+
+    @Test
+    void interactiveQuotesGoStraightToYahooWhenFinnhubBudgetIsSpent() {
+        service = service(2, 5);
+
+        assertThat(service.getQuote("AAPL").source()).isEqualTo("finnhub");
+        assertThat(service.getQuote("MSFT").source()).isEqualTo("finnhub");
+        MarketDataService.Quote third = service.getQuote("NVDA");
+
+        assertThat(third.source()).isEqualTo("yahoo");
+        assertThat(finnhubCalls.get()).isEqualTo(2);
+        assertThat(yahooCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void backgroundQuotesWaitForATokenThatRefillsWithinTheMaxWait() {
+        service = service(60, 5, 2_000);
+        for (int i = 0; i < 60; i++) {
+            assertThat(service.getQuote("SYM" + i).source()).isEqualTo("finnhub");
+        }
+
+        long start = System.currentTimeMillis();
+        MarketDataService.Quote quote = service.getQuote("MSFT", MarketDataService.Priority.BACKGROUND);
+
+        // 60/min refills a token every second: the refresh waits for it instead of using Yahoo
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(500);
+        assertThat(quote.source()).isEqualTo("finnhub");
+        assertThat(finnhubCalls.get()).isEqualTo(61);
+        assertThat(yahooCalls.get()).isZero();
+    }
+
+    @Test
+    void backgroundQuotesFallBackAtOnceWhenNoTokenRefillsInTime() {
+        service = service(1, 5, 2_000);
+        service.getQuote("AAPL", MarketDataService.Priority.BACKGROUND);
+
+        long start = System.currentTimeMillis();
+        MarketDataService.Quote quote = service.getQuote("MSFT", MarketDataService.Priority.BACKGROUND);
+
+        // 1 call/min cannot refill within 2 s, so there is nothing to wait for
+        assertThat(System.currentTimeMillis() - start).isLessThan(1_000);
+        assertThat(quote.source()).isEqualTo("yahoo");
+        assertThat(finnhubCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void backgroundQuotesSpendOnlyTheirShareAndLeaveTheRestToInteractive() {
+        service = service(10, 5, 200);
+        assertThat(service.backgroundCallsPerMinute()).isEqualTo(5);
+
+        Map<String, MarketDataService.Quote> quotes = service.getQuotes(
+                Arrays.asList("A", "B", "C", "D", "E", "F", "G", "H"), MarketDataService.Priority.BACKGROUND);
+
+        assertThat(quotes.values()).filteredOn(q -> q.source().equals("finnhub")).hasSize(5);
+        assertThat(quotes.values()).filteredOn(q -> q.source().equals("yahoo")).hasSize(3);
+        // The other half of the budget is still there for users
+        for (int i = 0; i < 5; i++) {
+            assertThat(service.getQuote("USER" + i).source()).isEqualTo("finnhub");
+        }
+        assertThat(finnhubCalls.get()).isEqualTo(10);
+    }
+
+    @Test
+    void backgroundShareTokenIsReturnedWhenTheSharedBudgetIsSpent() {
+        service = service(10, 5, 200);
+        for (int i = 0; i < 10; i++) {
+            service.getQuote("USER" + i);
+        }
+
+        assertThat(service.getQuote("MSFT", MarketDataService.Priority.BACKGROUND).source()).isEqualTo("yahoo");
+        assertThat(registry.get("market.data.finnhub.budget.background.available").gauge().value()).isEqualTo(5.0);
+    }
+
+    @Test
+    void openBreakerSkipsFinnhubWithoutSpendingBudget() {
+        finnhubStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        service = service(5, 1, 0);
+
+        service.getQuote("A");
+        service.getQuote("B");
+        service.getQuote("C");
+
+        assertThat(finnhubCalls.get()).isEqualTo(1);
+        assertThat(registry.get("market.data.finnhub.budget.available").gauge().value()).isEqualTo(4.0);
+    }
+
+    @Test
+    void failingFinnhubOpensBreakerAndIsSkipped() {
+        finnhubStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        service = service(60, 3);
+
+        for (String symbol : new String[]{"A", "B", "C", "D", "E"}) {
+            assertThat(service.getQuote(symbol).source()).isEqualTo("yahoo");
+        }
+
+        assertThat(finnhubCalls.get()).isEqualTo(3);
+        assertThat(service.getProviderStatus()).containsEntry("finnhub", "OPEN").containsEntry("yahoo", "CLOSED");
+    }
+
+    @Test
+    void premiumOnly403DoesNotOpenBreaker() {
+        finnhubStatus = HttpStatus.FORBIDDEN;
+        service = service(60, 3);
+
+        for (String symbol : new String[]{"A", "B", "C", "D", "E"}) {
+            service.getQuote(symbol);
+        }
+
+        assertThat(finnhubCalls.get()).isEqualTo(5);
+        assertThat(service.getProviderStatus()).containsEntry("finnhub", "CLOSED");
+    }
+
+    @Test
+    void batchQuotesFetchEachDistinctSymbolOnce() {
+        service = service(60, 3);
+
+        Map<String, MarketDataService.Quote> quotes = service.getQuotes(
+                Arrays.asList("aapl", "AAPL", " msft ", null, ""), MarketDataService.Priority.BACKGROUND);
+
+        assertThat(quotes).containsOnlyKeys("AAPL", "MSFT");
+        assertThat(finnhubCalls.get()).isEqualTo(2);
+    }
+
+    private MarketDataService service(int finnhubCallsPerMinute, int breakerFailures) {
+        return service(finnhubCallsPerMinute, breakerFailures, 200);
+    }
+
+    private MarketDataService service(int finnhubCallsPerMinute, int breakerFailures, long backgroundMaxWaitMillis) {
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            if (request.url().getHost().contains("finnhub")) {
+                finnhubCalls.incrementAndGet();
+                return Mono.just(ClientResponse.create(finnhubStatus)
+                        .header("Content-Type", "application/json")
+                        .body(finnhubStatus.is2xxSuccessful() ? FINNHUB_QUOTE : "{\"error\":\"unavailable\"}")
+                        .build());
+            }
+            yahooCalls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(YAHOO_CHART)
+                    .build());
+        });
+
+        MarketDataResilienceConfig config = new MarketDataResilienceConfig();
+        config.getFinnhubBudget().setCallsPerMinute(finnhubCallsPerMinute);
+        config.getFinnhubBudget().setBackgroundMaxWaitMillis(backgroundMaxWaitMillis);
+        config.getBreaker().setFailureThreshold(breakerFailures);
+
+        return new MarketDataService(builder, new ObjectMapper(), "test-key", "http://finnhub.test/api/v1",
+                5, "http://yahoo.test/v8/finance/chart", 0, config, registry);
+    }
+}
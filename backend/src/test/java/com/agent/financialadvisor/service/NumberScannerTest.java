@@ -0,0 +1,58 @@
+package com.agent.financialadvisor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NumberScannerTest {
+
+    private record Hit(String token, double value, int flags) {}
+
+    @Test
+    void parsesSeparatorsDecimalsAndContext() {
+        List<Hit> hits = scan("AAPL at $290.55, worth € 2,905.50, up 93.70 % and 12% today; 3 holdings.");
+
+        assertThat(hits).containsExactly(
+                new Hit("290.55", 290.55, NumberScanner.DECIMAL | NumberScanner.CURRENCY),
+                new Hit("2,905.50", 2905.50, NumberScanner.DECIMAL | NumberScanner.CURRENCY),
+                new Hit("93.70", 93.70, NumberScanner.DECIMAL | NumberScanner.PERCENT),
+                new Hit("12", 12, NumberScanner.PERCENT),
+                new Hit("3", 3, 0));
+    }
+
+    @Test
+    void trailingDotIsNotAFraction() {
+        assertThat(scan("Ends at 12. Then 1.5.3")).extracting(Hit::token).containsExactly("12", "1.5", "3");
+    }
+
+    @Test
+    void matchesLegacyRegexTokensAndValues() {
+        Pattern legacy = Pattern.compile("\\d[\\d,]*(?:\\.\\d+)?");
+        String text = "{\"c\":150.5,\"v\":98765432,\"t\":\"2026-06-09T20:00:00Z\",\"big\":12345678901234567890.125,"
+                + "\"tiny\":0.000000000000000000000000123,\"odd\":\"1,,2 1,.5 007.0100\"}";
+
+        List<String> expectedTokens = new ArrayList<>();
+        List<Double> expectedValues = new ArrayList<>();
+        Matcher m = legacy.matcher(text);
+        while (m.find()) {
+            expectedTokens.add(m.group());
+            expectedValues.add(Double.parseDouble(m.group().replace(",", "")));
+        }
+
+        List<Hit> hits = scan(text);
+        assertThat(hits).extracting(Hit::token).containsExactlyElementsOf(expectedTokens);
+        assertThat(hits).extracting(Hit::value).containsExactlyElementsOf(expectedValues);
+    }
+
+    private static List<Hit> scan(String text) {
+        List<Hit> hits = new ArrayList<>();
+        NumberScanner.scan(text, (start, end, value, flags) ->
+                hits.add(new Hit(text.substring(start, end), value, flags)));
+        return hits;
+    }
+}
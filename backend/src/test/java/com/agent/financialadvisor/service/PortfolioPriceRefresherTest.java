@@ -0,0 +1,158 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.repository.PortfolioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PortfolioPriceRefresher against an in-memory H2 schema shaped like the JPA tables (no Spring context).
+ */
+class PortfolioPriceRefresherTest {
+
+    private final MarketDataService marketDataService = mock(MarketDataService.class);
+    private JdbcTemplate jdbc;
+    private PortfolioValuationService valuationService;
+    private PortfolioPriceRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE portfolios (id BIGINT PRIMARY KEY, user_id VARCHAR(255) NOT NULL, " +
+                "total_value DECIMAL(19,2), total_gain_loss DECIMAL(19,2), total_gain_loss_percent DECIMAL(19,4), " +
+                "last_updated TIMESTAMP)");
+        jdbc.execute("CREATE TABLE stock_holdings (id BIGINT PRIMARY KEY, portfolio_id BIGINT NOT NULL, " +
+                "symbol VARCHAR(10) NOT NULL, quantity INT NOT NULL, average_price DECIMAL(19,2) NOT NULL, " +
+                "current_price DECIMAL(19,2), value DECIMAL(19,2), gain_loss DECIMAL(19,2), " +
+                "gain_loss_percent DECIMAL(19,4), last_updated TIMESTAMP)");
+
+        valuationService = new PortfolioValuationService(mock(PortfolioRepository.class),
+                marketDataService, new SimpleMeterRegistry(), 15, 100, new BigDecimal("0.5"), System::currentTimeMillis);
+        refresher = new PortfolioPriceRefresher(jdbc, new DataSourceTransactionManager(dataSource), marketDataService,
+                valuationService, new SimpleMeterRegistry(), false, 300, 60, 2);
+    }
+
+    private void portfolio(long id, String userId) {
+        jdbc.update("INSERT INTO portfolios (id, user_id, total_value) VALUES (?, ?, 0)", id, userId);
+    }
+
+    private void holding(long id, long portfolioId, String symbol, int qty, String avg, String current) {
+        jdbc.update("INSERT INTO stock_holdings (id, portfolio_id, symbol, quantity, average_price, current_price) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", id, portfolioId, symbol, qty, new BigDecimal(avg),
+                current != null ? new BigDecimal(current) : null);
+    }
+
+    private void quotes(Map<String, String> prices) {
+        Map<String, MarketDataService.Quote> quotes = new HashMap<>();
+        prices.forEach((symbol, price) -> quotes.put(symbol,
+                new MarketDataService.Quote(new BigDecimal(price), "finnhub", Instant.now())));
+        when(marketDataService.getQuotes(any(), eq(MarketDataService.Priority.BACKGROUND))).thenReturn(quotes);
+    }
+
+    private BigDecimal column(String table, String column, long id) {
+        return jdbc.queryForObject("SELECT " + column + " FROM " + table + " WHERE id = ?", BigDecimal.class, id);
+    }
+
+    @Test
+    void quotesEachSymbolOnceAndWritesMovedHoldingsAndTotals() {
+        portfolio(1, "alice");
+        portfolio(2, "bob");
+        holding(10, 1, "AAPL", 10, "150.00", "150.00");
+        holding(11, 1, "MSFT", 5, "300.00", "300.00");
+        holding(20, 2, "AAPL", 2, "100.00", null);
+        quotes(Map.of("AAPL", "180.00", "MSFT", "301.00")); // MSFT +0.33%: below the 0.5% threshold
+
+        PortfolioPriceRefresher.RefreshResult result = refresher.refreshOnce();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> symbols = ArgumentCaptor.forClass(Collection.class);
+        verify(marketDataService).getQuotes(symbols.capture(), eq(MarketDataService.Priority.BACKGROUND));
+        assertThat(symbols.getValue()).containsExactlyInAnyOrder("AAPL", "MSFT");
+
+        assertThat(result.holdingsUpdated()).isEqualTo(2);
+        assertThat(result.portfoliosUpdated()).isEqualTo(2);
+        assertThat(column("stock_holdings", "current_price", 10)).isEqualByComparingTo("180.00");
+        assertThat(column("stock_holdings", "value", 10)).isEqualByComparingTo("1800.00");
+        assertThat(column("stock_holdings", "gain_loss", 10)).isEqualByComparingTo("300.00");
+        assertThat(column("stock_holdings", "gain_loss_percent", 10)).isEqualByComparingTo("20.0000");
+        assertThat(column("stock_holdings", "current_price", 11)).isEqualByComparingTo("300.00");
+        assertThat(column("stock_holdings", "value", 11)).isNull();
+        assertThat(column("stock_holdings", "current_price", 20)).isEqualByComparingTo("180.00");
+
+        // Totals use every holding: MSFT at its stored 300.00
+        assertThat(column("portfolios", "total_value", 1)).isEqualByComparingTo("3300.00");
+        assertThat(column("portfolios", "total_gain_loss", 1)).isEqualByComparingTo("300.00");
+        assertThat(column("portfolios", "total_gain_loss_percent", 1)).isEqualByComparingTo("10.0000");
+        assertThat(column("portfolios", "total_value", 2)).isEqualByComparingTo("360.00");
+    }
+
+    @Test
+    void tradeCommittedBetweenReadAndWriteIsNotOverwritten() {
+        portfolio(1, "alice");
+        holding(10, 1, "AAPL", 10, "150.00", "150.00");
+        quotes(Map.of("AAPL", "180.00"));
+        // A buy lands after the refresher read the holdings but before its batched writes
+        JdbcTemplate racing = spy(jdbc);
+        doAnswer(invocation -> {
+            jdbc.update("UPDATE stock_holdings SET quantity = 20, average_price = 165.00 WHERE id = 10");
+            return invocation.callRealMethod();
+        }).when(racing).batchUpdate(startsWith("UPDATE stock_holdings"), anyCollection(), anyInt(), any());
+        refresher = new PortfolioPriceRefresher(racing, new DataSourceTransactionManager(jdbc.getDataSource()),
+                marketDataService, valuationService, new SimpleMeterRegistry(), false, 300, 60, 2);
+
+        refresher.refreshOnce();
+
+        assertThat(column("stock_holdings", "quantity", 10)).isEqualByComparingTo("20");
+        assertThat(column("stock_holdings", "value", 10)).isEqualByComparingTo("3600.00");
+        assertThat(column("stock_holdings", "gain_loss", 10)).isEqualByComparingTo("300.00");
+        assertThat(column("portfolios", "total_value", 1)).isEqualByComparingTo("3600.00");
+        assertThat(column("portfolios", "total_gain_loss", 1)).isEqualByComparingTo("300.00");
+        assertThat(column("portfolios", "total_gain_loss_percent", 1)).isEqualByComparingTo("9.0900");
+    }
+
+    @Test
+    void writesNothingWhenNoPriceMoved() {
+        portfolio(1, "alice");
+        holding(10, 1, "AAPL", 10, "150.00", "150.00");
+        quotes(Map.of("AAPL", "150.10"));
+
+        PortfolioPriceRefresher.RefreshResult result = refresher.refreshOnce();
+
+        assertThat(result.holdingsUpdated()).isZero();
+        assertThat(column("portfolios", "total_value", 1)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void emptyTablesSkipQuoting() {
+        PortfolioPriceRefresher.RefreshResult result = refresher.refreshOnce();
+
+        assertThat(result.symbols()).isZero();
+        verify(marketDataService, never()).getQuotes(any(), any());
+    }
+}
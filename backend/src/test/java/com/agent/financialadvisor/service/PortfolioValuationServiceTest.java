@@ -0,0 +1,157 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.model.Portfolio;
+import com.agent.financialadvisor.model.StockHolding;
+import com.agent.financialadvisor.repository.PortfolioRepository;
+import com.agent.financialadvisor.service.PortfolioValuationService.PortfolioValuation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PortfolioValuationServiceTest {
+
+    private static final Instant QUOTE_TIME = Instant.parse("2026-01-02T15:30:00Z");
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+    private final MarketDataService marketDataService = mock(MarketDataService.class);
+    private final PortfolioValuationService service = new PortfolioValuationService(portfolioRepository,
+            marketDataService, new SimpleMeterRegistry(), 15, 3, new BigDecimal("0.5"), now::get);
+
+    private static StockHolding holding(String symbol, int qty, String avg, String current) {
+        StockHolding h = new StockHolding();
+        h.setSymbol(symbol);
+        h.setQuantity(qty);
+        h.setAveragePrice(new BigDecimal(avg));
+        if (current != null) {
+            h.setCurrentPrice(new BigDecimal(current));
+        }
+        return h;
+    }
+
+    private static Portfolio portfolio(String userId, StockHolding... holdings) {
+        Portfolio p = new Portfolio();
+        p.setId(1L);
+        p.setUserId(userId);
+        p.setHoldings(new ArrayList<>(List.of(holdings)));
+        return p;
+    }
+
+    private void quote(String symbol, String price) {
+        when(marketDataService.getQuote(symbol))
+                .thenReturn(new MarketDataService.Quote(new BigDecimal(price), "finnhub", QUOTE_TIME));
+    }
+
+    @Test
+    void valuesPositionsAtLiveQuotesWithoutTouchingTheEntity() {
+        StockHolding aapl = holding("AAPL", 10, "150.00", "140.00");
+        Portfolio stored = portfolio("alice", aapl, holding("MSFT", 5, "300.00", null));
+        when(portfolioRepository.findByUserIdWithHoldings("alice")).thenReturn(Optional.of(stored));
+        quote("AAPL", "200.004");
+        when(marketDataService.getQuote("MSFT")).thenReturn(null);
+
+        PortfolioValuation valuation = service.valuate("alice").orElseThrow();
+
+        // AAPL at the live quote (persisted scale), MSFT at cost since it has no price at all
+        assertThat(valuation.holdings().get(0).currentPrice()).isEqualByComparingTo("200.00");
+        assertThat(valuation.holdings().get(0).gainLoss()).isEqualByComparingTo("500.00");
+        assertThat(valuation.holdings().get(1).value()).isEqualByComparingTo("1500.00");
+        assertThat(valuation.holdings().get(1).gainLoss()).isNull();
+        assertThat(valuation.totalValue()).isEqualByComparingTo("3500.00");
+        assertThat(valuation.totalGainLoss()).isEqualByComparingTo("500.00");
+        assertThat(valuation.totalGainLossPercent()).isEqualByComparingTo("16.6700");
+        assertThat(valuation.priceSource()).isEqualTo("finnhub");
+        assertThat(valuation.pricesAsOf()).isEqualTo(QUOTE_TIME);
+
+        assertThat(aapl.getCurrentPrice()).isEqualByComparingTo("140.00");
+        verify(portfolioRepository, never()).save(any());
+    }
+
+    @Test
+    void servesFromCacheUntilTtlOrInvalidation() {
+        when(portfolioRepository.findByUserIdWithHoldings("alice"))
+                .thenReturn(Optional.of(portfolio("alice", holding("AAPL", 1, "100.00", null))));
+        quote("AAPL", "110.00");
+
+        service.valuate("alice");
+        service.valuate("alice");
+        verify(portfolioRepository, times(1)).findByUserIdWithHoldings("alice");
+
+        now.addAndGet(15_000L);
+        service.valuate("alice");
+        verify(portfolioRepository, times(2)).findByUserIdWithHoldings("alice");
+
+        service.invalidate("alice");
+        service.valuate("alice");
+        verify(portfolioRepository, times(3)).findByUserIdWithHoldings("alice");
+    }
+
+    @Test
+    void appliesPropagatedPricesToCachedValuationsInMemory() {
+        when(portfolioRepository.findByUserIdWithHoldings("alice")).thenReturn(Optional.of(
+                portfolio("alice", holding("AAPL", 10, "100.00", null), holding("MSFT", 1, "300.00", null))));
+        quote("AAPL", "110.00");
+        quote("MSFT", "300.00");
+        service.valuate("alice");
+
+        Instant later = QUOTE_TIME.plusSeconds(30);
+        int updated = service.applyPrice("AAPL",
+                new MarketDataService.Quote(new BigDecimal("120.00"), "yahoo", later), List.of("alice", "bob"));
+
+        PortfolioValuation valuation = service.valuate("alice").orElseThrow();
+        assertThat(updated).isEqualTo(1);
+        assertThat(valuation.holdings().get(0).currentPrice()).isEqualByComparingTo("120.00");
+        assertThat(valuation.totalValue()).isEqualByComparingTo("1500.00");
+        assertThat(valuation.totalGainLoss()).isEqualByComparingTo("200.00");
+        assertThat(valuation.pricesAsOf()).isEqualTo(later);
+        verify(portfolioRepository, times(1)).findByUserIdWithHoldings("alice");
+    }
+
+    @Test
+    void cacheIsBounded() {
+        when(portfolioRepository.findByUserIdWithHoldings(anyString())).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 10; i++) {
+            now.incrementAndGet();
+            assertThat(service.valuate("user-" + i)).isEmpty();
+        }
+
+        assertThat(service.cachedValuationCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void persistsOnlyPricesThatMovedPastTheThreshold() {
+        StockHolding steady = holding("AAPL", 10, "150.00", "200.00");
+        StockHolding moved = holding("MSFT", 5, "300.00", "300.00");
+        StockHolding unpriced = holding("NVDA", 2, "100.00", null);
+        Portfolio stored = portfolio("alice", steady, moved, unpriced);
+        when(marketDataService.getQuote(anyString(), any())).thenAnswer(inv -> switch ((String) inv.getArgument(0)) {
+            case "AAPL" -> new MarketDataService.Quote(new BigDecimal("200.80"), "finnhub", QUOTE_TIME); // +0.4%
+            case "MSFT" -> new MarketDataService.Quote(new BigDecimal("303.00"), "finnhub", QUOTE_TIME); // +1.0%
+            default -> new MarketDataService.Quote(new BigDecimal("120.00"), "yahoo", QUOTE_TIME);
+        });
+
+        int changed = service.refreshPersistedPrices(stored, MarketDataService.Priority.BACKGROUND);
+
+        assertThat(changed).isEqualTo(2);
+        assertThat(steady.getCurrentPrice()).isEqualByComparingTo("200.00");
+        assertThat(moved.getCurrentPrice()).isEqualByComparingTo("303.00");
+        assertThat(unpriced.getCurrentPrice()).isEqualByComparingTo("120.00");
+        assertThat(stored.getTotalValue()).isEqualByComparingTo("3755.00");
+    }
+}
@@ -0,0 +1,93 @@
+package com.agent.financialadvisor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final ProviderCircuitBreaker breaker = new ProviderCircuitBreaker("finnhub", 3, 30_000L, now::get);
+
+    @Test
+    void opensAfterConsecutiveFailures_andSkipsCallsWhileOpen() {
+        breaker.recordFailure("timeout");
+        breaker.recordFailure("timeout");
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.recordFailure("429");
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        breaker.recordFailure("timeout");
+        breaker.recordFailure("timeout");
+        breaker.recordSuccess(120);
+        breaker.recordFailure("timeout");
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenLetsExactlyOneProbeThrough_andClosesOnSuccess() {
+        openBreaker();
+        now.addAndGet(30_000L);
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.allowRequest()).isFalse();
+
+        breaker.recordSuccess(200);
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void releasedProbeLetsTheNextCallerProbe() {
+        openBreaker();
+        now.addAndGet(30_000L);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.allowRequest()).isFalse();
+
+        breaker.releaseRequest();
+
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void failedProbeReopensImmediately() {
+        openBreaker();
+        now.addAndGet(30_000L);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.recordFailure("timeout");
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void latencyPercentileNeedsEnoughSamples() {
+        assertThat(breaker.latencyPercentile(0.95, 5)).isEqualTo(-1);
+        for (long latency = 100; latency <= 2000; latency += 100) {
+            breaker.recordSuccess(latency);
+        }
+
+        assertThat(breaker.latencyPercentile(0.95, 5)).isEqualTo(1900);
+        assertThat(breaker.latencyPercentile(0.5, 5)).isEqualTo(1000);
+    }
+
+    private void openBreaker() {
+        breaker.recordFailure("timeout");
+        breaker.recordFailure("timeout");
+        breaker.recordFailure("timeout");
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,250 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.config.RateLimitConfig;
+import com.agent.financialadvisor.dto.TokenBudget;
+import com.agent.financialadvisor.exception.RateLimitExceededException;
+import com.agent.financialadvisor.service.llm.LlmTokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitServiceTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(1_000));
+
+    private RateLimitService service(RateLimitConfig config) {
+        return new RateLimitService(config, new SimpleMeterRegistry(), now::get);
+    }
+
+    private static RateLimitConfig config(int userCapacity, int globalCapacity, int maxConcurrent) {
+        RateLimitConfig config = new RateLimitConfig();
+        config.getAdvisor().setCapacity(userCapacity);
+        config.getAdvisor().setRefillTokens(1);
+        config.getAdvisor().setRefillPeriodSeconds(60);
+        config.getGlobal().setCapacity(globalCapacity);
+        config.getGlobal().setRefillTokens(globalCapacity);
+        config.getGlobal().setRefillPeriodSeconds(60);
+        config.getGlobal().setMaxConcurrent(maxConcurrent);
+        config.getTokens().setCapacity(0);
+        return config;
+    }
+
+    private void advanceSeconds(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    void retryAfterIsBucket4jsWaitForTheNextToken() {
+        RateLimitService service = service(config(2, 100, 0));
+        service.acquireAdvisorPermit("alice", new LlmTokenUsage()).close();
+        service.acquireAdvisorPermit("alice", new LlmTokenUsage()).close();
+
+        assertThatThrownBy(() -> service.acquireAdvisorPermit("alice", new LlmTokenUsage()))
+                .isInstanceOfSatisfying(RateLimitExceededException.class, e -> {
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(60);
+                    assertThat(e.getRemainingTokens()).isZero();
+                });
+
+        advanceSeconds(45);
+        assertThatThrownBy(() -> service.acquireAdvisorPermit("alice", new LlmTokenUsage()))
+                .isInstanceOfSatisfying(RateLimitExceededException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(15));
+
+        advanceSeconds(15);
+        service.acquireAdvisorPermit("alice", new LlmTokenUsage()).close();
+        assertThat(service.getRemainingAdvisorTokens("bob")).isEqualTo(2);
+    }
+
+    @Test
+    void globalTierCapsAllUsersAndRefundsTheUserToken() {
+        RateLimitService service = service(config(5, 3, 0));
+        service.acquireAdvisorPermit("a", new LlmTokenUsage()).close();
+        service.acquireAdvisorPermit("b", new LlmTokenUsage()).close();
+        service.acquireAdvisorPermit("c", new LlmTokenUsage()).close();
+
+        assertThatThrownBy(() -> service.acquireAdvisorPermit("d", new LlmTokenUsage()))
+                .isInstanceOf(RateLimitExceededException.class)
+                .hasMessageContaining("busy");
+        assertThat(service.getRemainingAdvisorTokens("d")).isEqualTo(5);
+    }
+
+    @Test
+    void concurrencySlotIsHeldUntilThePermitCloses() {
+        RateLimitService service = service(config(10, 100, 1));
+        RateLimitService.AdvisorPermit running = service.acquireAdvisorPermit("alice", new LlmTokenUsage());
+
+        assertThatThrownBy(() -> service.acquireAdvisorPermit("bob", new LlmTokenUsage())).isInstanceOf(RateLimitExceededException.class);
+        assertThat(service.getRemainingAdvisorTokens("bob")).isEqualTo(10);
+
+        running.close();
+        running.close();
+        service.acquireAdvisorPermit("bob", new LlmTokenUsage()).close();
+        service.acquireAdvisorPermit("carol", new LlmTokenUsage()).close();
+    }
+
+    @Test
+    void idleBucketsExpireAfterAFullRefill() {
+        RateLimitService service = service(config(3, 100, 0));
+        service.acquireAdvisorPermit("alice", new LlmTokenUsage()).close();
+        service.acquireAdvisorPermit("bob", new LlmTokenUsage()).close();
+
+        advanceSeconds(120);
+        service.acquireAdvisorPermit("bob", new LlmTokenUsage()).close();
+        service.evictIdle();
+        assertThat(service.trackedUserCount()).isEqualTo(2);
+
+        advanceSeconds(60);
+        service.evictIdle();
+        assertThat(service.trackedUserCount()).isEqualTo(1);
+    }
+
+    @Test
+    void trackedUsersAreBounded() {
+        RateLimitConfig config = config(3, 1_000_000, 0);
+        config.setMaxTrackedUsers(100);
+        RateLimitService service = service(config);
+
+        for (int i = 0; i < 10_000; i++) {
+            advanceSeconds(1); // earlier users' buckets refill over the run and become evictable
+            service.acquireAdvisorPermit("user-" + i, new LlmTokenUsage()).close();
+        }
+
+        assertThat(service.trackedUserCount()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void fullMapTurnsNewUsersAwayInsteadOfResettingOthers() {
+        RateLimitConfig config = config(3, 1_000_000, 0);
+        config.setMaxTrackedUsers(10);
+        RateLimitService service = service(config);
+        for (int i = 0; i < 10; i++) {
+            service.acquireAdvisorPermit("user-" + i, new LlmTokenUsage()).close();
+        }
+
+        assertThatThrownBy(() -> service.acquireAdvisorPermit("newcomer", new LlmTokenUsage()))
+                .isInstanceOf(RateLimitExceededException.class)
+                .hasMessageContaining("busy");
+        assertThat(service.getRemainingAdvisorTokens("user-0")).isEqualTo(2);
+
+        advanceSeconds(180); // a full refill: the others are now indistinguishable from new buckets
+        service.acquireAdvisorPermit("newcomer", new LlmTokenUsage()).close();
+        assertThat(service.trackedUserCount()).isLessThanOrEqualTo(10);
+    }
+
+    private static RateLimitConfig tokenConfig() {
+        RateLimitConfig config = config(100, 1000, 0);
+        config.getTokens().setCapacity(10_000);
+        config.getTokens().setRefillTokens(10_000);
+        config.getTokens().setRefillPeriodSeconds(100);
+        config.getTokens().setInitialEstimate(2_000);
+        return config;
+    }
+
+    private static void run(RateLimitService.AdvisorPermit permit, LlmTokenUsage usage, long tokens) {
+        try (permit) {
+            usage.add(tokens);
+        }
+    }
+
+    @Test
+    void tokenBudgetIsSettledWithActualUsage() {
+        RateLimitService service = service(tokenConfig());
+        LlmTokenUsage cheap = new LlmTokenUsage();
+        run(service.acquireAdvisorPermit("alice", cheap), cheap, 500);
+
+        TokenBudget budget = service.getTokenBudget("alice");
+        assertThat(budget.remainingTokens()).isEqualTo(9_500);
+        // Next reservation moves toward what requests really cost: (3 * 2000 + 500) / 4
+        assertThat(budget.nextRequestEstimate()).isEqualTo(1_625);
+        assertThat(budget.secondsUntilAdmitted()).isZero();
+    }
+
+    @Test
+    void expensiveRequestLeavesTheBudgetInDebtUntilItRefills() {
+        RateLimitService service = service(tokenConfig());
+        LlmTokenUsage deep = new LlmTokenUsage();
+        run(service.acquireAdvisorPermit("alice", deep), deep, 12_000);
+
+        assertThat(service.getTokenBudget("alice").remainingTokens()).isEqualTo(-2_000);
+        assertThatThrownBy(() -> service.acquireAdvisorPermit("alice", new LlmTokenUsage()))
+                .isInstanceOfSatisfying(RateLimitExceededException.class,
+                        // 2000 debt + a 4500-token reservation at 100 tokens/s
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(65));
+        assertThat(service.getTokenBudget("alice").secondsUntilAdmitted()).isEqualTo(65);
+        assertThat(service.getRemainingAdvisorTokens("alice")).isEqualTo(99);
+
+        advanceSeconds(65);
+        service.acquireAdvisorPermit("alice", new LlmTokenUsage()).close();
+    }
+
+    @Test
+    void callsFinishingAfterSettlementAreStillCharged() {
+        RateLimitService service = service(tokenConfig());
+        LlmTokenUsage usage = new LlmTokenUsage();
+        run(service.acquireAdvisorPermit("alice", usage), usage, 1_000);
+
+        usage.add(3_000);
+
+        assertThat(service.getTokenBudget("alice").remainingTokens()).isEqualTo(6_000);
+    }
+
+    /** Request buckets refill fully every second, so only the token budget keeps a user from eviction. */
+    private static RateLimitConfig fastRefillTokenConfig(int maxTrackedUsers) {
+        RateLimitConfig config = tokenConfig();
+        config.getAdvisor().setRefillTokens(100);
+        config.getAdvisor().setRefillPeriodSeconds(1);
+        config.setMaxTrackedUsers(maxTrackedUsers);
+        return config;
+    }
+
+    @Test
+    void capEvictionNeverForgivesTokenDebt() {
+        RateLimitService service = service(fastRefillTokenConfig(5));
+        LlmTokenUsage deep = new LlmTokenUsage();
+        run(service.acquireAdvisorPermit("alice", deep), deep, 12_000);
+
+        for (int i = 0; i < 10; i++) {
+            advanceSeconds(1);
+            service.acquireAdvisorPermit("user-" + i, new LlmTokenUsage()).close();
+        }
+
+        // Still tracked: 10 s at 100 tokens/s against 2000 of debt (a fresh bucket would hold 10000)
+        assertThat(service.getTokenBudget("alice").remainingTokens()).isEqualTo(-1_000);
+        assertThatThrownBy(() -> service.acquireAdvisorPermit("alice", new LlmTokenUsage()))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void openPermitSettlesOnTheTrackedBucketEvenWhenTheMapIsFull() {
+        RateLimitService service = service(fastRefillTokenConfig(2));
+        LlmTokenUsage usage = new LlmTokenUsage();
+        RateLimitService.AdvisorPermit running = service.acquireAdvisorPermit("alice", usage);
+
+        advanceSeconds(2);
+        service.acquireAdvisorPermit("bob", new LlmTokenUsage()).close();
+        advanceSeconds(2);
+        service.acquireAdvisorPermit("carol", new LlmTokenUsage()).close();
+        run(running, usage, 5_000);
+
+        // 10000 - 2000 reserved + 400 refilled over 4 s - 3000 more than reserved
+        assertThat(service.getTokenBudget("alice").remainingTokens()).isEqualTo(5_400);
+    }
+
+    @Test
+    void rejectedRequestsRefundTheirReservation() {
+        RateLimitConfig config = tokenConfig();
+        config.getGlobal().setMaxConcurrent(1);
+        RateLimitService service = service(config);
+        RateLimitService.AdvisorPermit running = service.acquireAdvisorPermit("alice", new LlmTokenUsage());
+
+        assertThatThrownBy(() -> service.acquireAdvisorPermit("bob", new LlmTokenUsage()))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThat(service.getTokenBudget("bob").remainingTokens()).isEqualTo(10_000);
+        running.close();
+    }
+}
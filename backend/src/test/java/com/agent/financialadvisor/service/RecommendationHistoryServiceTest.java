@@ -0,0 +1,76 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.dto.RecommendationPage;
+import com.agent.financialadvisor.dto.RecommendationSummary;
+import com.agent.financialadvisor.model.Recommendation;
+import com.agent.financialadvisor.repository.RecommendationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecommendationHistoryServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 1, 12, 0, 0, 123_456_000);
+
+    private final RecommendationRepository repository = mock(RecommendationRepository.class);
+    private final RecommendationHistoryService service = new RecommendationHistoryService(repository);
+
+    private static List<RecommendationSummary> rows(int count, long firstId) {
+        List<RecommendationSummary> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new RecommendationSummary(firstId - i, "AAPL", Recommendation.RecommendationAction.BUY, 0.8,
+                    Recommendation.RiskLevel.MEDIUM, null, Recommendation.InvestmentHorizon.LONG, T0.minusMinutes(i)));
+        }
+        return rows;
+    }
+
+    @Test
+    void firstPageFetchesOneExtraRowToDetectMore() {
+        when(repository.findSummaries("alice", Limit.of(3))).thenReturn(rows(3, 100));
+
+        RecommendationPage page = service.page("alice", null, 2);
+
+        assertThat(page.items()).extracting(RecommendationSummary::id).containsExactly(100L, 99L);
+        assertThat(page.nextCursor()).isEqualTo(RecommendationHistoryService.encode(T0.minusMinutes(1), 99));
+    }
+
+    @Test
+    void cursorSeeksPastTheLastRowOfThePreviousPage() {
+        when(repository.findSummariesBefore(eq("alice"), any(), any(), eq(Limit.of(3)))).thenReturn(rows(1, 98));
+
+        RecommendationPage page = service.page("alice", RecommendationHistoryService.encode(T0.minusMinutes(1), 99), 2);
+
+        verify(repository).findSummariesBefore("alice", T0.minusMinutes(1), 99L, Limit.of(3));
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void pageSizeIsClamped() {
+        when(repository.findSummaries(anyString(), any())).thenReturn(List.of());
+
+        service.page("alice", "", 10_000);
+
+        verify(repository).findSummaries("alice", Limit.of(RecommendationHistoryService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> service.page("alice", "not-a-cursor!", 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(repository, never()).findSummariesBefore(anyString(), any(), any(), any());
+    }
+}
@@ -0,0 +1,89 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.service.SseEventHub.StreamEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SseEventHubTest {
+
+    private static final String SESSION = "session-1";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SseEventHub hub = new SseEventHub(3, 60, registry, now::get);
+
+    @Test
+    void publishesNothingUntilAStreamIsOpened() {
+        hub.publish(SESSION, "thinking", "ignored");
+        assertThat(hub.isActive(SESSION)).isFalse();
+
+        List<StreamEvent> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = hub.subscribe(SESSION, "alice", null).subscribe(received::add);
+        hub.publish(SESSION, "agent-activity", "planner");
+        hub.publish(SESSION, "response", "done");
+        subscription.dispose();
+
+        assertThat(hub.isActive(SESSION)).isTrue();
+        assertThat(received).extracting(StreamEvent::id).containsExactly(1L, 2L);
+        assertThat(received).extracting(StreamEvent::type).containsExactly("agent-activity", "response");
+    }
+
+    @Test
+    void newConnectionStartsAtTheLiveEdge() {
+        hub.subscribe(SESSION, "alice", null).subscribe().dispose();
+        hub.publish(SESSION, "thinking", "before");
+
+        List<StreamEvent> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = hub.subscribe(SESSION, "alice", null).subscribe(received::add);
+        hub.publish(SESSION, "thinking", "after");
+        subscription.dispose();
+
+        assertThat(received).extracting(StreamEvent::data).containsExactly("after");
+    }
+
+    @Test
+    void resumesAfterLastEventIdWithinTheReplayBuffer() {
+        hub.subscribe(SESSION, "alice", null).subscribe().dispose();
+        for (int i = 1; i <= 5; i++) {
+            hub.publish(SESSION, "agent-activity", "event-" + i);
+        }
+
+        List<StreamEvent> resumed = hub.subscribe(SESSION, "alice", 3L).take(2).collectList().block(TIMEOUT);
+        assertThat(resumed).extracting(StreamEvent::id).containsExactly(4L, 5L);
+
+        // Only the last 3 events are kept: resuming from 1 yields 3..5
+        List<StreamEvent> truncated = hub.subscribe(SESSION, "alice", 1L).take(3).collectList().block(TIMEOUT);
+        assertThat(truncated).extracting(StreamEvent::id).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void refusesAnotherUsersSession() {
+        hub.subscribe(SESSION, "alice", null);
+
+        assertThatThrownBy(() -> hub.subscribe(SESSION, "mallory", null)).isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    void evictsStreamsIdleLongerThanTheResumeWindow() {
+        Disposable open = hub.subscribe("open", "alice", null).subscribe();
+        hub.subscribe("closed", "alice", null).subscribe().dispose();
+
+        now.addAndGet(61_000L);
+        hub.evictIdle();
+
+        assertThat(hub.isActive("open")).isTrue();
+        assertThat(hub.isActive("closed")).isFalse();
+        assertThat(registry.get("advisor.stream.subscribers").gauge().value()).isEqualTo(1.0);
+        open.dispose();
+    }
+}
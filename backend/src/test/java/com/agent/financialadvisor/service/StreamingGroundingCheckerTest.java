@@ -0,0 +1,73 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.service.GroundingService.UngroundedFigure;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingGroundingCheckerTest {
+
+    private static final String TOOL_DATA =
+            "{\"symbol\": \"AAPL\", \"price\": 290.55, \"gainLossPercent\": 93.70, \"totalValue\": 2905.50}";
+
+    private final GroundingService grounding = new GroundingService();
+    private final GroundingIndex index = grounding.buildIndex(List.of(TOOL_DATA));
+    private final List<UngroundedFigure> events = new ArrayList<>();
+
+    @Test
+    void emitsAsSoonAsAFigureIsComplete() {
+        StreamingGroundingChecker checker = grounding.streamingChecker(index, events::add);
+
+        checker.accept("AAPL is at $312.4");
+        assertThat(events).isEmpty(); // "312.4" may still grow
+
+        checker.accept("0 today, worth $2,905.50");
+        assertThat(events).containsExactly(new UngroundedFigure("312.40", 12, 18));
+
+        checker.accept(" overall.");
+        assertThat(checker.finish()).containsExactly(new UngroundedFigure("312.40", 12, 18));
+    }
+
+    @Test
+    void figuresSplitAcrossChunksAreJoined() {
+        StreamingGroundingChecker checker = grounding.streamingChecker(index, events::add);
+
+        // "2,905.50" split around the separator and the decimal point is grounded; "2,9" alone is not.
+        checker.accept("Worth $2,9");
+        checker.accept("05");
+        checker.accept(".");
+        checker.accept("50, up 93.7");
+
+        assertThat(checker.finish()).isEmpty();
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void trailingFigureIsCheckedOnFinish() {
+        StreamingGroundingChecker checker = grounding.streamingChecker(index, events::add);
+
+        checker.accept("Target price 400");
+        assertThat(events).isEmpty();
+
+        checker.finish();
+        assertThat(events).extracting(UngroundedFigure::token).containsExactly("400");
+    }
+
+    @Test
+    void agreesWithWholeResponseCheckForAnyChunking() {
+        String response = "AAPL at $290.55 (2026), 3 holdings, fell 4.85% to $1,405.5 and 12. Then 93.70%.";
+        List<UngroundedFigure> expected = grounding.findUngroundedFigures(response, index);
+
+        for (int chunkSize = 1; chunkSize <= 7; chunkSize++) {
+            StreamingGroundingChecker checker = grounding.streamingChecker(index, null);
+            for (int i = 0; i < response.length(); i += chunkSize) {
+                checker.accept(response.substring(i, Math.min(response.length(), i + chunkSize)));
+            }
+            assertThat(checker.finish()).as("chunk size %d", chunkSize).isEqualTo(expected);
+        }
+        assertThat(expected).extracting(UngroundedFigure::token).containsExactly("4.85", "1,405.5");
+    }
+}
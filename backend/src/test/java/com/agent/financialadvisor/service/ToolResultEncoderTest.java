@@ -0,0 +1,216 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.config.ToolEncodingConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolResultEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void verboseByDefault_isPlainJacksonOutput() throws Exception {
+        ToolResultEncoder encoder = new ToolResultEncoder(objectMapper, new ToolEncodingConfig());
+        Map<String, Object> payload = stockPrice("AAPL", "150.50");
+
+        assertThat(encoder.isCompact("getStockPrice")).isFalse();
+        assertThat(encoder.encode("getStockPrice", payload)).isEqualTo(objectMapper.writeValueAsString(payload));
+    }
+
+    @Test
+    void compact_keepsKeysAndValuesVerbatim_andMovesNotesToSchema() throws Exception {
+        ToolResultEncoder encoder = compactEncoder("getStockPrice");
+
+        String result = encoder.encode("getStockPrice", stockPrice("AAPL", "150.50"));
+
+        assertThat(result).startsWith("{\"_schema\":{\"notes\":[\"note: Live data.");
+        assertThat(result).contains("\"price\":150.50");
+        assertThat(result).contains("\"symbol\":\"AAPL\"");
+        assertThat(result).contains("\"quoteTime\":\"2026-06-09T20:00:00Z\"");
+        assertThat(result).doesNotContain("\"note\"");
+    }
+
+    @Test
+    void compact_encodesHoldingsAsColumns() throws Exception {
+        ToolResultEncoder encoder = compactEncoder("getPortfolio");
+
+        String result = encoder.encode("getPortfolio", portfolio(2));
+
+        assertThat(result).contains("\"holdings\":{\"cols\":[\"symbol\",\"quantity\",\"averagePrice\","
+                + "\"currentPrice\",\"value\",\"gainLoss\",\"gainLossPercent\"]");
+        assertThat(result).contains("[\"SYM0\",10,100.00,");
+        assertThat(result).contains("[\"SYM1\",11,101.00,");
+    }
+
+    @Test
+    void compact_sendsSchemaOncePerConversation() throws Exception {
+        ToolResultEncoder encoder = compactEncoder("getStockPrice");
+
+        List<String> first = ToolResultEncoder.withinConversation(() -> List.of(
+                encode(encoder, stockPrice("AAPL", "150.50")),
+                encode(encoder, stockPrice("MSFT", "420.10"))));
+        // Sub-agents have no chat memory: the next conversation needs the legend again
+        String nextConversation = ToolResultEncoder.withinConversation(() -> encode(encoder, stockPrice("MSFT", "420.10")));
+        String outsideConversation = encode(encoder, stockPrice("NVDA", "900.00"));
+
+        assertThat(first.get(0)).contains("\"_schema\"");
+        assertThat(first.get(1)).doesNotContain("\"_schema\"").isEqualTo(
+                "{\"symbol\":\"MSFT\",\"price\":420.10,\"currency\":\"USD\",\"quoteTime\":\"2026-06-09T20:00:00Z\","
+                        + "\"source\":\"finnhub\",\"fetchedAt\":\"2026-06-09T20:00:03.120Z\"}");
+        assertThat(nextConversation).contains("\"_schema\"");
+        assertThat(outsideConversation).contains("\"_schema\"");
+    }
+
+    @Test
+    void withoutSchema_dropsOnlyTheLegend() throws Exception {
+        ToolResultEncoder encoder = compactEncoder("getStockPrice");
+        Map<String, Object> payload = stockPrice("AAPL", "150.50");
+        payload.put("note", "braces {like [these]} and \"quotes\" stay inside the legend");
+
+        String withSchema = encoder.encode("getStockPrice", payload);
+        String expected = ToolResultEncoder.withinConversation(() -> {
+            encode(encoder, payload);
+            return encode(encoder, payload);
+        });
+
+        assertThat(ToolResultEncoder.hasSchema(withSchema)).isTrue();
+        assertThat(ToolResultEncoder.withoutSchema(withSchema)).isEqualTo(expected);
+        assertThat(ToolResultEncoder.withoutSchema(expected)).isEqualTo(expected);
+    }
+
+    /**
+     * Token-count benchmark: one evaluator prompt's worth of raw tool data (4 quotes, 3 indicator
+     * snapshots, one 8-holding portfolio) in today's format vs the compact format, counted with the
+     * OpenAI tokenizer (cl100k, a close proxy for the gpt-4o tokenizer). The prompt is one
+     * conversation, so each tool's legend is counted once.
+     */
+    @Test
+    void benchmark_compactFormatUsesFewerTokensForEveryTool() throws Exception {
+        ToolResultEncoder verbose = new ToolResultEncoder(objectMapper, new ToolEncodingConfig());
+        ToolResultEncoder compact = compactEncoder("getStockPrice", "getTechnicalIndicators", "getPortfolio");
+        OpenAiTokenizer tokenizer = new OpenAiTokenizer("gpt-4");
+
+        Map<String, Integer> verboseTokens = new LinkedHashMap<>();
+        Map<String, Integer> compactTokens = new LinkedHashMap<>();
+        List<String[]> calls = new ArrayList<>();
+        for (String symbol : List.of("AAPL", "MSFT", "NVDA", "AMZN")) {
+            calls.add(new String[]{"getStockPrice", symbol});
+        }
+        for (String symbol : List.of("AAPL", "MSFT", "NVDA")) {
+            calls.add(new String[]{"getTechnicalIndicators", symbol});
+        }
+        calls.add(new String[]{"getPortfolio", "8"});
+
+        ToolResultEncoder.withinConversation(() -> {
+            for (String[] call : calls) {
+                Map<String, Object> payload = switch (call[0]) {
+                    case "getStockPrice" -> stockPrice(call[1], "190.25");
+                    case "getTechnicalIndicators" -> technicalSnapshot(call[1]);
+                    default -> portfolio(Integer.parseInt(call[1]));
+                };
+                verboseTokens.merge(call[0], tokenizer.estimateTokenCountInText(encode(verbose, call[0], payload)), Integer::sum);
+                compactTokens.merge(call[0], tokenizer.estimateTokenCountInText(encode(compact, call[0], payload)), Integer::sum);
+            }
+            return null;
+        });
+
+        for (String tool : verboseTokens.keySet()) {
+            assertThat(compactTokens.get(tool)).as(tool).isLessThan(verboseTokens.get(tool));
+        }
+        int verboseTotal = verboseTokens.values().stream().mapToInt(Integer::intValue).sum();
+        int compactTotal = compactTokens.values().stream().mapToInt(Integer::intValue).sum();
+        // 1399 → 1122 tokens at the time of writing
+        assertThat(compactTotal).isLessThan((int) (verboseTotal * 0.85));
+    }
+
+    private static String encode(ToolResultEncoder encoder, Map<String, Object> payload) {
+        return encode(encoder, "getStockPrice", payload);
+    }
+
+    private static String encode(ToolResultEncoder encoder, String tool, Map<String, Object> payload) {
+        try {
+            return encoder.encode(tool, payload);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ToolResultEncoder compactEncoder(String... tools) {
+        ToolEncodingConfig config = new ToolEncodingConfig();
+        config.setCompactTools(Set.of(tools));
+        return new ToolResultEncoder(objectMapper, config);
+    }
+
+    private static Map<String, Object> stockPrice(String symbol, String price) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("symbol", symbol);
+        payload.put("price", new BigDecimal(price));
+        payload.put("currency", "USD");
+        payload.put("quoteTime", "2026-06-09T20:00:00Z");
+        payload.put("source", "finnhub");
+        payload.put("fetchedAt", "2026-06-09T20:00:03.120Z");
+        payload.put("note", "Live data. quoteTime is when the price was last set by the provider; " +
+                "free tier may be delayed ~15 min during market hours.");
+        return payload;
+    }
+
+    private static Map<String, Object> technicalSnapshot(String symbol) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("symbol", symbol);
+        payload.put("source", "yahoo-finance-daily-candles");
+        payload.put("asOf", "2026-06-09T20:00:00Z");
+        payload.put("latestClose", new BigDecimal("155.00"));
+        payload.put("sma20", new BigDecimal("152.00"));
+        payload.put("sma50", new BigDecimal("147.50"));
+        payload.put("rsi14", new BigDecimal("61.30"));
+        payload.put("annualizedVolatilityPercent30d", new BigDecimal("24.18"));
+        payload.put("return1MonthPercent", new BigDecimal("3.41"));
+        payload.put("return3MonthsPercent", new BigDecimal("8.92"));
+        payload.put("return1YearPercent", new BigDecimal("21.07"));
+        payload.put("week52High", new BigDecimal("199.62"));
+        payload.put("week52Low", new BigDecimal("124.17"));
+        payload.put("tradingDays", 251);
+        payload.put("methodology", "SMA = simple moving average of closes; RSI14 uses Wilder smoothing; " +
+                "volatility = stdev of daily log returns (30d) annualized by sqrt(252).");
+        payload.put("livePrice", new BigDecimal("155.20"));
+        payload.put("livePriceSource", "finnhub");
+        payload.put("livePriceTime", "2026-06-09T20:00:00Z");
+        return payload;
+    }
+
+    private static Map<String, Object> portfolio(int holdings) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < holdings; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("symbol", "SYM" + i);
+            row.put("quantity", 10 + i);
+            row.put("averagePrice", new BigDecimal(100 + i).setScale(2));
+            row.put("currentPrice", new BigDecimal(120 + i).setScale(2));
+            row.put("value", new BigDecimal((120 + i) * (10 + i)).setScale(2));
+            row.put("gainLoss", new BigDecimal(20 * (10 + i)).setScale(2));
+            row.put("gainLossPercent", new BigDecimal("19.8000"));
+            rows.add(row);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", "alice@example.com");
+        payload.put("totalValue", new BigDecimal("10450.00"));
+        payload.put("totalGainLoss", new BigDecimal("1720.00"));
+        payload.put("totalGainLossPercent", new BigDecimal("19.7000"));
+        payload.put("holdingsCount", holdings);
+        payload.put("priceSource", "finnhub");
+        payload.put("pricesAsOf", "2026-06-09T20:00:00Z");
+        payload.put("holdings", rows);
+        payload.put("message", "Portfolio retrieved with current prices");
+        return payload;
+    }
+}
@@ -0,0 +1,99 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.model.Portfolio;
+import com.agent.financialadvisor.model.StockHolding;
+import com.agent.financialadvisor.model.UserProfile;
+import com.agent.financialadvisor.repository.PortfolioRepository;
+import com.agent.financialadvisor.repository.UserProfileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserContextServiceTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final UserProfileRepository userProfileRepository = mock(UserProfileRepository.class);
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+    private final UserContextService service = new UserContextService(userProfileRepository, portfolioRepository,
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 300, 3, now::get);
+
+    @BeforeEach
+    void setUp() {
+        UserProfile profile = new UserProfile();
+        profile.setUserId("alice");
+        profile.setRiskTolerance(UserProfile.RiskTolerance.AGGRESSIVE);
+        when(userProfileRepository.findByUserId("alice")).thenReturn(Optional.of(profile));
+
+        StockHolding aapl = new StockHolding();
+        aapl.setSymbol("AAPL");
+        aapl.setQuantity(10);
+        aapl.setValue(new BigDecimal("2000.00"));
+        StockHolding msft = new StockHolding();
+        msft.setSymbol("MSFT");
+        msft.setQuantity(2);
+        msft.setValue(new BigDecimal("800.00"));
+        Portfolio portfolio = new Portfolio();
+        portfolio.setUserId("alice");
+        portfolio.setHoldings(new ArrayList<>(List.of(aapl, msft)));
+        portfolio.setTotalValue(new BigDecimal("2800.00"));
+        when(portfolioRepository.findByUserIdWithHoldings("alice")).thenReturn(Optional.of(portfolio));
+    }
+
+    @Test
+    void rendersProfileHoldingsAndAllocationFromOnePortfolioLoad() {
+        String context = service.buildProfileContext("alice");
+
+        assertThat(context).contains("Risk tolerance: AGGRESSIVE", "AAPL x10, MSFT x2", "AAPL 71.4%",
+                "Concentration note: AAPL");
+        verify(portfolioRepository, times(1)).findByUserIdWithHoldings("alice");
+    }
+
+    @Test
+    void servesCachedContextUntilInvalidatedByAnEvent() {
+        service.buildProfileContext("alice");
+        service.buildProfileContext("alice");
+        verify(userProfileRepository, times(1)).findByUserId("alice");
+
+        service.onUserContextChanged(new UserContextChangedEvent("alice", "profile.update"));
+        service.buildProfileContext("alice");
+        verify(userProfileRepository, times(2)).findByUserId("alice");
+
+        now.addAndGet(300_000L);
+        service.buildProfileContext("alice");
+        verify(userProfileRepository, times(3)).findByUserId("alice");
+    }
+
+    @Test
+    void failedLookupsAreNotCached() {
+        when(userProfileRepository.findByUserId("bob")).thenThrow(new IllegalStateException("db down"));
+
+        assertThat(service.buildProfileContext("bob")).contains("unavailable");
+        assertThat(service.buildProfileContext("bob")).contains("unavailable");
+
+        verify(userProfileRepository, times(2)).findByUserId("bob");
+        assertThat(service.cachedContextCount()).isZero();
+    }
+
+    @Test
+    void cacheIsBounded() {
+        for (int i = 0; i < 10; i++) {
+            now.incrementAndGet();
+            service.buildProfileContext("user-" + i);
+        }
+
+        assertThat(service.cachedContextCount()).isLessThanOrEqualTo(3);
+    }
+}
@@ -0,0 +1,132 @@
+package com.agent.financialadvisor.service;
+
+import com.agent.financialadvisor.service.WebSocketEventPipeline.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class WebSocketEventPipelineTest {
+
+    private static final String SESSION = "session-1";
+    private static final String ACTIVITY = "/topic/agent-activity/" + SESSION;
+    private static final String REASONING = "/topic/reasoning/" + SESSION;
+
+    private final SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdownNow();
+    }
+
+    /** Long window so tests decide when the queue drains (via flush) unless a CRITICAL event forces it. */
+    private WebSocketEventPipeline pipeline(int capacity) {
+        return new WebSocketEventPipeline(template, registry, 60_000, capacity, dispatcher);
+    }
+
+    private static Map<String, Object> event(String type, String content) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", type);
+        event.put("content", content);
+        return event;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesEventsForADestinationIntoOneBatchFrame() {
+        WebSocketEventPipeline pipeline = pipeline(100);
+        pipeline.enqueue(SESSION, ACTIVITY, event("tool_call", "Get Stock Price"), Priority.NORMAL, true);
+        pipeline.enqueue(SESSION, ACTIVITY, event("tool_result", "done"), Priority.NORMAL, true);
+        pipeline.enqueue(SESSION, REASONING, event("reasoning", "Calling tool"), Priority.LOW, true);
+
+        verify(template, never()).convertAndSend(anyString(), any(Object.class));
+        assertThat(pipeline.queueDepth()).isEqualTo(3);
+
+        pipeline.flush(SESSION);
+
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(template).convertAndSend(eq(ACTIVITY), frame.capture());
+        Map<String, Object> batch = (Map<String, Object>) frame.getValue();
+        assertThat(batch).containsEntry("type", "batch").containsEntry("count", 2);
+        assertThat((List<Map<String, Object>>) batch.get("events"))
+                .extracting(e -> e.get("type")).containsExactly("tool_call", "tool_result");
+
+        // A lone event is sent as-is, not wrapped
+        verify(template).convertAndSend(REASONING, (Object) event("reasoning", "Calling tool"));
+        assertThat(pipeline.queueDepth()).isZero();
+        assertThat(registry.get("websocket.outbound.batch.size").summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mergesReasoningUpdatesWhenTheQueueIsFull() {
+        WebSocketEventPipeline pipeline = pipeline(2);
+        pipeline.enqueue(SESSION, ACTIVITY, event("planner", "Plan created"), Priority.NORMAL, true);
+        pipeline.enqueue(SESSION, REASONING, event("reasoning", "step 1"), Priority.LOW, true);
+        pipeline.enqueue(SESSION, REASONING, event("reasoning", "step 2"), Priority.LOW, true);
+        pipeline.enqueue(SESSION, REASONING, event("reasoning", "step 3"), Priority.LOW, true);
+
+        assertThat(pipeline.queueDepth()).isEqualTo(2);
+        assertThat(registry.get("websocket.outbound.merged").counter().count()).isEqualTo(2.0);
+
+        pipeline.flush(SESSION);
+
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(template).convertAndSend(eq(REASONING), frame.capture());
+        assertThat((Map<String, Object>) frame.getValue()).containsEntry("content", "step 1\nstep 2\nstep 3");
+    }
+
+    @Test
+    void normalEventsEvictReasoningBeforeOtherEvents() {
+        WebSocketEventPipeline pipeline = pipeline(2);
+        pipeline.enqueue(SESSION, REASONING, event("reasoning", "thinking"), Priority.LOW, true);
+        pipeline.enqueue(SESSION, ACTIVITY, event("planner", "Plan created"), Priority.NORMAL, true);
+        pipeline.enqueue(SESSION, ACTIVITY, event("agent_step", "Step 1"), Priority.NORMAL, true);
+
+        assertThat(registry.get("websocket.outbound.dropped").tag("priority", "low").counter().count())
+                .isEqualTo(1.0);
+
+        pipeline.flush(SESSION);
+
+        verify(template, never()).convertAndSend(eq(REASONING), any(Object.class));
+        verify(template).convertAndSend(eq(ACTIVITY), any(Object.class));
+    }
+
+    @Test
+    void criticalEventFlushesImmediatelyAfterEarlierEvents() {
+        WebSocketEventPipeline pipeline = pipeline(100);
+        pipeline.enqueue(SESSION, ACTIVITY, event("evaluator", "PASS"), Priority.NORMAL, true);
+        pipeline.enqueue(SESSION, "/topic/response/" + SESSION,
+                new WebSocketService.ThinkingMessage("response", "AAPL is $290.55"), Priority.CRITICAL, false);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                verify(template).convertAndSend(eq("/topic/response/" + SESSION), any(Object.class)));
+
+        InOrder order = inOrder(template);
+        order.verify(template).convertAndSend(eq(ACTIVITY), any(Object.class));
+        order.verify(template).convertAndSend(eq("/topic/response/" + SESSION), any(Object.class));
+        verify(template, times(2)).convertAndSend(anyString(), any(Object.class));
+    }
+}
@@ -1,6 +1,8 @@
 package com.agent.financialadvisor.service.agents;
 
+import com.agent.financialadvisor.config.ToolEncodingConfig;
 import com.agent.financialadvisor.service.MarketDataService;
+import com.agent.financialadvisor.service.ToolResultEncoder;
 import com.agent.financialadvisor.service.WebSocketService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.langchain4j.model.chat.ChatLanguageModel;
@@ -42,6 +44,7 @@ class MarketAnalysisAgentTest {
                 marketDataService,
                 objectMapper,
                 webSocketService,
+                new ToolResultEncoder(objectMapper, new ToolEncodingConfig()), // default: verbose format
                 chatLanguageModel
         );
     }
@@ -2,12 +2,14 @@ package com.agent.financialadvisor.service.agents;
 
 import com.agent.financialadvisor.model.UserProfile;
 import com.agent.financialadvisor.repository.UserProfileRepository;
+import com.agent.financialadvisor.service.UserContextChangedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -23,6 +25,9 @@ class UserProfileAgentTest {
     @Mock
     private UserProfileRepository userProfileRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserProfileAgent userProfileAgent;
 
@@ -85,6 +90,7 @@ class UserProfileAgentTest {
         assertThat(result).contains("updated successfully");
         verify(userProfileRepository, times(1)).findByUserId("test-user");
         verify(userProfileRepository, times(1)).save(any(UserProfile.class));
+        verify(eventPublisher).publishEvent(new UserContextChangedEvent("test-user", "agent.updateRiskTolerance"));
     }
 
     @Test
@@ -100,6 +106,7 @@ class UserProfileAgentTest {
         assertThat(result).contains("Invalid risk tolerance");
         verify(userProfileRepository, times(1)).findByUserId("test-user");
         verify(userProfileRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
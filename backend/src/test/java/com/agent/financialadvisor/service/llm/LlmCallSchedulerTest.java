@@ -0,0 +1,145 @@
+package com.agent.financialadvisor.service.llm;
+
+import com.agent.financialadvisor.config.LlmSchedulerConfig;
+import com.agent.financialadvisor.exception.LlmCapacityExceededException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class LlmCallSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void finalAnswerCallsOvertakeQueuedEnrichment() throws Exception {
+        LlmCallScheduler scheduler = scheduler(1, 0, 10);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch releaseHolder = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<?> holder = CompletableFuture.runAsync(() -> scheduler.execute("agent", 10, () -> {
+            holding.countDown();
+            awaitQuietly(releaseHolder);
+            return response(10);
+        }), callers);
+        holding.await(5, TimeUnit.SECONDS);
+
+        CompletableFuture<?> enrichment = submit(scheduler, LlmPriority.ENRICHMENT, order);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> scheduler.queueDepth("agent") == 1);
+        CompletableFuture<?> finalAnswer = submit(scheduler, LlmPriority.FINAL_ANSWER, order);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> scheduler.queueDepth("agent") == 2);
+        assertThat(meterRegistry.get("llm.scheduler.queue.depth").tag("tier", "agent").gauge().value()).isEqualTo(2.0);
+
+        releaseHolder.countDown();
+        CompletableFuture.allOf(holder, enrichment, finalAnswer).get(5, TimeUnit.SECONDS);
+
+        assertThat(order).containsExactly("FINAL_ANSWER", "ENRICHMENT");
+        assertThat(meterRegistry.get("llm.scheduler.wait").tag("priority", "FINAL_ANSWER").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void callIsShedWhenNoSlotFreesUpInTime() throws Exception {
+        LlmCallScheduler scheduler = scheduler(1, 0, 1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch releaseHolder = new CountDownLatch(1);
+        callers.submit(() -> scheduler.execute("agent", 10, () -> {
+            holding.countDown();
+            awaitQuietly(releaseHolder);
+            return response(10);
+        }));
+        holding.await(5, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> scheduler.execute("agent", 10, () -> response(10)))
+                .isInstanceOf(LlmCapacityExceededException.class)
+                .hasMessageContaining("Rate limit");
+        assertThat(meterRegistry.get("llm.scheduler.rejected").tag("tier", "agent").counter().count()).isEqualTo(1.0);
+        assertThat(scheduler.queueDepth("agent")).isZero();
+        releaseHolder.countDown();
+    }
+
+    @Test
+    void tokenBudgetIsSettledWithActualUsage() {
+        // Budget 1000 tokens/min; estimate 100 + 0 completion allowance, but the call really used 950.
+        LlmCallScheduler scheduler = scheduler(4, 1000, 1);
+
+        scheduler.execute("agent", 100, () -> response(950));
+
+        assertThat(meterRegistry.get("llm.tokens.used").tag("tier", "agent").counter().count()).isEqualTo(950.0);
+        assertThatThrownBy(() -> scheduler.execute("agent", 100, () -> response(100)))
+                .isInstanceOf(LlmCapacityExceededException.class)
+                .hasMessageContaining("token budget");
+    }
+
+    @Test
+    void actualUsageIsChargedToTheBoundRequestAndLateCallsGoToTheSettlement() {
+        LlmCallScheduler scheduler = scheduler(4, 0, 1);
+        LlmTokenUsage usage = new LlmTokenUsage();
+        List<Long> lateCharges = new CopyOnWriteArrayList<>();
+
+        LlmTokenUsage.within(usage, () -> scheduler.execute("agent", 100, () -> response(950)));
+        LlmTokenUsage.within(usage, () -> scheduler.execute("agent", 100, () -> response(50)));
+        assertThatThrownBy(() -> LlmTokenUsage.within(usage, () -> scheduler.execute("agent", 100, () -> {
+            throw new IllegalStateException("provider down");
+        }))).isInstanceOf(IllegalStateException.class);
+        scheduler.execute("agent", 100, () -> response(400));
+
+        assertThat(usage.settle(lateCharges::add)).isEqualTo(1000);
+        assertThat(usage.callCount()).isEqualTo(2);
+        LlmTokenUsage.within(usage, () -> scheduler.execute("agent", 100, () -> response(300)));
+        assertThat(lateCharges).containsExactly(300L);
+        assertThat(LlmTokenUsage.current()).isNull();
+    }
+
+    private CompletableFuture<?> submit(LlmCallScheduler scheduler, LlmPriority priority, List<String> order) {
+        return CompletableFuture.runAsync(() -> LlmCallScheduler.withPriority(priority,
+                () -> scheduler.execute("agent", 10, () -> {
+                    order.add(priority.name());
+                    return response(10);
+                })), callers);
+    }
+
+    private LlmCallScheduler scheduler(int maxConcurrent, int tokensPerMinute, int queueTimeoutSeconds) {
+        LlmSchedulerConfig.TierConfig tier = new LlmSchedulerConfig.TierConfig();
+        tier.setMaxConcurrent(maxConcurrent);
+        tier.setTokensPerMinute(tokensPerMinute);
+        tier.setCompletionTokensEstimate(0);
+        LlmSchedulerConfig config = new LlmSchedulerConfig();
+        config.setQueueTimeoutSeconds(queueTimeoutSeconds);
+        config.setTiers(Map.of("agent", tier));
+        return new LlmCallScheduler(config, meterRegistry);
+    }
+
+    private static Response<AiMessage> response(int totalTokens) {
+        return Response.from(AiMessage.from("ok"), new TokenUsage(totalTokens / 2, totalTokens - totalTokens / 2));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
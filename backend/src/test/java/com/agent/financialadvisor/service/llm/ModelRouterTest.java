@@ -0,0 +1,75 @@
+package com.agent.financialadvisor.service.llm;
+
+import com.agent.financialadvisor.exception.LlmCapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelRouterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ModelRouter router = new ModelRouter(meterRegistry, true);
+
+    @Test
+    void onlySimpleStepsGoToTheCheapTier() {
+        assertThat(router.chooseRoute("SIMPLE")).isEqualTo(ModelRouter.Route.CHEAP);
+        assertThat(router.chooseRoute("simple")).isEqualTo(ModelRouter.Route.CHEAP);
+        assertThat(router.chooseRoute("COMPLEX")).isEqualTo(ModelRouter.Route.FULL);
+        assertThat(router.chooseRoute("")).isEqualTo(ModelRouter.Route.FULL);
+        assertThat(new ModelRouter(meterRegistry, false).chooseRoute("SIMPLE")).isEqualTo(ModelRouter.Route.FULL);
+    }
+
+    @Test
+    void goodCheapAnswerIsKept() {
+        List<ModelRouter.Route> seen = new ArrayList<>();
+
+        String result = router.run("MARKETANALYSIS", ModelRouter.Route.CHEAP, () -> {
+            seen.add(ModelRouter.currentRoute());
+            return "Apple (AAPL) is trading at $150.50 (source: finnhub).";
+        });
+
+        assertThat(result).contains("150.50");
+        assertThat(seen).containsExactly(ModelRouter.Route.CHEAP);
+        assertThat(meterRegistry.get("llm.route.latency").tag("route", "CHEAP").timer().count()).isEqualTo(1);
+        assertThat(ModelRouter.currentRoute()).isEqualTo(ModelRouter.Route.FULL);
+    }
+
+    @Test
+    void toolErrorOnCheapTierEscalatesToFullModel() {
+        List<ModelRouter.Route> seen = new ArrayList<>();
+
+        String result = router.run("MARKETANALYSIS", ModelRouter.Route.CHEAP, () -> {
+            seen.add(ModelRouter.currentRoute());
+            return seen.size() == 1
+                    ? "{\"error\": \"Unable to fetch price for FIG\"}"
+                    : "Figma (FIG) is trading at $36.10 (source: yahoo-finance).";
+        });
+
+        assertThat(result).contains("36.10");
+        assertThat(seen).containsExactly(ModelRouter.Route.CHEAP, ModelRouter.Route.FULL);
+        assertThat(meterRegistry.get("llm.route.escalations").tag("agent", "MARKETANALYSIS").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("llm.route.latency").tag("route", "ESCALATED").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void exceptionOnCheapTierEscalates_butCapacityErrorsDoNot() {
+        int[] calls = {0};
+        String result = router.run("USERPROFILE", ModelRouter.Route.CHEAP, () -> {
+            if (calls[0]++ == 0) {
+                throw new IllegalStateException("malformed tool call");
+            }
+            return "Your portfolio is worth $10,450.00 across 8 holdings.";
+        });
+        assertThat(result).contains("10,450.00");
+
+        assertThatThrownBy(() -> router.run("USERPROFILE", ModelRouter.Route.CHEAP, () -> {
+            throw new LlmCapacityExceededException("Rate limit: LLM tier 'security' at capacity", "security");
+        })).isInstanceOf(LlmCapacityExceededException.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.agent.financialadvisor.service.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecurityVerdictCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SecurityVerdictCache cache = new SecurityVerdictCache(60, 600, 10, registry, now::get);
+
+    @Test
+    void keyFoldsCaseWhitespaceAndDigits() {
+        assertThat(SecurityVerdictCache.keyFor("What is AAPL at 2pm?"))
+                .isEqualTo(SecurityVerdictCache.keyFor("  what is\taapl  at 15pm? "))
+                .isNotEqualTo(SecurityVerdictCache.keyFor("What is MSFT at 2pm?"));
+    }
+
+    @Test
+    void safeAndUnsafeVerdictsExpireSeparately() {
+        cache.put("safe", new SecurityVerdictCache.Verdict(true, "SAFE"));
+        cache.put("unsafe", new SecurityVerdictCache.Verdict(false, "UNSAFE: injection"));
+
+        now.addAndGet(61_000L);
+
+        assertThat(cache.get("safe")).isNull();
+        assertThat(cache.get("unsafe")).isEqualTo(new SecurityVerdictCache.Verdict(false, "UNSAFE: injection"));
+
+        now.addAndGet(600_000L);
+        assertThat(cache.get("unsafe")).isNull();
+    }
+
+    @Test
+    void staysBoundedAndReportsHitRatio() {
+        for (int i = 0; i < 50; i++) {
+            now.incrementAndGet();
+            cache.put("k" + i, new SecurityVerdictCache.Verdict(true, "SAFE"));
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        assertThat(cache.get("k49")).isNotNull();   // newest kept, oldest evicted
+        assertThat(cache.get("k0")).isNull();
+
+        assertThat(cache.hitRatio()).isEqualTo(0.5);
+        assertThat(registry.get("security.verdict.cache").tag("result", "hit").counter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.agent.financialadvisor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedExpiringMapTest {
+
+    private record Entry(String value, long expiresAt, boolean pinned) {}
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    private BoundedExpiringMap<String, Entry> map(int maxEntries) {
+        return new BoundedExpiringMap<>("test", maxEntries, Entry::expiresAt, entry -> !entry.pinned(), now::get);
+    }
+
+    @Test
+    void expiredEntriesAreNotServed() {
+        BoundedExpiringMap<String, Entry> map = map(10);
+        map.put("a", new Entry("A", 2_000, false));
+
+        assertThat(map.get("a").value()).isEqualTo("A");
+        now.set(2_000);
+        assertThat(map.get("a")).isNull();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    void fullMapDropsExpiredEntriesFirst() {
+        BoundedExpiringMap<String, Entry> map = map(10);
+        map.put("expired", new Entry("x", 500, false));
+        for (int i = 1; i < 10; i++) {
+            map.put("k" + i, new Entry("v" + i, 2_000 + i, false));
+        }
+
+        map.put("new", new Entry("n", 5_000, false));
+
+        assertThat(map.size()).isEqualTo(10);
+        assertThat(map.get("expired")).isNull();
+        assertThat(map.get("k1")).isNotNull();
+    }
+
+    @Test
+    void fullMapOfLiveEntriesDropsThoseClosestToExpiryDownTo90Percent() {
+        BoundedExpiringMap<String, Entry> map = map(10);
+        for (int i = 0; i < 10; i++) {
+            map.put("k" + i, new Entry("v" + i, 2_000 + i, false));
+        }
+
+        map.put("new", new Entry("n", 5_000, false));
+
+        assertThat(map.size()).isEqualTo(10);
+        assertThat(map.get("k0")).isNull();
+        assertThat(map.get("k1")).isNotNull();
+        assertThat(map.get("new")).isNotNull();
+    }
+
+    @Test
+    void pinnedEntriesAreNeverEvictedAndNewKeysAreRefusedWhenOnlyPinnedRemain() {
+        BoundedExpiringMap<String, Entry> map = map(3);
+        for (int i = 0; i < 3; i++) {
+            map.put("p" + i, new Entry("p", 500, true));
+        }
+
+        assertThat(map.get("p0")).isNotNull();   // expired, but pinned
+        assertThat(map.evictExpired()).isZero();
+        assertThat(map.put("new", new Entry("n", 5_000, false))).isFalse();
+        assertThat(map.compute("new", (k, v) -> new Entry("n", 5_000, false))).isNull();
+        assertThat(map.put("p1", new Entry("p", 600, true))).isTrue();   // replacing an existing key needs no room
+        assertThat(map.size()).isEqualTo(3);
+    }
+}
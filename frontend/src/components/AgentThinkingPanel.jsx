@@ -79,14 +79,16 @@ const AgentThinkingPanel = ({ sessionId, clearTrigger }) => {
         try {
           const body = typeof message.body === 'string' ? message.body : JSON.stringify(message.body);
           const data = JSON.parse(body);
-          const event = {
-            id: `evt-${data.timestamp || Date.now()}-${Math.random().toString(36).slice(2)}`,
-            type: data.type || 'unknown',
-            content: data.content || '',
-            ...data,
-            timestamp: new Date(data.timestamp || Date.now()),
-          };
-          setEvents((prev) => [...prev, event]);
+          // The server coalesces bursts into {type: 'batch', events: [...]}
+          const items = data.type === 'batch' && Array.isArray(data.events) ? data.events : [data];
+          const newEvents = items.map((item) => ({
+            id: `evt-${item.timestamp || Date.now()}-${Math.random().toString(36).slice(2)}`,
+            type: item.type || 'unknown',
+            content: item.content || '',
+            ...item,
+            timestamp: new Date(item.timestamp || Date.now()),
+          }));
+          setEvents((prev) => [...prev, ...newEvents]);
         } catch (e) {
           console.error('[AgentThinkingPanel] Parse error:', e, message);
         }